@@ -9,6 +9,8 @@
 
 package cloudsim;
 
+import cloudsim.engine.EventKernel;
+import eduni.simjava.Sim_event;
 import eduni.simjava.Sim_port;
 
 import gridsim.GridSim;
@@ -31,6 +33,12 @@ import gridsim.IO_data;
  */
 public class CloudSim extends GridSimCore {
 	
+	/** The kernel driving this entity, or <tt>null</tt> if it runs as a SimJava thread. */
+	private EventKernel eventKernel;
+	
+	/** Number of events scheduled by this entity, including pauses. */
+	private long eventsScheduled;
+	
 	/**
 	 * Allocates a new CloudSim object
 	 * @param name the name to be associated with this entity (as
@@ -65,7 +73,7 @@ public class CloudSim extends GridSimCore {
         	delay+=getNetworkDelay(srcID,destID);
         }
         
-        super.sim_schedule(destID, delay, gridSimTag);
+        sim_schedule(destID, delay, gridSimTag);
     }
     
 	/**
@@ -91,9 +99,110 @@ public class CloudSim extends GridSimCore {
         	delay+=getNetworkDelay(srcID,destID);
         }
         
-        super.sim_schedule(destID, delay, gridSimTag, data);
+        sim_schedule(destID, delay, gridSimTag, data);
     }
 	
+	/**
+	 * Schedules an event to a given entity. Events are handed to the {@link EventKernel}
+	 * if this entity is attached to one, or to SimJava otherwise.
+	 * @param destID ID of the entity receiving the event
+	 * @param delay time, from the current simulation time, to deliver the event
+	 * @param gridSimTag tag of the event
+	 * @param data event data
+	 * @pre destID >= 0
+	 * @pre delay >= 0.0
+	 * @post $none
+	 */
+	@Override
+	public void sim_schedule(int destID, double delay, int gridSimTag, Object data) {
+		eventsScheduled++;
+		if (eventKernel != null) {
+			eventKernel.schedule(get_id(), destID, delay, gridSimTag, data);
+		} else {
+			super.sim_schedule(destID, delay, gridSimTag, data);
+		}
+	}
+	
+	/**
+	 * Schedules an event without data to a given entity.
+	 * @see #sim_schedule(int, double, int, Object)
+	 */
+	@Override
+	public void sim_schedule(int destID, double delay, int gridSimTag) {
+		eventsScheduled++;
+		if (eventKernel != null) {
+			eventKernel.schedule(get_id(), destID, delay, gridSimTag, null);
+		} else {
+			super.sim_schedule(destID, delay, gridSimTag);
+		}
+	}
+	
+	/**
+	 * Pauses this entity. A pause is a hold event in SimJava, so it is counted as a scheduled
+	 * event to keep event counts comparable between SimJava and the {@link EventKernel}.
+	 * @param delay the time to pause for
+	 */
+	@Override
+	public void sim_pause(double delay) {
+		eventsScheduled++;
+		if (eventKernel != null) {
+			eventKernel.pause(get_id(), delay);
+		} else {
+			super.sim_pause(delay);
+		}
+	}
+	
+	/**
+	 * Keeps this entity busy for the given time. Under the {@link EventKernel} being busy and
+	 * paused are the same.
+	 * @param delay the time to be busy for
+	 */
+	@Override
+	public void sim_process(double delay) {
+		eventsScheduled++;
+		if (eventKernel != null) {
+			eventKernel.pause(get_id(), delay);
+		} else {
+			super.sim_process(delay);
+		}
+	}
+	
+	/**
+	 * Gets the next event for this entity, waiting for one if there is none.
+	 * @param ev the event to be filled in
+	 */
+	@Override
+	public void sim_get_next(Sim_event ev) {
+		if (eventKernel != null) {
+			eventKernel.getNextEvent(get_id(), ev);
+		} else {
+			super.sim_get_next(ev);
+		}
+	}
+	
+	/**
+	 * Attaches this entity to an {@link EventKernel}. From then on this entity is driven by
+	 * the kernel and all its events are scheduled through it.
+	 * @param eventKernel the kernel
+	 */
+	public void setEventKernel(EventKernel eventKernel) {
+		this.eventKernel = eventKernel;
+	}
+	
+	/**
+	 * @return the kernel driving this entity, or <tt>null</tt> if it runs as a SimJava thread
+	 */
+	public EventKernel getEventKernel() {
+		return eventKernel;
+	}
+	
+	/**
+	 * @return the number of events scheduled by this entity so far
+	 */
+	public long getEventsScheduled() {
+		return eventsScheduled;
+	}
+	
 	/**
 	 * Gets the network delay associated to the sent of a message from
 	 * a given source to a given destination.
@@ -113,14 +222,55 @@ public class CloudSim extends GridSimCore {
 	///////////////////////////////////////////////////////////////////////////////
 	//deprecated methods, fixes here to increase compatibility with GridSim
 	///////////////////////////////////////////////////////////////////////////////
+    /**
+     * Looks up the id of an entity by name. SimJava searches its entity list for every lookup,
+     * so under the {@link EventKernel} the kernel's name index is used instead.
+     * @param entityName name of the entity
+     * @return the entity id, or -1 if there is no such entity
+     */
+    protected int getEntityId(String entityName) {
+    	if (eventKernel != null) {
+    		return eventKernel.getEntityId(entityName);
+    	}
+    	
+    	return GridSim.getEntityId(entityName);
+    }
+    
+    /**
+     * Looks up the name of an entity by id, through the {@link EventKernel} if this entity
+     * is attached to one.
+     * @param entityID id of the entity
+     * @return the entity name, or <tt>null</tt> if there is no such entity
+     */
+    protected String getEntityName(int entityID) {
+    	if (eventKernel != null) {
+    		return eventKernel.getEntityName(entityID);
+    	}
+
+    	return GridSim.getEntityName(entityID);
+    }
+
+    /**
+     * Gets the current simulation time. Under the {@link EventKernel} this is the kernel's
+     * clock, which is not necessarily shared with GridSim.clock().
+     * @return the current simulation time
+     */
+    protected double clock() {
+    	if (eventKernel != null) {
+    		return eventKernel.clock();
+    	}
+
+    	return GridSim.clock();
+    }
+
     /*
      * @deprecated As in CloudSim entity ID should be used instead of entity name
-     */ 
+     */
     protected void send(String entityName, double delay, int gridSimTag) {
         
     	if (entityName == null)  return;
         
-        int destID = GridSim.getEntityId(entityName);
+        int destID = getEntityId(entityName);
         if (destID < 0) {
             System.out.println(super.get_name() + ".send(): Error - invalid entity name \"" + entityName + "\".");
             return;
@@ -136,7 +286,7 @@ public class CloudSim extends GridSimCore {
         
     	if (entityName == null)  return;
         
-        int destID = GridSim.getEntityId(entityName);
+        int destID = getEntityId(entityName);
         if (destID < 0) {
             System.out.println(super.get_name() + ".send(): Error - invalid entity name \"" + entityName + "\".");
             return;
@@ -10,6 +10,7 @@
 
 package cloudsim;
 
+import cloudsim.engine.EventDrivenEntity;
 import eduni.simjava.Sim_event;
 import eduni.simjava.Sim_system;
 import gridsim.GridSim;
@@ -39,7 +40,7 @@ import java.util.Set;
  * @since        CloudSim Toolkit 1.0 Beta
  * @invariant $none
  */
-public class DataCenter extends CloudSim {
+public class DataCenter extends CloudSim implements EventDrivenEntity {
 	
 	protected DatacenterCharacteristics resource_;
     protected String regionalGISName_;
@@ -159,6 +160,26 @@ public class DataCenter extends CloudSim {
         super.terminateIOEntities();
     }
     
+    /**
+     * Starts this Datacenter when it is driven by an {@link cloudsim.engine.EventKernel}.
+     * The <tt>GridInformationService</tt> does not take part in such a run, so there
+     * is nothing to register with.
+     * @pre $none
+     * @post $none
+     */
+    public void startEntity() {
+        registerOtherEntity();
+    }
+    
+    /**
+     * Called when a run driven by an {@link cloudsim.engine.EventKernel} has ended.
+     * @pre $none
+     * @post $none
+     */
+    public void shutdownEntity() {
+        // nothing to clean up, no I/O entities are used by the kernel
+    }
+    
     /**
      * Overrides this method when making a new and different type of resource.
      * This method is called by {@link #body()} to register other type to
@@ -182,7 +203,7 @@ public class DataCenter extends CloudSim {
      * @pre ev != null
      * @post $none
      */
-    protected void processEvent(Sim_event ev) {
+    public void processEvent(Sim_event ev) {
         int src_id = -1;
         switch (ev.get_tag()) {
             // Resource characteristics inquiry
@@ -367,7 +388,7 @@ public class DataCenter extends CloudSim {
 
 	        /******     // DEBUG
 	         System.out.println(super.get_name() + ".addMasterFile(): " +
-	         file.getName() + " from " + GridSim.getEntityName(sentFrom));
+	         file.getName() + " from " + getEntityName(sentFrom));
 	         *******/
 
 	        Object[] data = new Object[3];
@@ -711,7 +732,7 @@ public class DataCenter extends CloudSim {
 
             // checks whether this Cloudlet has finished or not
             if (cl.isFinished() == true){
-                String name = GridSim.getEntityName(cl.getUserID());
+                String name = getEntityName(cl.getUserID());
                 System.out.println(super.get_name()+": Warning - Gridlet #"+cl.getGridletID()+" owned by "+name+" is already completed/finished.");
                 System.out.println("Therefore, it is not being executed again");
                 System.out.println();
@@ -754,7 +775,7 @@ public class DataCenter extends CloudSim {
             	double estimatedFinishTime = (cl.getGridletLength()/(capacity*cl.getNumPE())); //time to process the gridlet
             	//System.out.println(estimatedFinishTime+"="+gl.getGridletLength()+"/("+capacity+"*"+gl.getNumPE()+")");
             	estimatedFinishTime+=fileTransferTime;
-            	//System.out.println(GridSim.clock()+": Next event set to "+estimatedFinishTime);
+            	//System.out.println(clock()+": Next event set to "+estimatedFinishTime);
             	super.send(this.get_id(),estimatedFinishTime,DatacenterTags.VM_DATACENTER_EVENT);
             }
  
@@ -807,7 +828,7 @@ public class DataCenter extends CloudSim {
 		boolean status = false;
 		if(eventTime>0.0){//if this gridlet is in the exec queue
 			status=true;
-			if(eventTime>GridSim.clock()) super.sim_schedule(this.get_id(),eventTime,DatacenterTags.VM_DATACENTER_EVENT);
+			if(eventTime>clock()) super.sim_schedule(this.get_id(),eventTime,DatacenterTags.VM_DATACENTER_EVENT);
         }
 		
 		if(ack){
@@ -893,13 +914,13 @@ public class DataCenter extends CloudSim {
 	protected void updateCloudletProcessing(){
 
 		//if some time passed since last processing
-		if(GridSim.clock()>this.lastProcessTime){
+		if(clock()>this.lastProcessTime){
 			MachineList list = vmprovisioner.getResources();
 			double smallerTime = Double.MAX_VALUE;
 			//for each host...
 			for(int i=0;i<list.size();i++){
 				Host host = (Host) list.get(i);
-				double time = host.updateVMsProcessing(GridSim.clock());//inform VMs to update processing
+				double time = host.updateVMsProcessing(clock());//inform VMs to update processing
 				
 				//what time do we expect that the next cloudlet will finish?
 				if(time<smallerTime)
@@ -907,10 +928,10 @@ public class DataCenter extends CloudSim {
 			}
 			
 			//schedules an event to the next time, if valid
-			if (smallerTime>GridSim.clock()+0.01 && smallerTime!=Double.MAX_VALUE) {
-				super.sim_schedule(this.get_id(),smallerTime-GridSim.clock(),DatacenterTags.VM_DATACENTER_EVENT);
+			if (smallerTime>clock()+0.01 && smallerTime!=Double.MAX_VALUE) {
+				super.sim_schedule(this.get_id(),smallerTime-clock(),DatacenterTags.VM_DATACENTER_EVENT);
 			}
-			this.lastProcessTime=GridSim.clock();
+			this.lastProcessTime=clock();
 		}
 	}
 	
@@ -145,7 +145,7 @@ public class DatacenterBroker extends CloudSim {
 		//queries GIS about available datacenters
 		sim_process(5.0);
 		LinkedList datacenterList = GridSim.getGridResourceList();
-		System.out.println(GridSim.clock()+": "+this.get_name()+ ": Cloud Resource List received with "+datacenterList.size()+" resource(s)");
+		System.out.println(clock()+": "+this.get_name()+ ": Cloud Resource List received with "+datacenterList.size()+" resource(s)");
 		
 		//initilize fields
 		this.datacenters= datacenterList.size();
@@ -254,7 +254,7 @@ public class DatacenterBroker extends CloudSim {
 			this.vmMapping[vmId]=this.datacenterID[id];
 			this.vmsCreated++;
 		} else {
-        	System.out.println(GridSim.clock()+": "+this.get_name()+ ": Creation of VM #"+((VirtualMachine)this.vmlist.get(vmId)).getVmId()+" failed in "+this.datacenterChar[id].getResourceName());
+        	System.out.println(clock()+": "+this.get_name()+ ": Creation of VM #"+((VirtualMachine)this.vmlist.get(vmId)).getVmId()+" failed in "+this.datacenterChar[id].getResourceName());
         }
 		
 		this.vmsAcks++;
@@ -273,7 +273,7 @@ public class DatacenterBroker extends CloudSim {
 					if(this.vmsCreated>0){//if some vm were created
 						submitCloudlets();
 					} else {//no vms created. abort
-						System.out.println(GridSim.clock()+": "+this.get_name()+ ": not all required VMs could be created. Aborting");
+						System.out.println(clock()+": "+this.get_name()+ ": not all required VMs could be created. Aborting");
 						finishExecution();
 					}
 				}
@@ -292,10 +292,10 @@ public class DatacenterBroker extends CloudSim {
 		
 		Cloudlet cloudlet = (Cloudlet) ev.get_data();
 		this.receiveList.add(cloudlet);
-		System.out.println(GridSim.clock()+": "+this.get_name()+ ": Cloudlet "+cloudlet.getGridletID()+" received");
+		System.out.println(clock()+": "+this.get_name()+ ": Cloudlet "+cloudlet.getGridletID()+" received");
 		this.cloudletsFinished++;
 		if(this.cloudletsFinished==this.cllist.size()){//all cloudlets executed.
-			System.out.println(GridSim.clock()+": "+this.get_name()+ ": All Cloudlets executed. Finishing...");
+			System.out.println(clock()+": "+this.get_name()+ ": All Cloudlets executed. Finishing...");
 			clearDatacenters();
 			finishExecution();
 		} else {//some cloudlets haven't finished yet
@@ -340,7 +340,7 @@ public class DatacenterBroker extends CloudSim {
 			if(this.vmMapping[i]==-1){//if this vm were not mapped yet
 				amountOfVMs++;
 				VMCharacteristics characteristics = ((VirtualMachine)vmlist.get(i)).getCharacteristics();
-				System.out.println(GridSim.clock()+": "+this.get_name()+ ": Trying to Create VM #"+((VirtualMachine)vmlist.get(i)).getVmId());
+				System.out.println(clock()+": "+this.get_name()+ ": Trying to Create VM #"+((VirtualMachine)vmlist.get(i)).getVmId());
 				super.send(datacenterID[chosenDatacenter], GridSimTags.SCHEDULE_NOW, DatacenterTags.VM_CREATE_ACK, characteristics);
 			}
 		}
@@ -363,7 +363,7 @@ public class DatacenterBroker extends CloudSim {
 				if(cl.getVmId()==-1){//if user didn't bind this cloudlet and it has not been executed yet
 					//submit to the next machine
 					cl.setVmId(cont);
-					System.out.println(GridSim.clock()+": "+this.get_name()+ ": Sending cloudlet "+cl.getGridletID()+" to VM #"+((VirtualMachine)vmlist.get(cont)).getVmId());
+					System.out.println(clock()+": "+this.get_name()+ ": Sending cloudlet "+cl.getGridletID()+" to VM #"+((VirtualMachine)vmlist.get(cont)).getVmId());
 					super.send(vmMapping[cont],GridSimTags.SCHEDULE_NOW, GridSimTags.GRIDLET_SUBMIT, cl);
 					cont=(cont+1)%this.vmsCreated;
 					cloudletsSubmitted++;
@@ -373,12 +373,12 @@ public class DatacenterBroker extends CloudSim {
 					VirtualMachine vm = vmlist.getVMbyID(cl.getVmId());
 					int index = vmlist.indexOf(vm);
 					if(vmMapping[index]>=0){//if this vm is running
-						System.out.println(GridSim.clock()+": "+this.get_name()+ ": Sending cloudlet "+cl.getGridletID()+" to VM #"+((VirtualMachine)vmlist.get(index)).getVmId());
+						System.out.println(clock()+": "+this.get_name()+ ": Sending cloudlet "+cl.getGridletID()+" to VM #"+((VirtualMachine)vmlist.get(index)).getVmId());
 						super.send(vmMapping[index],GridSimTags.SCHEDULE_NOW,GridSimTags.GRIDLET_SUBMIT,cl);
 						cloudletsSubmitted++;
 						clSubmitted[i]=true;
 					} else {
-						System.out.println(GridSim.clock()+": "+this.get_name()+ ": Postponing execution of cloudlet "+cl.getGridletID()+": bount VM not available");
+						System.out.println(clock()+": "+this.get_name()+ ": Postponing execution of cloudlet "+cl.getGridletID()+": bount VM not available");
 					}
 				}
 			}
@@ -397,7 +397,7 @@ public class DatacenterBroker extends CloudSim {
 			int[] array = new int[2];
 			array[0]=characteristics.getUserId();
 			array[1]=characteristics.getVmId();
-			System.out.println(GridSim.clock()+": "+this.get_name()+ ": Destroying VM #"+((VirtualMachine)vmlist.get(i)).getVmId());
+			System.out.println(clock()+": "+this.get_name()+ ": Destroying VM #"+((VirtualMachine)vmlist.get(i)).getVmId());
 			super.send(this.vmMapping[i], GridSimTags.SCHEDULE_NOW, DatacenterTags.VM_DESTROY, array);
 			this.vmsDestroyed++;
 			this.vmMapping[i]=-10;
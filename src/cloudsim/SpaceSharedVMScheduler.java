@@ -39,6 +39,8 @@ public class SpaceSharedVMScheduler extends VMScheduler {
 	protected int currentCPUs;
 	protected int usedPEs;
 	protected double[] currentMIPSShare;
+	/** MI of the gridlets in the waiting list */
+	protected double waitingWork;
 	
 	/**
 	 * Creates a new SpaceSharedVMScheduler object. This method must be invoked
@@ -55,6 +57,7 @@ public class SpaceSharedVMScheduler extends VMScheduler {
 		this.gridletFinishedList = new ResGridletList();
 		this.usedPEs=0;
 		this.currentCPUs=0;
+		this.waitingWork=0.0;
 	}
 	
 	/**
@@ -80,6 +83,7 @@ public class SpaceSharedVMScheduler extends VMScheduler {
 			if(mipsShare[i]>0)cpus++;
 		}
 		currentCPUs=cpus;
+		this.capacity=capacity;
 		capacity/=cpus; //average capacity of each cpu
 		
 		Iterator iter = gridletExecList.iterator();
@@ -93,6 +97,7 @@ public class SpaceSharedVMScheduler extends VMScheduler {
 		
 		if(gridletExecList.size()==0) {//no more gridlets in this scheduler
 			this.previousTime=currentTime;
+			updateRemainingWork();
 			return 0.0;
 		}
 		
@@ -114,6 +119,7 @@ public class SpaceSharedVMScheduler extends VMScheduler {
                 			}
                         	gridletExecList.add(newGl);
                         	usedPEs+=newGl.getNumPE();
+                        	waitingWork-=newGl.getRemainingGridletLength();
                         	gridletWaitingList.remove(j);
                         	break;
                 		}
@@ -128,6 +134,7 @@ public class SpaceSharedVMScheduler extends VMScheduler {
             i++;
         }
 		this.previousTime=currentTime;
+		updateRemainingWork();
 		return nextEvent;
 	}
 
@@ -181,6 +188,7 @@ public class SpaceSharedVMScheduler extends VMScheduler {
 			} else {
 				rgl.setGridletStatus(Gridlet.CANCELED);
 			}
+			updateRemainingWork();
 			return (Cloudlet) rgl.getGridlet();
 			
 		}
@@ -261,6 +269,7 @@ public class SpaceSharedVMScheduler extends VMScheduler {
 				rgl.setGridletStatus(Gridlet.PAUSED);
 				gridletPausedList.add(rgl);
 			}
+			updateRemainingWork();
 			return true;
 			
 		}
@@ -282,12 +291,14 @@ public class SpaceSharedVMScheduler extends VMScheduler {
 			
 			//moves to the paused list
 			ResGridlet rgl = (ResGridlet) gridletWaitingList.remove(position);
+			waitingWork-=rgl.getRemainingGridletLength();
 			if (rgl.getRemainingGridletLength() == 0.0) {
 				gridletFinish(rgl);
 			} else {
 				rgl.setGridletStatus(Gridlet.PAUSED);
 				gridletPausedList.add(rgl);
 			}
+			updateRemainingWork();
 			return true;
 			
 		}
@@ -363,6 +374,7 @@ public class SpaceSharedVMScheduler extends VMScheduler {
 				
 				double remainingLength = rgl.getRemainingGridletLength();
 				double estimatedFinishTime = GridSim.clock()+(remainingLength/(capacity*rgl.getNumPE()));
+				updateRemainingWork();
             	
 				return estimatedFinishTime;
 			} else {//no enough free PEs: go to the waiting queue
@@ -373,6 +385,8 @@ public class SpaceSharedVMScheduler extends VMScheduler {
 				rgl.getGridlet().setGridletLength(size);
 				
 				gridletWaitingList.add(rgl);
+				waitingWork+=rgl.getRemainingGridletLength();
+				updateRemainingWork();
 				return 0.0;
 			}
 			
@@ -395,6 +409,7 @@ public class SpaceSharedVMScheduler extends VMScheduler {
 	@Override
 	public double cloudletSubmit(Cloudlet gl, double fileTransferTime) {
 
+		submittedWork+=gl.getGridletLength();
 		if((currentCPUs-usedPEs)>=gl.getNumPE()){//it can go to the exec list
 			ResGridlet rgl = new ResGridlet(gl);
 			rgl.setGridletStatus(Gridlet.INEXEC);
@@ -417,6 +432,8 @@ public class SpaceSharedVMScheduler extends VMScheduler {
 			rgl.getGridlet().setGridletLength(size);
 			
 			gridletWaitingList.add(rgl);
+			waitingWork+=rgl.getRemainingGridletLength();
+			updateRemainingWork();
 			return 0.0;
 		}
 		
@@ -436,6 +453,7 @@ public class SpaceSharedVMScheduler extends VMScheduler {
 		double length = gl.getGridletLength();
 		length+=extraSize;
 		gl.setGridletLength(length);
+		updateRemainingWork();
 		
 		return capacity;
 	}
@@ -519,7 +537,30 @@ public class SpaceSharedVMScheduler extends VMScheduler {
 	public Cloudlet migrateCloudlet() {
 		Cloudlet cl = (Cloudlet) this.gridletExecList.removeFirst();
 		usedPEs-=cl.getNumPE();
+		updateRemainingWork();
 		return cl;
 	}
+	
+	/**
+	 * Sums up the work left to the gridlets in execution, as of the last update,
+	 * adds the work waiting and records it with the rate it is done at
+	 * @pre $none
+	 * @post $none
+	 */
+	private void updateRemainingWork() {
+		double work = waitingWork;
+		Iterator<?> iter = gridletExecList.iterator();
+		while(iter.hasNext()){
+			ResGridlet rgl = (ResGridlet) iter.next();
+			work+=rgl.getRemainingGridletLength();
+		}
+		
+		//each gridlet in execution has its own PEs
+		double rate = 0.0;
+		if(currentCPUs>0){
+			rate = capacity*Math.min(usedPEs,currentCPUs)/currentCPUs;
+		}
+		setRemainingWork(previousTime,work,rate);
+	}
 
 }
@@ -73,6 +73,7 @@ public class TimeSharedVMScheduler extends VMScheduler {
 			if(mipsShare[i]>0)cpus++;
 		}
 		currentCPUs=cpus;
+		this.capacity=capacity;
 
 		int pesInUse = 0;
 		Iterator iter = gridletExecList.iterator();
@@ -100,6 +101,7 @@ public class TimeSharedVMScheduler extends VMScheduler {
 		
 		if(gridletExecList.size()==0) {
 			this.previousTime=currentTime;
+			updateRemainingWork();
 			return 0.0;
 		}
 		
@@ -128,6 +130,7 @@ public class TimeSharedVMScheduler extends VMScheduler {
             i++;
         }
 		this.previousTime=currentTime;
+		updateRemainingWork();
 		return nextEvent;
 	}
 
@@ -181,6 +184,7 @@ public class TimeSharedVMScheduler extends VMScheduler {
 			} else {
 				rgl.setGridletStatus(Gridlet.CANCELED);
 			}
+			updateRemainingWork();
 			return (Cloudlet) rgl.getGridlet();
 			
 		}
@@ -242,6 +246,7 @@ public class TimeSharedVMScheduler extends VMScheduler {
 				rgl.setGridletStatus(Gridlet.PAUSED);
 				gridletPausedList.add(rgl);
 			}
+			updateRemainingWork();
 			return true;
 			
 		}
@@ -319,6 +324,7 @@ public class TimeSharedVMScheduler extends VMScheduler {
 
 			double remainingLength = rgl.getRemainingGridletLength();
 			double estimatedFinishTime = GridSim.clock()+(remainingLength/(capacity*rgl.getNumPE()));
+			updateRemainingWork();
         	
 			return estimatedFinishTime;
 		}
@@ -338,6 +344,7 @@ public class TimeSharedVMScheduler extends VMScheduler {
 	@Override
 	public double cloudletSubmit(Cloudlet gl, double fileTransferTime) {
 
+		submittedWork+=gl.getGridletLength();
 		ResGridlet rgl = new ResGridlet(gl);
 		rgl.setGridletStatus(Gridlet.INEXEC);
 		for(int i=0;i<gl.getNumPE();i++){
@@ -384,6 +391,7 @@ public class TimeSharedVMScheduler extends VMScheduler {
 			capacity/=currentCPUs;
 			//System.out.println("Capacity:"+capacity);
 		}
+		updateRemainingWork();
 
 		return capacity;
 	}
@@ -461,7 +469,32 @@ public class TimeSharedVMScheduler extends VMScheduler {
 	@Override
 	public Cloudlet migrateCloudlet() {
 		Cloudlet cl = (Cloudlet) this.gridletExecList.removeFirst();		
+		updateRemainingWork();
 		return cl;
 	}
+	
+	/**
+	 * Sums up the work left to the gridlets in execution, as of the last update,
+	 * and the rate it is done at
+	 * @pre $none
+	 * @post $none
+	 */
+	private void updateRemainingWork() {
+		double work = 0.0;
+		int pesInUse = 0;
+		Iterator<?> iter = gridletExecList.iterator();
+		while(iter.hasNext()){
+			ResGridlet rgl = (ResGridlet) iter.next();
+			work+=rgl.getRemainingGridletLength();
+			pesInUse+=rgl.getNumPE();
+		}
+		
+		//gridlets share the processors, but each runs on no more than its own PEs
+		double rate = 0.0;
+		if(currentCPUs>0){
+			rate = capacity*Math.min(pesInUse,currentCPUs)/currentCPUs;
+		}
+		setRemainingWork(previousTime,work,rate);
+	}
 
 }
@@ -27,6 +27,17 @@ public abstract class VMScheduler {
 	
 	protected PEList list;
 	protected double previousTime;
+	
+	/** MI left to the cloudlets of this scheduler at remainingWorkTime */
+	protected double remainingWork;
+	/** time remainingWork was last set */
+	protected double remainingWorkTime;
+	/** MIPS the cloudlets of this scheduler are processed at since remainingWorkTime */
+	protected double processingRate;
+	/** MIPS share of all the processors available to the scheduler at the last update */
+	protected double capacity;
+	/** MI of all the cloudlets ever submitted to the scheduler, as submitted */
+	protected double submittedWork;
 
 	/**
 	 * Creates a new VMScheduler object. This method must be invoked
@@ -129,4 +140,54 @@ public abstract class VMScheduler {
 	 */
 	public abstract Cloudlet migrateCloudlet();
 	
+	/**
+	 * Returns the work left to the cloudlets of this scheduler, running or waiting,
+	 * assuming they are processed at the current rate until the given time. It is kept
+	 * up to date by the scheduler, so this takes constant time.
+	 * @param time simulation time the work is estimated at
+	 * @return work left, in MI
+	 * @pre time >= 0
+	 * @post $result >= 0
+	 */
+	public double getRemainingWork(double time){
+		double work = remainingWork-processingRate*Math.max(0.0,time-remainingWorkTime);
+		return Math.max(0.0,work);
+	}
+	
+	/**
+	 * Returns the MIPS share of all the processors available to the scheduler,
+	 * as of the last update
+	 * @return total MIPS share, 0 before the first update
+	 * @pre $none
+	 * @post $result >= 0
+	 */
+	public double getCapacity(){
+		return capacity;
+	}
+	
+	/**
+	 * Returns the total length of all the cloudlets ever submitted to this scheduler,
+	 * as they were submitted
+	 * @return work submitted, in MI
+	 * @pre $none
+	 * @post $result >= 0
+	 */
+	public double getSubmittedWork(){
+		return submittedWork;
+	}
+	
+	/**
+	 * Records the work left to the cloudlets of this scheduler
+	 * @param time current simulation time
+	 * @param work work left, in MI
+	 * @param rate MIPS the cloudlets are processed at from now on
+	 * @pre time >= 0
+	 * @post $none
+	 */
+	protected void setRemainingWork(double time, double work, double rate){
+		this.remainingWork = work;
+		this.remainingWorkTime = time;
+		this.processingRate = rate;
+	}
+	
 }
@@ -0,0 +1,23 @@
+package cloudsim.engine;
+
+import java.util.PriorityQueue;
+
+/**
+ * Future event list backed by a binary heap. Adding and removing an event are O(log n).
+ */
+public class BinaryHeapEventList implements FutureEventList {
+
+	private final PriorityQueue<KernelEvent> heap = new PriorityQueue<KernelEvent>();
+
+	public void add(KernelEvent ev){
+		heap.add(ev);
+	}
+
+	public KernelEvent poll(){
+		return heap.poll();
+	}
+
+	public int size(){
+		return heap.size();
+	}
+}
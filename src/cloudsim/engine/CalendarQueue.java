@@ -0,0 +1,245 @@
+package cloudsim.engine;
+
+/**
+ * Future event list implemented as a calendar queue (R. Brown, "Calendar queues: a fast O(1)
+ * priority queue implementation for the simulation event set problem", CACM 31(10), 1988).
+ *
+ * Events are hashed by time into an array of buckets, each covering a time interval of
+ * <code>width</code>, like the days of a calendar year. Each bucket is a short sorted list,
+ * so adding an event is O(1) on average, and removal walks forward from the current bucket.
+ * The number of buckets is doubled or halved as the event population grows or shrinks, and
+ * the bucket width is re-estimated from the spacing of the earliest events on each resize.
+ *
+ * A width estimated while the queue fills up can be badly off once the simulation reaches
+ * its steady state, e.g. when the first events are all short data center self schedules
+ * and later ones are mostly network delays. The queue therefore also counts the buckets
+ * it skips and the list nodes it walks past, and re-estimates the width whenever that
+ * cost averages more than {@link #MAX_COST_PER_OPERATION} over a year's worth of
+ * operations. Both the resizes and the re-estimation are O(n) for every O(n) operations,
+ * which keeps adding and removing O(1) amortized.
+ *
+ * Events with the same time are kept in the order they were scheduled.
+ */
+public class CalendarQueue implements FutureEventList {
+
+	private static final int MIN_BUCKETS = 16;
+
+	/** Number of events sampled to estimate the bucket width. */
+	private static final int WIDTH_SAMPLE_SIZE = 25;
+
+	/** Average buckets skipped plus nodes walked per operation above which the width is re-estimated. */
+	private static final double MAX_COST_PER_OPERATION = 4.0;
+
+	private KernelEvent[] buckets;
+	private int mask;
+	private double width;
+	private int size = 0;
+
+	/** The bucket (as a count of widths from time 0) that the next removal starts from. */
+	private long currentBucket = 0;
+
+	/** Time of the last event removed. No event in the queue is earlier. */
+	private double lastTime = 0;
+
+	private int growThreshold;
+	private int shrinkThreshold;
+
+	/** Buckets skipped and nodes walked since the last check. */
+	private long cost = 0;
+	private int operations = 0;
+
+	/** Constructor. */
+	public CalendarQueue(){
+		this(1.0);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param initialWidth initial bucket width, re-estimated once the queue starts resizing
+	 */
+	public CalendarQueue(double initialWidth){
+		init(MIN_BUCKETS, initialWidth, 0);
+	}
+
+	public void add(KernelEvent ev){
+		insert(ev);
+		size++;
+
+		if (size > growThreshold){
+			resize(buckets.length * 2);
+		} else {
+			checkCost();
+		}
+	}
+
+	public KernelEvent poll(){
+		if (size == 0){
+			return null;
+		}
+
+		KernelEvent ev = removeFirst();
+		size--;
+
+		if (size < shrinkThreshold){
+			resize(buckets.length / 2);
+		} else {
+			checkCost();
+		}
+
+		return ev;
+	}
+
+	public int size(){
+		return size;
+	}
+
+	private void init(int bucketCount, double width, double startTime){
+		this.buckets = new KernelEvent[bucketCount];
+		this.mask = bucketCount - 1;
+		this.width = width;
+		this.currentBucket = bucketOf(startTime);
+		this.growThreshold = bucketCount * 2;
+		this.shrinkThreshold = (bucketCount > MIN_BUCKETS) ? bucketCount / 2 - 2 : -1;
+		this.cost = 0;
+		this.operations = 0;
+	}
+
+	/** Re-estimates the width if operations have been too costly over the last year. */
+	private void checkCost(){
+		if (++operations < buckets.length){
+			return;
+		}
+
+		if (cost > operations * MAX_COST_PER_OPERATION){
+			resize(buckets.length);
+		} else {
+			cost = 0;
+			operations = 0;
+		}
+	}
+
+	private long bucketOf(double time){
+		return (long) (time / width);
+	}
+
+	/** Inserts into the bucket's list, after any event that does not sort after it. */
+	private void insert(KernelEvent ev){
+		int i = (int) (bucketOf(ev.event_time()) & mask);
+
+		KernelEvent curr = buckets[i];
+		if ((curr == null) || (ev.compareTo(curr) < 0)){
+			ev.next = curr;
+			buckets[i] = ev;
+			return;
+		}
+
+		while ((curr.next != null) && (ev.compareTo(curr.next) >= 0)){
+			curr = curr.next;
+			cost++;
+		}
+		ev.next = curr.next;
+		curr.next = ev;
+	}
+
+	private KernelEvent removeFirst(){
+		//Walk the buckets of the current year
+		for (int n = 0; n <= mask; n++){
+			int i = (int) (currentBucket & mask);
+			KernelEvent head = buckets[i];
+			if ((head != null) && (bucketOf(head.event_time()) <= currentBucket)){
+				return unlinkHead(i);
+			}
+
+			currentBucket++;
+			cost++;
+		}
+
+		//Nothing due within a year: jump straight to the earliest event
+		int earliest = -1;
+		for (int i = 0; i <= mask; i++){
+			if ((buckets[i] != null) && ((earliest < 0) || (buckets[i].compareTo(buckets[earliest]) < 0))){
+				earliest = i;
+			}
+		}
+
+		cost += buckets.length;
+		currentBucket = bucketOf(buckets[earliest].event_time());
+		return unlinkHead(earliest);
+	}
+
+	private KernelEvent unlinkHead(int i){
+		KernelEvent head = buckets[i];
+		buckets[i] = head.next;
+		head.next = null;
+		lastTime = head.event_time();
+
+		return head;
+	}
+
+	/** Rebuilds the calendar with a new number of buckets and a re-estimated width. */
+	private void resize(int bucketCount){
+		if (bucketCount < MIN_BUCKETS){
+			return;
+		}
+
+		double newWidth = estimateWidth();
+
+		KernelEvent[] old = buckets;
+		init(bucketCount, newWidth, lastTime);
+
+		KernelEvent ev;
+		KernelEvent next;
+		for (int i = 0; i < old.length; i++){
+			ev = old[i];
+			while (ev != null){
+				next = ev.next;
+				ev.next = null;
+				insert(ev);
+				ev = next;
+			}
+		}
+	}
+
+	/**
+	 * Estimates the bucket width as three times the average spacing of the earliest events,
+	 * ignoring spacings of more than twice the average.
+	 */
+	private double estimateWidth(){
+		int samples = Math.min(size, WIDTH_SAMPLE_SIZE);
+		if (samples < 2){
+			return width;
+		}
+
+		long savedBucket = currentBucket;
+		double savedTime = lastTime;
+
+		KernelEvent[] sample = new KernelEvent[samples];
+		for (int i = 0; i < samples; i++){
+			sample[i] = removeFirst();
+		}
+
+		double total = sample[samples - 1].event_time() - sample[0].event_time();
+		double average = total / (samples - 1);
+
+		double trimmedTotal = 0;
+		int trimmedCount = 0;
+		double gap;
+		for (int i = 1; i < samples; i++){
+			gap = sample[i].event_time() - sample[i - 1].event_time();
+			if (gap <= average * 2){
+				trimmedTotal += gap;
+				trimmedCount++;
+			}
+		}
+
+		for (int i = 0; i < samples; i++){
+			insert(sample[i]);
+		}
+		currentBucket = savedBucket;
+		lastTime = savedTime;
+
+		double newWidth = (trimmedCount > 0) ? 3 * trimmedTotal / trimmedCount : 0;
+		return (newWidth > 0) ? newWidth : width;
+	}
+}
@@ -0,0 +1,230 @@
+package cloudsim.engine;
+
+import java.lang.reflect.Method;
+import java.util.LinkedList;
+import java.util.concurrent.locks.LockSupport;
+
+import cloudsim.CloudSim;
+import eduni.simjava.Sim_event;
+import gridsim.GridSimTags;
+
+/**
+ * Runs the unmodified <code>body()</code> of a {@link CloudSim} entity under the
+ * {@link EventKernel}.
+ *
+ * The body runs on its own thread, but only one of the kernel thread and the entity threads
+ * is ever running. When the body blocks in sim_get_next(), sim_pause() or sim_process() the
+ * entity thread parks and hands control back to the kernel, which resumes it when the
+ * awaited event is dispatched. Unlike SimJava, the handoff is a direct park/unpark of the
+ * two threads involved, with no shared monitor.
+ *
+ * Entity threads are virtual threads when the runtime supports them, so that tens of
+ * thousands of entities can be hosted without as many native threads. On older runtimes
+ * they fall back to daemon platform threads with a small stack.
+ */
+class EntityProcess implements EventDrivenEntity {
+
+	/** Stack size of the platform threads used when virtual threads are not available. */
+	private static final long PLATFORM_THREAD_STACK_SIZE = 256 * 1024;
+
+	/**
+	 * Thread.ofVirtual() and the Thread.Builder methods, looked up reflectively as they are
+	 * not available before Java 21. All null when virtual threads cannot be created.
+	 */
+	private static final Method OF_VIRTUAL;
+	private static final Method BUILDER_NAME;
+	private static final Method BUILDER_UNSTARTED;
+
+	static {
+		Method ofVirtual = null;
+		Method name = null;
+		Method unstarted = null;
+		try {
+			ofVirtual = Thread.class.getMethod("ofVirtual");
+			//The builder's own class is not public, so the methods are called through the
+			//public interface
+			Class<?> builder = Class.forName("java.lang.Thread$Builder");
+			name = builder.getMethod("name", String.class);
+			unstarted = builder.getMethod("unstarted", Runnable.class);
+			//Makes sure a virtual thread can actually be created, as it is a preview feature
+			//before Java 21
+			newVirtualThread(ofVirtual, name, unstarted, new Runnable(){
+				public void run(){
+				}
+			}, "probe");
+		} catch (Exception e) {
+			ofVirtual = null;
+			name = null;
+			unstarted = null;
+		}
+		OF_VIRTUAL = ofVirtual;
+		BUILDER_NAME = name;
+		BUILDER_UNSTARTED = unstarted;
+	}
+
+	private final CloudSim entity;
+	private final EventKernel kernel;
+	private final Thread thread;
+	private Thread kernelThread;
+
+	/** Events that arrived while the body was not waiting for one. */
+	private final LinkedList<KernelEvent> deferred = new LinkedList<KernelEvent>();
+
+	/** Payload of the self event that ends a pause. */
+	private final Object wakeUp = new Object();
+
+	/** True while the entity thread holds control. */
+	private volatile boolean entityTurn = false;
+	private boolean waitingForEvent = false;
+	private boolean shuttingDown = false;
+	private boolean finished = false;
+	private KernelEvent received;
+	private Throwable failure;
+
+	EntityProcess(CloudSim entity, EventKernel kernel){
+		this.entity = entity;
+		this.kernel = kernel;
+		this.thread = createThread(new Runnable(){
+			public void run(){
+				runBody();
+			}
+		}, entity.get_name());
+	}
+
+	/**
+	 * @return true if entity threads are virtual threads in this runtime
+	 */
+	static boolean isVirtual(){
+		return OF_VIRTUAL != null;
+	}
+
+	/** Starts the body and runs it until it first blocks. */
+	public void startEntity(){
+		kernelThread = Thread.currentThread();
+		entityTurn = true;
+		thread.start();
+		awaitEntity();
+	}
+
+	public void processEvent(Sim_event ev){
+		KernelEvent kev = (KernelEvent) ev;
+		if (kev.get_data() == wakeUp){
+			resume();
+		} else if (waitingForEvent){
+			received = kev;
+			resume();
+		} else {
+			deferred.add(kev);
+		}
+	}
+
+	/** Lets the body run to completion. All further blocking calls return immediately. */
+	public void shutdownEntity(){
+		shuttingDown = true;
+		if (!finished){
+			received = null;
+			resume();
+		}
+	}
+
+	/**
+	 * Called on the entity thread from sim_get_next(). Returns the next deferred event, or
+	 * blocks until one arrives.
+	 */
+	void getNextEvent(Sim_event ev){
+		KernelEvent next;
+		if (!deferred.isEmpty()){
+			next = deferred.removeFirst();
+		} else if (shuttingDown){
+			next = null;
+		} else {
+			waitingForEvent = true;
+			yieldToKernel();
+			waitingForEvent = false;
+			next = received;
+			received = null;
+		}
+
+		if (next != null){
+			SimJavaState.copyEvent(next, ev);
+		} else {
+			SimJavaState.copyEvent(new KernelEvent(kernel.clock(), -1, -1, entity.get_id(),
+												   GridSimTags.END_OF_SIMULATION, null), ev);
+		}
+	}
+
+	/** Called on the entity thread from sim_pause() and sim_process(). */
+	void pause(double delay){
+		if (shuttingDown){
+			return;
+		}
+
+		kernel.schedule(entity.get_id(), entity.get_id(), delay, 0, wakeUp);
+		yieldToKernel();
+	}
+
+	private void runBody(){
+		try {
+			entity.body();
+		} catch (Throwable t) {
+			failure = t;
+		}
+
+		finished = true;
+		entityTurn = false;
+		LockSupport.unpark(kernelThread);
+	}
+
+	/** Kernel side of the handoff. */
+	private void resume(){
+		if (finished){
+			return;
+		}
+
+		entityTurn = true;
+		LockSupport.unpark(thread);
+		awaitEntity();
+	}
+
+	private void awaitEntity(){
+		while (entityTurn){
+			LockSupport.park(this);
+		}
+
+		if (failure != null){
+			Throwable t = failure;
+			failure = null;
+			throw new RuntimeException("Entity " + entity.get_name() + " failed.", t);
+		}
+	}
+
+	/** Entity side of the handoff. */
+	private void yieldToKernel(){
+		entityTurn = false;
+		LockSupport.unpark(kernelThread);
+		while (!entityTurn){
+			LockSupport.park(this);
+		}
+	}
+
+	private static Thread createThread(Runnable r, String name){
+		if (OF_VIRTUAL != null){
+			try {
+				return newVirtualThread(OF_VIRTUAL, BUILDER_NAME, BUILDER_UNSTARTED, r, name);
+			} catch (Exception e) {
+				//Falls back to a platform thread
+			}
+		}
+
+		Thread t = new Thread(null, r, name, PLATFORM_THREAD_STACK_SIZE);
+		t.setDaemon(true);
+		return t;
+	}
+
+	private static Thread newVirtualThread(Method ofVirtual, Method name, Method unstarted,
+										   Runnable r, String threadName) throws Exception {
+		Object builder = ofVirtual.invoke(null);
+		builder = name.invoke(builder, threadName);
+		return (Thread) unstarted.invoke(builder, r);
+	}
+}
@@ -0,0 +1,28 @@
+package cloudsim.engine;
+
+import eduni.simjava.Sim_event;
+
+/**
+ * Contract for a simulation entity that can be driven by the {@link EventKernel} as a set
+ * of event callbacks, instead of running its <code>body()</code> on a SimJava thread.
+ *
+ * The work an entity does in <code>body()</code> before entering its event loop goes in
+ * {@link #startEntity()}, each event the loop would have received is delivered to
+ * {@link #processEvent(Sim_event)}, and the work done after the loop exits goes in
+ * {@link #shutdownEntity()}.
+ */
+public interface EventDrivenEntity {
+
+	/** Called once at simulation time 0, before any event is delivered. */
+	void startEntity();
+
+	/**
+	 * Called for every event addressed to this entity, in simulation time order.
+	 *
+	 * @param ev the event
+	 */
+	void processEvent(Sim_event ev);
+
+	/** Called once after the simulation has ended. */
+	void shutdownEntity();
+}
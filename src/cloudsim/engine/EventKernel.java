@@ -0,0 +1,412 @@
+package cloudsim.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import cloudsim.CloudSim;
+import eduni.simjava.Sim_entity;
+import eduni.simjava.Sim_event;
+import eduni.simjava.Sim_system;
+import gridsim.GridSim;
+
+/**
+ * A single threaded discrete event kernel that can be used in place of the SimJava
+ * thread-per-entity scheduler.
+ *
+ * SimJava runs every entity on its own thread and every sim_get_next()/sim_pause() is a
+ * hand off between threads. The kernel instead keeps all pending events in one
+ * {@link FutureEventList}, takes them off in time order and calls the destination entity's
+ * {@link EventDrivenEntity#processEvent(eduni.simjava.Sim_event)} on the thread that called
+ * {@link #run()}. Entities are attached to the kernel with {@link #addEntity(CloudSim)}, after
+ * which all their sends are routed to the kernel.
+ *
+ * Entities that have to keep their process style <code>body()</code> can be attached with
+ * {@link #addProcess(CloudSim)} instead, in which case the kernel resumes the body whenever
+ * the event it is blocked on is due.
+ *
+ * The entities still have to be created after GridSim.init(), as they are registered with
+ * SimJava on construction and take their ids from it. After that the kernel only needs
+ * SimJava's static state for code that reads the SimJava clock, see
+ * {@link #setSharedWithSimJava(boolean)}.
+ */
+public class EventKernel {
+
+	private final FutureEventList future;
+	private final List<EventDrivenEntity> entities;
+	private EventDrivenEntity[] entitiesById;
+	private EntityProcess[] processesById;
+	private String[] namesById;
+	private final Map<String, Integer> entityIds;
+	private final double terminationTime;
+	private double clock = 0;
+	private long serial = 0;
+	private long eventsProcessed = 0;
+	private boolean sharedWithSimJava = true;
+	private boolean hasProcesses = false;
+
+	/** The parallel kernel this kernel is a partition of, or null. */
+	private ParallelEventKernel parallel;
+	private int partition;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param terminationTime the simulation time at which the run ends
+	 */
+	public EventKernel(double terminationTime){
+		this(terminationTime, new BinaryHeapEventList());
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param terminationTime the simulation time at which the run ends
+	 * @param futureEventList the future event list to hold pending events in
+	 */
+	public EventKernel(double terminationTime, FutureEventList futureEventList){
+		this.terminationTime = terminationTime;
+		this.future = futureEventList;
+		this.entities = new ArrayList<EventDrivenEntity>();
+		this.entitiesById = new EventDrivenEntity[16];
+		this.processesById = new EntityProcess[16];
+		this.namesById = new String[16];
+		this.entityIds = new HashMap<String, Integer>();
+	}
+
+	/**
+	 * Attaches an entity to this kernel. The entity must implement {@link EventDrivenEntity}.
+	 *
+	 * @param entity
+	 */
+	public void addEntity(CloudSim entity){
+		if (!(entity instanceof EventDrivenEntity)){
+			throw new IllegalArgumentException(entity.get_name() + " can not be driven by the event kernel.");
+		}
+
+		register(entity, (EventDrivenEntity) entity);
+	}
+
+	/**
+	 * Attaches an entity whose <code>body()</code> is to be run as is. The body runs on its
+	 * own (virtual, where available) thread and is resumed by this kernel whenever the event
+	 * it is blocked on is due. See {@link EntityProcess}.
+	 *
+	 * @param entity
+	 */
+	public void addProcess(CloudSim entity){
+		EntityProcess process = new EntityProcess(entity, this);
+
+		int id = entity.get_id();
+		if (id >= processesById.length){
+			processesById = Arrays.copyOf(processesById, Math.max(id + 1, processesById.length * 2));
+		}
+		processesById[id] = process;
+		hasProcesses = true;
+
+		register(entity, process);
+	}
+
+	private void register(CloudSim entity, EventDrivenEntity handler){
+		int id = entity.get_id();
+		if (id >= entitiesById.length){
+			entitiesById = Arrays.copyOf(entitiesById, Math.max(id + 1, entitiesById.length * 2));
+		}
+		entitiesById[id] = handler;
+		entities.add(handler);
+
+		indexName(id, entity.get_name());
+
+		entity.setEventKernel(this);
+	}
+
+	/** Adds an entity to the name index, without attaching it. */
+	void indexName(int id, String name){
+		if (id >= namesById.length){
+			namesById = Arrays.copyOf(namesById, Math.max(id + 1, namesById.length * 2));
+		}
+		namesById[id] = name;
+		if (!entityIds.containsKey(name)){
+			entityIds.put(name, id);
+		}
+	}
+
+	/**
+	 * Makes {@link #getEntityId(String)} return the given entity for another name. Used to
+	 * give each partition of a {@link ParallelEventKernel} its own instance of an entity
+	 * that the others look up by name.
+	 *
+	 * @param alias the name to look up
+	 * @param id the id of the entity
+	 */
+	public void addEntityAlias(String alias, int id){
+		entityIds.put(alias, id);
+	}
+
+	/** Makes this kernel a partition of a parallel kernel. */
+	void setPartition(ParallelEventKernel parallel, int partition){
+		this.parallel = parallel;
+		this.partition = partition;
+	}
+
+	/**
+	 * Attaches all the entities registered with SimJava that can be driven by this kernel.
+	 * Entities created internally by other entities (e.g. the response handler of a user base)
+	 * are picked up this way.
+	 */
+	public void addAllEntities(){
+		for (int i = 0; i < Sim_system.get_num_entities(); i++){
+			Sim_entity e = Sim_system.get_entity(i);
+			if ((e instanceof CloudSim) && (e instanceof EventDrivenEntity)){
+				addEntity((CloudSim) e);
+			}
+		}
+	}
+
+	/**
+	 * Attaches all the CloudSim entities registered with SimJava as processes, whether they
+	 * are event driven or not.
+	 */
+	public void addAllProcesses(){
+		for (int i = 0; i < Sim_system.get_num_entities(); i++){
+			Sim_entity e = Sim_system.get_entity(i);
+			if (e instanceof CloudSim){
+				addProcess((CloudSim) e);
+			}
+		}
+	}
+
+	/**
+	 * Sets whether this kernel keeps the static SimJava clock and running flag in step with
+	 * its own, for code that reads them directly: GridSim.clock(), the bookkeeping of the
+	 * GridSim Gridlets and the bodies of the entities added with {@link #addProcess(CloudSim)}.
+	 * There is only one SimJava clock, so kernels that run concurrently in the same JVM must
+	 * not share it. Shared by default.
+	 *
+	 * @param sharedWithSimJava
+	 */
+	public void setSharedWithSimJava(boolean sharedWithSimJava){
+		this.sharedWithSimJava = sharedWithSimJava;
+	}
+
+	/**
+	 * @return true if the entities added by {@link #addProcess(CloudSim)} run on virtual threads
+	 */
+	public static boolean isVirtualThreadsSupported(){
+		return EntityProcess.isVirtual();
+	}
+
+	/**
+	 * Blocks the body of a process entity until its next event. Called by the attached
+	 * entities in place of Sim_entity.sim_get_next().
+	 *
+	 * @param id id of the calling entity
+	 * @param ev event to be filled in
+	 */
+	public void getNextEvent(int id, Sim_event ev){
+		getProcess(id).getNextEvent(ev);
+	}
+
+	/**
+	 * Blocks the body of a process entity for the given time. Called by the attached
+	 * entities in place of Sim_entity.sim_pause() and Sim_entity.sim_process().
+	 *
+	 * @param id id of the calling entity
+	 * @param delay time to block for
+	 */
+	public void pause(int id, double delay){
+		if (delay < 0.0){
+			throw new IllegalArgumentException("Negative delay " + delay + " supplied by " + id);
+		}
+
+		getProcess(id).pause(delay);
+	}
+
+	/**
+	 * Looks up an entity id by name. The names of the attached entities are indexed, and
+	 * others are indexed on first use, as SimJava searches its entity list on every lookup.
+	 *
+	 * @param name the entity name
+	 * @return the entity id, or -1 if there is no such entity
+	 */
+	public int getEntityId(String name){
+		Integer id = entityIds.get(name);
+		if (id == null){
+			int found = GridSim.getEntityId(name);
+			if (found < 0){
+				return found;
+			}
+
+			id = found;
+			entityIds.put(name, id);
+		}
+
+		return id;
+	}
+
+	/**
+	 * Looks up the name of an attached entity, falling back to SimJava for others.
+	 *
+	 * @param id the entity id
+	 * @return the entity name, or null if there is no such entity
+	 */
+	public String getEntityName(int id){
+		String name = ((id >= 0) && (id < namesById.length)) ? namesById[id] : null;
+		if (name == null){
+			name = GridSim.getEntityName(id);
+		}
+
+		return name;
+	}
+
+	private EntityProcess getProcess(int id){
+		EntityProcess process = (id < processesById.length) ? processesById[id] : null;
+		if (process == null){
+			throw new IllegalStateException("Entity " + id + " is event driven and can not block.");
+		}
+
+		return process;
+	}
+
+	/**
+	 * Schedules an event. Called by the attached entities in place of Sim_entity.sim_schedule().
+	 *
+	 * @param src id of the sending entity
+	 * @param dest id of the receiving entity
+	 * @param delay time from now at which the event is delivered
+	 * @param tag event tag
+	 * @param data event payload, can be null
+	 */
+	public void schedule(int src, int dest, double delay, int tag, Object data){
+		if (delay < 0.0){
+			throw new IllegalArgumentException("Negative delay " + delay + " supplied by " + src);
+		}
+
+		if (parallel != null){
+			int owner = parallel.getPartition(dest);
+			if ((owner >= 0) && (owner != partition)){
+				parallel.send(partition, new KernelEvent(clock + delay, 0, src, dest, tag, data));
+				return;
+			}
+		}
+
+		future.add(new KernelEvent(clock + delay, serial++, src, dest, tag, data));
+	}
+
+	/**
+	 * Adds an event sent by another partition of the parallel kernel. It is ordered after
+	 * the events already scheduled for the same time.
+	 */
+	void deliver(KernelEvent ev){
+		future.add(new KernelEvent(ev.event_time(), serial++, ev.get_src(), ev.get_dest(), ev.get_tag(), ev.get_data()));
+	}
+
+	/**
+	 * Runs the simulation until the termination time is reached or there are no more events.
+	 */
+	public void run(){
+		if (hasProcesses && !sharedWithSimJava){
+			throw new IllegalStateException("Process entities need the SimJava clock to be shared.");
+		}
+
+		start();
+		runUntil(Double.POSITIVE_INFINITY);
+		finish();
+	}
+
+	/** Starts the attached entities. */
+	void start(){
+		if (sharedWithSimJava){
+			SimJavaState.setClock(0);
+			SimJavaState.setRunning(true);
+		}
+
+		for (EventDrivenEntity e : entities){
+			e.startEntity();
+		}
+	}
+
+	/**
+	 * Delivers the events due before the given time, or up to the termination time if that
+	 * comes first.
+	 *
+	 * @param endTime time of the first event not to deliver
+	 */
+	void runUntil(double endTime){
+		KernelEvent ev;
+		EventDrivenEntity dest;
+		while ((ev = future.poll()) != null){
+			if (ev.event_time() > terminationTime){
+				future.add(ev);
+				clock = terminationTime;
+				if (sharedWithSimJava){
+					SimJavaState.setClock(clock);
+				}
+				return;
+			}
+
+			if (ev.event_time() >= endTime){
+				future.add(ev);
+				return;
+			}
+
+			clock = ev.event_time();
+			if (sharedWithSimJava){
+				SimJavaState.setClock(clock);
+			}
+
+			dest = (ev.get_dest() < entitiesById.length) ? entitiesById[ev.get_dest()] : null;
+			if (dest != null){
+				dest.processEvent(ev);
+				eventsProcessed++;
+			}
+		}
+	}
+
+	/** Shuts the attached entities down. */
+	void finish(){
+		if (sharedWithSimJava){
+			SimJavaState.setRunning(false);
+		}
+
+		for (EventDrivenEntity e : entities){
+			e.shutdownEntity();
+		}
+	}
+
+	/**
+	 * @return the time of the next pending event, or infinity if there is none
+	 */
+	double getNextEventTime(){
+		KernelEvent ev = future.poll();
+		if (ev == null){
+			return Double.POSITIVE_INFINITY;
+		}
+
+		future.add(ev);
+		return ev.event_time();
+	}
+
+	/**
+	 * @return the current simulation time
+	 */
+	public double clock(){
+		return clock;
+	}
+
+	/**
+	 * @return the number of events delivered to entities so far
+	 */
+	public long getEventsProcessed(){
+		return eventsProcessed;
+	}
+
+	/**
+	 * @return the number of events waiting in the future event list
+	 */
+	public int getPendingEvents(){
+		return future.size();
+	}
+}
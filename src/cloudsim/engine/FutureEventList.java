@@ -0,0 +1,28 @@
+package cloudsim.engine;
+
+/**
+ * The future event list of the {@link EventKernel}: a priority queue of the pending events,
+ * ordered as defined by {@link KernelEvent#compareTo(KernelEvent)}.
+ */
+public interface FutureEventList {
+
+	/**
+	 * Adds an event. Events are never added with a time earlier than that of the last event
+	 * removed.
+	 *
+	 * @param ev the event
+	 */
+	void add(KernelEvent ev);
+
+	/**
+	 * Removes the earliest event.
+	 *
+	 * @return the earliest event, or <tt>null</tt> if the list is empty
+	 */
+	KernelEvent poll();
+
+	/**
+	 * @return the number of pending events
+	 */
+	int size();
+}
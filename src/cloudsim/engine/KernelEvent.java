@@ -0,0 +1,90 @@
+package cloudsim.engine;
+
+import eduni.simjava.Sim_event;
+
+/**
+ * An event in the future event list of the {@link EventKernel}. It extends {@link Sim_event}
+ * so it can be handed as is to the existing <code>processEvent(Sim_event)</code> methods of
+ * the entities.
+ *
+ * Events are ordered by time, and events scheduled for the same time are ordered by the
+ * sequence in which they were scheduled, so that a run is reproducible.
+ */
+public class KernelEvent extends Sim_event implements Comparable<KernelEvent> {
+
+	private final double time;
+	private final long serial;
+	private final int src;
+	private final int dest;
+	private final int tag;
+	private final Object data;
+
+	/** Link to the next event in a {@link CalendarQueue} bucket. */
+	KernelEvent next;
+
+	/** Constructor. */
+	public KernelEvent(double time, long serial, int src, int dest, int tag, Object data) {
+		super();
+		this.time = time;
+		this.serial = serial;
+		this.src = src;
+		this.dest = dest;
+		this.tag = tag;
+		this.data = data;
+	}
+
+	@Override
+	public double event_time() {
+		return time;
+	}
+
+	@Override
+	public int get_src() {
+		return src;
+	}
+
+	@Override
+	public int scheduled_by() {
+		return src;
+	}
+
+	@Override
+	public int get_dest() {
+		return dest;
+	}
+
+	@Override
+	public int get_tag() {
+		return tag;
+	}
+
+	@Override
+	public Object get_data() {
+		return data;
+	}
+
+	/**
+	 * @return the order in which this event was scheduled
+	 */
+	public long getSerial() {
+		return serial;
+	}
+
+	public int compareTo(KernelEvent other) {
+		if (time < other.time){
+			return -1;
+		} else if (time > other.time){
+			return 1;
+		} else if (serial < other.serial){
+			return -1;
+		} else if (serial > other.serial){
+			return 1;
+		} else {
+			return 0;
+		}
+	}
+
+	public String toString(){
+		return "KernelEvent time=" + time + ", src=" + src + ", dest=" + dest + ", tag=" + tag;
+	}
+}
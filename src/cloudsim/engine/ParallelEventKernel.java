@@ -0,0 +1,329 @@
+package cloudsim.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+
+import cloudsim.CloudSim;
+
+/**
+ * Runs a simulation split in to partitions, each an {@link EventKernel} of its own, on
+ * several threads.
+ *
+ * The partitions advance together in windows of simulation time, the conservative
+ * synchronous scheme: each window starts at the time of the earliest pending event of all
+ * partitions and is <code>lookahead</code> long. Within a window every partition delivers
+ * its own events, on one of the threads, without looking at the others. An event sent to an
+ * entity of another partition is held back until all partitions reach the end of the
+ * window, and is then handed to the partition of the receiving entity. The exchange is done
+ * in partition order, so a run gives the same results whatever the number of threads.
+ *
+ * This is only correct if no event sent across partitions is due before the end of the
+ * window it was sent in, which is what the lookahead promises: it must be no longer than
+ * the shortest delay between partitions. Events that do not keep the promise are delivered
+ * at the end of the window instead, and counted (see {@link #getClampedMessages()}).
+ *
+ * State shared between partitions outside of events, such as the traffic levels of the
+ * Internet, can be kept per partition and merged at the end of each window by a
+ * synchronizer (see {@link #addSynchronizer(Runnable)}).
+ */
+public class ParallelEventKernel {
+
+	private final double terminationTime;
+	private final double lookahead;
+	private final List<EventKernel> partitions;
+	private final List<List<KernelEvent>> outboxes;
+	private final List<CloudSim> entities;
+	private final List<Runnable> synchronizers;
+	private int[] partitionById;
+
+	private double windowEnd = 0;
+	private boolean done = false;
+	private long windows = 0;
+	private long[] crossPartitionMessages;
+	private long[] clampedMessages;
+	private Throwable error;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param terminationTime the simulation time at which the run ends
+	 * @param lookahead the length of a window, at most the shortest delay of an event sent
+	 * 		from one partition to another
+	 */
+	public ParallelEventKernel(double terminationTime, double lookahead){
+		if (!(lookahead > 0)){
+			throw new IllegalArgumentException("Lookahead must be positive, was " + lookahead);
+		}
+
+		this.terminationTime = terminationTime;
+		this.lookahead = lookahead;
+		this.partitions = new ArrayList<EventKernel>();
+		this.outboxes = new ArrayList<List<KernelEvent>>();
+		this.entities = new ArrayList<CloudSim>();
+		this.synchronizers = new ArrayList<Runnable>();
+		this.partitionById = new int[16];
+		Arrays.fill(partitionById, -1);
+	}
+
+	/**
+	 * Adds a partition.
+	 *
+	 * @param futureEventList the future event list of the partition
+	 * @return the index of the partition
+	 */
+	public int addPartition(FutureEventList futureEventList){
+		int index = partitions.size();
+
+		EventKernel kernel = new EventKernel(terminationTime, futureEventList);
+		kernel.setSharedWithSimJava(false);
+		kernel.setPartition(this, index);
+		partitions.add(kernel);
+		outboxes.add(new ArrayList<KernelEvent>());
+
+		return index;
+	}
+
+	/**
+	 * @param index the index of a partition
+	 * @return the kernel of the partition
+	 */
+	public EventKernel getPartitionKernel(int index){
+		return partitions.get(index);
+	}
+
+	/**
+	 * @return the number of partitions
+	 */
+	public int getPartitionCount(){
+		return partitions.size();
+	}
+
+	/**
+	 * Attaches an entity to a partition. The entity must implement {@link EventDrivenEntity}.
+	 *
+	 * @param partition the index of the partition
+	 * @param entity the entity
+	 */
+	public void addEntity(int partition, CloudSim entity){
+		partitions.get(partition).addEntity(entity);
+		entities.add(entity);
+
+		int id = entity.get_id();
+		if (id >= partitionById.length){
+			int oldLength = partitionById.length;
+			partitionById = Arrays.copyOf(partitionById, Math.max(id + 1, oldLength * 2));
+			Arrays.fill(partitionById, oldLength, partitionById.length, -1);
+		}
+		partitionById[id] = partition;
+	}
+
+	/**
+	 * Adds a task to be run at the end of every window, while no partition is running.
+	 * Synchronizers are run in the order they were added.
+	 *
+	 * @param synchronizer the task
+	 */
+	public void addSynchronizer(Runnable synchronizer){
+		synchronizers.add(synchronizer);
+	}
+
+	/**
+	 * @param id an entity id
+	 * @return the index of the partition the entity is attached to, or -1 if it is not attached
+	 */
+	int getPartition(int id){
+		return ((id >= 0) && (id < partitionById.length)) ? partitionById[id] : -1;
+	}
+
+	/**
+	 * Holds back an event sent to another partition until the end of the current window.
+	 */
+	void send(int from, KernelEvent ev){
+		crossPartitionMessages[from]++;
+
+		if (ev.event_time() < windowEnd){
+			clampedMessages[from]++;
+			ev = new KernelEvent(windowEnd, 0, ev.get_src(), ev.get_dest(), ev.get_tag(), ev.get_data());
+		}
+
+		outboxes.get(from).add(ev);
+	}
+
+	/**
+	 * Runs the simulation until the termination time is reached or there are no more events
+	 * in any partition.
+	 *
+	 * @param threads the number of threads to run the partitions on, including the calling one.
+	 * 		Partitions are assigned to the threads in turn.
+	 */
+	public void run(int threads) throws Exception {
+		threads = Math.max(1, Math.min(threads, partitions.size()));
+		crossPartitionMessages = new long[partitions.size()];
+		clampedMessages = new long[partitions.size()];
+
+		//Let every partition look up the entities of the others by name
+		for (EventKernel kernel : partitions){
+			for (CloudSim entity : entities){
+				kernel.indexName(entity.get_id(), entity.get_name());
+			}
+		}
+
+		for (EventKernel kernel : partitions){
+			kernel.start();
+		}
+		endWindow();
+
+		final CyclicBarrier barrier = new CyclicBarrier(threads, new Runnable(){
+			public void run() {
+				endWindow();
+			}
+		});
+
+		List<Thread> workers = new ArrayList<Thread>();
+		for (int i = 1; i < threads; i++){
+			final int worker = i;
+			final int threadCount = threads;
+			Thread t = new Thread(new Runnable(){
+				public void run() {
+					runWindows(worker, threadCount, barrier);
+				}
+			}, "Partition worker " + i);
+			t.setDaemon(true);
+			workers.add(t);
+			t.start();
+		}
+
+		runWindows(0, threads, barrier);
+		for (Thread t : workers){
+			t.join();
+		}
+
+		if (error != null){
+			if (error instanceof Exception){
+				throw (Exception) error;
+			}
+			throw (Error) error;
+		}
+
+		for (EventKernel kernel : partitions){
+			kernel.finish();
+		}
+	}
+
+	private void runWindows(int worker, int threads, CyclicBarrier barrier){
+		try {
+			while (!done){
+				for (int p = worker; p < partitions.size(); p += threads){
+					partitions.get(p).runUntil(windowEnd);
+				}
+
+				barrier.await();
+			}
+		} catch (BrokenBarrierException e) {
+			//Another worker failed, and reported it
+		} catch (Throwable t) {
+			fail(t);
+			barrier.reset();
+		}
+	}
+
+	private synchronized void fail(Throwable t){
+		if (error == null){
+			error = t;
+		}
+		done = true;
+	}
+
+	/**
+	 * Hands over the events sent across partitions during the window, runs the synchronizers
+	 * and sets up the next window. Called while no partition is running.
+	 */
+	private void endWindow(){
+		try {
+			for (List<KernelEvent> outbox : outboxes){
+				for (KernelEvent ev : outbox){
+					partitions.get(partitionById[ev.get_dest()]).deliver(ev);
+				}
+				outbox.clear();
+			}
+
+			for (Runnable synchronizer : synchronizers){
+				synchronizer.run();
+			}
+
+			double next = Double.POSITIVE_INFINITY;
+			for (EventKernel kernel : partitions){
+				next = Math.min(next, kernel.getNextEventTime());
+			}
+
+			if (next > terminationTime){
+				//Let the partitions move their clocks to the termination time
+				for (EventKernel kernel : partitions){
+					kernel.runUntil(Double.POSITIVE_INFINITY);
+				}
+				done = true;
+			} else {
+				windowEnd = next + lookahead;
+				windows++;
+			}
+		} catch (RuntimeException e) {
+			fail(e);
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the lookahead
+	 */
+	public double getLookahead(){
+		return lookahead;
+	}
+
+	/**
+	 * @return the number of windows the run took
+	 */
+	public long getWindows(){
+		return windows;
+	}
+
+	/**
+	 * @return the number of events sent from one partition to another
+	 */
+	public long getCrossPartitionMessages(){
+		return sum(crossPartitionMessages);
+	}
+
+	/**
+	 * @return the number of events sent from one partition to another that were due before
+	 * 		the end of the window they were sent in, and were delivered late
+	 */
+	public long getClampedMessages(){
+		return sum(clampedMessages);
+	}
+
+	/**
+	 * @return the number of events delivered to entities in all partitions
+	 */
+	public long getEventsProcessed(){
+		long count = 0;
+		for (EventKernel kernel : partitions){
+			count += kernel.getEventsProcessed();
+		}
+
+		return count;
+	}
+
+	private static long sum(long[] values){
+		long sum = 0;
+		if (values != null){
+			for (long v : values){
+				sum += v;
+			}
+		}
+
+		return sum;
+	}
+}
@@ -0,0 +1,89 @@
+package cloudsim.engine;
+
+import java.lang.reflect.Field;
+
+import eduni.simjava.Sim_event;
+import eduni.simjava.Sim_system;
+
+/**
+ * Keeps the static state of {@link Sim_system} in step with the {@link EventKernel}.
+ *
+ * Code that is not part of this project, such as GridSim.clock() and Sim_stat, reads the
+ * SimJava clock and running flag directly. Since SimJava provides no way to set them from
+ * outside its own scheduler, they are updated reflectively. Likewise the fields of the
+ * {@link Sim_event} filled in by sim_get_next() are only writable by SimJava itself.
+ */
+final class SimJavaState {
+
+	private static final Field CLOCK = getField("clock");
+	private static final Field RUNNING = getField("running");
+
+	private static final Field EVENT_TYPE = getEventField("etype");
+	private static final Field EVENT_TIME = getEventField("time");
+	private static final Field EVENT_SRC = getEventField("ent_src");
+	private static final Field EVENT_DEST = getEventField("ent_dst");
+	private static final Field EVENT_TAG = getEventField("tag");
+	private static final Field EVENT_DATA = getEventField("data");
+	private static final int EVENT_TYPE_SEND = getSendType();
+
+	private SimJavaState(){
+	}
+
+	static void setClock(double time){
+		try {
+			CLOCK.setDouble(null, time);
+		} catch (IllegalAccessException e) {
+			throw new RuntimeException("Failed to update the SimJava clock.", e);
+		}
+	}
+
+	static void setRunning(boolean running){
+		try {
+			RUNNING.setBoolean(null, running);
+		} catch (IllegalAccessException e) {
+			throw new RuntimeException("Failed to update the SimJava running state.", e);
+		}
+	}
+
+	/**
+	 * Copies a kernel event into an event supplied to sim_get_next(), as SimJava would.
+	 */
+	static void copyEvent(KernelEvent from, Sim_event to){
+		try {
+			EVENT_TYPE.setInt(to, EVENT_TYPE_SEND);
+			EVENT_TIME.setDouble(to, from.event_time());
+			EVENT_SRC.setInt(to, from.get_src());
+			EVENT_DEST.setInt(to, from.get_dest());
+			EVENT_TAG.setInt(to, from.get_tag());
+			EVENT_DATA.set(to, from.get_data());
+		} catch (IllegalAccessException e) {
+			throw new RuntimeException("Failed to copy event.", e);
+		}
+	}
+
+	private static int getSendType(){
+		try {
+			return getField(Sim_event.class, "SEND").getInt(null);
+		} catch (IllegalAccessException e) {
+			throw new RuntimeException("Unsupported SimJava version.", e);
+		}
+	}
+
+	private static Field getEventField(String name){
+		return getField(Sim_event.class, name);
+	}
+
+	private static Field getField(String name){
+		return getField(Sim_system.class, name);
+	}
+
+	private static Field getField(Class<?> c, String name){
+		try {
+			Field f = c.getDeclaredField(name);
+			f.setAccessible(true);
+			return f;
+		} catch (NoSuchFieldException e) {
+			throw new RuntimeException("Unsupported SimJava version. " + c.getSimpleName() + "." + name + " not found.", e);
+		}
+	}
+}
@@ -11,6 +11,14 @@ public interface Constants {
 
 	final int RESPONSE_INTERNET_CLOUDLET_TAG = 2002;
 
+	final int USER_BASE_TIMER_TAG = 2003;
+
+	final int LATENCY_CHECK_TIMER_TAG = 2004;
+
+	final int AUTO_SCALE_TIMER_TAG = 2005;
+
+	final int VM_BOOTED_TAG = 2006;
+
 	final String MEASURE_TYPE_OVERALL_USER_BASE_RESPONSE = "Overall userbase response time";
 	final String MEASURE_TYPE_USER_BASE_RESPONSE = "Userbase Response Time";
 	final String MEASURE_TYPE_DC_PROCESSING_TIME = "DC Processing Time";
@@ -25,14 +33,22 @@ public interface Constants {
 
 	final String PARAM_DATA_ELEMENT = "data_element";
 	final String PARAM_VM_ID = "vm_id";
+	final String PARAM_VM_IDS = "vm_ids";
 	final String PARAM_TIME = "time";
 	final String PARAM_PROCESSING_TIME = "processing_time";
 	final String PARAM_COMM_PATH = "commPath";
+	final String PARAM_SHED = "shed";
 
 	final double MILLI_SECONDS_TO_MINS = 1000 * 60;
 	final double MILLI_SECONDS_TO_HOURS = 1000 * 60 * 60;
 	final double MILLI_SECONDS_TO_DAYS = 1000 * 60 * 60 * 24;
 
+	final String TIME_UNIT_DAYS = "days";
+	final String TIME_UNIT_HOURS = "hours";
+	final String TIME_UNIT_MIN = "min";
+
+	final String SIM_FILE_EXTENSION = ".sim";
+
 	final int DEFAULT_APP_ID = 1;
 	final String SIMULATION_COMPLETED_TIME = "sim_completed_at";
 	final String PDF_EXTENSION = ".pdf";
@@ -77,6 +93,22 @@ public interface Constants {
 	final String VM_COST = "VM Cost";
 	final String DATA_COST = "Data Cost";
 	final String TOTAL_COST = "Total Cost";
+	final String DC_METRICS = "DC metrics";
+	final String DC_REQUESTS_IN_FLIGHT = "Requests in flight";
+	final String DC_PEAK_REQUESTS_IN_FLIGHT = "Peak requests in flight";
+	final String DC_QUEUED_CLOUDLETS = "Queued cloudlets";
+	final String DC_PEAK_QUEUE_LENGTH = "Peak queue length";
+	final String DC_AVERAGE_QUEUE_LENGTH = "Average queue length";
+	final String DC_AVERAGE_TIME_IN_QUEUE = "Average time in queue";
+	final String DC_MAX_TIME_IN_QUEUE = "Max time in queue";
+	final String DC_SHED_REQUESTS = "Shed requests";
+	final String DC_VMS_IN_SERVICE = "VMs in service";
+	final String DC_PEAK_VMS_IN_SERVICE = "Peak VMs in service";
+	final String DC_VM_HOURS = "VM hours";
+	final String DC_SCALE_OUTS = "Scale outs";
+	final String DC_SCALE_INS = "Scale ins";
+	final String DC_AVERAGE_REQUESTS_PER_CLOUDLET = "Average requests per cloudlet";
+	final String UB_SHED_REQUESTS = "Shed requests";
 
 	final String BROKER_POLICY_PROXIMITY = "Closest Data Center";
 	final String BROKER_POLICY_OPTIMAL_RESPONSE = "Optimise Response Time";
@@ -91,5 +123,20 @@ public interface Constants {
 	final String LOAD_BALANCE_HONEY_COLONY = "Honey Bee Foraging loadbalancer";
 	final String LOAD_BALANCE_PSO = "PSO LoadBalancer";
 	final String LOAD_BALANCE_THRESHOLD = "Threshold based LB";
+	final String LOAD_BALANCE_LEAST_CONNECTIONS = "Least Connections";
+	final String LOAD_BALANCE_POWER_OF_CHOICES = "Power of d Choices";
+	final String LOAD_BALANCE_RESPONSE_TIME = "Response Time Aware";
+
+	final String WAITING_QUEUE_REJECT_NEW = "Reject New";
+	final String WAITING_QUEUE_DROP_OLDEST = "Drop Oldest";
+	final String WAITING_QUEUE_CODEL = "CoDel";
+
+	final String SIMULATION_ENGINE_SIMJAVA = "SimJava";
+	final String SIMULATION_ENGINE_EVENT_KERNEL = "Event Kernel";
+	final String SIMULATION_ENGINE_VIRTUAL_THREADS = "Virtual Threads";
+	final String SIMULATION_ENGINE_PARALLEL = "Parallel Event Kernel";
+
+	final String FUTURE_EVENT_LIST_BINARY_HEAP = "Binary Heap";
+	final String FUTURE_EVENT_LIST_CALENDAR_QUEUE = "Calendar Queue";
 	
 }
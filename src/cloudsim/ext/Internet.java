@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.Map;
 
 import cloudsim.CloudSim;
+import cloudsim.engine.EventDrivenEntity;
 import cloudsim.ext.event.CloudSimEvent;
 import cloudsim.ext.event.CloudSimEventListener;
 import cloudsim.ext.event.CloudSimEvents;
@@ -14,7 +15,8 @@ import cloudsim.ext.servicebroker.CloudAppServiceBroker;
 import cloudsim.ext.util.CommPath;
 import eduni.simjava.Sim_event;
 import eduni.simjava.Sim_system;
-import gridsim.GridSim;
+import cloudsim.ext.util.SimLog;
+import cloudsim.ext.util.SimLog.Category;
 
 /**
  * The class Internet emulates the function of the real world Internet. The {@link UserBase}s
@@ -27,21 +29,37 @@ import gridsim.GridSim;
  * 
  * @author Bhathiya Wickremasinghe
  */
-public class Internet extends CloudSim implements CloudsimObservable {
+public class Internet extends CloudSim implements CloudsimObservable, EventDrivenEntity {
 
 	private static final long PROGRESS_UPDATE_INTERVAL = 60000;
 	
 	private List<CloudSimEventListener> listeners;
+	private final InternetCharacteristics internetCharacteristics;
 
 	private Map<Integer, CloudAppServiceBroker> serviceBrokers = new HashMap<Integer, CloudAppServiceBroker>();
 	private boolean running = false;
 	private double lastProgressUpdate = 0;
 	
-	public Internet(CloudSimEventListener progressListener) throws Exception {
-		super("Internet");
+	public Internet(SimulationContext context, CloudSimEventListener progressListener) throws Exception {
+		this(Constants.INTERNET, context, progressListener);
+	}
+	
+	/**
+	 * Constructor for one of several Internet entities of a run, each routing the requests
+	 * of part of the world. See {@link Simulation#setParallelThreads(int)}.
+	 * 
+	 * @param name the entity name
+	 * @param context the context of the run
+	 * @param progressListener the listener to report progress to, can be null
+	 */
+	public Internet(String name, SimulationContext context, CloudSimEventListener progressListener) throws Exception {
+		super(name);
 		
+		this.internetCharacteristics = context.getInternetCharacteristics();
 		listeners = new ArrayList<CloudSimEventListener>();
-		addCloudSimEventListener(progressListener);
+		if (progressListener != null){
+			addCloudSimEventListener(progressListener);
+		}
 	}
 	
 	public void addServiceBroker(int appId, CloudAppServiceBroker broker){
@@ -50,7 +68,7 @@ public class Internet extends CloudSim implements CloudsimObservable {
 
 	public void body(){
 		running = true;
-		System.out.println("Starting internet " + get_id());
+		SimLog.info(Category.ENTITY, "Starting internet " + get_id());
 		
 		Sim_event ev = new Sim_event();
         while(Sim_system.running()){
@@ -58,26 +76,38 @@ public class Internet extends CloudSim implements CloudsimObservable {
             
 //            System.out.println(GridSim.clock() + ": Internet got:" + ev.get_tag() + " from " + ev.get_src() + " with data=" + ev.get_data());
             processEvent(ev);
-            updateProgress();
             
         }
         
         running = false;
 	}
 	
-	private void processEvent(Sim_event ev){
+	public void startEntity(){
+		running = true;
+		SimLog.info(Category.ENTITY, "Starting internet " + get_id());
+	}
+	
+	public void processEvent(Sim_event ev){
+		routeCloudlet(ev);
+		updateProgress();
+	}
+	
+	public void shutdownEntity(){
+		running = false;
+	}
+	
+	private void routeCloudlet(Sim_event ev){
 		InternetCloudlet cloudlet;
 		if (ev.get_data() instanceof InternetCloudlet){
 			cloudlet = (InternetCloudlet) ev.get_data();
 		} else {
-			System.out.println("Internet got message with non-cloudlet.");
+			SimLog.warn(Category.NETWORK, "Internet got message with non-cloudlet.");
 			return;
 		}
 		
 		String srcName = null;
 		String destName = null;
 		double delay = 0.0;
-		InternetCharacteristics internetCharacteristics = InternetCharacteristics.getInstance();		
     	
 		GeoLocatable originator = cloudlet.getOriginator();
 		
@@ -101,7 +131,7 @@ public class Internet extends CloudSim implements CloudsimObservable {
         	break;
         	
         case Constants.RESPONSE_INTERNET_CLOUDLET_TAG:      
-        	srcName = GridSim.getEntityName(ev.get_src());
+        	srcName = getEntityName(ev.get_src());
 			destName = originator.get_name();
 			
 			CommPath commPath2 = internetCharacteristics.addTraffic(srcName, destName, cloudlet.getRequestCount());
@@ -130,7 +160,7 @@ public class Internet extends CloudSim implements CloudsimObservable {
 //	}
 	
 	private void updateProgress(){
-		double currSimTime = GridSim.clock();
+		double currSimTime = clock();
 		
 		if ((currSimTime - lastProgressUpdate) > PROGRESS_UPDATE_INTERVAL){
 			CloudSimEvent e = new CloudSimEvent(CloudSimEvents.EVENT_PROGRESS_UPDATE);
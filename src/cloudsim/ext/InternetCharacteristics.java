@@ -1,6 +1,5 @@
 package cloudsim.ext;
 
-import gridsim.GridSim;
 import gridsim.util.Poisson;
 
 import java.io.IOException;
@@ -19,7 +18,11 @@ import cloudsim.ext.util.IOUtil;
  * This class holds the data that define the behaviour of the Internet which includes latencies
  * and bandwidth, and also provides methods to access those information.
  *
- * This class is a singleton.
+ * The instance returned by {@link #getInstance()} holds the latencies and bandwidths
+ * configured in the GUI. Each simulation run works on its own copy, created with
+ * {@link #InternetCharacteristics(double[][], double[][])} and held by the run's
+ * {@link SimulationContext}, as it also keeps the traffic levels and service latencies
+ * of the run.
  *
  * @author Bhathiya Wickremasinghe
  *
@@ -37,6 +40,11 @@ public class InternetCharacteristics {
 	private final Map<CommPath, Long> trafficLevels;
 	private final Map<String, Double[]> serviceLatencies;
 
+	/** Changes since the last {@link #merge(List)}, when this is one of several copies of a run. */
+	private Map<CommPath, Long> trafficChanges = null;
+	private Map<String, Double[]> serviceLatencyChanges = null;
+	private Map<CommPath, Long> mergedTrafficLevels = null;
+
 	private final Poisson availableBwDistribution;
 	private final Poisson pingDelayDistribution;
 
@@ -62,11 +70,41 @@ public class InternetCharacteristics {
 	}
 
 	/**
-	 * Returns the singleton instance
+	 * Creates the Internet characteristics for a single simulation run.
+	 *
+	 * @param latencyMatrix latencies between regions, copied
+	 * @param bwMatrix available bandwidths between regions, copied
+	 */
+	public InternetCharacteristics(double[][] latencyMatrix, double[][] bwMatrix){
+		entityLocations = new HashMap<String, Integer>();
+		allEntities = new ArrayList<GeoLocatable>();
+
+		this.latencyMatrix = copyOf(latencyMatrix);
+		this.bwMatrix = copyOf(bwMatrix);
+
+		proximityCache = new HashMap<Integer, List<Integer>>();
+		trafficLevels = Collections.synchronizedMap(new HashMap<CommPath, Long>());
+		serviceLatencies = Collections.synchronizedMap(new HashMap<String, Double[]>());
+
+		pingDelayDistribution = new Poisson("PingDelayDistribution", STANDARD_POISSON_MEAN);
+		availableBwDistribution = new Poisson("AvailableBwDistribution", STANDARD_POISSON_MEAN);
+	}
+
+	private static double[][] copyOf(double[][] matrix){
+		double[][] copy = new double[matrix.length][];
+		for (int i = 0; i < matrix.length; i++){
+			copy[i] = matrix[i].clone();
+		}
+
+		return copy;
+	}
+
+	/**
+	 * Returns the instance holding the configured latencies and bandwidths
 	 *
 	 * @return
 	 */
-	public static InternetCharacteristics getInstance(){
+	public static synchronized InternetCharacteristics getInstance(){
 		if (instance == null){
 			try {
 				instance = new InternetCharacteristics();
@@ -108,11 +146,86 @@ public class InternetCharacteristics {
 		allEntities.add(entity);
 	}
 
+	/**
+	 * Replaces the entities in the repository, keeping their order.
+	 *
+	 * @param entities
+	 */
+	void setEntities(List<GeoLocatable> entities){
+		entityLocations.clear();
+		allEntities.clear();
+		for (GeoLocatable entity : entities){
+			addEntity(entity);
+		}
+	}
+
+	/**
+	 * Starts recording the changes made to the traffic levels and service latencies, so
+	 * they can be merged with those of other copies by {@link #merge(List)}.
+	 */
+	void trackChanges(){
+		trafficChanges = new HashMap<CommPath, Long>();
+		serviceLatencyChanges = new HashMap<String, Double[]>();
+		mergedTrafficLevels = new HashMap<CommPath, Long>(trafficLevels);
+	}
+
+	/**
+	 * Brings copies of the Internet characteristics of a run, each updated by part of the
+	 * entities, back in step. The traffic levels become those of the last merge plus all the
+	 * changes since, but no less than zero, and each service latency the one updated last.
+	 *
+	 * @param copies the copies, all tracking their changes
+	 */
+	static void merge(List<InternetCharacteristics> copies){
+		Map<CommPath, Long> changes = new HashMap<CommPath, Long>();
+		Map<String, Double[]> latencies = new HashMap<String, Double[]>();
+		for (InternetCharacteristics c : copies){
+			for (Map.Entry<CommPath, Long> e : c.trafficChanges.entrySet()){
+				Long change = changes.get(e.getKey());
+				changes.put(e.getKey(), (change == null) ? e.getValue() : change + e.getValue());
+			}
+			c.trafficChanges.clear();
+
+			for (Map.Entry<String, Double[]> e : c.serviceLatencyChanges.entrySet()){
+				Double[] latest = latencies.get(e.getKey());
+				if ((latest == null) || (e.getValue()[1] > latest[1])){
+					latencies.put(e.getKey(), e.getValue());
+				}
+			}
+			c.serviceLatencyChanges.clear();
+		}
+
+		Map<CommPath, Long> levels = new HashMap<CommPath, Long>(copies.get(0).mergedTrafficLevels);
+		for (Map.Entry<CommPath, Long> e : changes.entrySet()){
+			Long level = levels.get(e.getKey());
+			if (level != null){
+				levels.put(e.getKey(), Math.max(0, level + e.getValue()));
+			} else if (e.getValue() > 0){
+				levels.put(e.getKey(), e.getValue());
+			}
+		}
+
+		for (InternetCharacteristics c : copies){
+			c.trafficLevels.clear();
+			c.trafficLevels.putAll(levels);
+			c.serviceLatencies.putAll(latencies);
+			c.mergedTrafficLevels = levels;
+		}
+	}
+
 	/**
 	 * Updates the service latency staticistics for a data center.
+	 *
+	 * @param serviceProvider
+	 * @param delay
+	 * @param time the simulation time of the update
 	 */
-	public void updateSerivceLatency(String serviceProvider, Double delay){
-		serviceLatencies.put(serviceProvider, new Double[]{delay, GridSim.clock()});
+	public void updateSerivceLatency(String serviceProvider, Double delay, double time){
+		Double[] latency = new Double[]{delay, time};
+		serviceLatencies.put(serviceProvider, latency);
+		if (serviceLatencyChanges != null){
+			serviceLatencyChanges.put(serviceProvider, latency);
+		}
 	}
 
 	/**
@@ -252,6 +365,7 @@ public class InternetCharacteristics {
 		currentLevel += requestCount;
 
 		trafficLevels.put(path, currentLevel);
+		recordTrafficChange(path, requestCount);
 
 //		System.out.println("Traffic level:" + path + ":" + currentLevel);
 	}
@@ -275,11 +389,19 @@ public class InternetCharacteristics {
 			}
 
 			trafficLevels.put(path, currentLevel);
+			recordTrafficChange(path, -requestCount);
 		}
 
 //		System.out.println("Traffic level:" + path + ":" + currentLevel);
 	}
 
+	private void recordTrafficChange(CommPath path, long change){
+		if (trafficChanges != null){
+			Long total = trafficChanges.get(path);
+			trafficChanges.put(path, (total == null) ? change : total + change);
+		}
+	}
+
 //	private void printMatrix(double[][] matrix){
 //		System.out.println("Loaded delay matrix:");
 //		for (int row = 0; row < matrix.length; row++){
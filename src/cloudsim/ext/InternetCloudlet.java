@@ -20,6 +20,7 @@ public class InternetCloudlet extends Cloudlet {
 	private int appId;
 	private int parentId;
 	private int requestCount;
+	private double vmSubmitTime;
 		
 	public InternetCloudlet(int cloudletID, 
 							double cloudletLength,
@@ -99,4 +100,18 @@ public class InternetCloudlet extends Cloudlet {
 	public int getRequestCount() {
 		return requestCount;
 	}	
+
+	/**
+	 * @return the simulation time the cloudlet was sent to its VM
+	 */
+	public double getVmSubmitTime() {
+		return vmSubmitTime;
+	}
+
+	/**
+	 * @param vmSubmitTime the simulation time the cloudlet was sent to its VM
+	 */
+	public void setVmSubmitTime(double vmSubmitTime) {
+		this.vmSubmitTime = vmSubmitTime;
+	}
 }
@@ -1,6 +1,5 @@
 package cloudsim.ext;
 
-import eduni.simjava.Sim_stat;
 import eduni.simjava.Sim_system;
 import gridsim.GridSim;
 import gridsim.MachineList;
@@ -17,8 +16,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
-import javax.swing.JOptionPane;
-
+import cloudsim.CloudSim;
 import cloudsim.Cloudlet;
 import cloudsim.CloudletList;
 import cloudsim.DataCenter;
@@ -36,7 +34,17 @@ import cloudsim.VMCharacteristics;
 import cloudsim.VMMAllocationPolicy;
 import cloudsim.VirtualMachine;
 import cloudsim.VirtualMachineList;
+import cloudsim.engine.BinaryHeapEventList;
+import cloudsim.engine.CalendarQueue;
+import cloudsim.engine.EventKernel;
+import cloudsim.engine.FutureEventList;
+import cloudsim.engine.ParallelEventKernel;
+import cloudsim.ext.datacenter.AutoScalingPolicy;
+import cloudsim.ext.datacenter.CoDelWaitingQueue;
 import cloudsim.ext.datacenter.DatacenterController;
+import cloudsim.ext.datacenter.PowerOfChoicesVmLoadBalancer;
+import cloudsim.ext.datacenter.VmAutoScaler;
+import cloudsim.ext.datacenter.WaitingQueue;
 import cloudsim.ext.event.BaseCloudSimObservable;
 import cloudsim.ext.event.CloudSimEvent;
 import cloudsim.ext.event.CloudSimEventListener;
@@ -51,8 +59,11 @@ import cloudsim.ext.servicebroker.CloudAppServiceBroker;
 import cloudsim.ext.servicebroker.DynamicServiceBroker;
 import cloudsim.ext.servicebroker.ServiceProximityServiceBroker;
 import cloudsim.ext.stat.HourlyEventCounter;
+import cloudsim.ext.stat.IntervalStat;
 import cloudsim.ext.util.InternetEntitityRegistry;
 import cloudsim.ext.util.ObservableList;
+import cloudsim.ext.util.SimLog;
+import cloudsim.ext.util.SimLog.Category;
 
 /**
  * Main controller class of the simulation.
@@ -62,9 +73,6 @@ import cloudsim.ext.util.ObservableList;
  */
 public class Simulation extends BaseCloudSimObservable implements Constants {
 
-	//	private static CloudletList cloudletList;
-	private static VirtualMachineList vmlist;
-
 	private final ObservableList<DataCenterUIElement> dataCenters;
 	private List<DatacenterController> dcbs;
 	private List<DataCenter> dcs;
@@ -73,23 +81,54 @@ public class Simulation extends BaseCloudSimObservable implements Constants {
 	private double simulationTime;
 	private String serviceBrokerPolicy = Constants.BROKER_POLICY_PROXIMITY;
 	private String loadBalancePolicy = Constants.LOAD_BALANCE_POLICY_RR;
+	private String simulationEngine = Constants.SIMULATION_ENGINE_SIMJAVA;
+	private String futureEventList = Constants.FUTURE_EVENT_LIST_BINARY_HEAP;
 	private int userGroupingFactor = 10;
 	private int dcRequestGroupingFactor = 10;
+	private int minDcRequestGroupingFactor = 0;
+	private int maxDcRequestGroupingFactor = 0;
 	private int instructionLengthPerRequest = 100;
+	private int parallelThreads = Runtime.getRuntime().availableProcessors();
+	private int loadBalancerChoices = PowerOfChoicesVmLoadBalancer.DEFAULT_CHOICES;
+	private String waitingQueuePolicy = Constants.WAITING_QUEUE_REJECT_NEW;
+	private int waitingQueueCapacity = 0;
+	private double waitingQueueTargetDelay = CoDelWaitingQueue.DEFAULT_TARGET_DELAY;
+	private AutoScalingPolicy autoScalingPolicy;
 	private CloudSimEventListener progressListener;
 	private Map<String, Object> results;
 	private Internet internet;
+	private final InternetEntitityRegistry entityRegistry;
+	private SimulationContext context;
+	private List<CloudSim> entities;
+	
+	/** The contexts of the world regions, in a run on the parallel event kernel. */
+	private Map<Integer, SimulationContext> regionContexts;
+	private Map<Integer, Internet> regionInternets;
+	private ParallelEventKernel parallelKernel;
+	
+	/** 
+	 * Constructor for a simulation without a GUI, which reports progress to no one.
+	 */
+	public Simulation() throws Exception {
+		this(null);
+	}
 	
-	/** Constructor. */
+	/** 
+	 * Constructor.
+	 * 
+	 * @param gui the listener to report progress to, can be null
+	 */
 	public Simulation(CloudSimEventListener gui) throws Exception {
 		
 		this.progressListener = gui;
-		addCloudSimEventListener(gui);
+		if (gui != null){
+			addCloudSimEventListener(gui);
+		}
 		
 		dataCenters = new ObservableList<DataCenterUIElement>();
 		userBases = new ObservableList<UserBaseUIElement>();
 				
-		InternetEntitityRegistry.initialize(userBases, dataCenters);
+		entityRegistry = new InternetEntitityRegistry(userBases, dataCenters);
 		
 		createDefaultSimulation();
 	}
@@ -144,9 +183,13 @@ public class Simulation extends BaseCloudSimObservable implements Constants {
 	
 	/**
 	 * Creates and runs the simulation from the configuration obtained by the GUI.
+	 * 
+	 * Several simulations can run at the same time on separate threads when they use the
+	 * {@link Constants#SIMULATION_ENGINE_EVENT_KERNEL} engine. Runs on the other engines
+	 * are run one at a time. See {@link SimulationContext}.
 	 */
 	public void runSimulation() throws Exception {
-		System.out.println("Starting Simulation...");
+		SimLog.info(Category.SIMULATION, "Starting Simulation...");
 	
 		//Set up stuff
 		int num_user = 1; // number of grid users
@@ -156,25 +199,105 @@ public class Simulation extends BaseCloudSimObservable implements Constants {
 		String[] exclude_from_processing = { "" };
 		String report_name = null;
 
-		//Initialize GridSim
-		GridSim.init(num_user, calendar, trace_flag, exclude_from_file,
-				exclude_from_processing, report_name);
+		SimulationContext.lockSimJava();
+		boolean simJavaLocked = true;
+		try {
+			InternetCharacteristics configuredInternet = InternetCharacteristics.getInstance();
+			
+			//Initialize GridSim
+			GridSim.init(num_user, calendar, trace_flag, exclude_from_file,
+					exclude_from_processing, report_name);
+			
+			//The seeds of the distributions are drawn from one sequence for the whole JVM.
+			// Restart it, so that a run gets the same seeds whatever ran before it
+			Sim_system.set_seed(Sim_system.get_root_seed());
+			
+			context = new SimulationContext(new InternetCharacteristics(configuredInternet.getLatencyMatrix(), 
+																		configuredInternet.getBwMatrix()),
+											entityRegistry);
+			regionContexts = null;
+			regionInternets = null;
+			parallelKernel = null;
+			if (simulationEngine.equals(Constants.SIMULATION_ENGINE_PARALLEL)){
+				createRegionContexts(configuredInternet);
+			}
+			
+			createEntities();
+			
+			if (simulationEngine.equals(Constants.SIMULATION_ENGINE_EVENT_KERNEL)){
+				//Run all entities as event handlers on this thread
+				EventKernel kernel = createEventKernel();
+				kernel.setSharedWithSimJava(false);
+				kernel.addAllEntities();
+				context.setEventKernel(kernel);
+				
+				//The run does not need SimJava from here on, let other runs set up
+				SimulationContext.unlockSimJava();
+				simJavaLocked = false;
+				
+				kernel.run();
+			} else if (simulationEngine.equals(Constants.SIMULATION_ENGINE_PARALLEL)){
+				//Run each world region as a partition of its own, on several threads
+				parallelKernel = createParallelEventKernel();
+				
+				SimulationContext.unlockSimJava();
+				simJavaLocked = false;
+				
+				parallelKernel.run(parallelThreads);
+			} else if (simulationEngine.equals(Constants.SIMULATION_ENGINE_VIRTUAL_THREADS)){
+				//Run the unmodified entity bodies, resumed by the kernel
+				EventKernel kernel = createEventKernel();
+				kernel.addAllProcesses();
+				context.setEventKernel(kernel);
+				kernel.run();
+			} else {
+				//Set the simulation duration
+				Sim_system.set_termination_condition(Sim_system.TIME_ELAPSED, simulationTime, false);
+				
+				//Start the simulation
+				GridSim.startGridSimulation();
+			}
+		} finally {
+			if (simJavaLocked){
+				SimulationContext.unlockSimJava();
+			}
+		}
+
+		// Comes here when the simulation has completed.
+		// Gather the results and package them for the results screen
+		gatherResults();
 		
+		//Finish off simulation
+		SimLog.info(Category.SIMULATION, "Simulation finished at " + context.clock());
+		SimLog.flush();
+		CloudSimEvent cloudSimEvent = new CloudSimEvent(CloudSimEvents.EVENT_SIMULATION_ENDED);
+		fireCloudSimEvent(cloudSimEvent);
+
+	}
+	
+	/**
+	 * Creates the entities of a run. Must be called while holding the SimJava lock, after
+	 * GridSim has been initialised.
+	 */
+	private void createEntities() throws Exception {
 		// Create Datacenters and Controllers
 		dcbs  = new ArrayList<DatacenterController>();
 		dcs =  new ArrayList<DataCenter>();
 		for (DataCenterUIElement d : dataCenters) {
 			if (d.isAllocated()){
-				DataCenter dc = createDatacenter(d);
+				SimpleVMProvisioner provisioner = new SimpleVMProvisioner();
+				List<VMMAllocationPolicy> hostPolicies = new ArrayList<VMMAllocationPolicy>();
+				DataCenter dc = createDatacenter(d, provisioner, hostPolicies);
 				DatacenterController controller = createBroker(d.getName(), 	
 														       d.getRegion(), 
 														       d.getCostPerProcessor(), 
 														       d.getCostPerBw());
+				controller.setHosts(provisioner, hostPolicies);
 				dcbs.add(controller);
 				dcs.add(dc);
 				
 				int brokerId = controller.get_id();
-				vmlist = createVM(brokerId, d.getVmAllocation().getVmCount());
+				VirtualMachineList vmlist = createVM(brokerId, d.getVmAllocation().getVmCount());
 				controller.submitVMList(vmlist);
 			}
 		}
@@ -182,7 +305,8 @@ public class Simulation extends BaseCloudSimObservable implements Constants {
 		//Create user bases
 		ubs  = new ArrayList<UserBase>();
 		for (UserBaseUIElement ub : userBases) {
-			UserBase userBase = new UserBase(ub.getName(),
+			UserBase userBase = new UserBase(getContext(ub.getRegion()),
+											 ub.getName(),
 											 ub.getRegion(),
 											 ub.getReqPerHrPerUser(),
 											 new int[]{ub.getPeakHoursStart(), ub.getPeakHoursEnd()}, 
@@ -195,27 +319,147 @@ public class Simulation extends BaseCloudSimObservable implements Constants {
 		}
 
 		//The Internet
-		internet = new Internet(progressListener);
+		if (regionContexts == null){
+			internet = new Internet(context, progressListener);
+			internet.addServiceBroker(DEFAULT_APP_ID, createServiceBroker(context)); 				
+		} else {
+			//Every region routes to and picks from the entities of all regions, in the order
+			// they were created
+			List<GeoLocatable> located = new ArrayList<GeoLocatable>();
+			located.addAll(dcbs);
+			located.addAll(ubs);
+			for (SimulationContext regionContext : regionContexts.values()){
+				regionContext.getInternetCharacteristics().setEntities(located);
+				regionContext.getInternetCharacteristics().trackChanges();
+			}
+			
+			//One Internet per region, routing the requests of the user bases and the responses
+			// of the data centers in the region. Only the first reports progress.
+			regionInternets = new TreeMap<Integer, Internet>();
+			internet = null;
+			for (Integer region : regionContexts.keySet()){
+				SimulationContext regionContext = regionContexts.get(region);
+				Internet regionInternet = new Internet(Constants.INTERNET + "-" + region, 
+													   regionContext, 
+													   (internet == null) ? progressListener : null);
+				regionInternet.addServiceBroker(DEFAULT_APP_ID, createServiceBroker(regionContext));
+				regionInternets.put(region, regionInternet);
+				if (internet == null){
+					internet = regionInternet;
+				}
+			}
+		}
 		
-		CloudAppServiceBroker serviceBroker;
+		//Keep hold of all the entities of this run, including the ones created internally
+		entities = new ArrayList<CloudSim>();
+		for (int i = 0; i < Sim_system.get_num_entities(); i++){
+			if (Sim_system.get_entity(i) instanceof CloudSim){
+				entities.add((CloudSim) Sim_system.get_entity(i));
+			}
+		}
+	}
+	
+	private CloudAppServiceBroker createServiceBroker(SimulationContext brokerContext) throws Exception {
 		if (serviceBrokerPolicy.equals(Constants.BROKER_POLICY_PROXIMITY)){
-			serviceBroker = new ServiceProximityServiceBroker();
+			return new ServiceProximityServiceBroker(brokerContext);
 		} else if (serviceBrokerPolicy.equals(Constants.BROKER_POLICY_DYNAMIC)){
-			serviceBroker = new DynamicServiceBroker(dcbs);
+			return new DynamicServiceBroker(brokerContext, dcbs);
 		} else {
-			serviceBroker = new BestResponseTimeServiceBroker();
+			return new BestResponseTimeServiceBroker(brokerContext);
+		}
+	}
+	
+	/**
+	 * Creates a context for each world region with a user base or data center, each with its
+	 * own copy of the Internet characteristics.
+	 */
+	private void createRegionContexts(InternetCharacteristics configuredInternet){
+		if (serviceBrokerPolicy.equals(Constants.BROKER_POLICY_DYNAMIC)){
+			throw new IllegalStateException("The " + Constants.BROKER_POLICY_DYNAMIC + " service broker reconfigures"
+											+ " data centers in all regions, and can not run on the " 
+											+ Constants.SIMULATION_ENGINE_PARALLEL);
+		}
+		
+		regionContexts = new TreeMap<Integer, SimulationContext>();
+		for (DataCenterUIElement d : dataCenters){
+			if (d.isAllocated()){
+				regionContexts.put(d.getRegion(), null);
+			}
+		}
+		for (UserBaseUIElement ub : userBases){
+			regionContexts.put(ub.getRegion(), null);
 		}
-		internet.addServiceBroker(DEFAULT_APP_ID, serviceBroker); 				
 		
-		//Set the simulation duration
-		Sim_system.set_termination_condition(Sim_system.TIME_ELAPSED, simulationTime, false);
+		for (Integer region : regionContexts.keySet()){
+			regionContexts.put(region, 
+							   new SimulationContext(new InternetCharacteristics(configuredInternet.getLatencyMatrix(), 
+																		   		 configuredInternet.getBwMatrix()),
+													 entityRegistry));
+		}
+		context = regionContexts.values().iterator().next();
+	}
+	
+	/**
+	 * @return the context the entities of a region are created with
+	 */
+	private SimulationContext getContext(int region){
+		return (regionContexts == null) ? context : regionContexts.get(region);
+	}
+	
+	/**
+	 * Attaches the entities of each region to a partition of a parallel event kernel. The
+	 * lookahead is half the shortest latency between the regions, leaving room for the
+	 * variation of the latencies from one request to the next.
+	 */
+	private ParallelEventKernel createParallelEventKernel(){
+		List<Integer> regions = new ArrayList<Integer>(regionContexts.keySet());
+		double[][] latencies = context.getInternetCharacteristics().getLatencyMatrix();
+		double lookahead = Double.POSITIVE_INFINITY;
+		for (int from : regions){
+			for (int to : regions){
+				if (from != to){
+					lookahead = Math.min(lookahead, latencies[from][to] / 2);
+				}
+			}
+		}
 		
-		//Start the simulation
-		GridSim.startGridSimulation();
+		ParallelEventKernel kernel = new ParallelEventKernel(simulationTime, lookahead);
+		Map<Integer, Integer> partitions = new HashMap<Integer, Integer>();
+		final List<InternetCharacteristics> copies = new ArrayList<InternetCharacteristics>();
+		for (Integer region : regions){
+			int partition = kernel.addPartition(createFutureEventList());
+			partitions.put(region, partition);
+			regionContexts.get(region).setEventKernel(kernel.getPartitionKernel(partition));
+			copies.add(regionContexts.get(region).getInternetCharacteristics());
+		}
 		
-
-		// Comes here when the simulation has completed.
-		// Gather the results and package them for the results screen
+		for (int i = 0; i < dcbs.size(); i++){
+			int partition = partitions.get(dcbs.get(i).getRegion());
+			kernel.addEntity(partition, dcs.get(i));
+			kernel.addEntity(partition, dcbs.get(i));
+		}
+		for (UserBase ub : ubs){
+			int partition = partitions.get(ub.getRegion());
+			kernel.addEntity(partition, ub);
+			kernel.addEntity(partition, ub.getResponseHandler());
+		}
+		for (Integer region : regionInternets.keySet()){
+			int partition = partitions.get(region);
+			Internet regionInternet = regionInternets.get(region);
+			kernel.addEntity(partition, regionInternet);
+			kernel.getPartitionKernel(partition).addEntityAlias(Constants.INTERNET, regionInternet.get_id());
+		}
+		
+		kernel.addSynchronizer(new Runnable(){
+			public void run() {
+				InternetCharacteristics.merge(copies);
+			}
+		});
+		
+		return kernel;
+	}
+	
+	private void gatherResults(){
 		results = new HashMap<String, Object>();
 		results.put(Constants.SIMULATION_COMPLETED_TIME, new Date());
 		
@@ -223,6 +467,7 @@ public class Simulation extends BaseCloudSimObservable implements Constants {
 		Map<String, HourlyEventCounter> dcLoadingStats = new HashMap<String, HourlyEventCounter>();
 		Map<String, SimMeasure> dcProcTimes = new TreeMap<String, SimMeasure>();
 		Map<String, Map<String, Double>> costs = new HashMap<String, Map<String,Double>>();
+		Map<String, Map<String, Double>> dcMetrics = new HashMap<String, Map<String,Double>>();
 		HourlyEventCounter hrlyArrivalStat = null;
 		double vmCost, dataCost, totalCost;
 		
@@ -242,12 +487,27 @@ public class Simulation extends BaseCloudSimObservable implements Constants {
 			
 			costs.put(dcName, dcCosts);
 			
-			Sim_stat stat = dcb.get_stat();
-			List res = stat.get_measures();
-			for (Object o : res) {
-				Object[] oArray = (Object[]) o;
-				String measure = (String) oArray[0];
-
+			Map<String, Double> metrics = new HashMap<String, Double>();
+			metrics.put(Constants.DC_REQUESTS_IN_FLIGHT, (double) dcb.getRequestsInFlight());
+			metrics.put(Constants.DC_PEAK_REQUESTS_IN_FLIGHT, (double) dcb.getPeakRequestsInFlight());
+			WaitingQueue queue = dcb.getWaitingQueue();
+			metrics.put(Constants.DC_QUEUED_CLOUDLETS, (double) queue.getQueuedCloudlets());
+			metrics.put(Constants.DC_PEAK_QUEUE_LENGTH, (double) queue.getPeakLength());
+			metrics.put(Constants.DC_AVERAGE_QUEUE_LENGTH, queue.getAverageLength(dcb.getCurrentTime()));
+			metrics.put(Constants.DC_AVERAGE_TIME_IN_QUEUE, queue.getAverageTimeInQueue());
+			metrics.put(Constants.DC_MAX_TIME_IN_QUEUE, queue.getMaxTimeInQueue());
+			metrics.put(Constants.DC_SHED_REQUESTS, (double) queue.getShedRequests());
+			metrics.put(Constants.DC_AVERAGE_REQUESTS_PER_CLOUDLET, dcb.getAverageRequestsPerCloudlet());
+			metrics.put(Constants.DC_VMS_IN_SERVICE, (double) dcb.getVmsInService());
+			metrics.put(Constants.DC_PEAK_VMS_IN_SERVICE, (double) dcb.getPeakVmsInService());
+			metrics.put(Constants.DC_VM_HOURS, dcb.getVmTime() / Constants.MILLI_SECONDS_TO_HOURS);
+			VmAutoScaler autoScaler = dcb.getAutoScaler();
+			metrics.put(Constants.DC_SCALE_OUTS, (autoScaler != null) ? (double) autoScaler.getScaleOuts() : 0);
+			metrics.put(Constants.DC_SCALE_INS, (autoScaler != null) ? (double) autoScaler.getScaleIns() : 0);
+			dcMetrics.put(dcName, metrics);
+			
+			IntervalStat stat = dcb.getServiceTimeStat();
+			for (String measure : stat.getMeasureNames()) {
 				SimMeasure m = new SimMeasure();
 				m.setName(measure);
 				m.setEntityName(dcName);
@@ -255,6 +515,8 @@ public class Simulation extends BaseCloudSimObservable implements Constants {
 				m.setAvg(stat.average(measure));
 				m.setMin(stat.minimum(measure));
 				m.setMax(stat.maximum(measure));
+				m.setP95(stat.percentile(measure, 0.95));
+				m.setP99(stat.percentile(measure, 0.99));
 				m.setCount(dcb.getAllRequestsProcessed());
 
 				dcProcTimes.put(dcName + "||" + measure, m);
@@ -266,6 +528,7 @@ public class Simulation extends BaseCloudSimObservable implements Constants {
 		results.put(Constants.DC_ARRIVAL_STATS, dcArrivalStats);
 		results.put(Constants.DC_OVER_LOADING_STATS, dcLoadingStats);
 		results.put(Constants.COSTS, costs);
+		results.put(Constants.DC_METRICS, dcMetrics);
 		
 		for (DataCenter dc : dcs){
 			dc.printDebts();
@@ -273,14 +536,10 @@ public class Simulation extends BaseCloudSimObservable implements Constants {
 
 		Map<String, SimMeasure> ubResults = new TreeMap<String, SimMeasure>();
 		for (UserBase ub : ubs) {
-			Sim_stat stat = ub.get_stat();
+			IntervalStat stat = ub.getResponseTimeStat();
 			String ubName = ub.get_name();
 			
-			List res = stat.get_measures();
-			for (Object o : res) {
-				Object[] oArray = (Object[]) o;
-				String measure = (String) oArray[0];
-
+			for (String measure : stat.getMeasureNames()) {
 				SimMeasure m = new SimMeasure();
 				m.setName(measure);
 				m.setEntityName(ubName);
@@ -288,24 +547,37 @@ public class Simulation extends BaseCloudSimObservable implements Constants {
 				m.setAvg(stat.average(measure));
 				m.setMin(stat.minimum(measure));
 				m.setMax(stat.maximum(measure));
-				m.setCount(ub.getResponsesReceived());
+				m.setP95(stat.percentile(measure, 0.95));
+				m.setP99(stat.percentile(measure, 0.99));
+				m.setCount(measure.equals(Constants.UB_SHED_REQUESTS) ? ub.getRequestsShed() 
+																	  : ub.getResponsesReceived());
 
 				ubResults.put(ubName + "||" + measure, m);
 			}
 		}
 		results.put(Constants.UB_STATS, ubResults);
+	}
+	
+	private EventKernel createEventKernel(){
+		return new EventKernel(simulationTime, createFutureEventList());
+	}
+	
+	private FutureEventList createFutureEventList(){
+		if (futureEventList.equals(Constants.FUTURE_EVENT_LIST_CALENDAR_QUEUE)){
+			return new CalendarQueue();
+		}
 		
-		//Finish off simulation
-		System.out.println("Simulation finished at " + GridSim.clock());
-		CloudSimEvent cloudSimEvent = new CloudSimEvent(CloudSimEvents.EVENT_SIMULATION_ENDED);
-		fireCloudSimEvent(cloudSimEvent);
-
+		return new BinaryHeapEventList();
 	}
 	
 	private void printVmAllocations(String dcName, Map<Integer, Integer> list){
-		System.out.println("************ Vm allocations in " + dcName);
+		if (!SimLog.isEnabled(Category.DATACENTER, SimLog.Level.INFO)){
+			return;
+		}
+		
+		SimLog.info(Category.DATACENTER, "************ Vm allocations in " + dcName);
 		for (Integer vm : list.keySet()){
-			System.out.println(vm + "->" + list.get(vm));
+			SimLog.info(Category.DATACENTER, vm + "->" + list.get(vm));
 		} 
 	}
 
@@ -341,8 +613,17 @@ public class Simulation extends BaseCloudSimObservable implements Constants {
 	}
 
 
+	/**
+	 * Creates a data center.
+	 * 
+	 * @param dc the configuration of the data center
+	 * @param provisioner the provisioner placing VMs on the hosts of the data center
+	 * @param hostPolicies filled in with the VM allocation policy of each host, by host id
+	 */
 	@SuppressWarnings("unchecked")
-	private DataCenter createDatacenter(DataCenterUIElement dc) {
+	private DataCenter createDatacenter(DataCenterUIElement dc, 
+										SimpleVMProvisioner provisioner, 
+										List<VMMAllocationPolicy> hostPolicies) {
 
 		MachineList mList = new MachineList();
 		
@@ -365,6 +646,7 @@ public class Simulation extends BaseCloudSimObservable implements Constants {
 			} else {
 				vmPolicy = new TimeSpaceSharedAllocationPolicy(peList1);
 			}
+			hostPolicies.add(vmPolicy);
 			
 			Host h = new Host(mcNo, 
 							  mc.getMemory(), 
@@ -391,7 +673,7 @@ public class Simulation extends BaseCloudSimObservable implements Constants {
 																			dc.getCostPerBw());
 		DataCenter datacenter = null;
 		try {
-			datacenter = new DataCenter(dc.getName(), resConfig, new SimpleVMProvisioner(), storageList);
+			datacenter = new DataCenter(dc.getName(), resConfig, provisioner, storageList);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -408,7 +690,8 @@ public class Simulation extends BaseCloudSimObservable implements Constants {
 
 		DatacenterController broker = null;
 		try {
-			broker = new DatacenterController(namePrefix, 
+			broker = new DatacenterController(getContext(region),
+												  namePrefix, 
 												  region,
 												  costPerVmHour,
 												  costPerDataGB,
@@ -418,6 +701,18 @@ public class Simulation extends BaseCloudSimObservable implements Constants {
 			e.printStackTrace();
 			return null;
 		}
+		
+		if (broker.getLoadBalancer() instanceof PowerOfChoicesVmLoadBalancer){
+			((PowerOfChoicesVmLoadBalancer) broker.getLoadBalancer()).setChoices(loadBalancerChoices);
+		}
+		if (maxDcRequestGroupingFactor > 0){
+			broker.setAdaptiveRequestGrouping(minDcRequestGroupingFactor, maxDcRequestGroupingFactor);
+		}
+		broker.setWaitingQueuePolicy(waitingQueuePolicy, waitingQueueCapacity, waitingQueueTargetDelay);
+		if (autoScalingPolicy != null){
+			broker.setVmDelays(autoScalingPolicy.getVmBootDelay(), autoScalingPolicy.getVmTeardownDelay());
+			broker.setAutoScaler(new VmAutoScaler(broker, autoScalingPolicy));
+		}
 		return broker;
 	}
 
@@ -468,7 +763,7 @@ public class Simulation extends BaseCloudSimObservable implements Constants {
 	 * @param simulationTime the simulationTime to set
 	 */
 	public void setSimulationTime(double simulationTime) {
-		System.out.println("simulation time =" + simulationTime + "ms");
+		SimLog.info(Category.SIMULATION, "simulation time =" + simulationTime + "ms");
 		this.simulationTime = simulationTime;
 	}
 	
@@ -479,6 +774,13 @@ public class Simulation extends BaseCloudSimObservable implements Constants {
 		return dataCenters;
 	}
 	
+	/**
+	 * @return the registry of the simulation elements displayed on the map
+	 */
+	public InternetEntitityRegistry getEntityRegistry() {
+		return entityRegistry;
+	}
+	
 	/**
 	 * @return the userBases
 	 */
@@ -525,6 +827,34 @@ public class Simulation extends BaseCloudSimObservable implements Constants {
 		this.dcRequestGroupingFactor = dcCloudletGroupingFactor;
 	}
 
+	/**
+	 * @return the fewest requests per cloudlet of adaptive grouping, once the VMs are all busy
+	 */
+	public int getMinDcRequestGroupingFactor() {
+		return minDcRequestGroupingFactor;
+	}
+
+	/**
+	 * @return the most requests per cloudlet of adaptive grouping, while VMs are idle, 0 if
+	 * 			the data centers group requests by the fixed DC request grouping factor
+	 */
+	public int getMaxDcRequestGroupingFactor() {
+		return maxDcRequestGroupingFactor;
+	}
+
+	/**
+	 * Makes the data centers group requests by their load instead of the fixed DC request
+	 * grouping factor (see {@link DatacenterController#getRequestsPerCloudlet(int)}).
+	 *
+	 * @param min the fewest requests per cloudlet, once the VMs are all busy
+	 * @param max the most requests per cloudlet, while VMs are idle, 0 for fixed grouping,
+	 * 			the default
+	 */
+	public void setAdaptiveDcRequestGrouping(int min, int max) {
+		this.minDcRequestGroupingFactor = min;
+		this.maxDcRequestGroupingFactor = max;
+	}
+
 	/**
 	 * @return the instructionLengthPerRequest
 	 */
@@ -572,6 +902,157 @@ public class Simulation extends BaseCloudSimObservable implements Constants {
 	public void setLoadBalancePolicy(String loadBalancePolicy) {
 		this.loadBalancePolicy = loadBalancePolicy;
 	}
+
+	/**
+	 * @return the simulationEngine
+	 */
+	public String getSimulationEngine() {
+		return simulationEngine;
+	}
+
+	/**
+	 * @param simulationEngine the simulation engine to use, one of 
+	 * 		{@link Constants#SIMULATION_ENGINE_SIMJAVA}, {@link Constants#SIMULATION_ENGINE_EVENT_KERNEL},
+	 * 		{@link Constants#SIMULATION_ENGINE_VIRTUAL_THREADS} or {@link Constants#SIMULATION_ENGINE_PARALLEL}
+	 */
+	public void setSimulationEngine(String simulationEngine) {
+		this.simulationEngine = simulationEngine;
+	}
+	
+	/**
+	 * @return the number of threads a run on the parallel event kernel uses
+	 */
+	public int getParallelThreads() {
+		return parallelThreads;
+	}
+
+	/**
+	 * Sets the number of threads a run on the {@link Constants#SIMULATION_ENGINE_PARALLEL} engine
+	 * uses. That engine runs each world region with a user base or data center as a partition
+	 * of a {@link ParallelEventKernel}: the user bases, data centers and a service broker
+	 * of their own. Requests and responses between regions are exchanged at the end of each
+	 * window of simulation time, and so are the traffic levels and service latencies the
+	 * regions see, which can be one window out of date in between. The
+	 * {@link Constants#BROKER_POLICY_DYNAMIC} broker is not supported. The results are the
+	 * same whatever the number of threads, but not the same as on the other engines, as the
+	 * random delays of the Internet are drawn for each region separately.
+	 * 
+	 * @param parallelThreads the number of threads, by default the number of processors
+	 */
+	public void setParallelThreads(int parallelThreads) {
+		this.parallelThreads = parallelThreads;
+	}
+	
+	/**
+	 * @return the number of VMs the {@link Constants#LOAD_BALANCE_POWER_OF_CHOICES} load 
+	 * 			balancer samples for each allocation
+	 */
+	public int getLoadBalancerChoices() {
+		return loadBalancerChoices;
+	}
+	
+	/**
+	 * @param loadBalancerChoices the number of VMs the {@link Constants#LOAD_BALANCE_POWER_OF_CHOICES} 
+	 * 			load balancer samples for each allocation, 2 by default
+	 */
+	public void setLoadBalancerChoices(int loadBalancerChoices) {
+		this.loadBalancerChoices = loadBalancerChoices;
+	}
+	
+	/**
+	 * @return the policy of the queues the cloudlets wait in at the data centers
+	 */
+	public String getWaitingQueuePolicy() {
+		return waitingQueuePolicy;
+	}
+	
+	/**
+	 * @param waitingQueuePolicy the policy of the queues the cloudlets wait in at the data 
+	 * 			centers: {@link Constants#WAITING_QUEUE_REJECT_NEW} (the default), 
+	 * 			{@link Constants#WAITING_QUEUE_DROP_OLDEST} or {@link Constants#WAITING_QUEUE_CODEL}
+	 */
+	public void setWaitingQueuePolicy(String waitingQueuePolicy) {
+		this.waitingQueuePolicy = waitingQueuePolicy;
+	}
+	
+	/**
+	 * @return the largest number of cloudlets waiting at a data center, 0 or less for no limit
+	 */
+	public int getWaitingQueueCapacity() {
+		return waitingQueueCapacity;
+	}
+	
+	/**
+	 * @param waitingQueueCapacity the largest number of cloudlets waiting at a data center, 
+	 * 			0 or less for no limit, the default
+	 */
+	public void setWaitingQueueCapacity(int waitingQueueCapacity) {
+		this.waitingQueueCapacity = waitingQueueCapacity;
+	}
+	
+	/**
+	 * @return the target delay of the {@link Constants#WAITING_QUEUE_CODEL} policy, in ms
+	 */
+	public double getWaitingQueueTargetDelay() {
+		return waitingQueueTargetDelay;
+	}
+	
+	/**
+	 * @param waitingQueueTargetDelay the target delay of the 
+	 * 			{@link Constants#WAITING_QUEUE_CODEL} policy, in ms
+	 */
+	public void setWaitingQueueTargetDelay(double waitingQueueTargetDelay) {
+		this.waitingQueueTargetDelay = waitingQueueTargetDelay;
+	}
+	
+	/**
+	 * @return the policy the VMs of each data center are scaled by, or null if they are not
+	 */
+	public AutoScalingPolicy getAutoScalingPolicy() {
+		return autoScalingPolicy;
+	}
+	
+	/**
+	 * @param autoScalingPolicy the policy to scale the VMs of each data center by, each with 
+	 * 			its own {@link VmAutoScaler}, or null for a fixed number of VMs, the default
+	 */
+	public void setAutoScalingPolicy(AutoScalingPolicy autoScalingPolicy) {
+		this.autoScalingPolicy = autoScalingPolicy;
+	}
+	
+	/**
+	 * @return the parallel event kernel of the last run, or null if it did not use one
+	 */
+	public ParallelEventKernel getParallelEventKernel() {
+		return parallelKernel;
+	}
+	
+	/**
+	 * @return the futureEventList
+	 */
+	public String getFutureEventList() {
+		return futureEventList;
+	}
+
+	/**
+	 * @param futureEventList the future event list used by the event kernel engines, one of
+	 * 		{@link Constants#FUTURE_EVENT_LIST_BINARY_HEAP} or {@link Constants#FUTURE_EVENT_LIST_CALENDAR_QUEUE}
+	 */
+	public void setFutureEventList(String futureEventList) {
+		this.futureEventList = futureEventList;
+	}
+	
+	/**
+	 * @return the total number of events scheduled by the entities of the last run
+	 */
+	public long getEventCount(){
+		long count = 0;
+		for (CloudSim entity : entities){
+			count += entity.getEventsScheduled();
+		}
+		
+		return count;
+	}
 	
 	
 	
@@ -0,0 +1,99 @@
+package cloudsim.ext;
+
+import gridsim.GridSim;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+import cloudsim.engine.EventKernel;
+import cloudsim.ext.util.InternetEntitityRegistry;
+
+/**
+ * Holds the state of a single simulation run, which used to be kept in singletons: the
+ * {@link InternetCharacteristics} of the run, the {@link InternetEntitityRegistry} of the
+ * {@link Simulation} it belongs to and the {@link EventKernel} driving it, if any.
+ * It is created by {@link Simulation#runSimulation()} and passed to the {@link UserBase}s,
+ * the {@link Internet}, the Data Center controllers and the service brokers of the run.
+ *
+ * GridSim and SimJava still keep their entity table, clock and random seeds in static
+ * fields. Entities have to be created while holding the SimJava lock
+ * ({@link #lockSimJava()}), which makes the set up of a run, including the seeds its
+ * distributions are given, the same as if it were the only run in the JVM. A run driven
+ * by an {@link EventKernel} that does not share its clock with SimJava needs none of that
+ * state once its entities are attached, so it can release the lock and run concurrently
+ * with others. SimJava and the virtual threads engine rely on the static clock and
+ * running flag, and hold the lock until the run completes.
+ */
+public class SimulationContext {
+
+	private static final ReentrantLock SIMJAVA_LOCK = new ReentrantLock();
+
+	private final InternetCharacteristics internetCharacteristics;
+	private final InternetEntitityRegistry entityRegistry;
+	private EventKernel eventKernel;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param internetCharacteristics the Internet characteristics of this run
+	 * @param entityRegistry the registry to report communication paths to, can be null
+	 */
+	public SimulationContext(InternetCharacteristics internetCharacteristics,
+							 InternetEntitityRegistry entityRegistry){
+		this.internetCharacteristics = internetCharacteristics;
+		this.entityRegistry = entityRegistry;
+	}
+
+	/**
+	 * Acquires the lock guarding the static state of GridSim and SimJava. Blocks until
+	 * no other run is setting up or running on SimJava.
+	 */
+	public static void lockSimJava(){
+		SIMJAVA_LOCK.lock();
+	}
+
+	/**
+	 * Releases the lock acquired by {@link #lockSimJava()}.
+	 */
+	public static void unlockSimJava(){
+		SIMJAVA_LOCK.unlock();
+	}
+
+	/**
+	 * @return the current simulation time of this run
+	 */
+	public double clock(){
+		if (eventKernel != null){
+			return eventKernel.clock();
+		}
+
+		return GridSim.clock();
+	}
+
+	/**
+	 * @return the internetCharacteristics
+	 */
+	public InternetCharacteristics getInternetCharacteristics() {
+		return internetCharacteristics;
+	}
+
+	/**
+	 * @return the entityRegistry, or null if the run is not displayed
+	 */
+	public InternetEntitityRegistry getEntityRegistry() {
+		return entityRegistry;
+	}
+
+	/**
+	 * @return the eventKernel, or null if the run is driven by SimJava
+	 */
+	public EventKernel getEventKernel() {
+		return eventKernel;
+	}
+
+	/**
+	 * @param eventKernel the eventKernel to set
+	 */
+	public void setEventKernel(EventKernel eventKernel) {
+		this.eventKernel = eventKernel;
+	}
+}
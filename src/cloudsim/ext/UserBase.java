@@ -5,13 +5,15 @@ import java.util.HashMap;
 import java.util.Map;
 
 import cloudsim.CloudSim;
+import cloudsim.engine.EventDrivenEntity;
 import cloudsim.ext.stat.HourlyStat;
+import cloudsim.ext.stat.IntervalStat;
 import cloudsim.ext.util.CommPath;
 import eduni.simjava.Sim_event;
-import eduni.simjava.Sim_stat;
 import eduni.simjava.Sim_system;
-import gridsim.GridSim;
 import gridsim.util.Poisson;
+import cloudsim.ext.util.SimLog;
+import cloudsim.ext.util.SimLog.Category;
 
 /**
  * A User Base models a group of users that is considered as a single unit in the simulation and its 
@@ -29,13 +31,17 @@ import gridsim.util.Poisson;
  * @author Bhathiya Wickremasinghe
  *
  */
-public class UserBase extends CloudSim implements GeoLocatable {
+public class UserBase extends CloudSim implements GeoLocatable, EventDrivenEntity {
 	
 	private static final int STANDARD_POISSON_DIST_MEAN = 100;
 	private int region;
 	private int instructionLengthPerRequest;
 	private int messagesReceived = 0;	
 	private int responsesReceived = 0;
+	private int requestsShed = 0;
+	private int messagesSent = 0;
+	private int requestsSent = 0;
+	private int lastRequestId = 0;
 	private boolean cancelled = false;
 	private int requestsPerUserPerHour;
 	private double[] peakHours;
@@ -43,7 +49,8 @@ public class UserBase extends CloudSim implements GeoLocatable {
 	private int offPeakAvgUsers;
 	private long perRequestDataSize;
 	private int userGroupingFactor;
-	private Sim_stat stat;
+	private IntervalStat stat;
+	private final InternetCharacteristics internetCharacteristics;
 	
 	/** 
 	 * Holds the id's of the requests that have been sent out, along with the request time, until
@@ -58,8 +65,12 @@ public class UserBase extends CloudSim implements GeoLocatable {
 	private Poisson userCountDistribution;
 	private Poisson requestDelayDistribution;
 	
+	/** Receives the responses, see {@link ResponseHandler}. */
+	private final ResponseHandler responseHandler;
+	
 	/** Constructor .*/
-	public UserBase(String name, 
+	public UserBase(SimulationContext context,
+					String name, 
 					int region,
 					int requestsPerUserPerHour,
 					int[] peakHours,
@@ -70,7 +81,7 @@ public class UserBase extends CloudSim implements GeoLocatable {
 					int instructionLengthPerRequest) throws Exception {
 		super(name);
 		
-		System.out.println(GridSim.clock() + " Creating new user base " + get_name());
+		SimLog.info(Category.ENTITY, clock() + " Creating new user base " + get_name());
 		
 		this.region = region;
 		this.instructionLengthPerRequest = instructionLengthPerRequest;
@@ -87,14 +98,15 @@ public class UserBase extends CloudSim implements GeoLocatable {
 		
 		this.currentRequests = Collections.synchronizedMap(new HashMap<Integer, Double>());
 						
-		InternetCharacteristics.getInstance().addEntity(this);
+		this.internetCharacteristics = context.getInternetCharacteristics();
+		internetCharacteristics.addEntity(this);
 		
-		stat = new Sim_stat();
-		stat.add_measure(Constants.UB_RESPONSE_TIME, Sim_stat.INTERVAL_BASED);
-		hourlyResponseTimeStat = new HourlyStat(stat, Constants.HOURLY_RESPONSE_TIME, Sim_stat.INTERVAL_BASED);
-		set_stat(stat);		
+		stat = new IntervalStat();
+		stat.addMeasure(Constants.UB_RESPONSE_TIME);
+		stat.addMeasure(Constants.UB_SHED_REQUESTS);
+		hourlyResponseTimeStat = new HourlyStat(stat, Constants.HOURLY_RESPONSE_TIME);
 		
-		ResponseHandler responseHandler = new ResponseHandler(get_name() + "R");
+		responseHandler = new ResponseHandler(get_name() + "R");
 		
 		requestDelayDistribution = new Poisson("RequestDelayDistribution", STANDARD_POISSON_DIST_MEAN);
 		userCountDistribution = new Poisson("UserCountDistribution", STANDARD_POISSON_DIST_MEAN);
@@ -103,75 +115,99 @@ public class UserBase extends CloudSim implements GeoLocatable {
 	
 	@Override
 	public void body(){
-		System.out.println("Starting user base " + get_id() + " " + get_name());
+		SimLog.info(Category.ENTITY, "Starting user base " + get_id() + " " + get_name());
 		
 		//Wait for Data Centers to initialize
 		sim_pause(100);
 		
-		int id = 0;
+		while (Sim_system.running() && !cancelled){
+			sendRequests();
+			
+			sim_pause(getInterRequestDelay());
+
+		}
+				
+		printFinalStatus();
+	}
+	
+	public void startEntity(){
+		SimLog.info(Category.ENTITY, "Starting user base " + get_id() + " " + get_name());
+		
+		//Wait for Data Centers to initialize
+		send(get_id(), 100, Constants.USER_BASE_TIMER_TAG);
+	}
+	
+	public void processEvent(Sim_event ev){
+		if ((ev.get_tag() == Constants.USER_BASE_TIMER_TAG) && !cancelled){
+			sendRequests();
+			
+			send(get_id(), getInterRequestDelay(), Constants.USER_BASE_TIMER_TAG);
+		}
+	}
+	
+	public void shutdownEntity(){
+		printFinalStatus();
+	}
+	
+	/**
+	 * Sends out a burst of requests for the users online at the current time.
+	 */
+	private void sendRequests(){
     	long output_size = 300; //Nominal output size
     	int requestGroups;
     	int userCountForRequest;
     	int remainingUsers;    	
-    	int messagesSent = 0;
-    	int requestsSent = 0;
     	InternetCloudlet cloudlet;    	
-		double currTime;		
+		double currTime = clock();
 		
-		while (Sim_system.running() && !cancelled){
-			currTime = GridSim.clock();
+		userCountForRequest = getOnlineUsers(currTime);
+		requestGroups = getCurrUserCountInGroups(userCountForRequest);
+		
+		for (int i = 0; i < requestGroups; i++){
+			cloudlet = new InternetCloudlet(get_id() * 100000 + ++lastRequestId, //Id need not be unique, just used for debugging
+											 instructionLengthPerRequest, 
+											 perRequestDataSize, 
+											 output_size, 
+											 this, 
+											 Constants.DEFAULT_APP_ID,
+											 userGroupingFactor);
 			
-			userCountForRequest = getOnlineUsers(currTime);
-			requestGroups = getCurrUserCountInGroups(userCountForRequest);
+			send(Constants.INTERNET, 0.0, Constants.REQUEST_INTERNET_CLOUDLET_TAG, cloudlet);
+			messagesSent++;
+		
+			requestsSent += userGroupingFactor;
 			
-			for (int i = 0; i < requestGroups; i++){
-				cloudlet = new InternetCloudlet(get_id() * 100000 + ++id, //Id need not be unique, just used for debugging
-												 instructionLengthPerRequest, 
-												 perRequestDataSize, 
-												 output_size, 
-												 this, 
-												 Constants.DEFAULT_APP_ID,
-												 userGroupingFactor);
-				
-				send(Constants.INTERNET, 0.0, Constants.REQUEST_INTERNET_CLOUDLET_TAG, cloudlet);
-				messagesSent++;
+			currentRequests.put(cloudlet.getCloudletId(), currTime);	
 			
-				requestsSent += userGroupingFactor;
-				
-				currentRequests.put(cloudlet.getCloudletId(), currTime);	
-				
-				//System.out.println(currTime + ": userbase " + get_name() + " sent message " 
-				//		+ cloudlet.getCloudletId() + " to internet with " + userGroupingFactor);
-			}
+			//System.out.println(currTime + ": userbase " + get_name() + " sent message " 
+			//		+ cloudlet.getCloudletId() + " to internet with " + userGroupingFactor);
+		}
+		
+		remainingUsers = userCountForRequest - (userGroupingFactor * requestGroups);
+		if (remainingUsers > 0){
+			cloudlet = new InternetCloudlet(get_id() * 100000 + ++lastRequestId, //Id need not be unique, just used for debugging
+									 instructionLengthPerRequest, 
+									 perRequestDataSize, 
+									 output_size, 
+									 this, 
+									 Constants.DEFAULT_APP_ID,
+									 remainingUsers);
 			
-			remainingUsers = userCountForRequest - (userGroupingFactor * requestGroups);
-			if (remainingUsers > 0){
-				cloudlet = new InternetCloudlet(get_id() * 100000 + ++id, //Id need not be unique, just used for debugging
-										 instructionLengthPerRequest, 
-										 perRequestDataSize, 
-										 output_size, 
-										 this, 
-										 Constants.DEFAULT_APP_ID,
-										 remainingUsers);
-				
-				send(Constants.INTERNET, 0.0, Constants.REQUEST_INTERNET_CLOUDLET_TAG, cloudlet);
-				messagesSent++;
-				
-				requestsSent += remainingUsers;
-				
-				currentRequests.put(cloudlet.getCloudletId(), currTime);
-				
-				//System.out.println(currTime + ": userbase " + get_name() + " sent message " 
-				//				+ cloudlet.getCloudletId() + " to internet with " + remainingUsers);
-			}			
-
+			send(Constants.INTERNET, 0.0, Constants.REQUEST_INTERNET_CLOUDLET_TAG, cloudlet);
+			messagesSent++;
 			
-			sim_pause(getInterRequestDelay());
-
-		}
-				
-		System.out.println(get_name() + " finalizing. Messages sent:" + messagesSent + ", Received:" + messagesReceived);
-		System.out.println(get_name() + " requests sent=" + requestsSent + " , received=" + responsesReceived);
+			requestsSent += remainingUsers;
+			
+			currentRequests.put(cloudlet.getCloudletId(), currTime);
+			
+			//System.out.println(currTime + ": userbase " + get_name() + " sent message " 
+			//				+ cloudlet.getCloudletId() + " to internet with " + remainingUsers);
+		}			
+	}
+	
+	private void printFinalStatus(){
+		SimLog.info(Category.ENTITY, get_name() + " finalizing. Messages sent:" + messagesSent + ", Received:" + messagesReceived);
+		SimLog.info(Category.ENTITY, get_name() + " requests sent=" + requestsSent + " , received=" + responsesReceived);
 	}
 
 	private long getInterRequestDelay(){
@@ -203,6 +239,14 @@ public class UserBase extends CloudSim implements GeoLocatable {
 	}
 
 
+	/**
+	 * @return the response time statistics, overall and by the hour of the day, and the 
+	 * 			statistics of the time it took to learn that requests were shed
+	 */
+	public IntervalStat getResponseTimeStat() {
+		return stat;
+	}
+
 	/**
 	 * @return the responsesReceived
 	 */
@@ -210,6 +254,20 @@ public class UserBase extends CloudSim implements GeoLocatable {
 		return responsesReceived;
 	}
 	
+	/**
+	 * @return the number of requests the data centers shed, which got no response
+	 */
+	public int getRequestsShed() {
+		return requestsShed;
+	}
+	
+	/**
+	 * @return the entity that receives the responses to the requests of this user base
+	 */
+	public CloudSim getResponseHandler() {
+		return responseHandler;
+	}
+	
 
 	
 	/** 
@@ -217,7 +275,7 @@ public class UserBase extends CloudSim implements GeoLocatable {
 	 * thread, so the traffic generation is independent of responses.
 	 * 
 	 */
-	private class ResponseHandler extends CloudSim {
+	private class ResponseHandler extends CloudSim implements EventDrivenEntity {
 		
 		public ResponseHandler(String name) throws Exception {
 			super(name);
@@ -227,37 +285,56 @@ public class UserBase extends CloudSim implements GeoLocatable {
 			while (Sim_system.running()){
 				Sim_event e = new Sim_event();
 				sim_get_next(e);
-				if (e.get_data() instanceof InternetCloudlet){
-					InternetCloudlet cl = (InternetCloudlet) e.get_data();
-					int requestCount = cl.getRequestCount();
+				processEvent(e);
+			}			
+		}
+		
+		public void startEntity(){
+		}
+		
+		public void processEvent(Sim_event e){
+			if (e.get_data() instanceof InternetCloudlet){
+				InternetCloudlet cl = (InternetCloudlet) e.get_data();
+				int requestCount = cl.getRequestCount();
+				
+				//Reflect completion of request transmission in traffic levels
+				internetCharacteristics.removeTraffic((CommPath) cl.getData(Constants.PARAM_COMM_PATH), 
+																	 requestCount);
+				
+				messagesReceived++;
+				
+				//Reflect completion of request transmission in traffic levels
+				internetCharacteristics.removeTraffic((CommPath) cl.getData(Constants.PARAM_COMM_PATH), 
+																	 requestCount);
+							
+				Double startTime = currentRequests.remove(cl.getCloudletId());
+				if (cl.getData(Constants.PARAM_SHED) != null){
+					//The data center shed the request, so it failed
+					requestsShed += requestCount;
+					if (startTime != null){
+						stat.update(Constants.UB_SHED_REQUESTS, startTime, clock());
+					}
+					return;
+				}
+				
+				responsesReceived += requestCount;
+				if (startTime != null){
+					double endTime = clock();
 					
-					//Reflect completion of request transmission in traffic levels
-					InternetCharacteristics.getInstance().removeTraffic((CommPath) cl.getData(Constants.PARAM_COMM_PATH), 
-																		 requestCount);
+					stat.update(Constants.UB_RESPONSE_TIME, startTime, endTime);
+					hourlyResponseTimeStat.update(startTime, endTime);
 					
-					messagesReceived++;
-					responsesReceived += requestCount;
+					//System.out.println(GridSim.clock() + ": Userbase " + UserBase.this.get_name() + " got response " + e.get_data() + " delay=" + (endTime - startTime));
 					
-					//Reflect completion of request transmission in traffic levels
-					InternetCharacteristics.getInstance().removeTraffic((CommPath) cl.getData(Constants.PARAM_COMM_PATH), 
-																		 requestCount);
-								
-					Double startTime = currentRequests.remove(cl.getCloudletId());
-					if (startTime != null){
-						double endTime = Sim_system.sim_clock();
-						
-						stat.update(Constants.UB_RESPONSE_TIME, startTime, endTime);
-						hourlyResponseTimeStat.update(startTime, endTime);
-						
-						//System.out.println(GridSim.clock() + ": Userbase " + UserBase.this.get_name() + " got response " + e.get_data() + " delay=" + (endTime - startTime));
-						
-						Double procTime = (Double) cl.getData("procTime");
-						if (procTime > (endTime - startTime)){
-							throw new RuntimeException("OOOPS");
-						}
+					Double procTime = (Double) cl.getData("procTime");
+					if (procTime > (endTime - startTime)){
+						throw new RuntimeException("OOOPS");
 					}
 				}
-			}			
+			}
+		}
+		
+		public void shutdownEntity(){
 		}
 		
 	}
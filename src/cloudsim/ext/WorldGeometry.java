@@ -10,7 +10,7 @@ public class WorldGeometry {
 	private Shape[] regionBoundaries;
 	private Map<Integer, Integer> timeZones;
 	
-	private static WorldGeometry instance;
+	private static final WorldGeometry instance = new WorldGeometry();
 	
 	
 	private WorldGeometry(){
@@ -33,10 +33,6 @@ public class WorldGeometry {
 	}
 	
 	public static WorldGeometry getInstance(){
-		if (instance == null){
-			instance = new WorldGeometry();
-		}
-		
 		return instance;
 	}
 	
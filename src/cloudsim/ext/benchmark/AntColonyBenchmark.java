@@ -0,0 +1,94 @@
+package cloudsim.ext.benchmark;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import cloudsim.TimeSharedVMScheduler;
+import cloudsim.VMCharacteristics;
+import cloudsim.VirtualMachine;
+import cloudsim.VirtualMachineList;
+import cloudsim.ext.datacenter.AntColonyVmLoadBalancer;
+
+/**
+ * Measures the allocation throughput of the {@link AntColonyVmLoadBalancer} for data centers
+ * of different sizes, outside of a simulation, and how the allocations spread over the VMs.
+ * With a parallelism above 1, the allocations are repeated with the ants touring one after
+ * the other, to check that they pick the same VMs.
+ *
+ * Usage: AntColonyBenchmark [vms,...] [seed] [ants] [parallelism]
+ */
+public class AntColonyBenchmark {
+
+	/** Roughly the number of VM scores computed by the timed allocations of each size. */
+	private static final long SCORES_PER_SIZE = 2000000000L;
+
+	public static void main(String[] args) throws Exception {
+		String[] sizes = (args.length > 0 ? args[0] : "50,500,5000").split(",");
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+		int ants = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+		int parallelism = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+
+		for (String size : sizes){
+			int vms = Integer.parseInt(size.trim());
+
+			//An allocation takes about (ants + 1) / 2 * vms^2 scores
+			int calls = (int) Math.max(3, Math.min(100000, SCORES_PER_SIZE / ((ants + 1L) / 2 * vms * vms)));
+
+			//Warm up
+			allocate(vms, seed, ants, parallelism, new int[Math.min(calls, 1000)]);
+
+			int[] choices = new int[calls];
+			long start = System.nanoTime();
+			AntColonyVmLoadBalancer balancer = allocate(vms, seed, ants, parallelism, choices);
+			long time = System.nanoTime() - start;
+
+			String sameAsSequential = "";
+			if (parallelism > 1){
+				int[] sequential = new int[calls];
+				allocate(vms, seed, ants, 1, sequential);
+				sameAsSequential = " sameAsSequential=" + Arrays.equals(choices, sequential);
+			}
+
+			Map<Integer, Integer> counts = balancer.getVmAllocationCounts();
+			int max = 0;
+			for (int count : counts.values()){
+				max = Math.max(max, count);
+			}
+
+			System.err.println("vms=" + vms
+							   + " ants=" + ants
+							   + " parallelism=" + parallelism
+							   + " calls=" + calls
+							   + " msPerCall=" + String.format("%.4f", time / 1e6 / calls)
+							   + " callsPerSecond=" + String.format("%.1f", calls / (time / 1e9))
+							   + " vmsUsed=" + counts.size()
+							   + " maxShare=" + String.format("%.4f", (double) max / calls)
+							   + sameAsSequential);
+		}
+
+		System.exit(0);
+	}
+
+	private static AntColonyVmLoadBalancer allocate(int vms, long seed, int ants, int parallelism, int[] choices){
+		AntColonyVmLoadBalancer balancer = new AntColonyVmLoadBalancer(createVms(vms), seed);
+		balancer.setAntCount(ants);
+		balancer.setParallelism(parallelism);
+		for (int i = 0; i < choices.length; i++){
+			choices[i] = balancer.getNextAvailableVm();
+		}
+		balancer.setParallelism(1);
+
+		return balancer;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static VirtualMachineList createVms(int count){
+		VirtualMachineList list = new VirtualMachineList();
+		for (int i = 0; i < count; i++){
+			list.add(new VirtualMachine(new VMCharacteristics(i, 0, 10000, 512, 1000, 1, 1, "Xen",
+															  new TimeSharedVMScheduler())));
+		}
+
+		return list;
+	}
+}
@@ -0,0 +1,113 @@
+package cloudsim.ext.benchmark;
+
+import java.util.Map;
+
+import cloudsim.ext.Constants;
+import cloudsim.ext.Simulation;
+import cloudsim.ext.datacenter.AutoScalingPolicy;
+import cloudsim.ext.gui.utils.SimMeasure;
+
+/**
+ * Compares fixed fleets of VMs with an auto scaled one over a day: all user bases send their
+ * requests to a single data center with the Location Aware (throttled) load balancer, and
+ * the load goes up and down with the user bases' peak hours. It runs fleets of each size
+ * from 1 to max VMs, then a fleet auto scaled between 1 and max VMs by the default
+ * {@link AutoScalingPolicy}, with the given VM boot delay and with VMs that boot at once.
+ * For each it reports the VM hours and cost, the average and worst 95th percentile
+ * response time of the requests served, the requests served and shed, the peak number of
+ * VMs in service and the number of times the data center was scaled out and in. Last it
+ * names the cheapest run whose worst 95th percentile response time meets the target.
+ *
+ * Usage: AutoScalingBenchmark [hours] [userBases] [maxVms] [instructionLength] [targetP95]
+ * 			[vmBootDelay]
+ */
+public class AutoScalingBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		double hours = args.length > 0 ? Double.parseDouble(args[0]) : 24;
+		int userBases = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+		int maxVms = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+		int instructionLength = args.length > 3 ? Integer.parseInt(args[3]) : 10000;
+		double targetP95 = args.length > 4 ? Double.parseDouble(args[4]) : 650;
+		double vmBootDelay = args.length > 5 ? Double.parseDouble(args[5]) : 60000;
+
+		String best = null;
+		double bestCost = Double.MAX_VALUE;
+		for (int vms = 1; vms <= maxVms + 2; vms++){
+			boolean autoScaled = (vms > maxVms);
+			double bootDelay = (vms > maxVms + 1) ? 0 : vmBootDelay;
+			if ((vms > maxVms + 1) && (vmBootDelay == 0)){
+				//Already run
+				break;
+			}
+			Simulation simulation = BenchmarkScenario.create(userBases, 1, autoScaled ? 1 : vms, hours);
+			simulation.setSimulationEngine(Constants.SIMULATION_ENGINE_EVENT_KERNEL);
+			simulation.setLoadBalancePolicy(Constants.LOAD_BALANCE_THROTTLED);
+			simulation.setInstructionLengthPerRequest(instructionLength);
+			if (autoScaled){
+				AutoScalingPolicy policy = new AutoScalingPolicy();
+				policy.setMinVms(1);
+				policy.setMaxVms(maxVms);
+				policy.setVmBootDelay(bootDelay);
+				simulation.setAutoScalingPolicy(policy);
+			}
+
+			long start = System.nanoTime();
+			simulation.runSimulation();
+			long time = System.nanoTime() - start;
+
+			double ubP95 = 0;
+			double ubAvg = 0;
+			long served = 0;
+			long shed = 0;
+			for (SimMeasure m : measures(simulation).values()){
+				if (m.getName().equals(Constants.UB_RESPONSE_TIME)){
+					ubP95 = Math.max(ubP95, m.getP95());
+					ubAvg += m.getAvg() * m.getCount();
+					served += m.getCount();
+				} else if (m.getName().equals(Constants.UB_SHED_REQUESTS)){
+					shed += m.getCount();
+				}
+			}
+			Map<String, Double> dcMetrics = dcMetrics(simulation).values().iterator().next();
+			double vmCost = costs(simulation).values().iterator().next().get(Constants.VM_COST);
+
+			String fleet = autoScaled ? "Auto scaled 1:" + maxVms + " boot=" + bootDelay : "Fixed " + vms;
+			System.err.println("fleet=\"" + fleet + "\""
+							   + " vmHours=" + String.format("%.2f", dcMetrics.get(Constants.DC_VM_HOURS))
+							   + " vmCost=" + String.format("%.2f", vmCost)
+							   + " responseAvg=" + String.format("%.2f", (served > 0) ? ubAvg / served : 0)
+							   + " worstResponseP95=" + String.format("%.2f", ubP95)
+							   + " served=" + served
+							   + " shed=" + shed
+							   + " peakVms=" + dcMetrics.get(Constants.DC_PEAK_VMS_IN_SERVICE).intValue()
+							   + " scaleOuts=" + dcMetrics.get(Constants.DC_SCALE_OUTS).intValue()
+							   + " scaleIns=" + dcMetrics.get(Constants.DC_SCALE_INS).intValue()
+							   + " ms=" + time / 1000000);
+
+			if ((ubP95 <= targetP95) && (vmCost < bestCost)){
+				best = fleet;
+				bestCost = vmCost;
+			}
+		}
+
+		System.err.println("cheapest meeting p95<=" + targetP95 + ": "
+						   + ((best != null) ? "\"" + best + "\" vmCost=" + String.format("%.2f", bestCost) : "none"));
+		System.exit(0);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, SimMeasure> measures(Simulation simulation){
+		return (Map<String, SimMeasure>) simulation.getResults().get(Constants.UB_STATS);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Map<String, Double>> dcMetrics(Simulation simulation){
+		return (Map<String, Map<String, Double>>) simulation.getResults().get(Constants.DC_METRICS);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Map<String, Double>> costs(Simulation simulation){
+		return (Map<String, Map<String, Double>>) simulation.getResults().get(Constants.COSTS);
+	}
+}
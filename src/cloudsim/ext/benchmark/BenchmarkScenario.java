@@ -0,0 +1,87 @@
+package cloudsim.ext.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import cloudsim.ext.Constants;
+import cloudsim.ext.Simulation;
+import cloudsim.ext.event.CloudSimEvent;
+import cloudsim.ext.event.CloudSimEventListener;
+import cloudsim.ext.gui.DataCenterUIElement;
+import cloudsim.ext.gui.MachineUIElement;
+import cloudsim.ext.gui.UserBaseUIElement;
+import cloudsim.ext.gui.VmAllocationUIElement;
+
+/**
+ * Builds scaled up versions of the default simulation for the benchmarks, without the GUI.
+ * 
+ * User bases and data centers are copies of the defaults, spread round robin over the 
+ * world regions.
+ */
+public final class BenchmarkScenario implements Constants {
+	
+	/** Listener that ignores all events. Simulation needs a listener to report progress to. */
+	public static final CloudSimEventListener NO_OP_LISTENER = new CloudSimEventListener(){
+		public void cloudSimEventFired(CloudSimEvent e) {
+		}
+	};
+	
+	private BenchmarkScenario(){
+	}
+	
+	/**
+	 * Creates a simulation with the given number of user bases and data centers.
+	 * 
+	 * @param userBases number of user bases
+	 * @param dataCenters number of data centers
+	 * @param vmsPerDataCenter number of VMs allocated in each data center
+	 * @param hours simulation duration in hours
+	 */
+	public static Simulation create(int userBases, int dataCenters, int vmsPerDataCenter, double hours) throws Exception {
+		Simulation simulation = new Simulation(NO_OP_LISTENER);
+		
+		simulation.getUserBases().clear();
+		for (int i = 0; i < userBases; i++){
+			simulation.getUserBases().add(new UserBaseUIElement("UB" + (i + 1), 
+															   i % WORLD_REGIONS, 
+															   DEFAULT_REQ_PER_USER_PER_HR,
+															   DEFAULT_REQ_SIZE,
+															   DEFAULT_PEAK_HOURS,
+															   DEFAULT_PEAK_USERS,
+															   DEFAULT_OFFPEAK_USERS));
+		}
+		
+		simulation.getDataCenters().clear();
+		for (int i = 0; i < dataCenters; i++){
+			DataCenterUIElement dataCenter = new DataCenterUIElement("DC" + (i + 1),
+																	 i % WORLD_REGIONS, 
+																	 DEFAULT_ARCHITECTURE,
+																	 DEFAULT_OS,
+																	 DEFAULT_VMM,
+																	 DEFAULT_COST_PER_PROC,
+															 		 DEFAULT_COST_PER_MEM,
+																	 DEFAULT_COST_PER_STOR,
+																	 DEFAULT_COST_PER_BW);
+			List<MachineUIElement> machineList = new ArrayList<MachineUIElement>();
+			for (int m = 0; m < 2; m++){
+				machineList.add(new MachineUIElement(DEFAULT_MC_MEMORY,
+													 DEFAULT_MC_STORAGE,
+													 DEFAULT_MC_BW,
+													 DEFAULT_MC_PROCESSORS,
+													 DEFAULT_MC_SPEED,
+													 MachineUIElement.VmAllocationPolicy.TIME_SHARED));
+			}
+			dataCenter.setMachineList(machineList);
+			dataCenter.setVmAllocation(new VmAllocationUIElement(dataCenter, 
+															   vmsPerDataCenter, 
+															   DEFAULT_VM_IMAGE_SIZE, 
+															   DEFAULT_VM_MEMORY,
+															   DEFAULT_VM_BW));
+			simulation.getDataCenters().add(dataCenter);
+		}
+		
+		simulation.setSimulationTime(hours * MILLI_SECONDS_TO_HOURS);
+		
+		return simulation;
+	}
+}
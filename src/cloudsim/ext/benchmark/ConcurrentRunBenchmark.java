@@ -0,0 +1,100 @@
+package cloudsim.ext.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import cloudsim.ext.Constants;
+import cloudsim.ext.Simulation;
+import cloudsim.ext.gui.utils.SimMeasure;
+
+/**
+ * Runs a number of copies of a scenario on the {@link cloudsim.engine.EventKernel}, first one
+ * after the other and then concurrently on a thread pool, and reports the wall times and
+ * whether the concurrent runs produced the same results as the sequential ones.
+ *
+ * Usage: ConcurrentRunBenchmark [runs] [threads] [userBases] [dataCenters] [hours]
+ */
+public class ConcurrentRunBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int runs = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		final int userBases = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+		final int dataCenters = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+		final double hours = args.length > 4 ? Double.parseDouble(args[4]) : 3;
+
+		List<Callable<Map<String, SimMeasure>>> tasks = new ArrayList<Callable<Map<String, SimMeasure>>>();
+		for (int i = 0; i < runs; i++){
+			tasks.add(new Callable<Map<String, SimMeasure>>(){
+				public Map<String, SimMeasure> call() throws Exception {
+					return run(userBases, dataCenters, hours);
+				}
+			});
+		}
+
+		//Warm up
+		tasks.get(0).call();
+
+		long start = System.nanoTime();
+		List<Map<String, SimMeasure>> sequential = new ArrayList<Map<String, SimMeasure>>();
+		for (Callable<Map<String, SimMeasure>> task : tasks){
+			sequential.add(task.call());
+		}
+		long sequentialTime = System.nanoTime() - start;
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		start = System.nanoTime();
+		List<Future<Map<String, SimMeasure>>> concurrent = executor.invokeAll(tasks);
+		long concurrentTime = System.nanoTime() - start;
+		executor.shutdown();
+
+		boolean identical = true;
+		for (int i = 0; i < runs; i++){
+			identical &= sameResults(sequential.get(0), concurrent.get(i).get());
+		}
+
+		System.err.println("runs=" + runs
+						   + " threads=" + threads
+						   + " cpus=" + Runtime.getRuntime().availableProcessors()
+						   + " userBases=" + userBases
+						   + " dataCenters=" + dataCenters
+						   + " hours=" + hours
+						   + " sequentialMs=" + (sequentialTime / 1000000)
+						   + " concurrentMs=" + (concurrentTime / 1000000)
+						   + " speedup=" + String.format("%.2f", (double) sequentialTime / concurrentTime)
+						   + " identicalResults=" + identical);
+
+		System.exit(0);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, SimMeasure> run(int userBases, int dataCenters, double hours) throws Exception {
+		Simulation simulation = BenchmarkScenario.create(userBases, dataCenters, Constants.DEFAULT_VM_COUNT, hours);
+		simulation.setSimulationEngine(Constants.SIMULATION_ENGINE_EVENT_KERNEL);
+		simulation.runSimulation();
+
+		return (Map<String, SimMeasure>) simulation.getResults().get(Constants.UB_STATS);
+	}
+
+	private static boolean sameResults(Map<String, SimMeasure> a, Map<String, SimMeasure> b){
+		if (!a.keySet().equals(b.keySet())){
+			return false;
+		}
+
+		for (String key : a.keySet()){
+			SimMeasure ma = a.get(key);
+			SimMeasure mb = b.get(key);
+			if ((ma.getAvg() != mb.getAvg()) || (ma.getMin() != mb.getMin())
+					|| (ma.getMax() != mb.getMax()) || (ma.getCount() != mb.getCount())){
+				return false;
+			}
+		}
+
+		return true;
+	}
+}
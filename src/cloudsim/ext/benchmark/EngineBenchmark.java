@@ -0,0 +1,48 @@
+package cloudsim.ext.benchmark;
+
+import cloudsim.ext.Constants;
+import cloudsim.ext.Simulation;
+
+/**
+ * Compares the throughput of the SimJava scheduler and the {@link cloudsim.engine.EventKernel}.
+ * 
+ * Usage: EngineBenchmark &lt;simjava|kernel&gt; [userBases] [dataCenters] [hours] [heap|calendar]
+ * 
+ * GridSim keeps its state in static fields, so run each engine in its own JVM.
+ */
+public class EngineBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		String engine = args.length > 0 ? args[0] : "kernel";
+		int userBases = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+		int dataCenters = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+		double hours = args.length > 3 ? Double.parseDouble(args[3]) : 1;
+		String eventList = args.length > 4 ? args[4] : "heap";
+		
+		Simulation simulation = BenchmarkScenario.create(userBases, dataCenters, Constants.DEFAULT_VM_COUNT, hours);
+		if (engine.equals("simjava")){
+			simulation.setSimulationEngine(Constants.SIMULATION_ENGINE_SIMJAVA);
+		} else {
+			simulation.setSimulationEngine(Constants.SIMULATION_ENGINE_EVENT_KERNEL);
+		}
+		if (eventList.equals("calendar")){
+			simulation.setFutureEventList(Constants.FUTURE_EVENT_LIST_CALENDAR_QUEUE);
+		}
+		
+		long start = System.nanoTime();
+		simulation.runSimulation();
+		long wallTime = System.nanoTime() - start;
+		
+		long events = simulation.getEventCount();
+		System.err.println("engine=" + simulation.getSimulationEngine() 
+						   + " futureEventList=" + simulation.getFutureEventList()
+						   + " userBases=" + userBases 
+						   + " dataCenters=" + dataCenters 
+						   + " hours=" + hours
+						   + " events=" + events 
+						   + " wallMs=" + (wallTime / 1000000)
+						   + " eventsPerSec=" + (long) (events / (wallTime / 1e9)));
+		
+		System.exit(0);
+	}
+}
@@ -0,0 +1,118 @@
+package cloudsim.ext.benchmark;
+
+import java.util.Random;
+
+import cloudsim.engine.BinaryHeapEventList;
+import cloudsim.engine.CalendarQueue;
+import cloudsim.engine.FutureEventList;
+import cloudsim.engine.KernelEvent;
+
+/**
+ * Hold model microbenchmark of the future event lists. The list is filled with a given number
+ * of pending events, then each hold operation removes the earliest event and schedules a new
+ * one at its time plus an increment drawn from a distribution.
+ *
+ * The distributions follow the events the simulation entities schedule:
+ * <ul>
+ * <li>internet - transfer delays of the Internet entity, 25 to 525 ms</li>
+ * <li>datacenter - VM_DATACENTER_EVENT self schedules for cloudlet completion, exponential
+ * 		with a 10 ms mean</li>
+ * <li>userbase - inter request delays of a user base, around 60 s</li>
+ * <li>mix - 45% internet, 45% datacenter and 10% userbase</li>
+ * <li>exponential - the classic hold model, exponential with mean 1</li>
+ * </ul>
+ *
+ * Usage: FutureEventListBenchmark [pendingEvents...]
+ */
+public class FutureEventListBenchmark {
+
+	private static final String[] DISTRIBUTIONS = {"exponential", "internet", "datacenter", "userbase", "mix"};
+	private static final int HOLD_OPERATIONS = 2000000;
+
+	private final Random random = new Random(42);
+	private long serial = 0;
+
+	public static void main(String[] args) {
+		int[] sizes;
+		if (args.length > 0){
+			sizes = new int[args.length];
+			for (int i = 0; i < args.length; i++){
+				sizes[i] = Integer.parseInt(args[i]);
+			}
+		} else {
+			sizes = new int[]{1000, 10000, 100000, 500000};
+		}
+
+		FutureEventListBenchmark benchmark = new FutureEventListBenchmark();
+
+		//Warm up
+		for (String dist : DISTRIBUTIONS){
+			benchmark.run(new BinaryHeapEventList(), dist, 10000);
+			benchmark.run(new CalendarQueue(), dist, 10000);
+		}
+
+		System.out.println("distribution,pendingEvents,heapNsPerHold,calendarNsPerHold");
+		for (String dist : DISTRIBUTIONS){
+			for (int size : sizes){
+				double heap = benchmark.run(new BinaryHeapEventList(), dist, size);
+				double calendar = benchmark.run(new CalendarQueue(), dist, size);
+				System.out.printf("%s,%d,%.1f,%.1f%n", dist, size, heap, calendar);
+			}
+		}
+	}
+
+	/**
+	 * @return the mean time of a hold operation in nanoseconds
+	 */
+	private double run(FutureEventList list, String distribution, int size){
+		for (int i = 0; i < size; i++){
+			list.add(newEvent(increment(distribution)));
+		}
+
+		//Let the list settle into its steady state before timing
+		hold(list, distribution, size);
+
+		long start = System.nanoTime();
+		hold(list, distribution, HOLD_OPERATIONS);
+		long time = System.nanoTime() - start;
+
+		return (double) time / HOLD_OPERATIONS;
+	}
+
+	private void hold(FutureEventList list, String distribution, int operations){
+		KernelEvent ev;
+		for (int i = 0; i < operations; i++){
+			ev = list.poll();
+			list.add(newEvent(ev.event_time() + increment(distribution)));
+		}
+	}
+
+	private KernelEvent newEvent(double time){
+		return new KernelEvent(time, serial++, 0, 0, 0, null);
+	}
+
+	private double increment(String distribution){
+		if (distribution.equals("internet")){
+			return 25 + random.nextDouble() * 500;
+		} else if (distribution.equals("datacenter")){
+			return exponential(10);
+		} else if (distribution.equals("userbase")){
+			return Math.max(0, 60000 + random.nextGaussian() * 6000);
+		} else if (distribution.equals("mix")){
+			double r = random.nextDouble();
+			if (r < 0.45){
+				return increment("internet");
+			} else if (r < 0.9){
+				return increment("datacenter");
+			} else {
+				return increment("userbase");
+			}
+		} else {
+			return exponential(1);
+		}
+	}
+
+	private double exponential(double mean){
+		return -mean * Math.log(1 - random.nextDouble());
+	}
+}
@@ -0,0 +1,108 @@
+package cloudsim.ext.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import cloudsim.ext.datacenter.VmLoadIndex;
+import cloudsim.ext.datacenter.VmLoadListener;
+
+/**
+ * Microbenchmark of the least connections allocation of a group of cloudlets split from one
+ * request, done one cloudlet at a time, with the load listeners called after each, as the
+ * controller does for the load balancers without group allocation, and done for the whole
+ * group at once, with
+ * {@link VmLoadIndex#getLeastLoadedVms(int, int[])} and a single call.
+ *
+ * The VMs start with random loads. Each group is finished again after it is allocated, so the
+ * loads stay the same from one group to the next. Both ways must allocate the same VMs.
+ *
+ * Usage: GroupAllocationBenchmark [groupSize] [vms...]
+ */
+public class GroupAllocationBenchmark {
+
+	private static final int CLOUDLETS = 2000000;
+	private static final int MAX_INITIAL_LOAD = 4;
+
+	private static final VmLoadListener NO_OP_LISTENER = new VmLoadListener(){
+		public void onAllocated(int vmId) {
+		}
+
+		public void onAllocated(int[] vmIds, int count) {
+		}
+
+		public void onFinished(int vmId, double serviceTime) {
+		}
+	};
+
+	public static void main(String[] args) {
+		int groupSize = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+		int[] sizes;
+		if (args.length > 1){
+			sizes = new int[args.length - 1];
+			for (int i = 1; i < args.length; i++){
+				sizes[i - 1] = Integer.parseInt(args[i]);
+			}
+		} else {
+			sizes = new int[]{10, 100, 1000};
+		}
+
+		//Warm up
+		for (int size : new int[]{10, 1000}){
+			run(size, groupSize, false, new int[groupSize]);
+			run(size, groupSize, true, new int[groupSize]);
+		}
+
+		System.out.println("vms,groupSize,oneByOneNsPerCloudlet,groupNsPerCloudlet,sameVms");
+		for (int size : sizes){
+			int[] oneByOneVms = new int[groupSize];
+			int[] groupVms = new int[groupSize];
+			double oneByOne = run(size, groupSize, false, oneByOneVms);
+			double group = run(size, groupSize, true, groupVms);
+			System.out.printf("%d,%d,%.1f,%.1f,%b%n", size, groupSize, oneByOne, group,
+					Arrays.equals(oneByOneVms, groupVms));
+		}
+	}
+
+	/**
+	 * @param lastGroup the array to put the VMs of the last group allocated in
+	 * @return the mean time of the allocation of a cloudlet in nanoseconds
+	 */
+	private static double run(int size, int groupSize, boolean inGroups, int[] lastGroup){
+		VmLoadIndex index = new VmLoadIndex();
+		index.ensureVmCount(size);
+		Random random = new Random(42);
+		for (int i = 0; i < size; i++){
+			for (int load = random.nextInt(MAX_INITIAL_LOAD + 1); load > 0; load--){
+				index.cloudletAllocated(i);
+			}
+		}
+		VmLoadListener[] listeners = new VmLoadListener[]{index, NO_OP_LISTENER};
+
+		int[] vmIds = new int[groupSize];
+		int groups = Math.max(1, CLOUDLETS / groupSize);
+		long start = System.nanoTime();
+		for (int g = 0; g < groups; g++){
+			if (inGroups){
+				int count = index.getLeastLoadedVms(groupSize, vmIds);
+				for (VmLoadListener l : listeners){
+					l.onAllocated(vmIds, count);
+				}
+			} else {
+				for (int i = 0; i < groupSize; i++){
+					vmIds[i] = index.getLeastLoadedVm();
+					for (VmLoadListener l : listeners){
+						l.onAllocated(vmIds[i]);
+					}
+				}
+			}
+
+			for (int i = 0; i < groupSize; i++){
+				index.cloudletFinished(vmIds[i]);
+			}
+		}
+		long time = System.nanoTime() - start;
+		System.arraycopy(vmIds, 0, lastGroup, 0, groupSize);
+
+		return (double) time / ((long) groups * groupSize);
+	}
+}
@@ -0,0 +1,113 @@
+package cloudsim.ext.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import cloudsim.ext.Constants;
+import cloudsim.ext.Simulation;
+import cloudsim.ext.gui.utils.SimMeasure;
+
+/**
+ * Compares the tail latencies of load balancers on a scenario where all user bases send
+ * their requests to a single data center: Round Robin, Threshold, Least Connections, PSO,
+ * earliest completion, response time aware and Power of d Choices with a range of
+ * sampling widths. For each it reports the average, 95th
+ * and 99th percentile and maximum of the data center's service time, which is what the load
+ * balancer decides, and the worst 99th percentile response time seen by a user base.
+ *
+ * By default the requests are 100 times longer than in the default scenario, to load the
+ * VMs enough for the load balancers to make a difference. The second of the data center's
+ * two machines can be given another speed, to make the hosts heterogeneous, and the data
+ * center can group the requests differently, to mix cloudlets of different lengths.
+ *
+ * Usage: LoadBalancerTailBenchmark [hours] [userBases] [vms] [choices,...] [instructionLength]
+ * 			[secondMachineSpeed] [dcRequestGroupingFactor]
+ */
+public class LoadBalancerTailBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		double hours = args.length > 0 ? Double.parseDouble(args[0]) : 1;
+		int userBases = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+		int vms = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+		String[] choices = (args.length > 3 ? args[3] : "1,2,4").split(",");
+		int instructionLength = args.length > 4 ? Integer.parseInt(args[4]) : 10000;
+		int secondMachineSpeed = args.length > 5 ? Integer.parseInt(args[5]) : 0;
+		int dcGrouping = args.length > 6 ? Integer.parseInt(args[6]) : 0;
+
+		List<String> policies = new ArrayList<String>();
+		List<Integer> widths = new ArrayList<Integer>();
+		policies.add(Constants.LOAD_BALANCE_POLICY_RR);
+		widths.add(0);
+		policies.add(Constants.LOAD_BALANCE_THRESHOLD);
+		widths.add(0);
+		policies.add(Constants.LOAD_BALANCE_LEAST_CONNECTIONS);
+		widths.add(0);
+		policies.add(Constants.LOAD_BALANCE_PSO);
+		widths.add(0);
+		policies.add(Constants.LOAD_BALANCE_SHORTEST_JOB_FIRST);
+		widths.add(0);
+		policies.add(Constants.LOAD_BALANCE_RESPONSE_TIME);
+		widths.add(0);
+		for (String d : choices){
+			policies.add(Constants.LOAD_BALANCE_POWER_OF_CHOICES);
+			widths.add(Integer.parseInt(d.trim()));
+		}
+
+		for (int i = 0; i < policies.size(); i++){
+			Simulation simulation = BenchmarkScenario.create(userBases, 1, vms, hours);
+			simulation.setSimulationEngine(Constants.SIMULATION_ENGINE_EVENT_KERNEL);
+			simulation.setLoadBalancePolicy(policies.get(i));
+			if (instructionLength > 0){
+				simulation.setInstructionLengthPerRequest(instructionLength);
+			}
+			if (widths.get(i) > 0){
+				simulation.setLoadBalancerChoices(widths.get(i));
+			}
+			if (secondMachineSpeed > 0){
+				simulation.getDataCenters().get(0).getMachineList().get(1).setSpeed(secondMachineSpeed);
+			}
+			if (dcGrouping > 0){
+				simulation.setDcRequestGroupingFactor(dcGrouping);
+			}
+
+			long start = System.nanoTime();
+			simulation.runSimulation();
+			long time = System.nanoTime() - start;
+
+			SimMeasure service = null;
+			double ubP99 = 0;
+			double ubAvg = 0;
+			long ubCount = 0;
+			for (SimMeasure m : measures(simulation, Constants.DC_PROCESSING_TIME_STATS).values()){
+				if (m.getName().equals(Constants.DC_SERVICE_TIME)){
+					service = m;
+				}
+			}
+			for (SimMeasure m : measures(simulation, Constants.UB_STATS).values()){
+				if (m.getName().equals(Constants.UB_RESPONSE_TIME)){
+					ubP99 = Math.max(ubP99, m.getP99());
+					ubAvg += m.getAvg() * m.getCount();
+					ubCount += m.getCount();
+				}
+			}
+
+			String policy = policies.get(i) + ((widths.get(i) > 0) ? " d=" + widths.get(i) : "");
+			System.err.println("policy=\"" + policy + "\""
+							   + " serviceAvg=" + String.format("%.2f", service.getAvg())
+							   + " serviceP95=" + String.format("%.2f", service.getP95())
+							   + " serviceP99=" + String.format("%.2f", service.getP99())
+							   + " serviceMax=" + String.format("%.2f", service.getMax())
+							   + " responseAvg=" + String.format("%.2f", (ubCount > 0) ? ubAvg / ubCount : 0)
+							   + " worstResponseP99=" + String.format("%.2f", ubP99)
+							   + " ms=" + time / 1000000);
+		}
+
+		System.exit(0);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, SimMeasure> measures(Simulation simulation, String table){
+		return (Map<String, SimMeasure>) simulation.getResults().get(table);
+	}
+}
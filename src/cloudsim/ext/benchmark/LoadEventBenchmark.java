@@ -0,0 +1,129 @@
+package cloudsim.ext.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import cloudsim.ext.Constants;
+import cloudsim.ext.datacenter.VmLoadIndex;
+import cloudsim.ext.datacenter.VmLoadListener;
+import cloudsim.ext.datacenter.VmStateTable;
+import cloudsim.ext.event.CloudSimEvent;
+import cloudsim.ext.event.CloudSimEventListener;
+import cloudsim.ext.event.CloudSimEvents;
+
+/**
+ * Microbenchmark of the notification of the load listeners of a controller, for a cloudlet
+ * allocated to a VM and finished by it: with a {@link CloudSimEvent} holding the boxed VM id
+ * and service time, fired to a list of generic listeners that unbox them, as the controller
+ * used to do, and with the typed {@link VmLoadListener} calls, from an array.
+ *
+ * The listeners are those of the throttled load balancer over a {@link VmLoadIndex}: the
+ * index, and a listener marking the VMs busy and available in a {@link VmStateTable}.
+ *
+ * Usage: LoadEventBenchmark [vms]
+ */
+public class LoadEventBenchmark {
+
+	private static final int CLOUDLETS = 10000000;
+
+	public static void main(String[] args) {
+		int vms = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+
+		//Warm up
+		run(vms, false);
+		run(vms, true);
+
+		System.out.println("vms,eventNsPerCloudlet,typedNsPerCloudlet");
+		double events = run(vms, false);
+		double typed = run(vms, true);
+		System.out.printf("%d,%.1f,%.1f%n", vms, events, typed);
+	}
+
+	/**
+	 * @return the mean time of the notifications for a cloudlet in nanoseconds
+	 */
+	private static double run(int vms, boolean typed){
+		VmLoadIndex index = new VmLoadIndex();
+		index.ensureVmCount(vms);
+		VmLoadListener[] loadListeners = new VmLoadListener[]{index, new StatesListener(vms)};
+		List<CloudSimEventListener> listeners = new ArrayList<CloudSimEventListener>();
+		for (VmLoadListener l : loadListeners){
+			listeners.add(new EventListener(l));
+		}
+		Random random = new Random(42);
+
+		long start = System.nanoTime();
+		for (int i = 0; i < CLOUDLETS; i++){
+			int vmId = random.nextInt(vms);
+			double serviceTime = 10;
+			if (typed){
+				for (VmLoadListener l : loadListeners){
+					l.onAllocated(vmId);
+				}
+				for (VmLoadListener l : loadListeners){
+					l.onFinished(vmId, serviceTime);
+				}
+			} else {
+				CloudSimEvent e = new CloudSimEvent(CloudSimEvents.EVENT_CLOUDLET_ALLOCATED_TO_VM);
+				e.addParameter(Constants.PARAM_VM_ID, vmId);
+				for (CloudSimEventListener l : listeners){
+					l.cloudSimEventFired(e);
+				}
+				e = new CloudSimEvent(CloudSimEvents.EVENT_VM_FINISHED_CLOUDLET);
+				e.addParameter(Constants.PARAM_VM_ID, vmId);
+				e.addParameter(Constants.PARAM_PROCESSING_TIME, serviceTime);
+				for (CloudSimEventListener l : listeners){
+					l.cloudSimEventFired(e);
+				}
+			}
+		}
+		long time = System.nanoTime() - start;
+
+		return (double) time / CLOUDLETS;
+	}
+
+	/** Marks the VMs busy while they run a cloudlet. */
+	private static class StatesListener implements VmLoadListener {
+		private final VmStateTable states = new VmStateTable();
+
+		StatesListener(int vms) {
+			for (int i = 0; i < vms; i++){
+				states.setAvailable(i, true);
+			}
+		}
+
+		public void onAllocated(int vmId) {
+			states.setAvailable(vmId, false);
+		}
+
+		public void onAllocated(int[] vmIds, int count) {
+			for (int i = 0; i < count; i++){
+				onAllocated(vmIds[i]);
+			}
+		}
+
+		public void onFinished(int vmId, double serviceTime) {
+			states.setAvailable(vmId, true);
+		}
+	}
+
+	/** A generic listener unboxing the events for a load listener, as the listeners used to. */
+	private static class EventListener implements CloudSimEventListener {
+		private static final long serialVersionUID = 1L;
+		private final VmLoadListener listener;
+
+		EventListener(VmLoadListener listener) {
+			this.listener = listener;
+		}
+
+		public void cloudSimEventFired(CloudSimEvent e) {
+			if (e.getId() == CloudSimEvents.EVENT_CLOUDLET_ALLOCATED_TO_VM){
+				listener.onAllocated((Integer) e.getParameter(Constants.PARAM_VM_ID));
+			} else if (e.getId() == CloudSimEvents.EVENT_VM_FINISHED_CLOUDLET){
+				listener.onFinished((Integer) e.getParameter(Constants.PARAM_VM_ID),
+						(Double) e.getParameter(Constants.PARAM_PROCESSING_TIME));
+			}
+		}
+	}
+}
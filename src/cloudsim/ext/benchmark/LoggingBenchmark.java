@@ -0,0 +1,59 @@
+package cloudsim.ext.benchmark;
+
+import cloudsim.ext.util.SimLog;
+import cloudsim.ext.util.SimLog.Category;
+import cloudsim.ext.util.SimLog.Level;
+
+/**
+ * Microbenchmark of logging a load balancer decision, as the load balancers used to do, with
+ * {@link System#out}, and with {@link SimLog}: at INFO level, so that the message is
+ * written by the background writer, and at DEBUG level with the category at INFO, so that
+ * nothing is logged, as by default. The time of the writes is the time the simulation thread
+ * spends, so for {@link SimLog} it does not include the writing itself, except when the
+ * buffer is full.
+ *
+ * The messages go to the standard output, which should be redirected, e.g. to a file or
+ * /dev/null; the results are written to the standard error.
+ *
+ * Usage: LoggingBenchmark [messages]
+ */
+public class LoggingBenchmark {
+
+	public static void main(String[] args) {
+		int messages = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+
+		//Warm up
+		run(messages / 10, 0);
+		run(messages / 10, 1);
+		run(messages / 10, 2);
+
+		System.err.println("messages,printlnNs,simLogNs,simLogDisabledNs");
+		double println = run(messages, 0);
+		double simLog = run(messages, 1);
+		double disabled = run(messages, 2);
+		System.err.printf("%d,%.1f,%.1f,%.1f%n", messages, println, simLog, disabled);
+	}
+
+	/**
+	 * @param mode 0 for {@link System#out}, 1 for {@link SimLog} enabled, 2 for {@link SimLog}
+	 * 			disabled
+	 * @return the mean time of logging a message in nanoseconds
+	 */
+	private static double run(int messages, int mode){
+		SimLog.setLevel(Category.LOAD_BALANCER, mode == 1 ? Level.DEBUG : Level.INFO);
+
+		long start = System.nanoTime();
+		for (int i = 0; i < messages; i++){
+			int vmId = i & 1023;
+			if (mode == 0){
+				System.out.println("allocated " + vmId);
+			} else if (SimLog.isEnabled(Category.LOAD_BALANCER, Level.DEBUG)){
+				SimLog.debug(Category.LOAD_BALANCER, "allocated " + vmId);
+			}
+		}
+		long time = System.nanoTime() - start;
+		SimLog.flush();
+
+		return (double) time / messages;
+	}
+}
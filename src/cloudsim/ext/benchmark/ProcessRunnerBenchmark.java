@@ -0,0 +1,58 @@
+package cloudsim.ext.benchmark;
+
+import cloudsim.engine.EventKernel;
+import cloudsim.ext.Constants;
+import cloudsim.ext.Simulation;
+import cloudsim.ext.gui.UserBaseUIElement;
+
+/**
+ * Scales the number of user bases run as process style entities, with either SimJava or
+ * the {@link EventKernel} process runner.
+ * 
+ * Usage: ProcessRunnerBenchmark &lt;simjava|threads&gt; [userBases] [hours] [usersPerUserBase]
+ * 
+ * Each user base is two entities (the user base and its response handler), so 10,000 user
+ * bases need 20,000 threads. Run each configuration in its own JVM.
+ */
+public class ProcessRunnerBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		String engine = args.length > 0 ? args[0] : "threads";
+		int userBases = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		double hours = args.length > 2 ? Double.parseDouble(args[2]) : 1;
+		int users = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+		
+		Simulation simulation = BenchmarkScenario.create(userBases, 1, Constants.DEFAULT_VM_COUNT, hours);
+		for (UserBaseUIElement ub : simulation.getUserBases()){
+			ub.setPeakUserCount(users);
+			ub.setOffPeakUserCount(users);
+		}
+		
+		if (engine.equals("simjava")){
+			simulation.setSimulationEngine(Constants.SIMULATION_ENGINE_SIMJAVA);
+		} else {
+			simulation.setSimulationEngine(Constants.SIMULATION_ENGINE_VIRTUAL_THREADS);
+		}
+		
+		long start = System.nanoTime();
+		try {
+			simulation.runSimulation();
+		} catch (Throwable t) {
+			System.err.println("engine=" + simulation.getSimulationEngine() + " userBases=" + userBases + " failed: " + t);
+			System.exit(1);
+		}
+		long wallTime = System.nanoTime() - start;
+		
+		long events = simulation.getEventCount();
+		System.err.println("engine=" + simulation.getSimulationEngine() 
+						   + " virtualThreads=" + EventKernel.isVirtualThreadsSupported()
+						   + " userBases=" + userBases 
+						   + " hours=" + hours
+						   + " events=" + events 
+						   + " wallMs=" + (wallTime / 1000000)
+						   + " eventsPerSec=" + (long) (events / (wallTime / 1e9))
+						   + " peakThreads=" + java.lang.management.ManagementFactory.getThreadMXBean().getPeakThreadCount());
+		
+		System.exit(0);
+	}
+}
@@ -0,0 +1,132 @@
+package cloudsim.ext.benchmark;
+
+import java.util.Map;
+
+import cloudsim.engine.ParallelEventKernel;
+import cloudsim.ext.Constants;
+import cloudsim.ext.Simulation;
+import cloudsim.ext.gui.utils.SimMeasure;
+
+/**
+ * Runs a scenario with a user base and a data center in each of 1 to 6 world regions, on
+ * the {@link cloudsim.engine.EventKernel} and on the parallel event kernel with a range of
+ * thread counts, and reports the wall times, how many events crossed regions and whether
+ * the parallel runs produced the same results whatever the number of threads.
+ *
+ * The parallel runs draw the random delays of the Internet separately for each region, so
+ * their results are compared with the Event Kernel's by the largest relative difference of
+ * the average response time of a user base rather than for equality. Giving a number of
+ * data centers places that many in the first regions instead, so that the user bases of the
+ * other regions send all their requests across regions.
+ *
+ * Usage: RegionScalingBenchmark [hours] [brokerPolicy] [threads,...] [dataCenters]
+ */
+public class RegionScalingBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		double hours = args.length > 0 ? Double.parseDouble(args[0]) : 1;
+		String brokerPolicy = args.length > 1 ? args[1] : Constants.BROKER_POLICY_PROXIMITY;
+		String[] threadCounts = (args.length > 2 ? args[2] : "1,2,4,6").split(",");
+		int dataCenters = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+
+		//Warm up
+		run(Constants.WORLD_REGIONS, dataCenters, hours, brokerPolicy, Constants.SIMULATION_ENGINE_PARALLEL, 1);
+
+		for (int regions = 1; regions <= Constants.WORLD_REGIONS; regions++){
+			long start = System.nanoTime();
+			Simulation sequential = run(regions, dataCenters, hours, brokerPolicy, Constants.SIMULATION_ENGINE_EVENT_KERNEL, 1);
+			long sequentialTime = System.nanoTime() - start;
+			Map<String, SimMeasure> sequentialResults = ubStats(sequential);
+
+			StringBuilder line = new StringBuilder();
+			line.append("regions=").append(regions)
+				.append(" kernelMs=").append(sequentialTime / 1000000);
+
+			Map<String, SimMeasure> firstParallel = null;
+			boolean identical = true;
+			for (String t : threadCounts){
+				int threads = Integer.parseInt(t.trim());
+				if (threads > regions){
+					continue;
+				}
+
+				start = System.nanoTime();
+				Simulation parallel = run(regions, dataCenters, hours, brokerPolicy, Constants.SIMULATION_ENGINE_PARALLEL, threads);
+				long parallelTime = System.nanoTime() - start;
+
+				Map<String, SimMeasure> results = ubStats(parallel);
+				if (firstParallel == null){
+					firstParallel = results;
+
+					ParallelEventKernel kernel = parallel.getParallelEventKernel();
+					line.append(" windows=").append(kernel.getWindows())
+						.append(" crossRegionEvents=").append(kernel.getCrossPartitionMessages())
+						.append(" lateEvents=").append(kernel.getClampedMessages())
+						.append(" maxAvgResponseDiff=")
+						.append(String.format("%.2f%%", 100 * maxRelativeDifference(sequentialResults, results)));
+				} else {
+					identical &= sameResults(firstParallel, results);
+				}
+
+				line.append(" parallelMs[").append(threads).append("]=").append(parallelTime / 1000000)
+					.append(" speedup[").append(threads).append("]=")
+					.append(String.format("%.2f", (double) sequentialTime / parallelTime));
+			}
+
+			line.append(" identicalAcrossThreads=").append(identical)
+				.append(" cpus=").append(Runtime.getRuntime().availableProcessors());
+			System.err.println(line);
+		}
+
+		System.exit(0);
+	}
+
+	private static Simulation run(int regions, int dataCenters, double hours, String brokerPolicy, 
+								  String engine, int threads) throws Exception {
+		Simulation simulation = BenchmarkScenario.create(regions, 
+														 (dataCenters > 0) ? Math.min(dataCenters, regions) : regions, 
+														 Constants.DEFAULT_VM_COUNT, 
+														 hours);
+		simulation.setServiceBrokerPolicy(brokerPolicy);
+		simulation.setSimulationEngine(engine);
+		simulation.setParallelThreads(threads);
+		simulation.runSimulation();
+
+		return simulation;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, SimMeasure> ubStats(Simulation simulation){
+		return (Map<String, SimMeasure>) simulation.getResults().get(Constants.UB_STATS);
+	}
+
+	private static double maxRelativeDifference(Map<String, SimMeasure> a, Map<String, SimMeasure> b){
+		double max = 0;
+		for (String key : a.keySet()){
+			SimMeasure ma = a.get(key);
+			SimMeasure mb = b.get(key);
+			if ((mb != null) && (ma.getAvg() > 0)){
+				max = Math.max(max, Math.abs(ma.getAvg() - mb.getAvg()) / ma.getAvg());
+			}
+		}
+
+		return max;
+	}
+
+	private static boolean sameResults(Map<String, SimMeasure> a, Map<String, SimMeasure> b){
+		if (!a.keySet().equals(b.keySet())){
+			return false;
+		}
+
+		for (String key : a.keySet()){
+			SimMeasure ma = a.get(key);
+			SimMeasure mb = b.get(key);
+			if ((ma.getAvg() != mb.getAvg()) || (ma.getMin() != mb.getMin())
+					|| (ma.getMax() != mb.getMax()) || (ma.getCount() != mb.getCount())){
+				return false;
+			}
+		}
+
+		return true;
+	}
+}
@@ -0,0 +1,106 @@
+package cloudsim.ext.benchmark;
+
+import java.util.Map;
+
+import cloudsim.ext.Constants;
+import cloudsim.ext.Simulation;
+import cloudsim.ext.gui.utils.SimMeasure;
+
+/**
+ * Compares fixed request grouping at the data center with adaptive grouping, on a day that
+ * takes all user bases through their peak hours: all user bases send their requests to a
+ * single data center with the Location Aware (throttled) load balancer. It runs fixed
+ * grouping of one request per cloudlet, which is the reference, of the default 10 and of
+ * max requests per cloudlet, then adaptive grouping between 1 and max and between 10 and
+ * max. For each it reports the events, the run time and events per second, the average
+ * requests per cloudlet, and the average and worst 95th and 99th percentile response time
+ * and the average time in queue with their error against the reference.
+ *
+ * Usage: RequestGroupingBenchmark [hours] [userBases] [vms] [instructionLength]
+ * 			[userGroupingFactor] [max]
+ */
+public class RequestGroupingBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		double hours = args.length > 0 ? Double.parseDouble(args[0]) : 12;
+		int userBases = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+		int vms = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+		int instructionLength = args.length > 3 ? Integer.parseInt(args[3]) : 10000;
+		int userGroupingFactor = args.length > 4 ? Integer.parseInt(args[4]) : 100;
+		int max = args.length > 5 ? Integer.parseInt(args[5]) : 50;
+
+		int[] mins = {1, 10, max, 1, 10};
+		int[] maxes = {0, 0, 0, max, max};
+		double[] reference = null;
+
+		for (int i = 0; i < mins.length; i++){
+			Simulation simulation = BenchmarkScenario.create(userBases, 1, vms, hours);
+			simulation.setSimulationEngine(Constants.SIMULATION_ENGINE_EVENT_KERNEL);
+			simulation.setLoadBalancePolicy(Constants.LOAD_BALANCE_THROTTLED);
+			simulation.setInstructionLengthPerRequest(instructionLength);
+			simulation.setUserGroupingFactor(userGroupingFactor);
+			simulation.setDcRequestGroupingFactor(mins[i]);
+			if (maxes[i] > 0){
+				simulation.setAdaptiveDcRequestGrouping(mins[i], maxes[i]);
+			}
+
+			long start = System.nanoTime();
+			simulation.runSimulation();
+			long time = System.nanoTime() - start;
+			long events = simulation.getEventCount();
+
+			double ubP95 = 0;
+			double ubP99 = 0;
+			double ubAvg = 0;
+			long served = 0;
+			for (SimMeasure m : measures(simulation).values()){
+				if (m.getName().equals(Constants.UB_RESPONSE_TIME)){
+					ubP95 = Math.max(ubP95, m.getP95());
+					ubP99 = Math.max(ubP99, m.getP99());
+					ubAvg += m.getAvg() * m.getCount();
+					served += m.getCount();
+				}
+			}
+			ubAvg = (served > 0) ? ubAvg / served : 0;
+			Map<String, Double> dcMetrics = dcMetrics(simulation).values().iterator().next();
+			double timeInQueue = dcMetrics.get(Constants.DC_AVERAGE_TIME_IN_QUEUE);
+
+			double[] results = {ubAvg, ubP95, ubP99, timeInQueue};
+			if (reference == null){
+				reference = results;
+			}
+
+			String grouping = (maxes[i] > 0) ? "Adaptive " + mins[i] + ":" + maxes[i] : "Fixed " + mins[i];
+			System.err.println("grouping=\"" + grouping + "\""
+							   + " events=" + events
+							   + " ms=" + time / 1000000
+							   + " eventsPerSec=" + (long) (events / (time / 1e9))
+							   + " requestsPerCloudlet=" + String.format("%.2f", dcMetrics.get(Constants.DC_AVERAGE_REQUESTS_PER_CLOUDLET))
+							   + " served=" + served
+							   + " responseAvg=" + format(ubAvg, reference[0])
+							   + " worstResponseP95=" + format(ubP95, reference[1])
+							   + " worstResponseP99=" + format(ubP99, reference[2])
+							   + " avgTimeInQueue=" + format(timeInQueue, reference[3]));
+		}
+
+		System.exit(0);
+	}
+
+	/**
+	 * @return the value with its error against the reference value, in percent
+	 */
+	private static String format(double value, double reference){
+		double error = (reference != 0) ? (value - reference) / reference * 100 : 0;
+		return String.format("%.2f(%+.1f%%)", value, error);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, SimMeasure> measures(Simulation simulation){
+		return (Map<String, SimMeasure>) simulation.getResults().get(Constants.UB_STATS);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Map<String, Double>> dcMetrics(Simulation simulation){
+		return (Map<String, Map<String, Double>>) simulation.getResults().get(Constants.DC_METRICS);
+	}
+}
@@ -0,0 +1,114 @@
+package cloudsim.ext.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import cloudsim.ext.datacenter.RequestStatusTable;
+
+/**
+ * Microbenchmark of the bookkeeping a {@link cloudsim.ext.datacenter.DatacenterController}
+ * does for the requests it is processing: a request arrives, its responses come back one
+ * group at a time, and it is dropped after the last one. It is done with a
+ * {@link HashMap} of boxed ids to new Long[] arrays, removed and put back for every
+ * response, as the controller used to do, and with a {@link RequestStatusTable}.
+ *
+ * A fixed number of requests are in flight; each response goes to a random one of them and
+ * a finished request is replaced by a new one. Both ways must complete the same number of
+ * requests.
+ *
+ * Usage: RequestStatusBenchmark [inFlight...]
+ */
+public class RequestStatusBenchmark {
+
+	private static final int RESPONSES = 10000000;
+	private static final int GROUPS_PER_REQUEST = 4;
+
+	public static void main(String[] args) {
+		int[] sizes;
+		if (args.length > 0){
+			sizes = new int[args.length];
+			for (int i = 0; i < args.length; i++){
+				sizes[i] = Integer.parseInt(args[i]);
+			}
+		} else {
+			sizes = new int[]{100, 10000, 100000};
+		}
+
+		//Warm up
+		run(1000, false);
+		run(1000, true);
+
+		System.out.println("inFlight,mapNsPerResponse,tableNsPerResponse,sameCompleted");
+		for (int size : sizes){
+			long[] mapCompleted = new long[1];
+			long[] tableCompleted = new long[1];
+			double map = run(size, false, mapCompleted);
+			double table = run(size, true, tableCompleted);
+			System.out.printf("%d,%.1f,%.1f,%b%n", size, map, table, mapCompleted[0] == tableCompleted[0]);
+		}
+	}
+
+	private static double run(int inFlight, boolean useTable){
+		return run(inFlight, useTable, new long[1]);
+	}
+
+	/**
+	 * @param completed the array to put the number of requests completed in
+	 * @return the mean time of recording a response in nanoseconds
+	 */
+	private static double run(int inFlight, boolean useTable, long[] completed){
+		Map<Integer, Long[]> map = new HashMap<Integer, Long[]>();
+		RequestStatusTable table = new RequestStatusTable();
+		int[] ids = new int[inFlight];
+		int nextId = 0;
+		for (int i = 0; i < inFlight; i++){
+			ids[i] = nextId++;
+			if (useTable){
+				table.put(ids[i], GROUPS_PER_REQUEST, 0);
+			} else {
+				map.put(ids[i], new Long[]{(long) GROUPS_PER_REQUEST, 0L, 0L});
+			}
+		}
+		Random random = new Random(42);
+		long done = 0;
+
+		long start = System.nanoTime();
+		for (int r = 0; r < RESPONSES; r++){
+			int i = random.nextInt(inFlight);
+			int id = ids[i];
+			boolean finished;
+			if (useTable){
+				int slot = table.indexOf(id);
+				long completedRequests = table.getCompletedRequests(slot) + 1;
+				finished = completedRequests >= table.getTotalRequests(slot);
+				if (finished){
+					table.removeAt(slot);
+				} else {
+					table.setCompletedRequests(slot, completedRequests);
+				}
+			} else {
+				Long[] status = map.remove(id);
+				long completedRequests = status[1] + 1;
+				finished = completedRequests >= status[0];
+				if (!finished){
+					map.put(id, new Long[]{status[0], completedRequests, status[2]});
+				}
+			}
+
+			if (finished){
+				done++;
+				ids[i] = nextId++;
+				if (useTable){
+					table.put(ids[i], GROUPS_PER_REQUEST, r);
+				} else {
+					map.put(ids[i], new Long[]{(long) GROUPS_PER_REQUEST, 0L, (long) r});
+				}
+			}
+		}
+		long time = System.nanoTime() - start;
+		completed[0] = done;
+
+		return (double) time / RESPONSES;
+	}
+}
@@ -0,0 +1,128 @@
+package cloudsim.ext.benchmark;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import cloudsim.ext.datacenter.VirtualMachineState;
+import cloudsim.ext.datacenter.VmStateTable;
+
+/**
+ * Microbenchmark of the throttled load balancer's search for an available VM, with the VM
+ * states in a synchronized HashMap walked from the first VM, as the load balancer used to
+ * do, and in a {@link VmStateTable} searched from after the last VM allocated.
+ *
+ * A given fraction of the VMs is kept busy: each operation finds an available VM and marks it
+ * busy, then frees a busy VM picked at random.
+ *
+ * Usage: VmStateBenchmark [busyFraction] [vms...]
+ */
+public class VmStateBenchmark {
+
+	private static final int OPERATIONS = 200000;
+
+	public static void main(String[] args) {
+		double busyFraction = args.length > 0 ? Double.parseDouble(args[0]) : 0.9;
+		int[] sizes;
+		if (args.length > 1){
+			sizes = new int[args.length - 1];
+			for (int i = 1; i < args.length; i++){
+				sizes[i - 1] = Integer.parseInt(args[i]);
+			}
+		} else {
+			sizes = new int[]{10, 100, 1000, 10000};
+		}
+
+		//Warm up
+		for (int size : new int[]{10, 1000}){
+			run(new HashMapStates(), size, busyFraction);
+			run(new BitSetStates(), size, busyFraction);
+		}
+
+		System.out.println("vms,busyFraction,hashMapNsPerOp,bitSetNsPerOp");
+		for (int size : sizes){
+			double map = run(new HashMapStates(), size, busyFraction);
+			double bitSet = run(new BitSetStates(), size, busyFraction);
+			System.out.printf("%d,%.2f,%.1f,%.1f%n", size, busyFraction, map, bitSet);
+		}
+	}
+
+	/**
+	 * @return the mean time of an operation in nanoseconds
+	 */
+	private static double run(States states, int size, double busyFraction){
+		Random random = new Random(42);
+		int[] busy = new int[size];
+		int busyCount = 0;
+		for (int i = 0; i < size; i++){
+			states.add(i);
+		}
+		int target = Math.min(size - 1, (int) (size * busyFraction));
+		while (busyCount < target){
+			int vmId = states.next();
+			states.setBusy(vmId, true);
+			busy[busyCount++] = vmId;
+		}
+
+		long start = System.nanoTime();
+		for (int op = 0; op < OPERATIONS; op++){
+			int vmId = states.next();
+			states.setBusy(vmId, true);
+
+			int freed = random.nextInt(busyCount);
+			states.setBusy(busy[freed], false);
+			busy[freed] = vmId;
+		}
+		long time = System.nanoTime() - start;
+
+		return (double) time / OPERATIONS;
+	}
+
+	private interface States {
+		void add(int vmId);
+		void setBusy(int vmId, boolean busy);
+		/** @return an available VM */
+		int next();
+	}
+
+	private static class HashMapStates implements States {
+		private final Map<Integer, VirtualMachineState> states =
+			Collections.synchronizedMap(new HashMap<Integer, VirtualMachineState>());
+
+		public void add(int vmId) {
+			states.put(vmId, VirtualMachineState.AVAILABLE);
+		}
+
+		public void setBusy(int vmId, boolean busy) {
+			states.put(vmId, busy ? VirtualMachineState.BUSY : VirtualMachineState.AVAILABLE);
+		}
+
+		public int next() {
+			for (int vmId : states.keySet()){
+				if (states.get(vmId).equals(VirtualMachineState.AVAILABLE)){
+					return vmId;
+				}
+			}
+			return -1;
+		}
+	}
+
+	private static class BitSetStates implements States {
+		private final VmStateTable states = new VmStateTable();
+		private int last = -1;
+
+		public void add(int vmId) {
+			states.setAvailable(vmId, true);
+		}
+
+		public void setBusy(int vmId, boolean busy) {
+			states.setAvailable(vmId, !busy);
+		}
+
+		public int next() {
+			last = states.nextAvailable(last + 1);
+			return last;
+		}
+	}
+}
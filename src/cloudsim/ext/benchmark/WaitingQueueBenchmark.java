@@ -0,0 +1,89 @@
+package cloudsim.ext.benchmark;
+
+import java.util.Map;
+
+import cloudsim.ext.Constants;
+import cloudsim.ext.Simulation;
+import cloudsim.ext.gui.utils.SimMeasure;
+
+/**
+ * Compares the policies of the data center waiting queue on an overloaded scenario: all user
+ * bases send their requests to a single data center with a few VMs and the Location Aware
+ * (throttled) load balancer, which queues a cloudlet whenever every VM is busy. It runs the
+ * unbounded queue, and the reject new, drop oldest and CoDel policies, and for each reports
+ * the average and worst 99th percentile response time of the requests served, the requests
+ * served and shed, and the data center's peak queue length and average and longest time in
+ * queue.
+ *
+ * Usage: WaitingQueueBenchmark [hours] [userBases] [vms] [instructionLength] [capacity]
+ * 			[targetDelay]
+ */
+public class WaitingQueueBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		double hours = args.length > 0 ? Double.parseDouble(args[0]) : 1;
+		int userBases = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+		int vms = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+		int instructionLength = args.length > 3 ? Integer.parseInt(args[3]) : 20000;
+		int capacity = args.length > 4 ? Integer.parseInt(args[4]) : 50;
+		double targetDelay = args.length > 5 ? Double.parseDouble(args[5]) : 100;
+
+		String[] policies = {Constants.WAITING_QUEUE_REJECT_NEW, Constants.WAITING_QUEUE_REJECT_NEW,
+							 Constants.WAITING_QUEUE_DROP_OLDEST, Constants.WAITING_QUEUE_CODEL};
+		int[] capacities = {0, capacity, capacity, 0};
+
+		for (int i = 0; i < policies.length; i++){
+			Simulation simulation = BenchmarkScenario.create(userBases, 1, vms, hours);
+			simulation.setSimulationEngine(Constants.SIMULATION_ENGINE_EVENT_KERNEL);
+			simulation.setLoadBalancePolicy(Constants.LOAD_BALANCE_THROTTLED);
+			simulation.setInstructionLengthPerRequest(instructionLength);
+			simulation.setWaitingQueuePolicy(policies[i]);
+			simulation.setWaitingQueueCapacity(capacities[i]);
+			simulation.setWaitingQueueTargetDelay(targetDelay);
+
+			long start = System.nanoTime();
+			simulation.runSimulation();
+			long time = System.nanoTime() - start;
+
+			double ubP99 = 0;
+			double ubAvg = 0;
+			long served = 0;
+			long shed = 0;
+			for (SimMeasure m : measures(simulation).values()){
+				if (m.getName().equals(Constants.UB_RESPONSE_TIME)){
+					ubP99 = Math.max(ubP99, m.getP99());
+					ubAvg += m.getAvg() * m.getCount();
+					served += m.getCount();
+				} else if (m.getName().equals(Constants.UB_SHED_REQUESTS)){
+					shed += m.getCount();
+				}
+			}
+			Map<String, Double> dcMetrics = dcMetrics(simulation).values().iterator().next();
+
+			String policy = (capacities[i] > 0) ? policies[i] + " capacity=" + capacities[i]
+												: (policies[i].equals(Constants.WAITING_QUEUE_CODEL)
+														? policies[i] + " target=" + targetDelay : "Unbounded");
+			System.err.println("policy=\"" + policy + "\""
+							   + " responseAvg=" + String.format("%.2f", (served > 0) ? ubAvg / served : 0)
+							   + " worstResponseP99=" + String.format("%.2f", ubP99)
+							   + " served=" + served
+							   + " shed=" + shed
+							   + " peakQueue=" + dcMetrics.get(Constants.DC_PEAK_QUEUE_LENGTH).intValue()
+							   + " avgTimeInQueue=" + String.format("%.2f", dcMetrics.get(Constants.DC_AVERAGE_TIME_IN_QUEUE))
+							   + " maxTimeInQueue=" + String.format("%.2f", dcMetrics.get(Constants.DC_MAX_TIME_IN_QUEUE))
+							   + " ms=" + time / 1000000);
+		}
+
+		System.exit(0);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, SimMeasure> measures(Simulation simulation){
+		return (Map<String, SimMeasure>) simulation.getResults().get(Constants.UB_STATS);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Map<String, Double>> dcMetrics(Simulation simulation){
+		return (Map<String, Map<String, Double>>) simulation.getResults().get(Constants.DC_METRICS);
+	}
+}
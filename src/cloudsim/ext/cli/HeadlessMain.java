@@ -0,0 +1,298 @@
+package cloudsim.ext.cli;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import cloudsim.ext.Constants;
+import cloudsim.ext.Simulation;
+import cloudsim.ext.datacenter.AutoScalingPolicy;
+import cloudsim.ext.util.ResultsExporter;
+import cloudsim.ext.util.ScenarioLoader;
+import cloudsim.ext.util.SimLog;
+
+/**
+ * Runs a simulation configuration saved from the GUI (a <tt>.sim</tt> file) without the
+ * GUI, and writes the results as JSON and/or CSV (see {@link ResultsExporter}).
+ *
+ * Usage: HeadlessMain &lt;config.sim&gt; [-json &lt;file|-&gt;] [-csv &lt;file|-&gt;]
+ *                     [-engine simjava|kernel|threads|parallel] [-threads &lt;n&gt;]
+ *                     [-eventList heap|calendar] [-choices &lt;d&gt;]
+ *                     [-queue reject|dropOldest|codel] [-queueCapacity &lt;n&gt;]
+ *                     [-queueTarget &lt;ms&gt;] [-autoscale &lt;min&gt;:&lt;max&gt;]
+ *                     [-autoscaleLatency &lt;out&gt;:&lt;in&gt;] [-vmBootDelay &lt;ms&gt;]
+ *                     [-adaptiveGrouping &lt;min&gt;:&lt;max&gt;] [-q]
+ *
+ * With no output given, JSON is written to the standard output. The simulation's own log
+ * (see {@link SimLog}) goes to the standard output as well, unless -q is given or an output
+ * is "-". The JSON "run" object holds the time taken to start up (from JVM start until the
+ * configuration is loaded), to run the simulation and the peak heap usage, so runs can be
+ * compared without the cost of the GUI. -threads sets the number of threads of the parallel
+ * engine, and -choices the number of VMs the Power of d Choices load balancer samples.
+ * -queue sets the policy of the queues the cloudlets wait in at the data centers,
+ * -queueCapacity their capacity (unbounded by default) and -queueTarget the target delay
+ * of the CoDel policy. -autoscale scales the VMs of each data center between min and max
+ * VMs (see {@link AutoScalingPolicy}), -autoscaleLatency sets the processing times in ms
+ * above which it scales out and below which it may scale in, and -vmBootDelay the time a
+ * new VM takes to boot. -adaptiveGrouping makes the data centers spread the requests over
+ * their idle VMs, between min and max requests per cloudlet, instead of grouping them by
+ * the DC request grouping factor of the configuration.
+ *
+ * Exit codes: 0 on success, 1 for invalid arguments or configuration, 2 if the simulation
+ * failed.
+ */
+public class HeadlessMain {
+
+	private static final String STDOUT = "-";
+
+	public static void main(String[] args) {
+		System.setProperty("java.awt.headless", "true");
+
+		String simFile = null;
+		String jsonFile = null;
+		String csvFile = null;
+		String engine = Constants.SIMULATION_ENGINE_SIMJAVA;
+		String eventList = Constants.FUTURE_EVENT_LIST_BINARY_HEAP;
+		int threads = Runtime.getRuntime().availableProcessors();
+		int choices = -1;
+		String queuePolicy = null;
+		int queueCapacity = 0;
+		double queueTarget = -1;
+		AutoScalingPolicy autoScaling = null;
+		String autoScaleLatency = null;
+		double vmBootDelay = -1;
+		String[] adaptiveGrouping = null;
+		boolean quiet = false;
+
+		try {
+			for (int i = 0; i < args.length; i++){
+				if (args[i].equals("-json")){
+					jsonFile = args[++i];
+				} else if (args[i].equals("-csv")){
+					csvFile = args[++i];
+				} else if (args[i].equals("-engine")){
+					engine = parseEngine(args[++i]);
+				} else if (args[i].equals("-threads")){
+					threads = Integer.parseInt(args[++i]);
+				} else if (args[i].equals("-choices")){
+					choices = Integer.parseInt(args[++i]);
+				} else if (args[i].equals("-queue")){
+					queuePolicy = parseQueuePolicy(args[++i]);
+				} else if (args[i].equals("-queueCapacity")){
+					queueCapacity = Integer.parseInt(args[++i]);
+				} else if (args[i].equals("-queueTarget")){
+					queueTarget = Double.parseDouble(args[++i]);
+				} else if (args[i].equals("-autoscale")){
+					String[] range = parsePair(args[++i]);
+					autoScaling = new AutoScalingPolicy();
+					autoScaling.setMinVms(Integer.parseInt(range[0]));
+					autoScaling.setMaxVms(Integer.parseInt(range[1]));
+				} else if (args[i].equals("-autoscaleLatency")){
+					autoScaleLatency = args[++i];
+				} else if (args[i].equals("-vmBootDelay")){
+					vmBootDelay = Double.parseDouble(args[++i]);
+				} else if (args[i].equals("-adaptiveGrouping")){
+					adaptiveGrouping = parsePair(args[++i]);
+				} else if (args[i].equals("-eventList")){
+					eventList = args[++i].equals("calendar") ? Constants.FUTURE_EVENT_LIST_CALENDAR_QUEUE
+															 : Constants.FUTURE_EVENT_LIST_BINARY_HEAP;
+				} else if (args[i].equals("-q")){
+					quiet = true;
+				} else if ((simFile == null) && !args[i].startsWith("-")){
+					simFile = args[i];
+				} else {
+					throw new IllegalArgumentException("Unknown option " + args[i]);
+				}
+			}
+			if (autoScaling != null){
+				if (autoScaleLatency != null){
+					String[] thresholds = parsePair(autoScaleLatency);
+					autoScaling.setScaleOutLatency(Double.parseDouble(thresholds[0]));
+					autoScaling.setScaleInLatency(Double.parseDouble(thresholds[1]));
+				}
+				if (vmBootDelay >= 0){
+					autoScaling.setVmBootDelay(vmBootDelay);
+				}
+			}
+		} catch (ArrayIndexOutOfBoundsException e) {
+			usage("Missing value for " + args[args.length - 1]);
+		} catch (IllegalArgumentException e) {
+			usage(e.getMessage());
+		}
+		if (simFile == null){
+			usage("No configuration file given");
+		}
+		if ((jsonFile == null) && (csvFile == null)){
+			jsonFile = STDOUT;
+		}
+
+		PrintStream stdout = System.out;
+		if (quiet || STDOUT.equals(jsonFile) || STDOUT.equals(csvFile)){
+			SimLog.setLevel(SimLog.Level.OFF);
+			System.setOut(new PrintStream(new OutputStream(){
+				public void write(int b) {
+				}
+				public void write(byte[] b, int off, int len) {
+				}
+			}));
+		}
+
+		Simulation simulation;
+		try {
+			simulation = new Simulation();
+			ScenarioLoader.load(new File(simFile), simulation);
+		} catch (Exception e) {
+			System.err.println("Could not load " + simFile + ": " + e.getMessage());
+			System.exit(1);
+			return;
+		}
+		simulation.setSimulationEngine(engine);
+		simulation.setFutureEventList(eventList);
+		simulation.setParallelThreads(threads);
+		if (choices > 0){
+			simulation.setLoadBalancerChoices(choices);
+		}
+		if (queuePolicy != null){
+			simulation.setWaitingQueuePolicy(queuePolicy);
+		}
+		if (queueCapacity > 0){
+			simulation.setWaitingQueueCapacity(queueCapacity);
+		}
+		if (queueTarget > 0){
+			simulation.setWaitingQueueTargetDelay(queueTarget);
+		}
+		simulation.setAutoScalingPolicy(autoScaling);
+		if (adaptiveGrouping != null){
+			simulation.setAdaptiveDcRequestGrouping(Integer.parseInt(adaptiveGrouping[0]), Integer.parseInt(adaptiveGrouping[1]));
+		}
+		long startupMs = ManagementFactory.getRuntimeMXBean().getUptime();
+
+		long start = System.nanoTime();
+		try {
+			simulation.runSimulation();
+		} catch (Throwable t) {
+			System.err.println("Simulation failed: " + t);
+			t.printStackTrace();
+			System.exit(2);
+			return;
+		}
+		long simulationMs = (System.nanoTime() - start) / 1000000;
+
+		Map<String, Object> run = new LinkedHashMap<String, Object>();
+		run.put("configuration", simFile);
+		run.put("engine", engine);
+		run.put("simulationTime", simulation.getSimulationTime());
+		run.put("events", simulation.getEventCount());
+		run.put("startupMs", startupMs);
+		run.put("simulationMs", simulationMs);
+		run.put("peakHeapBytes", peakHeapUsage());
+		run.put("loadedClasses", ManagementFactory.getClassLoadingMXBean().getTotalLoadedClassCount());
+
+		try {
+			if (jsonFile != null){
+				Writer out = open(jsonFile, stdout);
+				ResultsExporter.writeJson(simulation.getResults(), run, out);
+				close(out, jsonFile);
+			}
+			if (csvFile != null){
+				Writer out = open(csvFile, stdout);
+				ResultsExporter.writeCsv(simulation.getResults(), out);
+				close(out, csvFile);
+			}
+		} catch (IOException e) {
+			System.err.println("Could not write results: " + e.getMessage());
+			System.exit(1);
+		}
+
+		System.err.println("startupMs=" + startupMs
+						   + " simulationMs=" + simulationMs
+						   + " peakHeapMB=" + (peakHeapUsage() / (1024 * 1024)));
+
+		System.exit(0);
+	}
+
+	private static String parseEngine(String name){
+		if (name.equals("simjava")){
+			return Constants.SIMULATION_ENGINE_SIMJAVA;
+		} else if (name.equals("kernel")){
+			return Constants.SIMULATION_ENGINE_EVENT_KERNEL;
+		} else if (name.equals("threads")){
+			return Constants.SIMULATION_ENGINE_VIRTUAL_THREADS;
+		} else if (name.equals("parallel")){
+			return Constants.SIMULATION_ENGINE_PARALLEL;
+		}
+
+		throw new IllegalArgumentException("Unknown engine " + name);
+	}
+
+	private static String parseQueuePolicy(String name){
+		if (name.equals("reject")){
+			return Constants.WAITING_QUEUE_REJECT_NEW;
+		} else if (name.equals("dropOldest")){
+			return Constants.WAITING_QUEUE_DROP_OLDEST;
+		} else if (name.equals("codel")){
+			return Constants.WAITING_QUEUE_CODEL;
+		}
+
+		throw new IllegalArgumentException("Unknown queue policy " + name);
+	}
+
+	private static String[] parsePair(String value){
+		String[] pair = value.split(":");
+		if (pair.length != 2){
+			throw new IllegalArgumentException("Expected <a>:<b> but got " + value);
+		}
+
+		return pair;
+	}
+
+	/**
+	 * @return the sum of the peak usage of the heap memory pools
+	 */
+	private static long peakHeapUsage(){
+		long peak = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()){
+			if (pool.getType() == MemoryType.HEAP){
+				peak += pool.getPeakUsage().getUsed();
+			}
+		}
+
+		return peak;
+	}
+
+	private static Writer open(String file, PrintStream stdout) throws IOException {
+		if (STDOUT.equals(file)){
+			return new OutputStreamWriter(stdout, "UTF-8");
+		}
+
+		return new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+	}
+
+	private static void close(Writer out, String file) throws IOException {
+		if (STDOUT.equals(file)){
+			out.flush();
+		} else {
+			out.close();
+		}
+	}
+
+	private static void usage(String error){
+		System.err.println(error);
+		System.err.println("Usage: HeadlessMain <config.sim> [-json <file|->] [-csv <file|->]"
+						   + " [-engine simjava|kernel|threads|parallel] [-threads <n>]"
+						   + " [-eventList heap|calendar] [-choices <d>]"
+						   + " [-queue reject|dropOldest|codel] [-queueCapacity <n>] [-queueTarget <ms>]"
+						   + " [-autoscale <min>:<max>] [-autoscaleLatency <out>:<in>] [-vmBootDelay <ms>]"
+						   + " [-adaptiveGrouping <min>:<max>] [-q]");
+		System.exit(1);
+	}
+}
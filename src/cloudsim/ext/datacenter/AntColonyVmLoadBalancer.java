@@ -1,65 +1,254 @@
 package cloudsim.ext.datacenter;
 
+import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 import cloudsim.VirtualMachine;
+import cloudsim.VirtualMachineList;
 
+/**
+ * Load balancer that picks a VM with an ant colony. For every allocation a number of ants
+ * tour the VMs from a nest node, choosing each next VM with a probability that grows with
+ * the pheromone on the edge to it, and lay pheromone on the edges they take. The pheromone
+ * then evaporates, and a last ant that lays none picks the VM.
+ *
+ * The ants of an allocation tour on the pheromones left by the earlier allocations, and
+ * keep the pheromone they lay to themselves until all of them are back. Their deposits are
+ * then added to the pheromones in ant order. The tours are independent, so they can be run
+ * in parallel on a {@link ForkJoinPool} shared with the other balancers (see
+ * {@link #setParallelism(int)}). Each ant has a random number generator of its own, seeded
+ * from the balancer's for every allocation, so a balancer makes the same choices for the
+ * same seed whatever the parallelism.
+ *
+ * The pheromones are held in one flat array, with a row per node. Evaporation is applied to
+ * a row when pheromone is next added to it, and to the values read from it until then,
+ * rather than to the whole matrix after every allocation. Ants reuse their buffers, so
+ * allocations create no garbage.
+ */
 public class AntColonyVmLoadBalancer extends VmLoadBalancer {
-	
-	private double[][] pheromones;
+
 	static final double alpha = 1;
 	static final double beta = 1;
 	static final double ONE_UNIT_PHEROMONE = 1;
 	static final double EVAPORATION_FACTOR = 2;
-	private final int NUM_ANTS = 10;
+	static final int NUM_ANTS = 10;
+
+	/** The pheromone on the edge from node i to node j is at [i * nodes + j]. The last node is the nest. */
+	private double[] pheromones;
+	/** The number of evaporations each row of the pheromones has been brought up to. */
+	private int[] rowEvaporations;
+	private int evaporations = 0;
+	private int nodes = 0;
+	/** The bandwidth term of the score of each VM. */
+	private double[] bwScores;
 
 	Ant[] ants;
-	DatacenterController dcbLocal;
-	int counter = 0;
+	Ant queryAnt;
+	private final VirtualMachineList vmlist;
+	/** The VMs in service, the first ones of the list, or null to use the whole list. */
+	private VmStateTable vmStates;
+	private final Random random;
+	private int antCount = NUM_ANTS;
+	private int parallelism = 1;
+	private ForkJoinPool pool;
 
 	public AntColonyVmLoadBalancer(DatacenterController dcb) {
+		this(dcb.vmlist, dcb.get_id());
+		this.vmStates = dcb.getVmStates();
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param vmlist the VMs to balance over. VMs may be added until the first allocation.
+	 * @param seed the seed of the random choices of the ants
+	 */
+	public AntColonyVmLoadBalancer(VirtualMachineList vmlist, long seed) {
 		super();
-		dcbLocal = dcb;
+		this.vmlist = vmlist;
+		this.random = new Random(seed);
 	}
 
 	@Override
 	public int getNextAvailableVm() {
-		if(counter == 0)
-			{
-				pheromones = new double[dcbLocal.vmlist.size() + 1][dcbLocal.vmlist.size() + 1];
-				counter++;
-				ants = new Ant[NUM_ANTS];
-				for (int i = 0; i < ants.length; i++) {
-					ants[i] = new Ant(pheromones);
-				}
+		//The list also holds the VMs being started or taken out of service, after the others
+		int vmCount = (vmStates != null) ? Math.min(vmStates.size(), vmlist.size()) : vmlist.size();
+		if (vmCount == 0){
+			return -1;
+		}
+		if (nodes != vmCount + 1){
+			init(vmCount);
+		}
+
+		for (int i = 0; i < vmCount; i++){
+			VirtualMachine vm = (VirtualMachine) vmlist.get(i);
+			double maxBw = vm.getCharacteristics().getBw();
+			double currentBw = vm.getBw();
+			bwScores[i] = maxBw - currentBw / maxBw;
+		}
+
+		for (int ant = 0; ant < ants.length; ant++) {
+			ants[ant].setSeed(random.nextLong());
+		}
+		if (parallelism > 1){
+			if (pool == null){
+				pool = ForkJoinPools.get(parallelism);
 			}
-		
+			pool.invoke(new AntTours(0, ants.length));
+		} else {
+			for (int ant = 0; ant < ants.length; ant++) {
+				ants[ant].SendAnt();
+			}
+		}
+
+		//Merge the deposits of the ants, in a fixed order
 		for (int ant = 0; ant < ants.length; ant++) {
-			ants[ant].SendAnt(); 
+			ants[ant].depositPheromones();
 		}
-		
+
 		Evaporation();
 
-		Ant queryAnt = new Ant(pheromones);
+		queryAnt.setSeed(random.nextLong());
 		int vmId = queryAnt.FetchFinalVm();
 		allocatedVm(vmId);
-		System.out.println("allocated "+vmId);
 		return vmId;
 	}
 
+	private void init(int vmCount){
+		nodes = vmCount + 1;
+		pheromones = new double[nodes * nodes];
+		rowEvaporations = new int[nodes];
+		evaporations = 0;
+		bwScores = new double[vmCount];
+
+		ants = new Ant[antCount];
+		for (int i = 0; i < ants.length; i++) {
+			ants[i] = new Ant();
+		}
+		queryAnt = new Ant();
+	}
+
+	/**
+	 * @param antCount the number of ants sent out for each allocation. More ants give the
+	 * 		pheromones more weight in the choice of a VM, at the cost of a longer allocation.
+	 * 		Changing it starts the pheromones afresh.
+	 */
+	public void setAntCount(int antCount) {
+		if (antCount < 1){
+			throw new IllegalArgumentException("At least one ant is needed, got " + antCount);
+		}
+
+		this.antCount = antCount;
+		nodes = 0;
+	}
 
+	/**
+	 * @return the number of ants sent out for each allocation
+	 */
+	public int getAntCount() {
+		return antCount;
+	}
+
+	/**
+	 * @param parallelism the number of threads the ants of an allocation tour on. With 1,
+	 * 		the default, they tour one after the other on the calling thread.
+	 */
+	public void setParallelism(int parallelism) {
+		if (parallelism < 1){
+			throw new IllegalArgumentException("Parallelism must be at least 1, got " + parallelism);
+		}
+
+		//The pool is shared with the other balancers, so it is left running
+		pool = null;
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * @return the number of threads the ants of an allocation tour on
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Evaporates the pheromones. Rows are brought up to date when pheromone is next added to
+	 * them, see {@link #evaporateRow(int)}, and {@link #rowFactor(int)} applies the missing
+	 * evaporations to the values read from them until then.
+	 */
 	public void Evaporation() {
-		for (int i = 0; i < pheromones.length; i++) {
-			for (int j = 0; j < pheromones.length; j++) {
-				pheromones[i][j] /= EVAPORATION_FACTOR;
+		evaporations++;
+	}
+
+	/**
+	 * @return the factor the values of a row have to be multiplied by to apply the
+	 * 		evaporations the row has missed
+	 */
+	private double rowFactor(int row){
+		int missed = evaporations - rowEvaporations[row];
+		return (missed == 0) ? 1 : Math.pow(EVAPORATION_FACTOR, -missed);
+	}
+
+	/**
+	 * Applies the evaporations a row of the pheromones has missed since it was last updated.
+	 *
+	 * @return the offset of the row in the pheromones
+	 */
+	private int evaporateRow(int row){
+		int offset = row * nodes;
+		if (rowEvaporations[row] != evaporations){
+			double factor = rowFactor(row);
+			for (int i = offset; i < offset + nodes; i++) {
+				pheromones[i] *= factor;
+			}
+			rowEvaporations[row] = evaporations;
+		}
+
+		return offset;
+	}
+
+	/** Sends out a range of the ants, splitting it up for the pool. */
+	private class AntTours extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final int to;
+
+		AntTours(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from == 1){
+				ants[from].SendAnt();
+			} else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new AntTours(from, middle), new AntTours(middle, to));
 			}
 		}
 	}
 
 	public class Ant {
-		private int fakeVmId;
+		private final int fakeVmId;
+		/** The scores of the VMs from the current node. */
+		private final double[] scores;
+		private final Random rand;
+		/** The edges this ant laid pheromone on in its last tour, as offsets in the pheromones. */
+		private int[] deposits;
+		private int depositCount;
 
-		public Ant(double[][] ph) {
-			fakeVmId = ph.length - 1;
+		public Ant() {
+			fakeVmId = nodes - 1;
+			scores = new double[nodes - 1];
+			rand = new Random();
+			deposits = new int[16];
+		}
+
+		void setSeed(long seed) {
+			rand.setSeed(seed);
 		}
 
 		public int SendAnt() {
@@ -71,6 +260,7 @@ public class AntColonyVmLoadBalancer extends VmLoadBalancer {
 		}
 
 		public int ProcessAnt(boolean updatePheromones) {
+			depositCount = 0;
 			int CurrentVmId = fakeVmId;
 			int nextVmId = getNextVmNode(CurrentVmId);
 
@@ -91,50 +281,56 @@ public class AntColonyVmLoadBalancer extends VmLoadBalancer {
 		// Assuming vmIds start from 0 and are consecutive.
 		// Assumed there is one node that is not visited
 		public int getNextVmNode(int vmId) {
-			double[] probability = computeProbability(vmId);
-			Random rand = new Random();
-			double randomization = rand.doubles(1, 0.0, 0.5).sum();
-			for (int i = 0; i < probability.length; i++) {
-				randomization = randomization - probability[i];
+			double sum = computeScores(vmId);
+			double randomization = rand.nextDouble() * 0.5;
+			for (int i = 0; i < scores.length; i++) {
+				randomization = randomization - scores[i] / sum;
 				if (randomization <= 0) {
 					return i;
 				}
 			}
-			for (int i = 0; i < probability.length; i++) {
-				System.out.println("Debug " + probability[i]);
-			}
+
 			return -1;
 		}
 
-		
-		// Assumes there is at least one node that has not been visited
-		public double[] computeProbability(int vmId) {
-			double[] probability = new double[pheromones.length - 1];
+		/**
+		 * Fills in the scores of the VMs as the next node from the given one.
+		 *
+		 * @return the sum of the scores
+		 */
+		private double computeScores(int vmId) {
+			int offset = vmId * nodes;
+			double factor = rowFactor(vmId);
 			double sum = 0.0;
-			for (int i = 0; i < probability.length; i++) {
-				probability[i] = scoreFunction(vmId, i);
-				sum += probability[i];
+			for (int i = 0; i < scores.length; i++) {
+				double pheromone = pheromones[offset + i] * factor;
+				scores[i] = ((alpha == 1) ? pheromone : Math.pow(pheromone, alpha)) + 1.0 + bwScores[i];
+				sum += scores[i];
 			}
 
-			// Normalize
-			for (int i = 0; i < probability.length; i++) {
-				probability[i] = probability[i] / sum;
-			}
-			return probability;
+			return sum;
 		}
 
-
+		/**
+		 * Records pheromone laid on an edge, to be added by {@link #depositPheromones()}.
+		 */
 		public void UpdatePheromone(int prevId, int newId) {
-			pheromones[prevId][newId] += ONE_UNIT_PHEROMONE;
+			if (depositCount == deposits.length){
+				deposits = Arrays.copyOf(deposits, deposits.length * 2);
+			}
+			deposits[depositCount++] = prevId * nodes + newId;
 		}
 
-		
-		public double scoreFunction(int prevVmId, int newVmId) {
-			double maxBw = ((VirtualMachine) dcbLocal.vmlist.get(newVmId)).getCharacteristics().getBw();
-			double currentBw = ((VirtualMachine) dcbLocal.vmlist.get(newVmId)).getBw();
-			// double requestedBw = cloudlet.getUtilizationOfBw(0);
-			return Math.pow(pheromones[prevVmId][newVmId], alpha) + 1.0 + (maxBw - currentBw / maxBw);
-
+		/**
+		 * Adds the pheromone laid in the last tour to the pheromones.
+		 */
+		void depositPheromones() {
+			for (int i = 0; i < depositCount; i++) {
+				int edge = deposits[i];
+				evaporateRow(edge / nodes);
+				pheromones[edge] += ONE_UNIT_PHEROMONE;
+			}
+			depositCount = 0;
 		}
 	}
 }
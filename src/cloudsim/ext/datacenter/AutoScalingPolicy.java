@@ -0,0 +1,223 @@
+package cloudsim.ext.datacenter;
+
+/**
+ * The settings of a {@link VmAutoScaler}: the size the fleet of VMs of a data center may
+ * range over, the thresholds it is scaled out and in at, the cooldowns between scaling
+ * actions, and the time a VM takes to boot and to be torn down.
+ *
+ * A data center is scaled out when any of its EWMA processing time, VM utilisation or
+ * waiting queue length per VM is above the scale out threshold, and scaled in only when the
+ * processing time and utilisation are below the lower scale in thresholds and no cloudlet
+ * is waiting. The gap between the thresholds, and the longer cooldown after scaling in,
+ * keep the fleet from flapping. Times are in ms.
+ */
+public class AutoScalingPolicy {
+
+	private int minVms = 1;
+	private int maxVms = 10;
+	private double evaluationInterval = 60000;
+	private double latencyWeight = 0.1;
+	private double scaleOutLatency = 100;
+	private double scaleInLatency = 20;
+	private double scaleOutUtilization = 0.8;
+	private double scaleInUtilization = 0.3;
+	private double scaleOutQueueLength = 1;
+	private double scaleOutCooldown = 120000;
+	private double scaleInCooldown = 600000;
+	private double vmBootDelay = 60000;
+	private double vmTeardownDelay = 10000;
+
+	/**
+	 * @return the fewest VMs the data center is scaled in to
+	 */
+	public int getMinVms() {
+		return minVms;
+	}
+
+	/**
+	 * @param minVms the fewest VMs the data center is scaled in to, at least 1
+	 */
+	public void setMinVms(int minVms) {
+		this.minVms = Math.max(1, minVms);
+	}
+
+	/**
+	 * @return the most VMs the data center is scaled out to
+	 */
+	public int getMaxVms() {
+		return maxVms;
+	}
+
+	/**
+	 * @param maxVms the most VMs the data center is scaled out to
+	 */
+	public void setMaxVms(int maxVms) {
+		this.maxVms = maxVms;
+	}
+
+	/**
+	 * @return the time between two evaluations of the metrics
+	 */
+	public double getEvaluationInterval() {
+		return evaluationInterval;
+	}
+
+	/**
+	 * @param evaluationInterval the time between two evaluations of the metrics
+	 */
+	public void setEvaluationInterval(double evaluationInterval) {
+		this.evaluationInterval = evaluationInterval;
+	}
+
+	/**
+	 * @return the weight of each new processing time in the EWMA processing time
+	 */
+	public double getLatencyWeight() {
+		return latencyWeight;
+	}
+
+	/**
+	 * @param latencyWeight the weight of each new processing time in the EWMA processing
+	 * 			time, between 0 and 1
+	 */
+	public void setLatencyWeight(double latencyWeight) {
+		this.latencyWeight = latencyWeight;
+	}
+
+	/**
+	 * @return the EWMA processing time above which the data center is scaled out
+	 */
+	public double getScaleOutLatency() {
+		return scaleOutLatency;
+	}
+
+	/**
+	 * @param scaleOutLatency the EWMA processing time above which the data center is
+	 * 			scaled out
+	 */
+	public void setScaleOutLatency(double scaleOutLatency) {
+		this.scaleOutLatency = scaleOutLatency;
+	}
+
+	/**
+	 * @return the EWMA processing time the data center must be below to be scaled in
+	 */
+	public double getScaleInLatency() {
+		return scaleInLatency;
+	}
+
+	/**
+	 * @param scaleInLatency the EWMA processing time the data center must be below to be
+	 * 			scaled in
+	 */
+	public void setScaleInLatency(double scaleInLatency) {
+		this.scaleInLatency = scaleInLatency;
+	}
+
+	/**
+	 * @return the share of the time the VMs are busy above which the data center is
+	 * 			scaled out
+	 */
+	public double getScaleOutUtilization() {
+		return scaleOutUtilization;
+	}
+
+	/**
+	 * @param scaleOutUtilization the share of the time the VMs are busy above which the data
+	 * 			center is scaled out
+	 */
+	public void setScaleOutUtilization(double scaleOutUtilization) {
+		this.scaleOutUtilization = scaleOutUtilization;
+	}
+
+	/**
+	 * @return the share of the time the VMs are busy the data center must be below to be
+	 * 			scaled in
+	 */
+	public double getScaleInUtilization() {
+		return scaleInUtilization;
+	}
+
+	/**
+	 * @param scaleInUtilization the share of the time the VMs are busy the data center must
+	 * 			be below to be scaled in
+	 */
+	public void setScaleInUtilization(double scaleInUtilization) {
+		this.scaleInUtilization = scaleInUtilization;
+	}
+
+	/**
+	 * @return the number of waiting cloudlets per VM in service above which the data
+	 * 			center is scaled out
+	 */
+	public double getScaleOutQueueLength() {
+		return scaleOutQueueLength;
+	}
+
+	/**
+	 * @param scaleOutQueueLength the number of waiting cloudlets per VM in service above
+	 * 			which the data center is scaled out
+	 */
+	public void setScaleOutQueueLength(double scaleOutQueueLength) {
+		this.scaleOutQueueLength = scaleOutQueueLength;
+	}
+
+	/**
+	 * @return the time after scaling out before the data center is scaled out again
+	 */
+	public double getScaleOutCooldown() {
+		return scaleOutCooldown;
+	}
+
+	/**
+	 * @param scaleOutCooldown the time after scaling out before the data center is scaled
+	 * 			out again
+	 */
+	public void setScaleOutCooldown(double scaleOutCooldown) {
+		this.scaleOutCooldown = scaleOutCooldown;
+	}
+
+	/**
+	 * @return the time after scaling either way before the data center is scaled in
+	 */
+	public double getScaleInCooldown() {
+		return scaleInCooldown;
+	}
+
+	/**
+	 * @param scaleInCooldown the time after scaling either way before the data center is
+	 * 			scaled in
+	 */
+	public void setScaleInCooldown(double scaleInCooldown) {
+		this.scaleInCooldown = scaleInCooldown;
+	}
+
+	/**
+	 * @return the time from a new VM being created until it takes cloudlets
+	 */
+	public double getVmBootDelay() {
+		return vmBootDelay;
+	}
+
+	/**
+	 * @param vmBootDelay the time from a new VM being created until it takes cloudlets
+	 */
+	public void setVmBootDelay(double vmBootDelay) {
+		this.vmBootDelay = vmBootDelay;
+	}
+
+	/**
+	 * @return the time from a VM finishing its last cloudlet until it is destroyed
+	 */
+	public double getVmTeardownDelay() {
+		return vmTeardownDelay;
+	}
+
+	/**
+	 * @param vmTeardownDelay the time from a VM finishing its last cloudlet until it is
+	 * 			destroyed
+	 */
+	public void setVmTeardownDelay(double vmTeardownDelay) {
+		this.vmTeardownDelay = vmTeardownDelay;
+	}
+}
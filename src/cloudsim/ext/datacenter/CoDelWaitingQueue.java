@@ -0,0 +1,124 @@
+package cloudsim.ext.datacenter;
+
+import cloudsim.ext.InternetCloudlet;
+
+/**
+ * {@link WaitingQueue} that keeps the time the cloudlets wait near a target delay, after the
+ * CoDel (controlled delay) queue management of Nichols and Jacobson, RFC 8289. A queue that
+ * builds up in a burst and drains again is left alone; one whose cloudlets have waited longer
+ * than the target for a whole interval is a standing queue, and from then on the queue sheds
+ * the cloudlet at its head when a cloudlet is taken, each time sooner, with the interval
+ * divided by the square root of the number shed, until the wait drops below the target.
+ *
+ * The interval is {@link #INTERVALS_PER_TARGET} times the target delay, the ratio of the 5 ms
+ * and 100 ms the RFC recommends. The queue can also be given a capacity, in which case it
+ * sheds the cloudlets that arrive when it is full.
+ */
+public class CoDelWaitingQueue extends WaitingQueue {
+
+	/** The default target delay, in ms. */
+	public static final double DEFAULT_TARGET_DELAY = 100;
+	/** The number of target delays in the interval the delay must stay above the target. */
+	public static final int INTERVALS_PER_TARGET = 20;
+
+	private final double targetDelay;
+	private final double interval;
+	/** The time the delay will have been above target for an interval, or 0 if below target. */
+	private double firstAboveTime = 0;
+	private boolean dropping = false;
+	/** The time of the next cloudlet to shed while dropping. */
+	private double dropNext = 0;
+	private int count = 0;
+	private int lastCount = 0;
+
+	/**
+	 * @param capacity the largest number of cloudlets in the queue, 0 or less for no limit
+	 * @param targetDelay the time the cloudlets should wait at most, in ms
+	 */
+	public CoDelWaitingQueue(int capacity, double targetDelay){
+		super(capacity);
+		this.targetDelay = targetDelay;
+		this.interval = targetDelay * INTERVALS_PER_TARGET;
+	}
+
+	@Override
+	protected void offerWhenFull(InternetCloudlet cl, double now) {
+		shed(cl);
+	}
+
+	@Override
+	public InternetCloudlet poll(double now) {
+		if (isEmpty()){
+			firstAboveTime = 0;
+			dropping = false;
+			return null;
+		}
+
+		boolean okToDrop = isAboveTarget(now);
+		if (dropping){
+			if (!okToDrop){
+				dropping = false;
+			}
+			while (dropping && (now >= dropNext)){
+				shedFirst(now);
+				count++;
+				if (isEmpty() || !isAboveTarget(now)){
+					dropping = false;
+				} else {
+					dropNext = controlLaw(dropNext);
+				}
+			}
+		} else if (okToDrop){
+			shedFirst(now);
+			if (!isEmpty()){
+				//Only to update the time the delay went above target
+				isAboveTarget(now);
+			}
+			dropping = true;
+
+			//Start from near the drop rate that last controlled the queue, if that was recent
+			int delta = count - lastCount;
+			if ((delta > 1) && (now - dropNext < 16 * interval)){
+				count = delta;
+			} else {
+				count = 1;
+			}
+			dropNext = controlLaw(now);
+			lastCount = count;
+		}
+
+		return removeFirst(now);
+	}
+
+	/**
+	 * Checks the time the cloudlet at the head of the queue has waited, keeping track of how
+	 * long the wait has been above target.
+	 *
+	 * @return true if the wait has been above target for at least an interval
+	 */
+	private boolean isAboveTarget(double now){
+		double delay = now - getHeadQueuedTime();
+		if ((delay < targetDelay) || (size() <= 1)){
+			firstAboveTime = 0;
+			return false;
+		}
+
+		if (firstAboveTime == 0){
+			firstAboveTime = now + interval;
+			return false;
+		}
+
+		return now >= firstAboveTime;
+	}
+
+	private double controlLaw(double time){
+		return time + interval / Math.sqrt(count);
+	}
+
+	/**
+	 * @return the time the cloudlets should wait at most, in ms
+	 */
+	public double getTargetDelay(){
+		return targetDelay;
+	}
+}
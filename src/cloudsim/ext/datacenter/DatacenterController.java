@@ -2,7 +2,7 @@ package cloudsim.ext.datacenter;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -12,25 +12,35 @@ import cloudsim.DataCenter;
 import cloudsim.DatacenterBroker;
 import cloudsim.DatacenterCharacteristics;
 import cloudsim.DatacenterTags;
+import cloudsim.Host;
+import cloudsim.SpaceSharedVMScheduler;
+import cloudsim.TimeSharedVMScheduler;
+import cloudsim.VMMAllocationPolicy;
+import cloudsim.VMProvisioner;
+import cloudsim.VMScheduler;
 import cloudsim.VMCharacteristics;
 import cloudsim.VirtualMachine;
 import cloudsim.ext.Constants;
 import cloudsim.ext.GeoLocatable;
 import cloudsim.ext.InternetCharacteristics;
 import cloudsim.ext.InternetCloudlet;
+import cloudsim.ext.SimulationContext;
 import cloudsim.ext.event.CloudSimEvent;
 import cloudsim.ext.event.CloudSimEventListener;
 import cloudsim.ext.event.CloudSimEvents;
 import cloudsim.ext.event.CloudsimObservable;
 import cloudsim.ext.stat.HourlyEventCounter;
 import cloudsim.ext.stat.HourlyStat;
+import cloudsim.ext.stat.IntervalStat;
 import cloudsim.ext.util.CommPath;
 import cloudsim.ext.util.InternetEntitityRegistry;
+import cloudsim.engine.EventDrivenEntity;
 import eduni.simjava.Sim_event;
-import eduni.simjava.Sim_stat;
 import eduni.simjava.Sim_system;
 import gridsim.GridSim;
 import gridsim.GridSimTags;
+import cloudsim.ext.util.SimLog;
+import cloudsim.ext.util.SimLog.Category;
 
 /**
  * DataCenterController is responsible for managing a single Data Center ({@link DataCenter}).
@@ -42,30 +52,72 @@ import gridsim.GridSimTags;
  */
 public class DatacenterController extends DatacenterBroker implements GeoLocatable,
 																		  CloudsimObservable,
+																		  EventDrivenEntity,
 																		  Constants {
 	
+	/** The time no VM is created for after a VM could not be created, in ms. */
+	public static final double VM_CREATE_RETRY_INTERVAL = 300000;
 
 	private List<CloudSimEventListener> listeners;
+	/** The listeners of the VM loads, in the order they were added. */
+	private VmLoadListener[] vmLoadListeners = new VmLoadListener[4];
+	private int vmLoadListenerCount = 0;
 	private VmLoadBalancer loadBalancer;
+	private VmLoadIndex vmLoadIndex;
+	private final VmLoadTable vmLoadTable;
+	private VMProvisioner vmProvisioner;
+	private List<VMMAllocationPolicy> hostPolicies;
 	private int region;
-	private Sim_stat stat;
-	private int queuedCount = 0;
+	private IntervalStat stat;
 	private double costPerVmHour;
 	private double costPerDataGB;
 	private double totalData;
 	private HourlyEventCounter hourlyArrival;
 	private HourlyStat hourlyProcessingTimes;
 	private Map<Integer, Double[]> vmUsage;
-	private Map<Integer, VirtualMachineState> vmStatesList;
-	private Map<Integer, Long[]> processingCloudletStatuses;
+	private VmStateTable vmStatesList;
+	private final RequestStatusTable processingCloudletStatuses;
 	private int requestsPerCloudlet;
-	private List<InternetCloudlet> waitingQueue;
+	/** The bounds of the adaptive request grouping, 0 if the grouping is fixed. */
+	private int minRequestsPerCloudlet = 0;
+	private int maxRequestsPerCloudlet = 0;
+	private long requestCloudlets = 0;
+	private long groupedRequests = 0;
+	private WaitingQueue waitingQueue;
+	/** Reports the cloudlets the waiting queue sheds back to their user bases. */
+	private final WaitingQueue.ShedListener shedListener = new WaitingQueue.ShedListener(){
+		public void cloudletShed(InternetCloudlet cl) {
+			handleShedCloudlet(cl);
+		}
+	};
+	/** The VMs allocated to a group of cloudlets, see {@link #submitNewCloudlets(InternetCloudlet[])} and {@link #submitWaitingCloudlets()} */
+	private int[] groupVmIds = new int[16];
 	private String dcName;
-	private boolean lastVmCreateFailed = false;
+	/** VMs 0 to servingVms - 1 are in service or being started, the ones after are being taken out of service. */
+	private int servingVms = 0;
+	/** The VMs created with {@link #createNewVm()} that are not in service yet. */
+	private final BitSet startingVms = new BitSet();
+	/** The VM being created, -1 if none. */
+	private int creatingVm = -1;
+	/** The VMs taken out of service that are finishing their cloudlets. */
+	private final BitSet drainingVms = new BitSet();
+	/** The VMs being destroyed. */
+	private final BitSet stoppingVms = new BitSet();
+	private int peakVmsInService = 0;
+	private double vmBootDelay = 0;
+	private double vmTeardownDelay = 0;
+	/** The time before which no VM is created, after a VM could not be. */
+	private double vmCreateRetryTime = 0;
+	/** The time the VMs destroyed and created again since were in use before, in ms. */
+	private double releasedVmTime = 0;
+	private VmAutoScaler autoScaler;
 	private int allRequestsProcessed = 0;
+	private final InternetCharacteristics internetCharacteristics;
+	private final InternetEntitityRegistry entityRegistry;
 		
 	/** Constructor. */
-	public DatacenterController(String name, 
+	public DatacenterController(SimulationContext context,
+									String name, 
 									int region, 
 									double costPerVmHour, 
 									double costPerDataGB,
@@ -75,7 +127,7 @@ public class DatacenterController extends DatacenterBroker implements GeoLocatab
 		
 		this.dcName = name;
 		
-		System.out.println("Creating new broker " + get_name());
+		SimLog.info(Category.ENTITY, "Creating new broker " + get_name());
 		
 		listeners =new ArrayList<CloudSimEventListener>();
 		
@@ -84,20 +136,22 @@ public class DatacenterController extends DatacenterBroker implements GeoLocatab
 		this.costPerDataGB = costPerDataGB;
 		this.requestsPerCloudlet = requestsPerCloudlet;
 		
-		InternetCharacteristics.getInstance().addEntity(this);
+		this.internetCharacteristics = context.getInternetCharacteristics();
+		this.entityRegistry = context.getEntityRegistry();
+		internetCharacteristics.addEntity(this);
 		
-		stat = new Sim_stat();
-		stat.add_measure(DC_SERVICE_TIME, Sim_stat.INTERVAL_BASED);
+		stat = new IntervalStat();
+		stat.addMeasure(DC_SERVICE_TIME);
 		
-		hourlyProcessingTimes = new HourlyStat(stat, "Overloading status : " + get_name(), Sim_stat.INTERVAL_BASED);
-		set_stat(stat);	
+		hourlyProcessingTimes = new HourlyStat(stat, "Overloading status : " + get_name());
 		
 		hourlyArrival = new HourlyEventCounter("Hourly Arrival Rate : " + get_name());
 		
 		vmUsage = new HashMap<Integer, Double[]>();
-		vmStatesList = Collections.synchronizedMap(new HashMap<Integer, VirtualMachineState>());
-		waitingQueue = Collections.synchronizedList(new LinkedList<InternetCloudlet>());
-		processingCloudletStatuses = new HashMap<Integer, Long[]>();
+		vmStatesList = new VmStateTable();
+		setWaitingQueue(new RejectNewWaitingQueue(0));
+		processingCloudletStatuses = new RequestStatusTable();
+		vmLoadTable = new VmLoadTable();
 		
 		if (loadBalancePolicy.equals(Constants.LOAD_BALANCE_ACTIVE)){
 			this.loadBalancer = new ActiveVmLoadBalancer(this);
@@ -120,6 +174,22 @@ public class DatacenterController extends DatacenterBroker implements GeoLocatab
 		else if (loadBalancePolicy.equals(Constants.LOAD_BALANCE_WRR)) {
 			this.loadBalancer = new WeightedRoundRobinVmLoadBalancer(vmStatesList, this);
 		}
+		else if (loadBalancePolicy.equals(Constants.LOAD_BALANCE_LEAST_CONNECTIONS)) {
+			this.loadBalancer = new LeastConnectionsVmLoadBalancer(this);
+		}
+		else if (loadBalancePolicy.equals(Constants.LOAD_BALANCE_POWER_OF_CHOICES)) {
+			this.loadBalancer = new PowerOfChoicesVmLoadBalancer(this);
+		}
+		else if (loadBalancePolicy.equals(Constants.LOAD_BALANCE_SHORTEST_JOB_FIRST)) {
+			this.loadBalancer = new EarliestCompletionVmLoadBalancer(this);
+		}
+		else if (loadBalancePolicy.equals(Constants.LOAD_BALANCE_RESPONSE_TIME)) {
+			this.loadBalancer = new ResponseTimeVmLoadBalancer(this);
+		}
+		
+		if (loadBalancer != null){
+			loadBalancer.setLoadTable(vmLoadTable);
+		}
 	}
 	
 	
@@ -133,21 +203,14 @@ public class DatacenterController extends DatacenterBroker implements GeoLocatab
 	@Override
 	public void body(){
 
-		System.out.println("Starting broker " + get_id() + " name=" + get_name());
+		SimLog.info(Category.ENTITY, "Starting broker " + get_id() + " name=" + get_name());
 		//queries GIS about available datacenters
 		sim_process(5.0);
 		LinkedList datacenterList = GridSim.getGridResourceList();
-		System.out.println(GridSim.clock()+": "+this.get_name()+ ": Cloud Resource List received with "+datacenterList.size()+" resource(s)");
+		SimLog.info(Category.DATACENTER, clock()+": "+this.get_name()+ ": Cloud Resource List received with "+datacenterList.size()+" resource(s)");
 		
-		//initilize fields
-		this.datacenters= 1;
-		this.datacenterID=new int[1];
-		this.datacenterChar=new DatacenterCharacteristics[1];
-		datacenterChar[0] = null;
-		
-		//queries datacenters about their characteristics
-		this.datacenterID[0] = GridSim.getEntityId(dcName);
-		send(dcName, GridSimTags.SCHEDULE_NOW, GridSimTags.RESOURCE_CHARACTERISTICS, this.get_id());
+		contactDatacenter(GridSimTags.SCHEDULE_NOW);
+		startAutoScaler();
 		
 		//receives events and process them
 		Sim_event ev = new Sim_event();
@@ -165,12 +228,50 @@ public class DatacenterController extends DatacenterBroker implements GeoLocatab
             processEvent(ev);
         }
         
-        System.out.println(get_name() + " finalizing, submitted cloudlets=" + cloudletsSubmitted 
-        					+ " processing cloudlets=" + processingCloudletStatuses.size() + " ,allRequestsProcessed=" + allRequestsProcessed);
+        printFinalStatus();
 	}//body
+	
+	public void startEntity(){
+		SimLog.info(Category.ENTITY, "Starting broker " + get_id() + " name=" + get_name());
+		
+		//There is no GIS in an event kernel run. Contact the data center directly, 
+		// after the same delay the GIS query takes in body()
+		contactDatacenter(5.0);
+		startAutoScaler();
+	}
+	
+	public void shutdownEntity(){
+		printFinalStatus();
+	}
+	
+	/**
+	 * Initialises the broker to manage just the one data center and queries its characteristics.
+	 */
+	private void contactDatacenter(double delay){
+		//initilize fields
+		this.datacenters= 1;
+		this.datacenterID=new int[1];
+		this.datacenterChar=new DatacenterCharacteristics[1];
+		datacenterChar[0] = null;
+		
+		//queries datacenters about their characteristics
+		this.datacenterID[0] = getEntityId(dcName);
+		send(dcName, delay, GridSimTags.RESOURCE_CHARACTERISTICS, this.get_id());
+	}
+	
+	private void startAutoScaler(){
+		if (autoScaler != null){
+			send(get_id(), autoScaler.getPolicy().getEvaluationInterval(), Constants.AUTO_SCALE_TIMER_TAG);
+		}
+	}
+	
+	private void printFinalStatus(){
+        SimLog.info(Category.ENTITY, get_name() + " finalizing, submitted cloudlets=" + cloudletsSubmitted 
+        					+ " processing cloudlets=" + processingCloudletStatuses.size() + " ,allRequestsProcessed=" + allRequestsProcessed);
+	}
 
 	@Override
-	protected void processEvent(Sim_event ev) {
+	public void processEvent(Sim_event ev) {
 		Object payload = ev.get_data();
 
 		//Filter out in bound InternetCloudlet events and returning cloudlet events.
@@ -179,7 +280,7 @@ public class DatacenterController extends DatacenterBroker implements GeoLocatab
 	        if ((payload != null) && (payload instanceof InternetCloudlet)){	
 				handleRequestCloudlet((InternetCloudlet) payload);
 	        } else {
-	        	System.out.println("invalid payload");
+	        	SimLog.warn(Category.DATACENTER, "invalid payload");
 	        }
 		} else if ((ev.get_tag() == GridSimTags.GRIDLET_RETURN) && (payload instanceof InternetCloudlet)){
 			if ((payload != null) && (payload instanceof InternetCloudlet)){
@@ -187,6 +288,13 @@ public class DatacenterController extends DatacenterBroker implements GeoLocatab
 				
 				handleResponseCloudlet(cl);
 			}
+		} else if (ev.get_tag() == DatacenterTags.VM_DESTROY_ACK){
+			processVMDestroy(ev);
+		} else if (ev.get_tag() == Constants.VM_BOOTED_TAG){
+			vmBooted((Integer) payload);
+		} else if (ev.get_tag() == Constants.AUTO_SCALE_TIMER_TAG){
+			autoScaler.evaluate(clock());
+			send(get_id(), autoScaler.getPolicy().getEvaluationInterval(), Constants.AUTO_SCALE_TIMER_TAG);
 		} else {		
 	    	super.processEvent(ev);
 	    }		
@@ -202,21 +310,22 @@ public class DatacenterController extends DatacenterBroker implements GeoLocatab
 		cloudletCompletedProcessing(cl);
 
 		int parentRequest = cl.getParentId();
-		Long[] parentReqStatus = processingCloudletStatuses.remove(parentRequest);
+		int parentReqSlot = processingCloudletStatuses.indexOf(parentRequest);
 		
-		if (parentReqStatus == null){
-			System.out.println("Got response for " + parentRequest + " but it seems to be completed.");
+		if (parentReqSlot < 0){
+			SimLog.warn(Category.DATACENTER, "Got response for " + parentRequest + " but it seems to be completed.");
 			return;
 		}
 		
-		long totalRequests = parentReqStatus[0];
-		long completedRequests = parentReqStatus[1] + cl.getRequestCount();
-		final long startTime = parentReqStatus[2];
+		long totalRequests = processingCloudletStatuses.getTotalRequests(parentReqSlot);
+		long previouslyCompleted = processingCloudletStatuses.getCompletedRequests(parentReqSlot);
+		long completedRequests = previouslyCompleted + cl.getRequestCount();
+		final long startTime = processingCloudletStatuses.getStartTime(parentReqSlot);
 		
 		//If this is the first response received for the orginal request, send response back to UserBase
 		// Simulation should capture the time for single request, not all
-		if (parentReqStatus[1] == 0){
-			double endTime = GridSim.clock();
+		if (previouslyCompleted == 0){
+			double endTime = clock();
 			double thisProcessingTime = (endTime - startTime);
 			
 			InternetCloudlet responseCloudlet = new InternetCloudlet(parentRequest, 
@@ -234,59 +343,115 @@ public class DatacenterController extends DatacenterBroker implements GeoLocatab
 			
 			//System.out.println(endTime + ": DC processing time for " + parentRequest + "=" + thisProcessingTime + " in vm " + cl.getVmId() + " and current processingqueue=" + processingCloudletStatuses.size());
 			
-			InternetCharacteristics.getInstance().updateSerivceLatency(get_name(), thisProcessingTime);
+			internetCharacteristics.updateSerivceLatency(get_name(), thisProcessingTime, endTime);
+			if (autoScaler != null){
+				autoScaler.processingTimeRecorded(thisProcessingTime);
+			}
 		}
 		
 		//But keep on executing rest of the cloudlets running to keep the Data Center loaded
 		if (completedRequests >= totalRequests){
-			allRequestsProcessed += totalRequests;
-								
+			allRequestsProcessed += totalRequests - processingCloudletStatuses.getShedRequests(parentReqSlot);
+			processingCloudletStatuses.removeAt(parentReqSlot);
 		} else {
 			//System.out.println(GridSim.clock() + ":" + get_name() + " processing " + parentRequest + " " + completedRequests + "/" + totalRequests + " complete");
 			
-			processingCloudletStatuses.put(parentRequest, new Long[]{totalRequests, completedRequests, startTime});
+			processingCloudletStatuses.setCompletedRequests(parentReqSlot, completedRequests);
 		}
 		
 		totalData += cl.getDataSize();
 		
 	}
+	
+	/**
+	 * Handles a cloudlet shed by the waiting queue. Its requests count as completed, so that
+	 * the original request is done with once the rest are, but not as processed. If it is the
+	 * first of the cloudlets of the original request to be done with, the user base is told
+	 * the request failed, and gets no response for it.
+	 * 
+	 * @param cl
+	 */
+	private void handleShedCloudlet(InternetCloudlet cl) {
+		int parentRequest = cl.getParentId();
+		int parentReqSlot = processingCloudletStatuses.indexOf(parentRequest);
+		
+		if (parentReqSlot < 0){
+			SimLog.warn(Category.DATACENTER, "Shed a cloudlet of " + parentRequest + " but it seems to be completed.");
+			return;
+		}
+		
+		long totalRequests = processingCloudletStatuses.getTotalRequests(parentReqSlot);
+		long previouslyCompleted = processingCloudletStatuses.getCompletedRequests(parentReqSlot);
+		long completedRequests = previouslyCompleted + cl.getRequestCount();
+		long shedRequests = processingCloudletStatuses.getShedRequests(parentReqSlot) + cl.getRequestCount();
+		
+		if (previouslyCompleted == 0){
+			InternetCloudlet failureCloudlet = new InternetCloudlet(parentRequest, 
+																	0, 
+																	(long) (cl.getDataSize() / cl.getRequestCount()), 
+																	0, 
+																	cl.getOriginator(), 
+																	cl.getAppId(), 
+																	(int) totalRequests);
+			failureCloudlet.addData(Constants.PARAM_SHED, Boolean.TRUE);
+			send("Internet", 0.0, Constants.RESPONSE_INTERNET_CLOUDLET_TAG, failureCloudlet);
+		}
+		
+		if (completedRequests >= totalRequests){
+			allRequestsProcessed += totalRequests - shedRequests;
+			processingCloudletStatuses.removeAt(parentReqSlot);
+		} else {
+			processingCloudletStatuses.setCompletedRequests(parentReqSlot, completedRequests);
+			processingCloudletStatuses.setShedRequests(parentReqSlot, shedRequests);
+		}
+	}
 
 
 	/** 
 	 * Handle an incoming request. Requests are bundled to UserBaseGroupingFactor. 
-	 * This method repackages them to DcRequestGroupingFactor.
+	 * This method repackages them to DcRequestGroupingFactor, or with adaptive grouping to
+	 * the group size for the current load (see {@link #getRequestsPerCloudlet(int)}).
 	 * 
 	 * @param cl
 	 */
 	private void handleRequestCloudlet(InternetCloudlet cl) {
 		
 		//Reflect completion of request transmission in traffic levels
-		InternetCharacteristics.getInstance().removeTraffic((CommPath) cl.getData(Constants.PARAM_COMM_PATH), 
+		internetCharacteristics.removeTraffic((CommPath) cl.getData(Constants.PARAM_COMM_PATH), 
 															 cl.getRequestCount());
 		
 		int numOfActualRequests = cl.getRequestCount();
+		int groupSize = getRequestsPerCloudlet(numOfActualRequests);
 		int numOfReqCloudlets;
-		if (numOfActualRequests <= requestsPerCloudlet){
+		if (numOfActualRequests <= groupSize){
 			numOfReqCloudlets = 0;
 		} else {
-			numOfReqCloudlets = numOfActualRequests / requestsPerCloudlet;
+			numOfReqCloudlets = numOfActualRequests / groupSize;
 		}
 		
+		//Track the request before its cloudlets are submitted, as they can be shed straight away
+		long startTime = (long) clock();
+		
+		//System.out.println(startTime + ": " + get_name() + " started processing " + cl.getCloudletId());
+		processingCloudletStatuses.put(cl.getCloudletId(), numOfActualRequests, startTime);
+		
 		int i;
+		InternetCloudlet[] group = new InternetCloudlet[numOfReqCloudlets];
 		for (i = 0; i < numOfReqCloudlets; i++){
 			InternetCloudlet subCloudlet = new InternetCloudlet(cl.getCloudletId() * 1000 + i,
-																cl.getGridletLength() * requestsPerCloudlet,
-																cl.getGridletFileSize() * requestsPerCloudlet,
-																cl.getGridletOutputSize() * requestsPerCloudlet,
+																cl.getGridletLength() * groupSize,
+																cl.getGridletFileSize() * groupSize,
+																cl.getGridletOutputSize() * groupSize,
 																cl.getOriginator(),
 																cl.getAppId(),
-																requestsPerCloudlet);
+																groupSize);
 			subCloudlet.setParentId(cl.getCloudletId());
-			submitNewCloudlet(subCloudlet);	
+			group[i] = subCloudlet;
 		}
+		submitNewCloudlets(group);
 		
 		//If there are any remaining, which didn't fit into a default sized group
-		int remainingRequests = numOfActualRequests - requestsPerCloudlet * numOfReqCloudlets;
+		int remainingRequests = numOfActualRequests - groupSize * numOfReqCloudlets;
 		if (remainingRequests != 0){
 			InternetCloudlet subCloudlet = new InternetCloudlet(cl.getCloudletId() * 1000 + i + 1,
 																cl.getGridletLength() * remainingRequests,
@@ -297,130 +462,472 @@ public class DatacenterController extends DatacenterBroker implements GeoLocatab
 																remainingRequests);
 			subCloudlet.setParentId(cl.getCloudletId());
 			submitNewCloudlet(subCloudlet);	
+			requestCloudlets++;
 		}
+		requestCloudlets += numOfReqCloudlets;
+		groupedRequests += numOfActualRequests;
 				    
 		totalData += cl.getDataSize();
-		long startTime = (long) GridSim.clock();
+	}
+	
+	/**
+	 * Works out the number of requests to group in each cloudlet sent to the VMs. With fixed
+	 * grouping this is the DC request grouping factor. With adaptive grouping (see 
+	 * {@link #setAdaptiveRequestGrouping(int, int)}) the requests are spread over the VMs in
+	 * service that are idle, one cloudlet each, within the bounds: they are grouped coarsely
+	 * while the data center is idle, and by the minimum once every VM is busy or cloudlets 
+	 * are waiting, so that contention is simulated at the finest grain.
+	 * 
+	 * @param requests the number of requests to group
+	 * @return the number of requests per cloudlet for the current load
+	 */
+	public int getRequestsPerCloudlet(int requests){
+		if (maxRequestsPerCloudlet <= 0){
+			return requestsPerCloudlet;
+		}
 		
-		//System.out.println(startTime + ": " + get_name() + " started processing " + cl.getCloudletId());
-		processingCloudletStatuses.put(cl.getCloudletId(), new Long[]{(long) numOfActualRequests, 0L, startTime});		
+		int vms = vmStatesList.size();
+		if ((vms == 0) || !waitingQueue.isEmpty()){
+			return minRequestsPerCloudlet;
+		}
+		int idleVms = Math.max(0, vms - vmLoadTable.getBusyVmCount());
+		if (idleVms == 0){
+			return minRequestsPerCloudlet;
+		}
+		
+		return Math.max(minRequestsPerCloudlet, Math.min(maxRequestsPerCloudlet, (requests + idleVms - 1) / idleVms));
+	}
+	
+	/**
+	 * Makes the number of requests grouped in each cloudlet follow the load of the data center
+	 * between the given bounds, instead of the fixed DC request grouping factor (see 
+	 * {@link #getRequestsPerCloudlet(int)}).
+	 * 
+	 * @param min the fewest requests per cloudlet, once the VMs are all busy, at least 1
+	 * @param max the most requests per cloudlet, while VMs are idle, 0 or less to go back 
+	 * 			to fixed grouping
+	 */
+	public void setAdaptiveRequestGrouping(int min, int max){
+		this.minRequestsPerCloudlet = Math.max(1, min);
+		this.maxRequestsPerCloudlet = (max > 0) ? Math.max(max, this.minRequestsPerCloudlet) : 0;
+	}
+	
+	/**
+	 * @return the average number of requests grouped in the cloudlets sent to the VMs so far
+	 */
+	public double getAverageRequestsPerCloudlet(){
+		return (requestCloudlets > 0) ? (double) groupedRequests / requestCloudlets : 0;
 	}
 	
 	private void cloudletCompletedProcessing(InternetCloudlet cl){
 		//Notify load balancer of vm getting freed up
 		int vmId = cl.getVmId();
-		CloudSimEvent e = new CloudSimEvent(CloudSimEvents.EVENT_VM_FINISHED_CLOUDLET);
-		e.addParameter(Constants.PARAM_VM_ID, vmId);
-		fireCloudSimEvent(e);	
+		double serviceTime = clock() - cl.getVmSubmitTime();
+		vmLoadTable.cloudletFinished(vmId, clock(), serviceTime);
+		for (int i = 0; i < vmLoadListenerCount; i++){
+			vmLoadListeners[i].onFinished(vmId, serviceTime);
+		}
+		if (!listeners.isEmpty()){
+			CloudSimEvent e = new CloudSimEvent(CloudSimEvents.EVENT_VM_FINISHED_CLOUDLET);
+			e.addParameter(Constants.PARAM_VM_ID, vmId);
+			e.addParameter(Constants.PARAM_PROCESSING_TIME, serviceTime);
+			fireCloudSimEvent(e);
+		}
 		
-		submitWaitingCloudlet();
+		if (drainingVms.get(vmId) && (vmLoadTable.getActiveCloudlets(vmId) == 0)){
+			destroyVm(vmId);
+		}
+		submitWaitingCloudlets();
 	}
 	
-	private void submitWaitingCloudlet(){
-		int nextAvailVM = loadBalancer.getNextAvailableVm();
-				
-		if ((nextAvailVM != -1) && (waitingQueue.size() > 0)){
-			InternetCloudlet cl = waitingQueue.remove(0);
-			submitCloudlet(cl, nextAvailVM);
+	/**
+	 * Submits as many of the waiting cloudlets as the VMs can take now, in lots allocated with
+	 * {@link VmLoadBalancer#getNextAvailableVms(InternetCloudlet, int, int[])}, each no larger
+	 * than the load balancer's {@link VmLoadBalancer#getFreeCapacity()}. The load balancer is
+	 * not asked at all if no cloudlet is waiting.
+	 */
+	private void submitWaitingCloudlets(){
+		if (waitingQueue.isEmpty()){
+			return;
+		}
+		
+		ensureLoadBalancer();
+		while (!waitingQueue.isEmpty()){
+			int n = Math.min(waitingQueue.size(), loadBalancer.getFreeCapacity());
+			if (n <= 0){
+				break;
+			}
+			ensureGroupVmIds(n);
+			
+			int allocated = loadBalancer.getNextAvailableVms(waitingQueue.peek(), n, groupVmIds);
+			if (allocated == 0){
+				break;
+			}
+			
+			int submitted = 0;
+			while (submitted < allocated){
+				//The queue may shed cloudlets, even all of the rest, before it hands one out
+				InternetCloudlet cl = waitingQueue.poll(clock());
+				if (cl == null){
+					break;
+				}
+				sendCloudlet(cl, groupVmIds[submitted++]);
+			}
+			fireCloudletsAllocated(groupVmIds, submitted);
 		}
 	}
 
 	private void submitNewCloudlet(InternetCloudlet cl) {
 		
-		hourlyArrival.addEvent(GridSim.clock(), cl.getRequestCount());
-		if (loadBalancer == null){
-			loadBalancer = new RoundRobinVmLoadBalancer(vmStatesList);
-		}
+		hourlyArrival.addEvent(clock(), cl.getRequestCount());
+		ensureLoadBalancer();
 		
-		int nextAvailVM = loadBalancer.getNextAvailableVm();
+		int nextAvailVM = loadBalancer.getNextAvailableVm(cl);
 					
 		if (nextAvailVM == -1){
 			//All VM's are busy. Put it in queue
 			//System.out.println("VM's busy, queueing " + cl);
-			waitingQueue.add(cl);	
-			
-			queuedCount++;
+			waitingQueue.offer(cl, clock());
 		} else {
 			submitCloudlet(cl, nextAvailVM);
 		}				
 	}
 
+	/**
+	 * Submits a group of cloudlets of the same size, allocating the VMs with
+	 * {@link VmLoadBalancer#getNextAvailableVms(InternetCloudlet, int, int[])}. The listeners
+	 * are notified once for each lot of VMs the load balancer allocates. The cloudlets left
+	 * when no VM is available are queued.
+	 * 
+	 * @param group the cloudlets
+	 */
+	private void submitNewCloudlets(InternetCloudlet[] group) {
+		if (group.length == 0){
+			return;
+		}
+		
+		hourlyArrival.addEvent(clock(), group[0].getRequestCount() * group.length);
+		ensureLoadBalancer();
+		ensureGroupVmIds(group.length);
+		
+		int submitted = 0;
+		while (submitted < group.length){
+			int allocated = loadBalancer.getNextAvailableVms(group[submitted], group.length - submitted, groupVmIds);
+			if (allocated == 0){
+				break;
+			}
+			
+			for (int i = 0; i < allocated; i++){
+				sendCloudlet(group[submitted + i], groupVmIds[i]);
+			}
+			submitted += allocated;
+			
+			fireCloudletsAllocated(groupVmIds, allocated);
+		}
+		
+		//All VM's are busy. Queue the rest
+		for (; submitted < group.length; submitted++){
+			waitingQueue.offer(group[submitted], clock());
+		}
+	}
+	
+	private void ensureGroupVmIds(int n) {
+		if (groupVmIds.length < n){
+			groupVmIds = new int[Math.max(n, groupVmIds.length * 2)];
+		}
+	}
+	
+	private void ensureLoadBalancer() {
+		if (loadBalancer == null){
+			loadBalancer = new RoundRobinVmLoadBalancer(vmStatesList);
+			loadBalancer.setLoadTable(vmLoadTable);
+		}
+	}
 
 	private void submitCloudlet(InternetCloudlet cl, int vmId) {
+		sendCloudlet(cl, vmId);
+		
+		//Notify load balancer
+		fireCloudletAllocated(vmId);
+	}
+
+	private void fireCloudletAllocated(int vmId) {
+		for (int i = 0; i < vmLoadListenerCount; i++){
+			vmLoadListeners[i].onAllocated(vmId);
+		}
+		if (!listeners.isEmpty()){
+			CloudSimEvent e = new CloudSimEvent(CloudSimEvents.EVENT_CLOUDLET_ALLOCATED_TO_VM);
+			e.addParameter(Constants.PARAM_VM_ID, vmId);
+			fireCloudSimEvent(e);
+		}
+	}
+
+	/**
+	 * Notifies the listeners of cloudlets sent to the first count of the given VMs, at once
+	 * if there are more than one.
+	 */
+	private void fireCloudletsAllocated(int[] vmIds, int count) {
+		if (count == 1){
+			fireCloudletAllocated(vmIds[0]);
+		} else if (count > 1){
+			for (int i = 0; i < vmLoadListenerCount; i++){
+				vmLoadListeners[i].onAllocated(vmIds, count);
+			}
+			if (!listeners.isEmpty()){
+				CloudSimEvent e = new CloudSimEvent(CloudSimEvents.EVENT_CLOUDLETS_ALLOCATED_TO_VMS);
+				e.addParameter(Constants.PARAM_VM_IDS, Arrays.copyOf(vmIds, count));
+				fireCloudSimEvent(e);
+			}
+		}
+	}
+
+	/**
+	 * Sends a cloudlet to a VM, without notifying the listeners.
+	 */
+	private void sendCloudlet(InternetCloudlet cl, int vmId) {
 		//submit to the next machine
 		cl.setVmId(vmId);
 		cl.setUserID(this.get_id());
 
 		int dest = vmMapping[vmId];
+		if (dest < 0){
+			//A cloudlet sent nowhere would be lost while the VM is counted as running it
+			throw new IllegalStateException(get_name() + ": VM #" + vmId + " has no host to send cloudlet " 
+											+ cl.getCloudletId() + " to");
+		}
 		//System.out.println(GridSim.clock()+": "+this.get_name()+ ": Sending cloudlet "+cl.getGridletID()+" to VM #"+((VirtualMachine)vmlist.get(vmId)).getVmId() + ", dest=" + dest);
 		super.send(dest,GridSimTags.SCHEDULE_NOW, GridSimTags.GRIDLET_SUBMIT, cl);
 
 		cloudletsSubmitted++;
+		cl.setVmSubmitTime(clock());
+		vmLoadTable.cloudletStarted(vmId, clock(), cl.getGridletLength());
 		
-		//Notify load balancer
-		CloudSimEvent e = new CloudSimEvent(CloudSimEvents.EVENT_CLOUDLET_ALLOCATED_TO_VM);
-		e.addParameter(Constants.PARAM_VM_ID, vmId);
-		fireCloudSimEvent(e);
-		
-		String destName = GridSim.getEntityName(dest);
-		InternetEntitityRegistry.getInstance().addCommunicationPath(cl.getOriginator().get_name(), destName);
+		if (entityRegistry != null){
+			String destName = getEntityName(dest);
+			entityRegistry.addCommunicationPath(cl.getOriginator().get_name(), destName);
+		}
 	}
 	
 	@Override
 	protected void processVMCreate(Sim_event ev) {			
 		int[] array = (int[]) ev.get_data();
 		int vmId=array[1];	
+		boolean started = startingVms.get(vmId);
+		
+		//Records the VM's host first, as the VM may be handed waiting cloudlets straight away
+		super.processVMCreate(ev);
 		
 		//If VM creation success
 		if(array[2]==GridSimTags.TRUE){
-			double vmStartTime = GridSim.clock();
+			double vmStartTime = clock();
 			double vmEndTime = -1;
 			
+			//Keep the time of the VM this one replaces, if it was destroyed
+			Double[] previousUsage = vmUsage.get(vmId);
+			if ((previousUsage != null) && (previousUsage[1] != -1)){
+				releasedVmTime += previousUsage[1] - previousUsage[0];
+			}
 			vmUsage.put(vmId, new Double[]{vmStartTime, vmEndTime});
-			vmStatesList.put(vmId, VirtualMachineState.AVAILABLE);
 			
-			//If there are any waiting cloudlets in queue, attempt to re-schedule them
-			submitWaitingCloudlet();
+			if (started){
+				creatingVm = -1;
+			} else {
+				servingVms = Math.max(servingVms, vmId + 1);
+			}
+			if (started && (vmBootDelay > 0)){
+				//Billed from now on, but only in service once it has booted
+				send(get_id(), vmBootDelay, Constants.VM_BOOTED_TAG, vmId);
+			} else {
+				startingVms.clear(vmId);
+				putInService(vmId);
+			}
 		} else {
-			//Don't try to create VM's further in this DC
-			lastVmCreateFailed = true;
+			//Don't try to create VM's again in this DC for a while
+			vmCreateRetryTime = clock() + VM_CREATE_RETRY_INTERVAL;
+			
+			if (started){
+				//Free the id for the next VM
+				startingVms.clear(vmId);
+				creatingVm = -1;
+				servingVms--;
+			}
+		}
+	}
+	
+	private void vmBooted(int vmId){
+		if (startingVms.get(vmId)){
+			startingVms.clear(vmId);
+			putInService(vmId);
+		}
+	}
+	
+	/**
+	 * Makes a VM available to the load balancer, and starts as many of the waiting cloudlets
+	 * as it can take.
+	 */
+	private void putInService(int vmId){
+		vmStatesList.setAvailable(vmId, vmLoadTable.getActiveCloudlets(vmId) == 0);
+		if (vmStatesList.size() > peakVmsInService){
+			peakVmsInService = vmStatesList.size();
 		}
 		
-		super.processVMCreate(ev);
+		submitWaitingCloudlets();
 	}
 	
-	public void createNewVm() {
-
-		if (!lastVmCreateFailed){
-	    	System.out.println("Trying to create vm");
-	    	
-			VMCharacteristics vm0Char = ((VirtualMachine)vmlist.get(0)).getCharacteristics();
-			
-			VMCharacteristics newVmChar = new VMCharacteristics(vmlist.size(),
-																vm0Char.getUserId(),
-																vm0Char.getSize(),
-																vm0Char.getMemory(),
-																vm0Char.getBw(),
-																vm0Char.getCpus(),
-																vm0Char.getPriority(),
-																vm0Char.getVmm(),
-																vm0Char.getVMScheduler());
-			
-			VirtualMachine newVm = new VirtualMachine(newVmChar);
-			vmlist.add(newVm);
-			
-			int[] oldVmMapping = vmMapping;
-			vmMapping = Arrays.copyOf(oldVmMapping, oldVmMapping.length + 1);
-			
-			//System.out.println(GridSim.clock()+": "+this.get_name()+ ": Trying to Create new VM # in " + GridSim.getEntityName(datacenterID[0]));
-			
-			super.send(datacenterID[0], GridSimTags.SCHEDULE_NOW, DatacenterTags.VM_CREATE_ACK, newVmChar);
+	/**
+	 * Adds a VM to the data center, like the first one. The VM gets the id after the last
+	 * VM in service, so that the ids of the VMs in service stay 0 to n - 1. It is billed
+	 * from when it is created, and put in service after the VM boot delay (see 
+	 * {@link #setVmDelays(double, double)}). If the last VM taken out of service with 
+	 * {@link #releaseVm()} is still finishing its cloudlets it is put back in service
+	 * instead, straight away.
+	 * 
+	 * Only one VM is created at a time. After a VM could not be created, for lack of room
+	 * on the hosts, no VM is created for {@link #VM_CREATE_RETRY_INTERVAL} or until a VM
+	 * is destroyed.
+	 * 
+	 * @return true if a VM is being created or was put back in service
+	 */
+	public boolean createNewVm() {
+		if ((creatingVm != -1) || (clock() < vmCreateRetryTime)){
+			return false;
+		}
+		
+		int vmId = servingVms;
+		if (drainingVms.get(vmId)){
+			drainingVms.clear(vmId);
+			servingVms++;
+			putInService(vmId);
+			return true;
+		}
+		if (stoppingVms.get(vmId)){
+			//Wait for it to go before reusing its id
+			return false;
+		}
+		
+		SimLog.info(Category.DATACENTER, "Trying to create vm");
+		
+		VMCharacteristics vm0Char = ((VirtualMachine)vmlist.get(0)).getCharacteristics();
+		
+		VMCharacteristics newVmChar = new VMCharacteristics(vmId,
+															vm0Char.getUserId(),
+															vm0Char.getSize(),
+															vm0Char.getMemory(),
+															vm0Char.getBw(),
+															vm0Char.getCpus(),
+															vm0Char.getPriority(),
+															vm0Char.getVmm(),
+															newVmScheduler(vm0Char.getVMScheduler()));
+		
+		putVm(vmId, new VirtualMachine(newVmChar));
+		vmLoadTable.ensureVmCount(vmlist.size());
+		
+		if (vmId >= vmMapping.length){
+			vmMapping = Arrays.copyOf(vmMapping, vmId + 1);
+		}
+		vmMapping[vmId] = -1;
+		startingVms.set(vmId);
+		creatingVm = vmId;
+		servingVms++;
+		
+		//System.out.println(GridSim.clock()+": "+this.get_name()+ ": Trying to Create new VM # in " + GridSim.getEntityName(datacenterID[0]));
+		
+		super.send(datacenterID[0], GridSimTags.SCHEDULE_NOW, DatacenterTags.VM_CREATE_ACK, newVmChar);
+	
+		this.vmsRequested=1;
+		this.vmsAcks=0;
+		
+		return true;
+	}
+	
+	/**
+	 * Puts a VM in the VM list at its id, in place of the VM destroyed that had the id.
+	 */
+	@SuppressWarnings("unchecked")
+	private void putVm(int vmId, VirtualMachine vm){
+		//The broker's list is a raw LinkedList
+		if (vmId < vmlist.size()){
+			vmlist.set(vmId, vm);
+		} else {
+			vmlist.add(vm);
+		}
+	}
+	
+	/**
+	 * @return a scheduler of the same kind as the given one, for a new VM: a VM given the 
+	 * 			scheduler of another would run its cloudlets on that VM
+	 */
+	private static VMScheduler newVmScheduler(VMScheduler scheduler){
+		if (scheduler instanceof SpaceSharedVMScheduler){
+			return new SpaceSharedVMScheduler();
+		}
+		
+		return new TimeSharedVMScheduler();
+	}
+	
+	/**
+	 * Takes the last VM in service out of service. It gets no new cloudlets, and once it
+	 * has finished the ones it is running it is destroyed, after the VM teardown delay
+	 * (see {@link #setVmDelays(double, double)}). It is billed until then.
+	 * 
+	 * @return false if no VM was taken out of service: the last VM is the only one or is
+	 * 			still being started, or the load balancer can not do without it
+	 */
+	public boolean releaseVm() {
+		int vmId = servingVms - 1;
+		//The active load balancer goes on allocating to all the VMs it has seen
+		if ((vmId <= 0) || !vmStatesList.contains(vmId) || (loadBalancer instanceof ActiveVmLoadBalancer)){
+			return false;
+		}
+		
+		SimLog.info(Category.DATACENTER, "Releasing vm " + vmId);
+		servingVms--;
+		vmStatesList.remove(vmId);
+		if (vmLoadIndex != null){
+			vmLoadIndex.trimVmCount(vmId);
+		}
+		drainingVms.set(vmId);
+		if (vmLoadTable.getActiveCloudlets(vmId) == 0){
+			destroyVm(vmId);
+		}
 		
-			this.vmsRequested=1;
-			this.vmsAcks=0;
-		} 
+		return true;
+	}
+	
+	/**
+	 * Asks the data center to destroy a VM that has finished its cloudlets, after the 
+	 * teardown delay.
+	 */
+	private void destroyVm(int vmId){
+		drainingVms.clear(vmId);
+		stoppingVms.set(vmId);
+		super.send(datacenterID[0], vmTeardownDelay, DatacenterTags.VM_DESTROY_ACK, new int[]{get_id(), vmId});
 	}
 	
+	/**
+	 * Handles the data center's acknowledgement of a VM destroyed, which ends the VM's 
+	 * billing.
+	 */
+	private void processVMDestroy(Sim_event ev){
+		int[] array = (int[]) ev.get_data();
+		int vmId = array[1];
+		
+		stoppingVms.clear(vmId);
+		vmMapping[vmId] = -1;
+		//A new VM may get the id
+		vmLoadTable.vmDestroyed(vmId);
+		if (loadBalancer != null){
+			loadBalancer.vmDestroyed(vmId);
+		}
+		Double[] usage = vmUsage.get(vmId);
+		if (usage != null){
+			usage[1] = clock();
+		}
+		
+		//There is room for a VM again
+		vmCreateRetryTime = 0;
+		SimLog.info(Category.DATACENTER, "Destroyed vm " + vmId);
+	}
 
 	/**
 	 * @return the regionId
@@ -444,9 +951,17 @@ public class DatacenterController extends DatacenterBroker implements GeoLocatab
 	}
 	
 	public double getVmCost(){
-		double totalTime = 0.0;
+		return ((getVmTime() / Constants.MILLI_SECONDS_TO_HOURS) * costPerVmHour);
+	}
+	
+	/**
+	 * @return the time the VMs have been in use so far, from their creation until they were
+	 * 			destroyed or until now, in ms
+	 */
+	public double getVmTime(){
+		double totalTime = releasedVmTime;
 		double start, end;
-		double now = GridSim.clock();
+		double now = clock();
 		
 		for (Double[] vmAllocationTime : vmUsage.values()){
 			start = vmAllocationTime[0];
@@ -459,7 +974,7 @@ public class DatacenterController extends DatacenterBroker implements GeoLocatab
 			totalTime += (end - start);			
 		}
 		
-		return ((totalTime / Constants.MILLI_SECONDS_TO_HOURS) * costPerVmHour);
+		return totalTime;
 	}
 
 
@@ -486,10 +1001,203 @@ public class DatacenterController extends DatacenterBroker implements GeoLocatab
 	public void removeCloudSimEventListener(CloudSimEventListener l) {
 		listeners.remove(l);
 	}
+
+	/**
+	 * Adds a listener of the VM loads, called after those added before it.
+	 * 
+	 * @param l the listener
+	 */
+	public void addVmLoadListener(VmLoadListener l) {
+		if (vmLoadListenerCount == vmLoadListeners.length){
+			vmLoadListeners = Arrays.copyOf(vmLoadListeners, vmLoadListenerCount * 2);
+		}
+		vmLoadListeners[vmLoadListenerCount++] = l;
+	}
+
+	/**
+	 * Removes a listener of the VM loads.
+	 * 
+	 * @param l the listener
+	 */
+	public void removeVmLoadListener(VmLoadListener l) {
+		for (int i = 0; i < vmLoadListenerCount; i++){
+			if (vmLoadListeners[i] == l){
+				System.arraycopy(vmLoadListeners, i + 1, vmLoadListeners, i, vmLoadListenerCount - i - 1);
+				vmLoadListeners[--vmLoadListenerCount] = null;
+				return;
+			}
+		}
+	}
 	
 	public Map<Integer, VirtualMachineState> getVmStatesList(){
 		return vmStatesList;
 	}
+	
+	/**
+	 * @return the state of each VM of this controller, the same table as 
+	 * 			{@link #getVmStatesList()} with the bit set operations
+	 */
+	public VmStateTable getVmStates(){
+		return vmStatesList;
+	}
+	
+	/**
+	 * Tells the controller how the VMs of its data center are placed on hosts, so that it 
+	 * can look up the capacity given to each VM (see {@link #getVmMipsShare(int)}).
+	 * 
+	 * @param provisioner the provisioner of the data center
+	 * @param hostPolicies the VM allocation policy of each host, by host id
+	 */
+	public void setHosts(VMProvisioner provisioner, List<VMMAllocationPolicy> hostPolicies){
+		this.vmProvisioner = provisioner;
+		this.hostPolicies = hostPolicies;
+	}
+	
+	/**
+	 * @param vmId a VM of this controller
+	 * @return the MIPS the VM's host gives to each processing element of the VM, or null 
+	 * 			if the VM is not on a host yet or the hosts are not known
+	 */
+	public double[] getVmMipsShare(int vmId){
+		if (vmProvisioner == null){
+			return null;
+		}
+		
+		Host host = vmProvisioner.getHost(vmId, get_id());
+		if ((host == null) || (host.getMachineID() >= hostPolicies.size())){
+			return null;
+		}
+		
+		return hostPolicies.get(host.getMachineID()).getMIPSShare(vmId, get_id());
+	}
+	
+	/**
+	 * @return the current simulation time, for the load balancers
+	 */
+	public double getCurrentTime(){
+		return clock();
+	}
+	
+	/**
+	 * @return the load balancer of this controller, or null if it has none yet
+	 */
+	public VmLoadBalancer getLoadBalancer(){
+		return loadBalancer;
+	}
+	
+	/**
+	 * Sets the queue the cloudlets wait in when no VM is available. The controller starts
+	 * with an unbounded queue. This must be called before the simulation starts.
+	 * 
+	 * @param policy {@link Constants#WAITING_QUEUE_REJECT_NEW}, 
+	 * 			{@link Constants#WAITING_QUEUE_DROP_OLDEST} or {@link Constants#WAITING_QUEUE_CODEL}
+	 * @param capacity the largest number of cloudlets in the queue, 0 or less for no limit
+	 * @param targetDelay the target delay of the CoDel policy, in ms
+	 */
+	public void setWaitingQueuePolicy(String policy, int capacity, double targetDelay){
+		if (policy.equals(Constants.WAITING_QUEUE_DROP_OLDEST)){
+			setWaitingQueue(new DropOldestWaitingQueue(capacity));
+		} else if (policy.equals(Constants.WAITING_QUEUE_CODEL)){
+			setWaitingQueue(new CoDelWaitingQueue(capacity, targetDelay));
+		} else {
+			setWaitingQueue(new RejectNewWaitingQueue(capacity));
+		}
+	}
+	
+	private void setWaitingQueue(WaitingQueue queue){
+		queue.setShedListener(shedListener);
+		this.waitingQueue = queue;
+	}
+	
+	/**
+	 * @return the queue the cloudlets wait in when no VM is available, with the statistics
+	 * 			of the queueing in this data center
+	 */
+	public WaitingQueue getWaitingQueue(){
+		return waitingQueue;
+	}
+	
+	/**
+	 * Sets the time a VM created with {@link #createNewVm()} takes to boot, and the time a 
+	 * VM taken out of service with {@link #releaseVm()} takes to be torn down once it has
+	 * finished its cloudlets. Both are 0 unless set.
+	 * 
+	 * @param bootDelay the boot delay, in ms
+	 * @param teardownDelay the teardown delay, in ms
+	 */
+	public void setVmDelays(double bootDelay, double teardownDelay){
+		this.vmBootDelay = bootDelay;
+		this.vmTeardownDelay = teardownDelay;
+	}
+	
+	/**
+	 * Makes an auto scaler scale the VMs of this controller, evaluated every evaluation
+	 * interval of its policy. This must be called before the simulation starts.
+	 * 
+	 * @param autoScaler the auto scaler
+	 */
+	public void setAutoScaler(VmAutoScaler autoScaler){
+		this.autoScaler = autoScaler;
+	}
+	
+	/**
+	 * @return the auto scaler of this controller, or null if it has none
+	 */
+	public VmAutoScaler getAutoScaler(){
+		return autoScaler;
+	}
+	
+	/**
+	 * @return the number of VMs in service
+	 */
+	public int getVmsInService(){
+		return vmStatesList.size();
+	}
+	
+	/**
+	 * @return the largest number of VMs in service at once
+	 */
+	public int getPeakVmsInService(){
+		return peakVmsInService;
+	}
+	
+	/**
+	 * @return the number of VMs created with {@link #createNewVm()} that are not in service
+	 * 			yet
+	 */
+	public int getVmsStarting(){
+		return startingVms.cardinality();
+	}
+	
+	/**
+	 * @return the per VM load counters of this controller, shared with its load balancer
+	 */
+	public VmLoadTable getVmLoadTable(){
+		return vmLoadTable;
+	}
+	
+	/**
+	 * Returns the index of the number of cloudlets each VM is running, creating it and 
+	 * registering it as a load listener of this controller on the first call.
+	 * 
+	 * @return the {@link VmLoadIndex} of this controller
+	 */
+	public VmLoadIndex getVmLoadIndex(){
+		if (vmLoadIndex == null){
+			vmLoadIndex = new VmLoadIndex();
+			addVmLoadListener(vmLoadIndex);
+		}
+		
+		return vmLoadIndex;
+	}
+
+
+	/**
+	 * @return the service time statistics, overall and by the hour of the day
+	 */
+	public IntervalStat getServiceTimeStat() {
+		return stat;
+	}
 
 
 	/**
@@ -516,5 +1224,20 @@ public class DatacenterController extends DatacenterBroker implements GeoLocatab
 		return allRequestsProcessed;
 	}
 	
+	/**
+	 * @return the number of cloudlets from the user bases being processed, i.e. with at least
+	 * 			one of their requests not completed yet
+	 */
+	public int getRequestsInFlight() {
+		return processingCloudletStatuses.size();
+	}
+	
+	/**
+	 * @return the largest number of cloudlets from the user bases processed at once
+	 */
+	public int getPeakRequestsInFlight() {
+		return processingCloudletStatuses.getPeakSize();
+	}
+	
 	
 }
@@ -0,0 +1,24 @@
+package cloudsim.ext.datacenter;
+
+import cloudsim.ext.InternetCloudlet;
+
+/**
+ * {@link WaitingQueue} that, when it is full, sheds the cloudlet that has waited the longest
+ * to make room for the one arriving (head drop). The users whose requests have waited longest
+ * are the likeliest to have given up on them, and the requests served are the freshest.
+ */
+public class DropOldestWaitingQueue extends WaitingQueue {
+
+	/**
+	 * @param capacity the largest number of cloudlets in the queue, 0 or less for no limit
+	 */
+	public DropOldestWaitingQueue(int capacity){
+		super(capacity);
+	}
+
+	@Override
+	protected void offerWhenFull(InternetCloudlet cl, double now) {
+		shedFirst(now);
+		addLast(cl, now);
+	}
+}
@@ -0,0 +1,107 @@
+package cloudsim.ext.datacenter;
+
+import java.util.Map;
+
+import cloudsim.TimeSharedVMScheduler;
+import cloudsim.VMScheduler;
+import cloudsim.VirtualMachine;
+import cloudsim.ext.InternetCloudlet;
+
+/**
+ * Load balancer that allocates each cloudlet to the VM expected to complete it first: the one
+ * with the least work ahead of it, relative to its MIPS share, counting the cloudlet itself.
+ *
+ * The work ahead of a VM is what its {@link VMScheduler} has left (see
+ * {@link VMScheduler#getRemainingWork(double)}) plus what the controller sent it that has not
+ * reached it yet, found by comparing the work sent (from the {@link VmLoadTable}) with the work
+ * the scheduler received. Both are kept up to date as cloudlets come and go, so an allocation
+ * takes constant time per VM. On a time shared VM a cloudlet shares the processor with the
+ * others, so each of them holds it up by no more than its own length. Ties go to the lower VM.
+ */
+public class EarliestCompletionVmLoadBalancer extends VmLoadBalancer {
+
+	private final DatacenterController dcb;
+	private final Map<Integer, VirtualMachineState> vmStatesList;
+	private final VmLoadTable loads;
+	/** The VMs whose schedulers are cached, to notice a VM id being reused by a new VM. */
+	private VirtualMachine[] vms = new VirtualMachine[0];
+	private VMScheduler[] schedulers = new VMScheduler[0];
+
+	public EarliestCompletionVmLoadBalancer(DatacenterController dcb) {
+		super();
+		this.dcb = dcb;
+		this.vmStatesList = dcb.getVmStatesList();
+		this.loads = dcb.getVmLoadTable();
+	}
+
+	@Override
+	public int getNextAvailableVm() {
+		return getNextAvailableVm(null);
+	}
+
+	@Override
+	public int getNextAvailableVm(InternetCloudlet cl) {
+		int vmCount = vmStatesList.size();
+		if (vmCount == 0){
+			return -1;
+		}
+		if (schedulers.length != vmCount){
+			vms = new VirtualMachine[vmCount];
+			schedulers = new VMScheduler[vmCount];
+		}
+		for (int i = 0; i < vmCount; i++){
+			VirtualMachine vm = (VirtualMachine) dcb.vmlist.get(i);
+			if (vms[i] != vm){
+				vms[i] = vm;
+				schedulers[i] = vm.getVMScheduler();
+			}
+		}
+
+		double now = dcb.getCurrentTime();
+		double length = (cl != null) ? cl.getGridletLength() : 0;
+		int vmId = 0;
+		double earliest = Double.MAX_VALUE;
+		for (int i = 0; i < vmCount; i++){
+			double workAhead = getWorkAhead(i, now);
+			if (schedulers[i] instanceof TimeSharedVMScheduler){
+				//Shares the VM with the others, each of which delays it by no more than its own length
+				workAhead = Math.min(workAhead, loads.getActiveCloudlets(i) * length);
+			}
+			double completion = (workAhead + length) / getCapacity(i);
+			if (completion < earliest){
+				earliest = completion;
+				vmId = i;
+			}
+		}
+
+		allocatedVm(vmId);
+		return vmId;
+	}
+
+	/**
+	 * @return the work, in MI, a VM has to do before a cloudlet sent to it now
+	 */
+	private double getWorkAhead(int vmId, double now){
+		VMScheduler scheduler = schedulers[vmId];
+		double inTransit = Math.max(0, loads.getSubmittedWork(vmId) - scheduler.getSubmittedWork());
+
+		return scheduler.getRemainingWork(now) + inTransit;
+	}
+
+	/**
+	 * @return the MIPS share of a VM, from its scheduler or else its host, or 1 if not known
+	 */
+	private double getCapacity(int vmId){
+		double capacity = schedulers[vmId].getCapacity();
+		if (capacity <= 0){
+			double[] share = dcb.getVmMipsShare(vmId);
+			if (share != null){
+				for (double peMips : share){
+					capacity += peMips;
+				}
+			}
+		}
+
+		return (capacity > 0) ? capacity : 1;
+	}
+}
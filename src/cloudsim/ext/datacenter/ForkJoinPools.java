@@ -0,0 +1,33 @@
+package cloudsim.ext.datacenter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The {@link ForkJoinPool}s the load balancers run their parallel work on, one for each
+ * parallelism, shared by all the balancers of all the simulations in the JVM. A balancer
+ * has no say in when its simulation ends, so pools of its own would never be shut down,
+ * and runs made one after the other or side by side would pile up their threads.
+ */
+class ForkJoinPools {
+
+	private static final Map<Integer, ForkJoinPool> pools = new HashMap<Integer, ForkJoinPool>();
+
+	private ForkJoinPools(){
+	}
+
+	/**
+	 * @param parallelism the number of threads of the pool
+	 * @return the shared pool with that number of threads
+	 */
+	static synchronized ForkJoinPool get(int parallelism){
+		ForkJoinPool pool = pools.get(parallelism);
+		if (pool == null){
+			pool = new ForkJoinPool(parallelism);
+			pools.put(parallelism, pool);
+		}
+
+		return pool;
+	}
+}
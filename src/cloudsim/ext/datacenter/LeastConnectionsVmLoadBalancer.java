@@ -0,0 +1,62 @@
+package cloudsim.ext.datacenter;
+
+import java.util.Map;
+
+import cloudsim.ext.InternetCloudlet;
+
+/**
+ * Load balancer that allocates every cloudlet to the VM currently running the fewest
+ * cloudlets, the one with the lowest id if several run as few. The counts are kept by the
+ * controller's {@link VmLoadIndex}, so an allocation takes constant time whatever the number
+ * of VMs. A group of cloudlets is spread over the least loaded VMs in one pass, see
+ * {@link VmLoadIndex#getLeastLoadedVms(int, int[])}, unless it is small for the number of
+ * VMs, when moving the few VMs allocated in the index one at a time costs less.
+ */
+public class LeastConnectionsVmLoadBalancer extends VmLoadBalancer {
+
+	/** The smallest group, per VM, allocated in one pass. */
+	static final double MIN_GROUP_PER_VM = 0.125;
+
+	private final Map<Integer, VirtualMachineState> vmStatesList;
+	private final VmLoadIndex loadIndex;
+
+	public LeastConnectionsVmLoadBalancer(DatacenterController dcb) {
+		super();
+		this.vmStatesList = dcb.getVmStatesList();
+		this.loadIndex = dcb.getVmLoadIndex();
+	}
+
+	@Override
+	public int getNextAvailableVm() {
+		//Only the VMs created so far can be allocated to
+		loadIndex.ensureVmCount(vmStatesList.size());
+
+		int vmId = loadIndex.getLeastLoadedVm();
+		if (vmId != -1){
+			allocatedVm(vmId);
+		}
+
+		return vmId;
+	}
+
+	@Override
+	public int getNextAvailableVms(int n, int[] out) {
+		int vmCount = vmStatesList.size();
+		if (n < vmCount * MIN_GROUP_PER_VM){
+			return super.getNextAvailableVms(null, n, out);
+		}
+		loadIndex.ensureVmCount(vmCount);
+
+		int count = loadIndex.getLeastLoadedVms(n, out);
+		for (int i = 0; i < count; i++){
+			allocatedVm(out[i]);
+		}
+
+		return count;
+	}
+
+	@Override
+	public int getNextAvailableVms(InternetCloudlet cl, int n, int[] out) {
+		return getNextAvailableVms(n, out);
+	}
+}
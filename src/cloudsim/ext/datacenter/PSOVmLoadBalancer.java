@@ -0,0 +1,360 @@
+package cloudsim.ext.datacenter;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Load balancer that hands out the VMs at random, in proportion to a weight for each VM
+ * found by particle swarm optimisation.
+ *
+ * Every {@link #OPTIMIZATION_INTERVAL} allocations the balancer takes a snapshot of the
+ * number of cloudlets each VM is running and of the average time its cloudlets took (from
+ * the controller's {@link VmLoadTable}), and starts a swarm on it. Each particle is a vector
+ * of VM weights. Its fitness is the expected time the next allocations will take on
+ * average, if made in proportion to the weights: a VM given a share p of them is expected
+ * to take its average service time times one plus the cloudlets it is running plus the
+ * share p of the next interval's allocations. The fitness of the particles can be evaluated
+ * in parallel on a {@link ForkJoinPool} shared with the other balancers (see
+ * {@link #setParallelism(int)}).
+ *
+ * In parallel, the swarm runs in the background while the allocations go on with the
+ * weights found by the one before, and its weights are taken up at the start of the next
+ * interval, waiting for it if need be. So the allocations themselves stay a constant time
+ * pick (Walker's alias method), and a balancer makes the same choices whatever the
+ * parallelism.
+ */
+public class PSOVmLoadBalancer extends VmLoadBalancer {
+
+	/** The number of allocations between optimisations. */
+	static final int OPTIMIZATION_INTERVAL = 100;
+	static final int SWARM_SIZE = 20;
+	static final int ITERATIONS = 40;
+	static final double INERTIA = 0.72;
+	static final double COGNITIVE = 1.49;
+	static final double SOCIAL = 1.49;
+	static final double MIN_WEIGHT = 0.01;
+	static final double MAX_WEIGHT = 1;
+	static final double MAX_VELOCITY = 0.25;
+
+	private final Map<Integer, VirtualMachineState> vmStatesList;
+	private final VmLoadTable loads;
+	/** Draws the allocations. */
+	private final Random random;
+	/** Seeds the swarms. */
+	private final Random swarmSeeds;
+	private Weights solution;
+	private Swarm pending;
+	private int allocations = 0;
+	private int parallelism = 1;
+	private ForkJoinPool pool;
+
+	public PSOVmLoadBalancer(DatacenterController dcb) {
+		super();
+		this.vmStatesList = dcb.getVmStatesList();
+		this.loads = dcb.getVmLoadTable();
+		this.random = new Random(dcb.get_id());
+		this.swarmSeeds = new Random(~dcb.get_id());
+	}
+
+	@Override
+	public int getNextAvailableVm() {
+		int vmCount = vmStatesList.size();
+		if (vmCount == 0){
+			return -1;
+		}
+
+		if (++allocations % OPTIMIZATION_INTERVAL == 0){
+			if (pending != null){
+				solution = pending.join();
+			}
+			startSwarm(vmCount);
+		}
+
+		if ((solution == null) || (solution.weights.length != vmCount)){
+			//New VMs get the full weight until a swarm says otherwise
+			solution = new Weights(extend(solution, vmCount));
+		}
+
+		int vmId = solution.pick(random);
+		allocatedVm(vmId);
+		return vmId;
+	}
+
+	private void startSwarm(int vmCount){
+		double[] queueLengths = new double[vmCount];
+		double[] serviceTimes = new double[vmCount];
+		double knownTotal = 0;
+		int known = 0;
+		for (int i = 0; i < vmCount; i++){
+			queueLengths[i] = loads.getActiveCloudlets(i);
+			serviceTimes[i] = loads.getAverageServiceTime(i);
+			if (serviceTimes[i] > 0){
+				knownTotal += serviceTimes[i];
+				known++;
+			}
+		}
+
+		//VMs that completed nothing yet are taken to be average
+		double average = (known > 0) ? knownTotal / known : 1;
+		for (int i = 0; i < vmCount; i++){
+			if (serviceTimes[i] == 0){
+				serviceTimes[i] = average;
+			}
+		}
+
+		pending = new Swarm(queueLengths, serviceTimes, extend(solution, vmCount), swarmSeeds.nextLong(), parallelism > 1);
+		if (parallelism > 1){
+			if (pool == null){
+				pool = ForkJoinPools.get(parallelism);
+			}
+			pool.execute(pending);
+		} else {
+			pending.invoke();
+		}
+	}
+
+	/**
+	 * The weights of a solution for a number of VMs, the full weight for VMs it does not cover.
+	 */
+	private static double[] extend(Weights solution, int vmCount){
+		int known = (solution == null) ? 0 : Math.min(solution.weights.length, vmCount);
+		double[] weights = new double[vmCount];
+		if (known > 0){
+			System.arraycopy(solution.weights, 0, weights, 0, known);
+		}
+		Arrays.fill(weights, known, vmCount, MAX_WEIGHT);
+		return weights;
+	}
+
+	/**
+	 * @param parallelism the number of threads the swarms run on. With 1, the default, they
+	 * 		run on the calling thread, when started.
+	 */
+	public void setParallelism(int parallelism) {
+		if (parallelism < 1){
+			throw new IllegalArgumentException("Parallelism must be at least 1, got " + parallelism);
+		}
+
+		if (pending != null){
+			pending.join();
+		}
+		//The pool is shared with the other balancers, so it is left running
+		pool = null;
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * @return the number of threads the swarms run on
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * @return the weights the VMs are currently allocated by, or null before the first allocation
+	 */
+	public double[] getWeights() {
+		return (solution == null) ? null : Arrays.copyOf(solution.weights, solution.weights.length);
+	}
+
+	/**
+	 * The expected average time of the next allocations if made in proportion to the weights.
+	 */
+	static double fitness(double[] weights, double[] queueLengths, double[] serviceTimes){
+		double total = 0;
+		for (double w : weights){
+			total += w;
+		}
+
+		double expected = 0;
+		for (int i = 0; i < weights.length; i++){
+			double share = weights[i] / total;
+			expected += share * serviceTimes[i] * (1 + queueLengths[i] + share * OPTIMIZATION_INTERVAL);
+		}
+
+		return expected;
+	}
+
+	/** One optimisation, on a snapshot of the VM loads. */
+	private static class Swarm extends RecursiveTask<Weights> {
+		private static final long serialVersionUID = 1L;
+
+		private final double[] queueLengths;
+		private final double[] serviceTimes;
+		private final boolean parallel;
+		private final Random rand;
+		private final double[][] positions;
+		private final double[][] velocities;
+		private final double[] fitnesses;
+		private final double[][] bestPositions;
+		private final double[] bestFitnesses;
+		private double[] globalBest;
+		private double globalBestFitness = Double.MAX_VALUE;
+
+		Swarm(double[] queueLengths, double[] serviceTimes, double[] start, long seed, boolean parallel) {
+			this.queueLengths = queueLengths;
+			this.serviceTimes = serviceTimes;
+			this.parallel = parallel;
+			this.rand = new Random(seed);
+
+			int n = start.length;
+			positions = new double[SWARM_SIZE][];
+			velocities = new double[SWARM_SIZE][n];
+			fitnesses = new double[SWARM_SIZE];
+			bestPositions = new double[SWARM_SIZE][];
+			bestFitnesses = new double[SWARM_SIZE];
+
+			//Start from the current weights, equal weights and random ones
+			positions[0] = start.clone();
+			positions[1] = new double[n];
+			Arrays.fill(positions[1], MAX_WEIGHT);
+			for (int p = 2; p < SWARM_SIZE; p++){
+				positions[p] = new double[n];
+				for (int i = 0; i < n; i++){
+					positions[p][i] = MIN_WEIGHT + rand.nextDouble() * (MAX_WEIGHT - MIN_WEIGHT);
+				}
+			}
+		}
+
+		@Override
+		protected Weights compute() {
+			evaluate();
+			for (int p = 0; p < SWARM_SIZE; p++){
+				bestPositions[p] = positions[p].clone();
+				bestFitnesses[p] = fitnesses[p];
+			}
+			updateGlobalBest();
+
+			for (int iteration = 0; iteration < ITERATIONS; iteration++){
+				move();
+				evaluate();
+				for (int p = 0; p < SWARM_SIZE; p++){
+					if (fitnesses[p] < bestFitnesses[p]){
+						bestFitnesses[p] = fitnesses[p];
+						System.arraycopy(positions[p], 0, bestPositions[p], 0, positions[p].length);
+					}
+				}
+				updateGlobalBest();
+			}
+
+			return new Weights(globalBest);
+		}
+
+		private void move(){
+			for (int p = 0; p < SWARM_SIZE; p++){
+				double[] x = positions[p];
+				double[] v = velocities[p];
+				for (int i = 0; i < x.length; i++){
+					v[i] = INERTIA * v[i]
+						   + COGNITIVE * rand.nextDouble() * (bestPositions[p][i] - x[i])
+						   + SOCIAL * rand.nextDouble() * (globalBest[i] - x[i]);
+					v[i] = Math.max(-MAX_VELOCITY, Math.min(MAX_VELOCITY, v[i]));
+					x[i] = Math.max(MIN_WEIGHT, Math.min(MAX_WEIGHT, x[i] + v[i]));
+				}
+			}
+		}
+
+		private void evaluate(){
+			if (parallel){
+				new Evaluation(0, SWARM_SIZE).invoke();
+			} else {
+				for (int p = 0; p < SWARM_SIZE; p++){
+					fitnesses[p] = fitness(positions[p], queueLengths, serviceTimes);
+				}
+			}
+		}
+
+		private void updateGlobalBest(){
+			for (int p = 0; p < SWARM_SIZE; p++){
+				if (bestFitnesses[p] < globalBestFitness){
+					globalBestFitness = bestFitnesses[p];
+					globalBest = bestPositions[p].clone();
+				}
+			}
+		}
+
+		/** Evaluates the fitness of a range of the particles, splitting it up for the pool. */
+		private class Evaluation extends RecursiveAction {
+			private static final long serialVersionUID = 1L;
+
+			private final int from;
+			private final int to;
+
+			Evaluation(int from, int to) {
+				this.from = from;
+				this.to = to;
+			}
+
+			@Override
+			protected void compute() {
+				if (to - from == 1){
+					fitnesses[from] = fitness(positions[from], queueLengths, serviceTimes);
+				} else {
+					int middle = (from + to) >>> 1;
+					invokeAll(new Evaluation(from, middle), new Evaluation(middle, to));
+				}
+			}
+		}
+	}
+
+	/** VM weights, with an alias table to pick VMs in proportion to them in constant time. */
+	private static class Weights {
+		private final double[] weights;
+		private final double[] probabilities;
+		private final int[] aliases;
+
+		Weights(double[] weights) {
+			int n = weights.length;
+			this.weights = weights;
+			this.probabilities = new double[n];
+			this.aliases = new int[n];
+
+			double total = 0;
+			for (double w : weights){
+				total += w;
+			}
+
+			//Vose's construction
+			double[] scaled = new double[n];
+			int[] small = new int[n];
+			int[] large = new int[n];
+			int smallCount = 0;
+			int largeCount = 0;
+			for (int i = 0; i < n; i++){
+				scaled[i] = weights[i] * n / total;
+				if (scaled[i] < 1){
+					small[smallCount++] = i;
+				} else {
+					large[largeCount++] = i;
+				}
+			}
+			while ((smallCount > 0) && (largeCount > 0)){
+				int less = small[--smallCount];
+				int more = large[--largeCount];
+				probabilities[less] = scaled[less];
+				aliases[less] = more;
+				scaled[more] = (scaled[more] + scaled[less]) - 1;
+				if (scaled[more] < 1){
+					small[smallCount++] = more;
+				} else {
+					large[largeCount++] = more;
+				}
+			}
+			while (largeCount > 0){
+				probabilities[large[--largeCount]] = 1;
+			}
+			while (smallCount > 0){
+				probabilities[small[--smallCount]] = 1;
+			}
+		}
+
+		int pick(Random random){
+			int i = random.nextInt(probabilities.length);
+			return (random.nextDouble() < probabilities[i]) ? i : aliases[i];
+		}
+	}
+}
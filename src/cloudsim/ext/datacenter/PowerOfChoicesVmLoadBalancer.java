@@ -0,0 +1,72 @@
+package cloudsim.ext.datacenter;
+
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Load balancer that samples a few VMs at random for every allocation and picks the one
+ * running the fewest cloudlets, the first one sampled if several run as few ("power of d
+ * choices"). Sampling two VMs already spreads the load almost as well as looking at all of
+ * them, at a cost that does not grow with the number of VMs. Sampling one is a random
+ * allocation.
+ *
+ * The number of cloudlets each VM is running is read from the controller's
+ * {@link VmLoadTable}.
+ */
+public class PowerOfChoicesVmLoadBalancer extends VmLoadBalancer {
+
+	/** The number of VMs sampled for an allocation unless set otherwise. */
+	public static final int DEFAULT_CHOICES = 2;
+
+	private final Map<Integer, VirtualMachineState> vmStatesList;
+	private final VmLoadTable loads;
+	private final Random random;
+	private int choices = DEFAULT_CHOICES;
+
+	public PowerOfChoicesVmLoadBalancer(DatacenterController dcb) {
+		super();
+		this.vmStatesList = dcb.getVmStatesList();
+		this.loads = dcb.getVmLoadTable();
+		this.random = new Random(dcb.get_id());
+	}
+
+	@Override
+	public int getNextAvailableVm() {
+		int vmCount = vmStatesList.size();
+		if (vmCount == 0){
+			return -1;
+		}
+
+		int vmId = random.nextInt(vmCount);
+		int load = loads.getActiveCloudlets(vmId);
+		for (int i = 1; i < choices; i++){
+			int candidate = random.nextInt(vmCount);
+			int candidateLoad = loads.getActiveCloudlets(candidate);
+			if (candidateLoad < load){
+				vmId = candidate;
+				load = candidateLoad;
+			}
+		}
+
+		allocatedVm(vmId);
+		return vmId;
+	}
+
+	/**
+	 * @param choices the number of VMs sampled, with replacement, for each allocation
+	 */
+	public void setChoices(int choices) {
+		if (choices < 1){
+			throw new IllegalArgumentException("At least one VM must be sampled, got " + choices);
+		}
+
+		this.choices = choices;
+	}
+
+	/**
+	 * @return the number of VMs sampled for each allocation
+	 */
+	public int getChoices() {
+		return choices;
+	}
+}
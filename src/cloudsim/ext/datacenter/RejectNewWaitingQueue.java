@@ -0,0 +1,22 @@
+package cloudsim.ext.datacenter;
+
+import cloudsim.ext.InternetCloudlet;
+
+/**
+ * {@link WaitingQueue} that sheds the cloudlets that arrive when it is full, keeping the
+ * ones already waiting (tail drop). With no capacity it never sheds anything.
+ */
+public class RejectNewWaitingQueue extends WaitingQueue {
+
+	/**
+	 * @param capacity the largest number of cloudlets in the queue, 0 or less for no limit
+	 */
+	public RejectNewWaitingQueue(int capacity){
+		super(capacity);
+	}
+
+	@Override
+	protected void offerWhenFull(InternetCloudlet cl, double now) {
+		shed(cl);
+	}
+}
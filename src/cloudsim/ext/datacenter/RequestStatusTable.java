@@ -0,0 +1,215 @@
+package cloudsim.ext.datacenter;
+
+/**
+ * The requests a {@link DatacenterController} is processing, keyed by the id of the cloudlet
+ * that brought them in. For each it holds the number of requests in the cloudlet, the number
+ * of them completed so far, the number of those that were shed rather than processed (see
+ * {@link WaitingQueue}) and the time it arrived.
+ *
+ * The table is an open addressing hash table with linear probing over an int array of keys
+ * and parallel long arrays of values, which are updated in place, so that recording a
+ * partial response boxes nothing and creates no garbage. Entries are removed by shifting
+ * the entries after them back, so there are no tombstones and lookups never slow down as
+ * requests come and go. The table doubles when it gets three quarters full; it never
+ * shrinks.
+ *
+ * An entry is found with {@link #indexOf(int)}, which returns the slot it is in. The slot
+ * stays valid until the next {@link #put(int, long, long)} or {@link #removeAt(int)}.
+ */
+public class RequestStatusTable {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private int[] keys;
+	private boolean[] used;
+	private long[] totalRequests;
+	private long[] completedRequests;
+	private long[] shedRequests;
+	private long[] startTimes;
+	private int mask;
+	private int size = 0;
+	private int peakSize = 0;
+
+	/** Constructor. */
+	public RequestStatusTable(){
+		allocate(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Adds a request with none completed yet, replacing any entry with the same id.
+	 *
+	 * @param requestId the id of the cloudlet
+	 * @param total the number of requests in the cloudlet
+	 * @param startTime the time the cloudlet arrived
+	 */
+	public void put(int requestId, long total, long startTime){
+		int slot = indexOf(requestId);
+		if (slot < 0){
+			if ((size + 1) * 4 > keys.length * 3){
+				rehash(keys.length * 2);
+			}
+
+			slot = hash(requestId) & mask;
+			while (used[slot]){
+				slot = (slot + 1) & mask;
+			}
+			keys[slot] = requestId;
+			used[slot] = true;
+			size++;
+			if (size > peakSize){
+				peakSize = size;
+			}
+		}
+
+		totalRequests[slot] = total;
+		completedRequests[slot] = 0;
+		shedRequests[slot] = 0;
+		startTimes[slot] = startTime;
+	}
+
+	/**
+	 * @param requestId the id of a cloudlet
+	 * @return the slot of the entry of the cloudlet, or -1 if it is not in the table
+	 */
+	public int indexOf(int requestId){
+		int slot = hash(requestId) & mask;
+		while (used[slot]){
+			if (keys[slot] == requestId){
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * @param slot the slot of an entry
+	 * @return the number of requests in the cloudlet
+	 */
+	public long getTotalRequests(int slot){
+		return totalRequests[slot];
+	}
+
+	/**
+	 * @param slot the slot of an entry
+	 * @return the number of requests of the cloudlet completed so far
+	 */
+	public long getCompletedRequests(int slot){
+		return completedRequests[slot];
+	}
+
+	/**
+	 * @param slot the slot of an entry
+	 * @param completed the number of requests of the cloudlet completed so far
+	 */
+	public void setCompletedRequests(int slot, long completed){
+		completedRequests[slot] = completed;
+	}
+
+	/**
+	 * @param slot the slot of an entry
+	 * @return the number of requests of the cloudlet shed so far
+	 */
+	public long getShedRequests(int slot){
+		return shedRequests[slot];
+	}
+
+	/**
+	 * @param slot the slot of an entry
+	 * @param shed the number of requests of the cloudlet shed so far
+	 */
+	public void setShedRequests(int slot, long shed){
+		shedRequests[slot] = shed;
+	}
+
+	/**
+	 * @param slot the slot of an entry
+	 * @return the time the cloudlet arrived
+	 */
+	public long getStartTime(int slot){
+		return startTimes[slot];
+	}
+
+	/**
+	 * Removes an entry, moving back the entries after it that would otherwise no longer be
+	 * found.
+	 *
+	 * @param slot the slot of the entry
+	 */
+	public void removeAt(int slot){
+		int free = slot;
+		int next = (free + 1) & mask;
+		while (used[next]){
+			int home = hash(keys[next]) & mask;
+			//The entry can move to the free slot if its home is not after the free slot
+			// (going round from the entry's slot)
+			if (((next - home) & mask) >= ((next - free) & mask)){
+				keys[free] = keys[next];
+				totalRequests[free] = totalRequests[next];
+				completedRequests[free] = completedRequests[next];
+				shedRequests[free] = shedRequests[next];
+				startTimes[free] = startTimes[next];
+				free = next;
+			}
+			next = (next + 1) & mask;
+		}
+		used[free] = false;
+		size--;
+	}
+
+	/**
+	 * @return the number of requests in the table
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * @return the largest number of requests the table held at once
+	 */
+	public int getPeakSize(){
+		return peakSize;
+	}
+
+	private void rehash(int capacity){
+		int[] oldKeys = keys;
+		boolean[] oldUsed = used;
+		long[] oldTotals = totalRequests;
+		long[] oldCompleted = completedRequests;
+		long[] oldShed = shedRequests;
+		long[] oldStartTimes = startTimes;
+
+		allocate(capacity);
+		for (int i = 0; i < oldKeys.length; i++){
+			if (oldUsed[i]){
+				int slot = hash(oldKeys[i]) & mask;
+				while (used[slot]){
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[i];
+				used[slot] = true;
+				totalRequests[slot] = oldTotals[i];
+				completedRequests[slot] = oldCompleted[i];
+				shedRequests[slot] = oldShed[i];
+				startTimes[slot] = oldStartTimes[i];
+			}
+		}
+	}
+
+	private void allocate(int capacity){
+		keys = new int[capacity];
+		used = new boolean[capacity];
+		totalRequests = new long[capacity];
+		completedRequests = new long[capacity];
+		shedRequests = new long[capacity];
+		startTimes = new long[capacity];
+		mask = capacity - 1;
+	}
+
+	/** Spreads the ids, which come in runs, over the table. */
+	private static int hash(int key){
+		int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
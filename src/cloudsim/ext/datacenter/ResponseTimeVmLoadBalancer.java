@@ -0,0 +1,144 @@
+package cloudsim.ext.datacenter;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Load balancer that learns how fast each VM serves its cloudlets and allocates each cloudlet
+ * to the VM with the shortest expected wait: the VM's average service time times the number
+ * of cloudlets it would be running with the new one.
+ *
+ * The average is an exponentially weighted moving average of the service times of the
+ * cloudlets the VM returns, each divided by the number of cloudlets it shared the VM with,
+ * so it follows changes in the VM's speed rather than in its load. A VM whose average is high
+ * gets few cloudlets, and so few new samples; the averages of VMs that returned nothing for a
+ * while are decayed towards the mean of all the VMs, to try them again. VMs that have not
+ * returned any cloudlet yet are taken to be at the mean, which makes the allocation least
+ * connections until the first cloudlets come back.
+ */
+public class ResponseTimeVmLoadBalancer extends VmLoadBalancer implements VmLoadListener {
+
+	/** The weight of the latest service time in the average. */
+	static final double SMOOTHING = 0.25;
+	/** The time, in ms, a VM can go without returning a cloudlet before its average decays. */
+	static final double DECAY_INTERVAL = 1000;
+	/** The fraction of its distance from the mean the average of a VM keeps at each decay. */
+	static final double DECAY = 0.5;
+
+	private final DatacenterController dcb;
+	private final Map<Integer, VirtualMachineState> vmStatesList;
+	private final VmLoadTable loads;
+	private double[] averageServiceTimes = new double[16];
+	/** Whether each VM returned a cloudlet since the last decay. */
+	private boolean[] sampled = new boolean[16];
+	private double nextDecay = DECAY_INTERVAL;
+	private double totalServiceTime = 0;
+	private int sampledVms = 0;
+
+	public ResponseTimeVmLoadBalancer(DatacenterController dcb){
+		super();
+		this.dcb = dcb;
+		this.vmStatesList = dcb.getVmStatesList();
+		this.loads = dcb.getVmLoadTable();
+		dcb.addVmLoadListener(this);
+	}
+
+	@Override
+	public int getNextAvailableVm(){
+		int vmCount = vmStatesList.size();
+		if (vmCount == 0){
+			return -1;
+		}
+		ensureVmCount(vmCount);
+
+		double now = dcb.getCurrentTime();
+		if (now >= nextDecay){
+			decay();
+			nextDecay = now + DECAY_INTERVAL;
+		}
+
+		double mean = getMeanServiceTime();
+		int vmId = 0;
+		double shortestWait = Double.MAX_VALUE;
+		for (int i = 0; i < vmCount; i++){
+			double average = (averageServiceTimes[i] > 0) ? averageServiceTimes[i] : mean;
+			double wait = average * (loads.getActiveCloudlets(i) + 1);
+			if (wait < shortestWait){
+				shortestWait = wait;
+				vmId = i;
+			}
+		}
+
+		allocatedVm(vmId);
+		return vmId;
+	}
+
+	public void onAllocated(int vmId) {
+	}
+
+	public void onAllocated(int[] vmIds, int count) {
+	}
+
+	public void onFinished(int vmId, double serviceTime) {
+		ensureVmCount(vmId + 1);
+		//The table no longer counts the cloudlet that finished
+		double sample = serviceTime / (loads.getActiveCloudlets(vmId) + 1);
+
+		double previous = averageServiceTimes[vmId];
+		if (previous == 0){
+			averageServiceTimes[vmId] = sample;
+			sampledVms++;
+		} else {
+			averageServiceTimes[vmId] += SMOOTHING * (sample - previous);
+		}
+		totalServiceTime += averageServiceTimes[vmId] - previous;
+		sampled[vmId] = true;
+	}
+
+	@Override
+	public void vmDestroyed(int vmId){
+		if ((vmId < averageServiceTimes.length) && (averageServiceTimes[vmId] > 0)){
+			totalServiceTime -= averageServiceTimes[vmId];
+			sampledVms--;
+			averageServiceTimes[vmId] = 0;
+		}
+	}
+
+	/**
+	 * Decays the averages of the VMs that returned nothing since the last decay.
+	 */
+	private void decay(){
+		double mean = getMeanServiceTime();
+		for (int i = 0; i < sampled.length; i++){
+			if (!sampled[i] && (averageServiceTimes[i] > 0)){
+				double decayed = mean + DECAY * (averageServiceTimes[i] - mean);
+				totalServiceTime += decayed - averageServiceTimes[i];
+				averageServiceTimes[i] = decayed;
+			}
+			sampled[i] = false;
+		}
+	}
+
+	/**
+	 * @return the mean of the averages of the VMs that returned a cloudlet, or 1 if none has
+	 */
+	private double getMeanServiceTime(){
+		return (sampledVms > 0) ? totalServiceTime / sampledVms : 1;
+	}
+
+	private void ensureVmCount(int vmCount){
+		if (vmCount > averageServiceTimes.length){
+			int length = Math.max(vmCount, averageServiceTimes.length * 2);
+			averageServiceTimes = Arrays.copyOf(averageServiceTimes, length);
+			sampled = Arrays.copyOf(sampled, length);
+		}
+	}
+
+	/**
+	 * @param vmId a VM
+	 * @return the average service time of the VM, in ms, 0 if it has not returned a cloudlet
+	 */
+	public double getAverageServiceTime(int vmId){
+		return (vmId < averageServiceTimes.length) ? averageServiceTimes[vmId] : 0;
+	}
+}
@@ -2,6 +2,10 @@ package cloudsim.ext.datacenter;
 
 import java.util.Map;
 
+import cloudsim.ext.InternetCloudlet;
+import cloudsim.ext.util.SimLog;
+import cloudsim.ext.util.SimLog.Category;
+
 public class RoundRobinVmLoadBalancer extends VmLoadBalancer {
 	
 	private Map<Integer, VirtualMachineState> vmStatesList;
@@ -21,8 +25,38 @@ public class RoundRobinVmLoadBalancer extends VmLoadBalancer {
 		}
 		
 		allocatedVm(currVm);
-		System.out.println("allocated "+currVm);
+		if (SimLog.isEnabled(Category.LOAD_BALANCER, SimLog.Level.DEBUG)){
+			SimLog.debug(Category.LOAD_BALANCER, "allocated "+currVm);
+		}
 		return currVm;
 		
 	}
+
+	/**
+	 * Hands out the next n turns at once.
+	 */
+	@Override
+	public int getNextAvailableVms(int n, int[] out){
+		int vmCount = vmStatesList.size();
+		if (vmCount == 0){
+			return 0;
+		}
+
+		for (int i = 0; i < n; i++){
+			currVm++;
+			if (currVm >= vmCount){
+				currVm = 0;
+			}
+
+			out[i] = currVm;
+			allocatedVm(currVm);
+		}
+
+		return n;
+	}
+
+	@Override
+	public int getNextAvailableVms(InternetCloudlet cl, int n, int[] out){
+		return getNextAvailableVms(n, out);
+	}
 }
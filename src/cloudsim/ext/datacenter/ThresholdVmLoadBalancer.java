@@ -1,22 +1,21 @@
 package cloudsim.ext.datacenter;
 
 import java.util.ArrayDeque;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Deque;
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.Random;
+import cloudsim.ext.util.SimLog;
+import cloudsim.ext.util.SimLog.Category;
 
-import cloudsim.ext.Constants;
-import cloudsim.ext.event.CloudSimEvent;
-import cloudsim.ext.event.CloudSimEventListener;
-import cloudsim.ext.event.CloudSimEvents;
 
-
-public class ThresholdVmLoadBalancer extends VmLoadBalancer implements CloudSimEventListener {
+public class ThresholdVmLoadBalancer extends VmLoadBalancer implements VmLoadListener {
+	
+	/** Marks a VM without a count in {@link #currentAllocationCounts}. */
+	private static final int NO_COUNT = Integer.MIN_VALUE;
 	
-	private Map<Integer, Integer> currentAllocationCounts;
+	/** The allocation count of each VM, indexed by VM id, or NO_COUNT. */
+	private int[] currentAllocationCounts;
 	private Map<Integer, VirtualMachineState> vmStatesList;
 	
 	private final int tUnder = 50, tUpper = 150;
@@ -27,12 +26,13 @@ public class ThresholdVmLoadBalancer extends VmLoadBalancer implements CloudSimE
 	
 	
 	public ThresholdVmLoadBalancer(DatacenterController dcb){
-		dcb.addCloudSimEventListener(this);
+		dcb.addVmLoadListener(this);
 		this.vmStatesList = dcb.getVmStatesList();
 		rand = new Random();
 		initializeUnderLoaded();
 		overLoadedNodes = new ArrayDeque<Integer>(vmStatesList.size());;
-		this.currentAllocationCounts = Collections.synchronizedMap(new HashMap<Integer, Integer>());
+		this.currentAllocationCounts = new int[Math.max(16, vmStatesList.size())];
+		Arrays.fill(currentAllocationCounts, NO_COUNT);
 	
 	}
 	
@@ -52,14 +52,14 @@ public class ThresholdVmLoadBalancer extends VmLoadBalancer implements CloudSimE
 			
 			int rn = rand.nextInt(vmStatesList.size());
 			
-			Integer currCount = currentAllocationCounts.remove(rn); //get allocation counts for that node
-			if (currCount == null){
+			int currCount = removeCount(rn); //get allocation counts for that node
+			if (currCount == NO_COUNT){
 				currCount = 1;
 			}
 			
 			if (!(currCount > tUpper)){ //if(not overloaded) then rn
 				vmId = rn;
-			}else if(!underLoadedNodes.isEmpty()){ 
+			}else if(hasUnderLoadedNode()){ 
 				vmId = findUnderLoadedNode();
 			}else{
 				vmId = rn;
@@ -68,22 +68,37 @@ public class ThresholdVmLoadBalancer extends VmLoadBalancer implements CloudSimE
 			
 			if(vmId == rn){
 				if(currCount > 1) currCount++;
-				currentAllocationCounts.put(vmId, currCount);
+				putCount(vmId, currCount);
 			}else{
-				currentAllocationCounts.put(vmId, currCount);
+				putCount(vmId, currCount);
 			}
 		}
 		allocatedVm(vmId);
-		System.out.println("allocated "+vmId);
+		if (SimLog.isEnabled(Category.LOAD_BALANCER, SimLog.Level.DEBUG)){
+			SimLog.debug(Category.LOAD_BALANCER, "allocated "+vmId);
+		}
 		return vmId;
 	}
 
+	/**
+	 * Drops the VMs taken out of service from the head of the under loaded nodes.
+	 * 
+	 * @return true if there is an under loaded node left
+	 */
+	private boolean hasUnderLoadedNode() {
+		while (!underLoadedNodes.isEmpty() && !vmStatesList.containsKey(underLoadedNodes.peek())){
+			underLoadedNodes.pop();
+		}
+		
+		return !underLoadedNodes.isEmpty();
+	}
+
 	private int findUnderLoadedNode() {
 		
 		//If all available VMs are not allocated, allocated the new ones
 		int vmId = underLoadedNodes.pop();
-		Integer currCount = currentAllocationCounts.remove(vmId);
-		if (currCount == null){
+		int currCount = removeCount(vmId);
+		if (currCount == NO_COUNT){
 			currCount = 1;
 		} else {
 			currCount++;
@@ -91,34 +106,60 @@ public class ThresholdVmLoadBalancer extends VmLoadBalancer implements CloudSimE
 		if(currCount < tUnder){
 			underLoadedNodes.addLast(vmId);
 		}
-		currentAllocationCounts.put(vmId, currCount);
+		putCount(vmId, currCount);
 		return vmId;
 	}
+	
+	/**
+	 * Removes the allocation count of a VM.
+	 * 
+	 * @return the count, or NO_COUNT if the VM had none
+	 */
+	private int removeCount(int vmId){
+		if (vmId >= currentAllocationCounts.length){
+			return NO_COUNT;
+		}
+		
+		int count = currentAllocationCounts[vmId];
+		currentAllocationCounts[vmId] = NO_COUNT;
+		return count;
+	}
+	
+	private void putCount(int vmId, int count){
+		if (vmId >= currentAllocationCounts.length){
+			int oldLength = currentAllocationCounts.length;
+			currentAllocationCounts = Arrays.copyOf(currentAllocationCounts, Math.max(vmId + 1, oldLength * 2));
+			Arrays.fill(currentAllocationCounts, oldLength, currentAllocationCounts.length, NO_COUNT);
+		}
+		currentAllocationCounts[vmId] = count;
+	}
 
-	public void cloudSimEventFired(CloudSimEvent e) {
-		if (e.getId() == CloudSimEvents.EVENT_CLOUDLET_ALLOCATED_TO_VM){
-			int vmId = (Integer) e.getParameter(Constants.PARAM_VM_ID);
-			Integer currCount = currentAllocationCounts.remove(vmId);
-			if (currCount == null){
-				currCount = 1;
-			} else {
-				currCount++;
-			}
-			currentAllocationCounts.put(vmId, currCount);
-			
-		} else if (e.getId() == CloudSimEvents.EVENT_VM_FINISHED_CLOUDLET){
-			int vmId = (Integer) e.getParameter(Constants.PARAM_VM_ID);
-			Integer currCount = currentAllocationCounts.remove(vmId);
-			if (currCount != null){
-				currCount--;
-				currentAllocationCounts.put(vmId, currCount);
-				if(currCount < tUnder){
-					underLoadedNodes.addLast(vmId);//check VM for under and over load
-				}
-			}
-			if (currCount == null){
-				underLoadedNodes.push(vmId);
+	public void onAllocated(int vmId) {
+		int currCount = removeCount(vmId);
+		if (currCount == NO_COUNT){
+			currCount = 1;
+		} else {
+			currCount++;
+		}
+		putCount(vmId, currCount);
+	}
+	
+	public void onAllocated(int[] vmIds, int count) {
+		for (int i = 0; i < count; i++){
+			onAllocated(vmIds[i]);
+		}
+	}
+	
+	public void onFinished(int vmId, double serviceTime) {
+		int currCount = removeCount(vmId);
+		if (currCount != NO_COUNT){
+			currCount--;
+			putCount(vmId, currCount);
+			if(currCount < tUnder){
+				underLoadedNodes.addLast(vmId);//check VM for under and over load
 			}
+		} else {
+			underLoadedNodes.push(vmId);
 		}
 	}
 }
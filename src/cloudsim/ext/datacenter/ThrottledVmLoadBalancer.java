@@ -0,0 +1,79 @@
+package cloudsim.ext.datacenter;
+
+import cloudsim.ext.InternetCloudlet;
+
+/**
+ * Throttled load balancer: allocates a VM only while it is not running another cloudlet.
+ * When all the VMs are busy it returns -1, and the {@link DatacenterController} queues the
+ * cloudlet until one is free.
+ *
+ * The VMs are taken in turn: the search for an available VM starts after the last one
+ * allocated, in the controller's {@link VmStateTable}, so it takes the same time however
+ * many VMs there are. A group of cloudlets gets the available VMs found in one search, one
+ * each, up to the number available so that none is found twice; they are marked busy when
+ * the controller reports the cloudlets allocated to them.
+ */
+public class ThrottledVmLoadBalancer extends VmLoadBalancer implements VmLoadListener {
+
+	private final VmStateTable vmStates;
+	/** The VM last allocated. */
+	private int lastVm = -1;
+
+	public ThrottledVmLoadBalancer(DatacenterController dcb){
+		super();
+		this.vmStates = dcb.getVmStates();
+		dcb.addVmLoadListener(this);
+	}
+
+	@Override
+	public int getNextAvailableVm(){
+		int vmId = vmStates.nextAvailable(lastVm + 1);
+		if (vmId != -1){
+			lastVm = vmId;
+		}
+
+		allocatedVm(vmId);
+		return vmId;
+	}
+
+	@Override
+	public int getNextAvailableVms(int n, int[] out){
+		n = Math.min(n, vmStates.getAvailableCount());
+		for (int i = 0; i < n; i++){
+			int vmId = vmStates.nextAvailable(lastVm + 1);
+			lastVm = vmId;
+
+			out[i] = vmId;
+			allocatedVm(vmId);
+		}
+
+		return Math.max(n, 0);
+	}
+
+	@Override
+	public int getNextAvailableVms(InternetCloudlet cl, int n, int[] out){
+		return getNextAvailableVms(n, out);
+	}
+
+	/**
+	 * @return the number of VMs available
+	 */
+	@Override
+	public int getFreeCapacity(){
+		return vmStates.getAvailableCount();
+	}
+
+	public void onAllocated(int vmId) {
+		vmStates.updateAvailable(vmId, false);
+	}
+
+	public void onAllocated(int[] vmIds, int count) {
+		for (int i = 0; i < count; i++){
+			vmStates.updateAvailable(vmIds[i], false);
+		}
+	}
+
+	public void onFinished(int vmId, double serviceTime) {
+		vmStates.updateAvailable(vmId, true);
+	}
+}
@@ -0,0 +1,146 @@
+package cloudsim.ext.datacenter;
+
+import cloudsim.ext.util.SimLog;
+import cloudsim.ext.util.SimLog.Category;
+
+/**
+ * Scales the fleet of VMs of a {@link DatacenterController} out and in with its load, by the
+ * rules of an {@link AutoScalingPolicy}. The controller evaluates it every evaluation
+ * interval of the policy, and reports it the processing time of each request.
+ *
+ * Its inputs are the EWMA of the processing times, which decays towards 0 over the
+ * intervals without requests, the share of the last interval the VMs in service spent
+ * running cloudlets, from the controller's {@link VmLoadTable}, and the length of the
+ * waiting queue. It adds or removes one VM at a time: a new VM is billed from its creation
+ * but only takes cloudlets once it has booted, and a VM removed takes no new cloudlets but
+ * is only destroyed once it has finished the ones it runs, after the teardown delay (see
+ * {@link DatacenterController#createNewVm()} and {@link DatacenterController#releaseVm()}).
+ * Nothing is done while a VM is being started.
+ */
+public class VmAutoScaler {
+
+	private final DatacenterController dcb;
+	private final AutoScalingPolicy policy;
+
+	/** The EWMA of the processing times, or -1 before the first one. */
+	private double latency = -1;
+	private int latencySamples = 0;
+	private double utilization = 0;
+	private double lastEvaluationTime = 0;
+	private double lastBusyTime = 0;
+	private double lastScaleOutTime = Double.NEGATIVE_INFINITY;
+	private double lastScaleInTime = Double.NEGATIVE_INFINITY;
+	private int scaleOuts = 0;
+	private int scaleIns = 0;
+
+	/**
+	 * @param dcb the controller of the data center to scale
+	 * @param policy the rules to scale by
+	 */
+	public VmAutoScaler(DatacenterController dcb, AutoScalingPolicy policy){
+		this.dcb = dcb;
+		this.policy = policy;
+	}
+
+	/**
+	 * Updates the EWMA processing time with the processing time of a request.
+	 *
+	 * @param processingTime the time the data center took to process the request, in ms
+	 */
+	public void processingTimeRecorded(double processingTime){
+		if (latency < 0){
+			latency = processingTime;
+		} else {
+			latency += policy.getLatencyWeight() * (processingTime - latency);
+		}
+		latencySamples++;
+	}
+
+	/**
+	 * Works out the utilisation over the interval since the last evaluation and scales the
+	 * data center out or in if the rules say so.
+	 *
+	 * @param now the current simulation time
+	 */
+	public void evaluate(double now){
+		int vms = dcb.getVmsInService();
+		double busyTime = dcb.getVmLoadTable().getTotalBusyTime(now);
+		if ((now > lastEvaluationTime) && (vms > 0)){
+			utilization = Math.min(1, (busyTime - lastBusyTime) / ((now - lastEvaluationTime) * vms));
+		}
+		lastBusyTime = busyTime;
+		lastEvaluationTime = now;
+
+		if ((latencySamples == 0) && (latency > 0)){
+			latency *= 1 - policy.getLatencyWeight();
+		}
+		latencySamples = 0;
+
+		if (dcb.getVmsStarting() > 0){
+			return;
+		}
+
+		int queued = dcb.getWaitingQueue().size();
+		boolean overloaded = (latency > policy.getScaleOutLatency())
+							 || (utilization > policy.getScaleOutUtilization())
+							 || (queued > policy.getScaleOutQueueLength() * vms);
+		boolean underloaded = (latency < policy.getScaleInLatency())
+							  && (utilization < policy.getScaleInUtilization())
+							  && (queued == 0);
+
+		if ((vms < policy.getMinVms())
+				|| (overloaded && (vms < policy.getMaxVms())
+					&& (now - lastScaleOutTime >= policy.getScaleOutCooldown()))){
+			if (dcb.createNewVm()){
+				lastScaleOutTime = now;
+				scaleOuts++;
+				SimLog.info(Category.DATACENTER, now + ": " + dcb.getDataCenterName() + " scaling out from " + vms
+											   + " VMs, latency=" + latency + " utilization=" + utilization
+											   + " queued=" + queued);
+			}
+		} else if (underloaded && (vms > policy.getMinVms())
+				&& (now - Math.max(lastScaleOutTime, lastScaleInTime) >= policy.getScaleInCooldown())){
+			if (dcb.releaseVm()){
+				lastScaleInTime = now;
+				scaleIns++;
+				SimLog.info(Category.DATACENTER, now + ": " + dcb.getDataCenterName() + " scaling in from " + vms
+											   + " VMs, latency=" + latency + " utilization=" + utilization);
+			}
+		}
+	}
+
+	/**
+	 * @return the rules the data center is scaled by
+	 */
+	public AutoScalingPolicy getPolicy(){
+		return policy;
+	}
+
+	/**
+	 * @return the EWMA processing time, in ms, 0 before the first request
+	 */
+	public double getLatency(){
+		return Math.max(0, latency);
+	}
+
+	/**
+	 * @return the share of the last evaluation interval the VMs in service were busy
+	 */
+	public double getUtilization(){
+		return utilization;
+	}
+
+	/**
+	 * @return the number of times the data center was scaled out
+	 */
+	public int getScaleOuts(){
+		return scaleOuts;
+	}
+
+	/**
+	 * @return the number of times the data center was scaled in
+	 */
+	public int getScaleIns(){
+		return scaleIns;
+	}
+}
@@ -1,8 +1,9 @@
 package cloudsim.ext.datacenter;
 
-import java.util.HashMap;
 import java.util.Map;
 
+import cloudsim.ext.InternetCloudlet;
+
 /**
  * This is the base class defining the behaviour of a Virtual Machine load balancer
  * used by a {@link DatacenterController}. The main method all load balancers should implement
@@ -10,17 +11,19 @@ import java.util.Map;
  * 
  * This class provides a basic load balancing statistic collection that can be used by 
  * implementing classes. The implementing classes should call the  <code>void allocatedVM(int currVm)</code>
- *  method to use the statisitics collection feature.
+ *  method to use the statisitics collection feature. The statistics are kept in a 
+ * {@link VmLoadTable}, which the {@link DatacenterController} replaces with its own so 
+ * that they sit with the rest of its per VM counters.
  * 
  * @author Bhathiya Wickremasinghe
  */
 abstract public class VmLoadBalancer {
-	/** Holds the count of allocations for each VM */
-	protected Map<Integer, Integer> vmAllocationCounts;
+	/** Holds the count of allocations, and the other load counters, of each VM */
+	protected VmLoadTable loadTable;
 	
 	/** No args contructor */
 	public VmLoadBalancer(){
-		vmAllocationCounts = new HashMap<Integer, Integer>();
+		loadTable = new VmLoadTable();
 	}
 	
 	/**
@@ -32,6 +35,86 @@ abstract public class VmLoadBalancer {
 	 */
 	abstract public int getNextAvailableVm();
 	
+	/**
+	 * Returns the VM the given cloudlet should be allocated to. Load balancers that take the
+	 * size of the cloudlet into account override this, the others allocate it to
+	 * {@link #getNextAvailableVm()}.
+	 * 
+	 * @param cl the cloudlet to allocate, or null if it is not known yet
+	 * @return id of the next available Virtual Machine to which the cloudlet should be 
+	 * 			allocated
+	 */
+	public int getNextAvailableVm(InternetCloudlet cl){
+		return getNextAvailableVm();
+	}
+
+	/**
+	 * Allocates VMs to a group of up to n cloudlets in one go. The {@link DatacenterController}
+	 * submits the cloudlets to the VMs allocated, in order, and then notifies the listeners
+	 * once for the whole group, so implementations must take the VMs they allocated earlier
+	 * in the group into account themselves.
+	 *
+	 * This implementation allocates a single VM, with {@link #getNextAvailableVm()}; load
+	 * balancers that can allocate a group in one pass override it.
+	 *
+	 * @param n the number of cloudlets in the group
+	 * @param out the array to put the VM ids in, at least n long
+	 * @return the number of VMs allocated, from the start of the group, 0 if no VM is
+	 * 			available
+	 */
+	public int getNextAvailableVms(int n, int[] out){
+		return getNextAvailableVms(null, n, out);
+	}
+
+	/**
+	 * Allocates VMs to a group of up to n cloudlets of the same size as the given one, see
+	 * {@link #getNextAvailableVms(int, int[])}. This implementation allocates a single VM,
+	 * with {@link #getNextAvailableVm(InternetCloudlet)}.
+	 *
+	 * @param cl a cloudlet of the group, or null if it is not known
+	 * @param n the number of cloudlets in the group
+	 * @param out the array to put the VM ids in, at least n long
+	 * @return the number of VMs allocated, from the start of the group, 0 if no VM is
+	 * 			available
+	 */
+	public int getNextAvailableVms(InternetCloudlet cl, int n, int[] out){
+		if (n <= 0){
+			return 0;
+		}
+
+		int vmId = getNextAvailableVm(cl);
+		if (vmId == -1){
+			return 0;
+		}
+
+		out[0] = vmId;
+		return 1;
+	}
+
+	/**
+	 * Returns the number of cloudlets the load balancer can allocate VMs to right now. The
+	 * {@link DatacenterController} asks before it takes cloudlets from its waiting queue, and
+	 * takes no more than this. This implementation returns Integer.MAX_VALUE, for load
+	 * balancers that always allocate a VM; those that turn cloudlets away while the VMs are
+	 * busy override it.
+	 *
+	 * @return the number of cloudlets that can be allocated now
+	 */
+	public int getFreeCapacity(){
+		return Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Called by the {@link DatacenterController} when a VM it took out of service has been
+	 * destroyed. A new VM may later get the same id, so load balancers that learn about each
+	 * VM override this to forget what they learnt about this one. This implementation does
+	 * nothing.
+	 *
+	 * @param vmId the VM destroyed
+	 */
+	public void vmDestroyed(int vmId){
+	}
+
 	/**
 	 * Used internally to update VM allocation statistics. Should be called by all impelementing
 	 * classes to notify when a new VM is allocated.
@@ -39,19 +122,24 @@ abstract public class VmLoadBalancer {
 	 * @param currVm
 	 */
 	protected void allocatedVm(int currVm){
-		
-		Integer currCount = vmAllocationCounts.get(currVm);
-		if (currCount == null){
-			currCount = 0;
-		}
-		vmAllocationCounts.put(currVm, currCount + 1);		
+		loadTable.vmAllocated(currVm);
+	}
+	
+	/**
+	 * Makes the load balancer record its allocations in the given table.
+	 * 
+	 * @param loadTable the load table of the {@link DatacenterController}
+	 */
+	void setLoadTable(VmLoadTable loadTable){
+		this.loadTable = loadTable;
 	}
 		
 	/**
 	 * Returns a {@link Map} indexed by VM id and having the number of allocations for each VM.
+	 * The map is a snapshot, see {@link VmLoadTable#getAllocationCounts()}.
 	 * @return
 	 */
 	public Map<Integer, Integer> getVmAllocationCounts(){
-		return vmAllocationCounts;
+		return loadTable.getAllocationCounts();
 	}
 }
\ No newline at end of file
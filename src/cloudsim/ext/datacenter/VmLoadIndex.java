@@ -0,0 +1,351 @@
+package cloudsim.ext.datacenter;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the number of cloudlets each VM of a {@link DatacenterController} is currently
+ * running, and which VM runs the fewest, for load balancers that allocate to the least
+ * loaded VM.
+ *
+ * The VMs are held in an indexed binary min-heap ordered by their number of active cloudlets,
+ * then by their id, so the least loaded VM is found in constant time and ties go to the VM
+ * with the lowest id. The counts follow the cloudlets allocated and finished, as a
+ * {@link VmLoadListener} of the controller, each of which moves one VM in the heap in
+ * O(log n).
+ *
+ * A controller has a single index, shared by its load balancers (see
+ * {@link DatacenterController#getVmLoadIndex()}). It registers as a load listener of the
+ * controller when it is first asked for, so listeners registered after that see the updated
+ * counts.
+ */
+public class VmLoadIndex implements VmLoadListener {
+
+	/** The VM ids, in heap order. */
+	private int[] heap;
+	/** The position of each VM in the heap. */
+	private int[] positions;
+	/** The number of active cloudlets of each VM. */
+	private int[] loads;
+	private int size = 0;
+
+	/** Constructor. */
+	public VmLoadIndex(){
+		heap = new int[16];
+		positions = new int[16];
+		loads = new int[16];
+	}
+
+	public void onAllocated(int vmId) {
+		cloudletAllocated(vmId);
+	}
+
+	public void onAllocated(int[] vmIds, int count) {
+		cloudletsAllocated(vmIds, count);
+	}
+
+	public void onFinished(int vmId, double serviceTime) {
+		cloudletFinished(vmId);
+	}
+
+	/**
+	 * Makes sure the index holds VMs 0 to vmCount - 1. New VMs hold no cloudlets; VMs taken
+	 * out with {@link #trimVmCount(int)} come back with the cloudlets they still run.
+	 *
+	 * @param vmCount the number of VMs
+	 */
+	public void ensureVmCount(int vmCount){
+		ensureCapacity(vmCount);
+
+		while (size < vmCount){
+			int vmId = size++;
+			heap[vmId] = vmId;
+			positions[vmId] = vmId;
+			siftUp(vmId);
+		}
+	}
+
+	/**
+	 * Takes the VMs from vmCount on out of the index, so that they are no longer the least
+	 * loaded, when they are taken out of service. Their counts are still kept up to date.
+	 *
+	 * @param vmCount the number of VMs to keep
+	 */
+	public void trimVmCount(int vmCount){
+		while (size > Math.max(vmCount, 0)){
+			int pos = positions[size - 1];
+			int last = heap[--size];
+			if (pos < size){
+				move(last, pos);
+				siftDown(pos);
+				siftUp(positions[last]);
+			}
+		}
+	}
+
+	private void ensureCapacity(int vmCount){
+		if (vmCount > heap.length){
+			int length = Math.max(vmCount, heap.length * 2);
+			heap = Arrays.copyOf(heap, length);
+			positions = Arrays.copyOf(positions, length);
+			loads = Arrays.copyOf(loads, length);
+		}
+	}
+
+	/**
+	 * @return the number of VMs in the index
+	 */
+	public int getVmCount(){
+		return size;
+	}
+
+	/**
+	 * Records a cloudlet allocated to a VM.
+	 *
+	 * @param vmId the VM
+	 */
+	public void cloudletAllocated(int vmId){
+		ensureVmCount(vmId + 1);
+		loads[vmId]++;
+		siftDown(positions[vmId]);
+	}
+
+	/**
+	 * Records cloudlets allocated to VMs, one for each entry of the array. When they are many
+	 * for the number of VMs, the heap is built again in one go, in O(n), rather than moving
+	 * the VMs one at a time.
+	 *
+	 * @param vmIds the VMs
+	 * @param count the number of entries of the array to record
+	 */
+	public void cloudletsAllocated(int[] vmIds, int count){
+		for (int i = 0; i < count; i++){
+			ensureVmCount(vmIds[i] + 1);
+		}
+		if ((long) count * (32 - Integer.numberOfLeadingZeros(size)) <= size){
+			for (int i = 0; i < count; i++){
+				cloudletAllocated(vmIds[i]);
+			}
+			return;
+		}
+
+		for (int i = 0; i < count; i++){
+			loads[vmIds[i]]++;
+		}
+		for (int pos = (size >>> 1) - 1; pos >= 0; pos--){
+			siftDown(pos);
+		}
+	}
+
+	/**
+	 * Records a cloudlet finished by a VM.
+	 *
+	 * @param vmId the VM
+	 */
+	public void cloudletFinished(int vmId){
+		if (vmId >= size){
+			//A VM out of the index, finishing its last cloudlets
+			ensureCapacity(vmId + 1);
+			loads[vmId]--;
+			return;
+		}
+
+		loads[vmId]--;
+		siftUp(positions[vmId]);
+	}
+
+	/**
+	 * @param vmId a VM
+	 * @return the number of cloudlets the VM is running
+	 */
+	public int getLoad(int vmId){
+		return (vmId < size) ? loads[vmId] : 0;
+	}
+
+	/**
+	 * @return the id of the VM running the fewest cloudlets, the lowest one if several run
+	 * 		as few, or -1 if the index holds no VMs
+	 */
+	public int getLeastLoadedVm(){
+		return (size > 0) ? heap[0] : -1;
+	}
+
+	/**
+	 * @return the number of cloudlets the least loaded VM is running, or 0 if the index
+	 * 		holds no VMs
+	 */
+	public int getLeastLoad(){
+		return (size > 0) ? loads[heap[0]] : 0;
+	}
+
+	/**
+	 * Finds the VMs n cloudlets would go to if each went to the least loaded VM in turn, by
+	 * water filling: the least loaded VMs get a cloudlet each, in order of id, which brings
+	 * them up to the load of the next ones, then these all get one, and so on up until the
+	 * cloudlets run out. The VMs are taken from the heap in order of load, and of id within a
+	 * load, only as far as needed, and the VMs already reached get whole rounds of cloudlets
+	 * at once, so the time taken depends on the number of cloudlets and of VMs filled rather
+	 * than on the number of VMs. The counts are not changed, they follow the allocation
+	 * events as usual.
+	 *
+	 * @param n the number of cloudlets
+	 * @param out the array to put the VM ids in, in the order the cloudlets go to them
+	 * @return the number of VMs put in the array: n, or 0 if the index holds no VMs
+	 */
+	public int getLeastLoadedVms(int n, int[] out){
+		if ((size == 0) || (n <= 0)){
+			return 0;
+		}
+		if (n == 1){
+			out[0] = heap[0];
+			return 1;
+		}
+
+		//Heap positions of the VMs not reached yet whose parents were, least loaded first
+		int[] frontier = new int[16];
+		int frontierSize = 0;
+		frontier = push(frontier, frontierSize++, 0);
+		//The VMs reached, in order of id, all filled up to the level
+		int[] members = new int[16];
+		int memberCount = 0;
+		int[] nextMembers = new int[16];
+
+		int count = 0;
+		int level = loads[heap[0]];
+		while (count < n){
+			//A cloudlet each for the VMs at the level, in order of id: those filled up to it and those reached now
+			int nextCount = 0;
+			int m = 0;
+			while (count < n){
+				int reachedVm = ((frontierSize > 0) && (loads[heap[frontier[0]]] <= level)) ? heap[frontier[0]] : -1;
+				int vmId;
+				if ((reachedVm != -1) && ((m == memberCount) || (reachedVm < members[m]))){
+					int pos = frontier[0];
+					frontier[0] = frontier[--frontierSize];
+					siftDownPosition(frontier, frontierSize);
+					for (int child = 2 * pos + 1; (child <= 2 * pos + 2) && (child < size); child++){
+						frontier = push(frontier, frontierSize++, child);
+					}
+					vmId = reachedVm;
+				} else if (m < memberCount){
+					vmId = members[m++];
+				} else {
+					break;
+				}
+
+				out[count++] = vmId;
+				if (nextCount == nextMembers.length){
+					nextMembers = Arrays.copyOf(nextMembers, nextCount * 2);
+				}
+				nextMembers[nextCount++] = vmId;
+			}
+			if (count == n){
+				break;
+			}
+
+			int[] filled = members;
+			members = nextMembers;
+			nextMembers = filled;
+			memberCount = nextCount;
+			level++;
+
+			//Then whole rounds for them, up to the load of the next VM to reach
+			int nextLevel = (frontierSize > 0) ? loads[heap[frontier[0]]] : Integer.MAX_VALUE;
+			long rounds = Math.min((long) nextLevel - level, (n - count) / memberCount);
+			for (long r = 0; r < rounds; r++){
+				System.arraycopy(members, 0, out, count, memberCount);
+				count += memberCount;
+			}
+			level += rounds;
+		}
+
+		return count;
+	}
+
+	/**
+	 * Adds a heap position to a heap of heap positions, ordered as their VMs are.
+	 *
+	 * @return the heap of positions, grown if it was full
+	 */
+	private int[] push(int[] positionHeap, int positionCount, int pos){
+		if (positionCount == positionHeap.length){
+			positionHeap = Arrays.copyOf(positionHeap, positionCount * 2);
+		}
+
+		int i = positionCount;
+		while (i > 0){
+			int parent = (i - 1) >>> 1;
+			if (!less(heap[pos], heap[positionHeap[parent]])){
+				break;
+			}
+			positionHeap[i] = positionHeap[parent];
+			i = parent;
+		}
+		positionHeap[i] = pos;
+
+		return positionHeap;
+	}
+
+	/**
+	 * Restores the order of a heap of heap positions after its first one was replaced.
+	 */
+	private void siftDownPosition(int[] positionHeap, int positionCount){
+		if (positionCount == 0){
+			return;
+		}
+
+		int pos = positionHeap[0];
+		int i = 0;
+		int half = positionCount >>> 1;
+		while (i < half){
+			int child = 2 * i + 1;
+			if ((child + 1 < positionCount) && less(heap[positionHeap[child + 1]], heap[positionHeap[child]])){
+				child++;
+			}
+			if (!less(heap[positionHeap[child]], heap[pos])){
+				break;
+			}
+			positionHeap[i] = positionHeap[child];
+			i = child;
+		}
+		positionHeap[i] = pos;
+	}
+
+	private boolean less(int vmA, int vmB){
+		return (loads[vmA] < loads[vmB]) || ((loads[vmA] == loads[vmB]) && (vmA < vmB));
+	}
+
+	private void siftUp(int pos){
+		int vmId = heap[pos];
+		while (pos > 0){
+			int parent = (pos - 1) >>> 1;
+			if (!less(vmId, heap[parent])){
+				break;
+			}
+			move(heap[parent], pos);
+			pos = parent;
+		}
+		move(vmId, pos);
+	}
+
+	private void siftDown(int pos){
+		int vmId = heap[pos];
+		int half = size >>> 1;
+		while (pos < half){
+			int child = 2 * pos + 1;
+			if ((child + 1 < size) && less(heap[child + 1], heap[child])){
+				child++;
+			}
+			if (!less(heap[child], vmId)){
+				break;
+			}
+			move(heap[child], pos);
+			pos = child;
+		}
+		move(vmId, pos);
+	}
+
+	private void move(int vmId, int pos){
+		heap[pos] = vmId;
+		positions[vmId] = pos;
+	}
+}
@@ -0,0 +1,43 @@
+package cloudsim.ext.datacenter;
+
+import cloudsim.ext.event.CloudSimEvents;
+
+/**
+ * Listener of the load of the VMs of a {@link DatacenterController}: the cloudlets allocated to
+ * each VM and the cloudlets each VM finishes. The controller calls its load listeners for every
+ * cloudlet, with the VM id and the service time as they are, before the generic
+ * {@link CloudSimEvents#EVENT_CLOUDLET_ALLOCATED_TO_VM},
+ * {@link CloudSimEvents#EVENT_CLOUDLETS_ALLOCATED_TO_VMS} and
+ * {@link CloudSimEvents#EVENT_VM_FINISHED_CLOUDLET} events, which it only creates if it has
+ * generic listeners. Load balancers that follow the VM loads, and the {@link VmLoadIndex},
+ * listen this way.
+ *
+ * @see DatacenterController#addVmLoadListener(VmLoadListener)
+ */
+public interface VmLoadListener {
+
+	/**
+	 * Called when a cloudlet is allocated to a VM.
+	 *
+	 * @param vmId the VM
+	 */
+	void onAllocated(int vmId);
+
+	/**
+	 * Called when a group of cloudlets is allocated to VMs in one go, see
+	 * {@link VmLoadBalancer#getNextAvailableVms(int, int[])}.
+	 *
+	 * @param vmIds the VMs, one for each cloudlet, from the start of the array. The array is
+	 * 			reused by the controller, so it must not be kept.
+	 * @param count the number of cloudlets
+	 */
+	void onAllocated(int[] vmIds, int count);
+
+	/**
+	 * Called when a VM finishes a cloudlet.
+	 *
+	 * @param vmId the VM
+	 * @param serviceTime the time the cloudlet took from its submission to the VM, in ms
+	 */
+	void onFinished(int vmId, double serviceTime);
+}
@@ -0,0 +1,322 @@
+package cloudsim.ext.datacenter;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Per VM load counters of a {@link DatacenterController}, held in primitive arrays indexed
+ * by VM id so that updating them on every allocation and completion of a cloudlet creates
+ * no garbage. For each VM it holds:
+ * <ul>
+ * <li>the number of times the load balancer allocated it,</li>
+ * <li>the number of cloudlets it is running,</li>
+ * <li>the number of cloudlets it completed,</li>
+ * <li>the total time the cloudlets it completed took,</li>
+ * <li>the total length of the cloudlets sent to it and</li>
+ * <li>the time it spent running at least one cloudlet.</li>
+ * </ul>
+ * It also keeps the number of VMs running at least one cloudlet, so the load of the data
+ * center as a whole is known without a walk over the VMs. The table grows as VMs are
+ * added, and the row of a VM destroyed is cleared for the VM that may get its id later.
+ * The controller records the cloudlets and its load balancer the allocations (see
+ * {@link VmLoadBalancer#allocatedVm(int)}).
+ */
+public class VmLoadTable {
+
+	private int[] allocations;
+	private int[] activeCloudlets;
+	private int[] completedCloudlets;
+	private double[] serviceTimes;
+	private double[] submittedWork;
+	private double[] busyTimes;
+	/** The time each VM last went from idle to busy. */
+	private double[] busySince;
+	private int busyVms = 0;
+	/** The busy time of the VMs destroyed. */
+	private double destroyedBusyTime = 0;
+	private int size = 0;
+
+	/** Constructor. */
+	public VmLoadTable(){
+		allocations = new int[16];
+		activeCloudlets = new int[16];
+		completedCloudlets = new int[16];
+		serviceTimes = new double[16];
+		submittedWork = new double[16];
+		busyTimes = new double[16];
+		busySince = new double[16];
+	}
+
+	/**
+	 * Makes sure the table holds VMs 0 to vmCount - 1.
+	 *
+	 * @param vmCount the number of VMs
+	 */
+	public void ensureVmCount(int vmCount){
+		if (vmCount > allocations.length){
+			int length = Math.max(vmCount, allocations.length * 2);
+			allocations = Arrays.copyOf(allocations, length);
+			activeCloudlets = Arrays.copyOf(activeCloudlets, length);
+			completedCloudlets = Arrays.copyOf(completedCloudlets, length);
+			serviceTimes = Arrays.copyOf(serviceTimes, length);
+			submittedWork = Arrays.copyOf(submittedWork, length);
+			busyTimes = Arrays.copyOf(busyTimes, length);
+			busySince = Arrays.copyOf(busySince, length);
+		}
+		size = Math.max(size, vmCount);
+	}
+
+	/**
+	 * @return the number of VMs in the table
+	 */
+	public int getVmCount(){
+		return size;
+	}
+
+	/**
+	 * Records an allocation of a VM by the load balancer.
+	 *
+	 * @param vmId the VM, ignored if negative
+	 */
+	public void vmAllocated(int vmId){
+		if (vmId >= 0){
+			ensureVmCount(vmId + 1);
+			allocations[vmId]++;
+		}
+	}
+
+	/**
+	 * Records a cloudlet sent to a VM.
+	 *
+	 * @param vmId the VM
+	 * @param time the simulation time
+	 * @param length the length of the cloudlet, in MI
+	 */
+	public void cloudletStarted(int vmId, double time, double length){
+		ensureVmCount(vmId + 1);
+		submittedWork[vmId] += length;
+		if (activeCloudlets[vmId]++ == 0){
+			busySince[vmId] = time;
+			busyVms++;
+		}
+	}
+
+	/**
+	 * Records a cloudlet completed by a VM.
+	 *
+	 * @param vmId the VM
+	 * @param time the simulation time
+	 * @param serviceTime the time the cloudlet took, from being sent to the VM
+	 */
+	public void cloudletFinished(int vmId, double time, double serviceTime){
+		ensureVmCount(vmId + 1);
+		completedCloudlets[vmId]++;
+		serviceTimes[vmId] += serviceTime;
+		if (--activeCloudlets[vmId] == 0){
+			busyTimes[vmId] += time - busySince[vmId];
+			busyVms--;
+		}
+	}
+
+	/**
+	 * Clears the counters of a VM that has been destroyed, so that a new VM with the same id
+	 * starts from none. Its busy time still counts in {@link #getTotalBusyTime(double)}.
+	 *
+	 * @param vmId the VM, which runs no cloudlet
+	 */
+	public void vmDestroyed(int vmId){
+		if (vmId >= size){
+			return;
+		}
+
+		destroyedBusyTime += busyTimes[vmId];
+		allocations[vmId] = 0;
+		activeCloudlets[vmId] = 0;
+		completedCloudlets[vmId] = 0;
+		serviceTimes[vmId] = 0;
+		submittedWork[vmId] = 0;
+		busyTimes[vmId] = 0;
+		busySince[vmId] = 0;
+	}
+
+	/**
+	 * @param now the current simulation time
+	 * @return the time all the VMs, including the ones destroyed, spent running at least one
+	 * 			cloudlet, up to now
+	 */
+	public double getTotalBusyTime(double now){
+		double busyTime = destroyedBusyTime;
+		for (int vmId = 0; vmId < size; vmId++){
+			busyTime += getBusyTime(vmId, now);
+		}
+
+		return busyTime;
+	}
+
+	/**
+	 * @return the number of VMs running at least one cloudlet
+	 */
+	public int getBusyVmCount(){
+		return busyVms;
+	}
+
+	/**
+	 * @param vmId a VM
+	 * @return the number of times the load balancer allocated the VM
+	 */
+	public int getAllocations(int vmId){
+		return (vmId < size) ? allocations[vmId] : 0;
+	}
+
+	/**
+	 * @param vmId a VM
+	 * @return the number of cloudlets the VM is running
+	 */
+	public int getActiveCloudlets(int vmId){
+		return (vmId < size) ? activeCloudlets[vmId] : 0;
+	}
+
+	/**
+	 * @param vmId a VM
+	 * @return the number of cloudlets the VM completed
+	 */
+	public int getCompletedCloudlets(int vmId){
+		return (vmId < size) ? completedCloudlets[vmId] : 0;
+	}
+
+	/**
+	 * @param vmId a VM
+	 * @return the average time the cloudlets the VM completed took, or 0 if it completed none
+	 */
+	public double getAverageServiceTime(int vmId){
+		if ((vmId >= size) || (completedCloudlets[vmId] == 0)){
+			return 0;
+		}
+
+		return serviceTimes[vmId] / completedCloudlets[vmId];
+	}
+
+	/**
+	 * @param vmId a VM
+	 * @return the total length, in MI, of the cloudlets sent to the VM
+	 */
+	public double getSubmittedWork(int vmId){
+		return (vmId < size) ? submittedWork[vmId] : 0;
+	}
+
+	/**
+	 * @param vmId a VM
+	 * @param now the current simulation time
+	 * @return the time the VM spent running at least one cloudlet, up to now
+	 */
+	public double getBusyTime(int vmId, double now){
+		if (vmId >= size){
+			return 0;
+		}
+
+		double busyTime = busyTimes[vmId];
+		if (activeCloudlets[vmId] > 0){
+			busyTime += now - busySince[vmId];
+		}
+
+		return busyTime;
+	}
+
+	/**
+	 * Returns the allocation counts as a read only {@link Map} indexed by VM id, holding the
+	 * VMs allocated at least once. The map is backed by a copy of the counts taken when this
+	 * is called, so it does not change with later allocations.
+	 *
+	 * @return the allocation counts
+	 */
+	public Map<Integer, Integer> getAllocationCounts(){
+		return new CountsSnapshot(Arrays.copyOf(allocations, size));
+	}
+
+	/** A read only map view of the non zero entries of an array of counts. */
+	private static class CountsSnapshot extends AbstractMap<Integer, Integer> {
+		private final int[] counts;
+		private final int nonZero;
+
+		CountsSnapshot(int[] counts) {
+			this.counts = counts;
+
+			int n = 0;
+			for (int count : counts){
+				if (count != 0){
+					n++;
+				}
+			}
+			this.nonZero = n;
+		}
+
+		@Override
+		public Integer get(Object key) {
+			if (key instanceof Integer){
+				int vmId = (Integer) key;
+				if ((vmId >= 0) && (vmId < counts.length) && (counts[vmId] != 0)){
+					return counts[vmId];
+				}
+			}
+
+			return null;
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return get(key) != null;
+		}
+
+		@Override
+		public int size() {
+			return nonZero;
+		}
+
+		@Override
+		public Set<Map.Entry<Integer, Integer>> entrySet() {
+			return new AbstractSet<Map.Entry<Integer, Integer>>(){
+				@Override
+				public int size() {
+					return nonZero;
+				}
+
+				@Override
+				public Iterator<Map.Entry<Integer, Integer>> iterator() {
+					return new Iterator<Map.Entry<Integer, Integer>>(){
+						private int next = advance(0);
+
+						private int advance(int from){
+							while ((from < counts.length) && (counts[from] == 0)){
+								from++;
+							}
+							return from;
+						}
+
+						public boolean hasNext() {
+							return next < counts.length;
+						}
+
+						public Map.Entry<Integer, Integer> next() {
+							if (!hasNext()){
+								throw new NoSuchElementException();
+							}
+							int vmId = next;
+							next = advance(next + 1);
+
+							return new AbstractMap.SimpleImmutableEntry<Integer, Integer>(vmId, counts[vmId]);
+						}
+
+						public void remove() {
+							throw new UnsupportedOperationException();
+						}
+					};
+				}
+			};
+		}
+	}
+}
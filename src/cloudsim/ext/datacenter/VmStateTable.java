@@ -0,0 +1,217 @@
+package cloudsim.ext.datacenter;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The {@link VirtualMachineState} of each VM of a {@link DatacenterController}, held in two
+ * bit sets indexed by VM id: the VMs there are and the VMs available. Finding the next
+ * available VM is then a {@link BitSet#nextSetBit(int)} call, which skips 64 busy VMs at a
+ * time, rather than a walk over a map.
+ *
+ * The table is also a {@link Map} from VM id to state, for the code that reads or sets the
+ * states that way.
+ */
+public class VmStateTable extends AbstractMap<Integer, VirtualMachineState> {
+
+	private final BitSet vms = new BitSet();
+	private final BitSet availableVms = new BitSet();
+	private int size = 0;
+
+	/**
+	 * Sets the state of a VM, adding it if it is not in the table yet.
+	 *
+	 * @param vmId the VM
+	 * @param available true if the VM is available, false if it is busy
+	 */
+	public void setAvailable(int vmId, boolean available){
+		if (!vms.get(vmId)){
+			vms.set(vmId);
+			size++;
+		}
+		availableVms.set(vmId, available);
+	}
+
+	/**
+	 * Sets the state of a VM in the table, leaving out the VMs that are not in it, such as a
+	 * VM taken out of service while its last cloudlets finish.
+	 *
+	 * @param vmId the VM
+	 * @param available true if the VM is available, false if it is busy
+	 */
+	public void updateAvailable(int vmId, boolean available){
+		if (vms.get(vmId)){
+			availableVms.set(vmId, available);
+		}
+	}
+
+	/**
+	 * @param vmId a VM
+	 * @return true if the VM is in the table
+	 */
+	public boolean contains(int vmId){
+		return (vmId >= 0) && vms.get(vmId);
+	}
+
+	/**
+	 * @param vmId a VM
+	 * @return true if the VM is in the table and available
+	 */
+	public boolean isAvailable(int vmId){
+		return (vmId >= 0) && availableVms.get(vmId);
+	}
+
+	/**
+	 * Finds the first available VM from the given one on, going round to the first VM after
+	 * the last one.
+	 *
+	 * @param fromVm the VM to start from
+	 * @return the VM found, or -1 if no VM is available
+	 */
+	public int nextAvailable(int fromVm){
+		int vmId = availableVms.nextSetBit(Math.max(0, fromVm));
+		if (vmId == -1){
+			vmId = availableVms.nextSetBit(0);
+		}
+
+		return vmId;
+	}
+
+	/**
+	 * @return the number of VMs available
+	 */
+	public int getAvailableCount(){
+		return availableVms.cardinality();
+	}
+
+	@Override
+	public VirtualMachineState get(Object key) {
+		if (key instanceof Integer){
+			int vmId = (Integer) key;
+			if ((vmId >= 0) && vms.get(vmId)){
+				return availableVms.get(vmId) ? VirtualMachineState.AVAILABLE : VirtualMachineState.BUSY;
+			}
+		}
+
+		return null;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return get(key) != null;
+	}
+
+	@Override
+	public VirtualMachineState put(Integer vmId, VirtualMachineState state) {
+		VirtualMachineState previous = get(vmId);
+		setAvailable(vmId, state == VirtualMachineState.AVAILABLE);
+
+		return previous;
+	}
+
+	@Override
+	public VirtualMachineState remove(Object key) {
+		VirtualMachineState previous = get(key);
+		if (previous != null){
+			int vmId = (Integer) key;
+			vms.clear(vmId);
+			availableVms.clear(vmId);
+			size--;
+		}
+
+		return previous;
+	}
+
+	@Override
+	public void clear() {
+		vms.clear();
+		availableVms.clear();
+		size = 0;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public Set<Map.Entry<Integer, VirtualMachineState>> entrySet() {
+		return new AbstractSet<Map.Entry<Integer, VirtualMachineState>>(){
+			@Override
+			public int size() {
+				return size;
+			}
+
+			@Override
+			public Iterator<Map.Entry<Integer, VirtualMachineState>> iterator() {
+				return new Iterator<Map.Entry<Integer, VirtualMachineState>>(){
+					private int next = vms.nextSetBit(0);
+					private int last = -1;
+
+					public boolean hasNext() {
+						return next != -1;
+					}
+
+					public Map.Entry<Integer, VirtualMachineState> next() {
+						if (!hasNext()){
+							throw new NoSuchElementException();
+						}
+						last = next;
+						next = vms.nextSetBit(next + 1);
+
+						return new StateEntry(last);
+					}
+
+					public void remove() {
+						if (last == -1){
+							throw new IllegalStateException();
+						}
+						VmStateTable.this.remove(last);
+						last = -1;
+					}
+				};
+			}
+		};
+	}
+
+	/** An entry of the map view, reading and writing through to the table. */
+	private class StateEntry implements Map.Entry<Integer, VirtualMachineState> {
+		private final int vmId;
+
+		StateEntry(int vmId) {
+			this.vmId = vmId;
+		}
+
+		public Integer getKey() {
+			return vmId;
+		}
+
+		public VirtualMachineState getValue() {
+			return availableVms.get(vmId) ? VirtualMachineState.AVAILABLE : VirtualMachineState.BUSY;
+		}
+
+		public VirtualMachineState setValue(VirtualMachineState state) {
+			return put(vmId, state);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Map.Entry)){
+				return false;
+			}
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+
+			return getKey().equals(e.getKey()) && getValue().equals(e.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			return getKey().hashCode() ^ getValue().hashCode();
+		}
+	}
+}
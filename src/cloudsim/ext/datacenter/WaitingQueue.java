@@ -0,0 +1,285 @@
+package cloudsim.ext.datacenter;
+
+import cloudsim.ext.InternetCloudlet;
+
+/**
+ * The queue of the cloudlets a {@link DatacenterController} is holding until a VM is
+ * available. The cloudlets are kept in an array used as a ring, with the time each was
+ * queued, so adding and taking a cloudlet are constant time and create no garbage. The array
+ * grows as needed, up to the capacity of the queue.
+ *
+ * A queue with a capacity of 0 or less is unbounded, as the controller's queue used to be.
+ * What a bounded queue does with a cloudlet when it is full, and whether it sheds cloudlets
+ * when they are taken, is up to the subclasses. Shed cloudlets are handed to the
+ * {@link ShedListener}, which reports them back to their user base as failures.
+ *
+ * The queue also keeps the statistics of the data center's queueing: the cloudlets queued,
+ * the length of the queue over time, the time the cloudlets taken waited and the cloudlets
+ * and requests shed.
+ */
+public abstract class WaitingQueue {
+
+	/** Listener of the cloudlets a queue sheds. */
+	public interface ShedListener {
+
+		/**
+		 * Called when the queue sheds a cloudlet, which will not be processed.
+		 *
+		 * @param cl the cloudlet
+		 */
+		void cloudletShed(InternetCloudlet cl);
+	}
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private final int capacity;
+	private InternetCloudlet[] cloudlets;
+	private double[] queuedTimes;
+	private int head = 0;
+	private int size = 0;
+	private ShedListener shedListener;
+
+	private long queuedCloudlets = 0;
+	private long takenCloudlets = 0;
+	private long shedCloudlets = 0;
+	private long shedRequests = 0;
+	private int peakLength = 0;
+	private double totalTimeInQueue = 0;
+	private double maxTimeInQueue = 0;
+	/** The integral of the length of the queue over time, up to {@link #lastChangeTime}. */
+	private double lengthTime = 0;
+	private double lastChangeTime = 0;
+
+	/**
+	 * @param capacity the largest number of cloudlets in the queue, 0 or less for no limit
+	 */
+	protected WaitingQueue(int capacity){
+		this.capacity = capacity;
+		cloudlets = new InternetCloudlet[INITIAL_CAPACITY];
+		queuedTimes = new double[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Queues a cloudlet, or, if the queue is full, does what the policy of the queue says.
+	 *
+	 * @param cl the cloudlet
+	 * @param now the current simulation time
+	 */
+	public void offer(InternetCloudlet cl, double now){
+		if (isFull()){
+			offerWhenFull(cl, now);
+		} else {
+			addLast(cl, now);
+		}
+	}
+
+	/**
+	 * Takes the next cloudlet to process, shedding cloudlets on the way if the policy of the
+	 * queue says so.
+	 *
+	 * @param now the current simulation time
+	 * @return the cloudlet, or null if the queue is empty
+	 */
+	public InternetCloudlet poll(double now){
+		return removeFirst(now);
+	}
+
+	/**
+	 * @return the cloudlet at the head of the queue, or null if the queue is empty
+	 */
+	public InternetCloudlet peek(){
+		return (size == 0) ? null : cloudlets[head];
+	}
+
+	/**
+	 * Called by {@link #offer(InternetCloudlet, double)} when the queue is full.
+	 *
+	 * @param cl the cloudlet offered
+	 * @param now the current simulation time
+	 */
+	protected abstract void offerWhenFull(InternetCloudlet cl, double now);
+
+	/**
+	 * Adds a cloudlet at the tail of the queue, growing the array if needed.
+	 */
+	protected void addLast(InternetCloudlet cl, double now){
+		if (size == cloudlets.length){
+			grow();
+		}
+
+		updateLength(now);
+		int tail = (head + size) & (cloudlets.length - 1);
+		cloudlets[tail] = cl;
+		queuedTimes[tail] = now;
+		size++;
+		queuedCloudlets++;
+		if (size > peakLength){
+			peakLength = size;
+		}
+	}
+
+	/**
+	 * Takes the cloudlet at the head of the queue, counting the time it waited.
+	 *
+	 * @return the cloudlet, or null if the queue is empty
+	 */
+	protected InternetCloudlet removeFirst(double now){
+		if (size == 0){
+			return null;
+		}
+
+		double timeInQueue = now - queuedTimes[head];
+		InternetCloudlet cl = unlinkFirst(now);
+		totalTimeInQueue += timeInQueue;
+		if (timeInQueue > maxTimeInQueue){
+			maxTimeInQueue = timeInQueue;
+		}
+		takenCloudlets++;
+
+		return cl;
+	}
+
+	/**
+	 * Takes the cloudlet at the head of the queue and sheds it.
+	 */
+	protected void shedFirst(double now){
+		if (size > 0){
+			shed(unlinkFirst(now));
+		}
+	}
+
+	/**
+	 * Sheds a cloudlet, which is not in the queue.
+	 */
+	protected void shed(InternetCloudlet cl){
+		shedCloudlets++;
+		shedRequests += cl.getRequestCount();
+		if (shedListener != null){
+			shedListener.cloudletShed(cl);
+		}
+	}
+
+	/**
+	 * @return the time the cloudlet at the head of the queue was queued at, or NaN if the
+	 * 			queue is empty
+	 */
+	protected double getHeadQueuedTime(){
+		return (size == 0) ? Double.NaN : queuedTimes[head];
+	}
+
+	private InternetCloudlet unlinkFirst(double now){
+		updateLength(now);
+		InternetCloudlet cl = cloudlets[head];
+		cloudlets[head] = null;
+		head = (head + 1) & (cloudlets.length - 1);
+		size--;
+
+		return cl;
+	}
+
+	private void grow(){
+		int length = cloudlets.length * 2;
+		InternetCloudlet[] newCloudlets = new InternetCloudlet[length];
+		double[] newQueuedTimes = new double[length];
+		for (int i = 0; i < size; i++){
+			int from = (head + i) & (cloudlets.length - 1);
+			newCloudlets[i] = cloudlets[from];
+			newQueuedTimes[i] = queuedTimes[from];
+		}
+		cloudlets = newCloudlets;
+		queuedTimes = newQueuedTimes;
+		head = 0;
+	}
+
+	private void updateLength(double now){
+		if (now > lastChangeTime){
+			lengthTime += size * (now - lastChangeTime);
+			lastChangeTime = now;
+		}
+	}
+
+	/**
+	 * @return true if the queue is bounded and holds as many cloudlets as it can
+	 */
+	public boolean isFull(){
+		return (capacity > 0) && (size >= capacity);
+	}
+
+	public boolean isEmpty(){
+		return size == 0;
+	}
+
+	/**
+	 * @return the number of cloudlets in the queue
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * @return the largest number of cloudlets in the queue, 0 or less for no limit
+	 */
+	public int getCapacity(){
+		return capacity;
+	}
+
+	public void setShedListener(ShedListener shedListener){
+		this.shedListener = shedListener;
+	}
+
+	/**
+	 * @return the number of cloudlets queued so far
+	 */
+	public long getQueuedCloudlets(){
+		return queuedCloudlets;
+	}
+
+	/**
+	 * @return the number of cloudlets shed so far, whether they were queued or not
+	 */
+	public long getShedCloudlets(){
+		return shedCloudlets;
+	}
+
+	/**
+	 * @return the number of requests in the cloudlets shed so far
+	 */
+	public long getShedRequests(){
+		return shedRequests;
+	}
+
+	/**
+	 * @return the largest number of cloudlets the queue held at once
+	 */
+	public int getPeakLength(){
+		return peakLength;
+	}
+
+	/**
+	 * @param now the current simulation time
+	 * @return the average number of cloudlets in the queue from time 0 to now
+	 */
+	public double getAverageLength(double now){
+		if (now <= 0){
+			return 0;
+		}
+
+		double area = lengthTime + size * Math.max(0, now - lastChangeTime);
+		return area / now;
+	}
+
+	/**
+	 * @return the average time the cloudlets taken from the queue waited in it, 0 if none
+	 * 			were taken
+	 */
+	public double getAverageTimeInQueue(){
+		return (takenCloudlets == 0) ? 0 : totalTimeInQueue / takenCloudlets;
+	}
+
+	/**
+	 * @return the longest time a cloudlet taken from the queue waited in it
+	 */
+	public double getMaxTimeInQueue(){
+		return maxTimeInQueue;
+	}
+}
@@ -1,26 +1,43 @@
 package cloudsim.ext.datacenter;
 
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Map;
+import java.util.PriorityQueue;
 
-import cloudsim.ext.Constants;
-import cloudsim.ext.event.CloudSimEvent;
-import cloudsim.ext.event.CloudSimEventListener;
-import cloudsim.ext.event.CloudSimEvents;
+import cloudsim.VirtualMachine;
+import cloudsim.ext.InternetCloudlet;
 
+/**
+ * Load balancer that hands out the VMs in turn, each VM getting a number of turns
+ * proportional to its weight: the MIPS its host gives it over all its processors (see
+ * {@link DatacenterController#getVmMipsShare(int)}), or its number of processors if that is
+ * not known for every VM.
+ *
+ * The turns of one cycle are worked out in advance, the smooth way: each VM's turns are
+ * spread out evenly over the cycle, in the order of their ideal times (the k-th turn of a VM
+ * of weight w is due at k / w of the cycle), rather than given one after the other. A pick
+ * then takes constant time. The weights and the cycle are worked out again when VMs are
+ * added to the data center.
+ */
+public class WeightedRoundRobinVmLoadBalancer extends VmLoadBalancer {
+
+	/** The longest cycle, per VM. Longer cycles are shortened by scaling down the weights. */
+	private static final int MAX_TURNS_PER_VM = 100;
 
-public class WeightedRoundRobinVmLoadBalancer extends VmLoadBalancer implements CloudSimEventListener  {
-	
 	private Map<Integer, VirtualMachineState> vmStatesList;
-	private Map<Integer, Integer> currentAllocationCounts;
+	private DatacenterController dcb;
 
-	private int[] vmWeights = {21, 20, 21, 22, 21, 20, 22, 22, 22, 20, 21, 21, 20, 21, 22, 21, 20, 21, 22, 22, 21, 21, 21, 20, 22, 20, 20, 22, 21, 20, 22, 20, 21, 20, 21, 22, 22, 21, 22, 20, 21, 20, 21, 21, 20, 22, 21, 20, 21, 20}; 
+	/** The weight of each VM. */
+	private long[] vmWeights = new long[0];
+	/** The VMs of a cycle, in turn. */
+	private int[] cycle = new int[0];
+	private int nextTurn = 0;
 
 	public WeightedRoundRobinVmLoadBalancer(Map<Integer, VirtualMachineState> vmStatesList, DatacenterController dcb){
 		super();
-		dcb.addCloudSimEventListener(this);
 		this.vmStatesList = vmStatesList;
+		this.dcb = dcb;
 	}
 
 	public int getNextAvailableVm(){
@@ -28,70 +45,154 @@ public class WeightedRoundRobinVmLoadBalancer extends VmLoadBalancer implements
 		allocatedVm(vm);
 		return vm;
 	}
-	
+
 	public int weightedRoundRobin() {
-		int i = -1;
-		int cw = 0;
-		
-		while (true) { 
-			i = (i + 1) % 50; 
-			if (i == 0) { 
-				cw = cw - vmGCD(vmWeights); 
-				if (cw <= 0) { 
-					cw = vmMax(vmWeights); 
-//					if (cw == 0)  return 0; 
-				} 
-			} 
-			if (vmWeights[i] >= cw)  return i; 
+		if (vmStatesList.size() != vmWeights.length){
+			rebalance(vmStatesList.size());
+		}
+		if (cycle.length == 0){
+			return -1;
+		}
+
+		if (nextTurn >= cycle.length){
+			nextTurn = 0;
 		}
+
+		return cycle[nextTurn++];
 	}
-	
-	public int vmGCD(int[] vmWeights) {
-		int currGcd = gcd(vmWeights[0], vmWeights[1]);
-		for (int i = 2; i < 50; i++) {
-			currGcd = gcd(currGcd, vmWeights[i]);
+
+	/**
+	 * Hands out the next n turns of the cycle at once.
+	 */
+	@Override
+	public int getNextAvailableVms(int n, int[] out){
+		if (vmStatesList.size() != vmWeights.length){
+			rebalance(vmStatesList.size());
+		}
+		if (cycle.length == 0){
+			return 0;
 		}
-		return currGcd;
+
+		for (int i = 0; i < n; i++){
+			if (nextTurn >= cycle.length){
+				nextTurn = 0;
+			}
+
+			int vm = cycle[nextTurn++];
+			out[i] = vm;
+			allocatedVm(vm);
+		}
+
+		return n;
+	}
+
+	@Override
+	public int getNextAvailableVms(InternetCloudlet cl, int n, int[] out){
+		return getNextAvailableVms(n, out);
 	}
-	
-	public int vmMax(int[] vmWeights) {
-		int max = -1;
-		for(int wt : vmWeights) {
-			if(wt > max) max = wt;
+
+	/**
+	 * Works out the weights of the VMs and the turns of a cycle.
+	 *
+	 * @param vmCount the number of VMs
+	 */
+	private void rebalance(int vmCount) {
+		vmWeights = new long[vmCount];
+
+		//Weigh the VMs by the MIPS they get, if known for all of them
+		boolean mipsKnown = true;
+		for (int i = 0; (i < vmCount) && mipsKnown; i++){
+			double[] share = dcb.getVmMipsShare(i);
+			double mips = 0;
+			if (share != null){
+				for (double peMips : share){
+					mips += peMips;
+				}
+			}
+
+			mipsKnown = (mips > 0);
+			vmWeights[i] = Math.max(1, Math.round(mips));
 		}
-		return max;
+		if (!mipsKnown){
+			for (int i = 0; i < vmCount; i++){
+				vmWeights[i] = Math.max(1, ((VirtualMachine) dcb.vmlist.get(i)).getCharacteristics().getCpus());
+			}
+		}
+
+		long gcd = 0;
+		long total = 0;
+		for (long weight : vmWeights){
+			gcd = gcd(gcd, weight);
+			total += weight;
+		}
+		if (gcd > 1){
+			total = 0;
+			for (int i = 0; i < vmCount; i++){
+				vmWeights[i] /= gcd;
+				total += vmWeights[i];
+			}
+		}
+
+		long maxTurns = (long) MAX_TURNS_PER_VM * vmCount;
+		if (total > maxTurns){
+			double scale = (double) maxTurns / total;
+			total = 0;
+			for (int i = 0; i < vmCount; i++){
+				vmWeights[i] = Math.max(1, Math.round(vmWeights[i] * scale));
+				total += vmWeights[i];
+			}
+		}
+
+		buildCycle((int) total);
 	}
-	
-	static int gcd(int a, int b) 
-    { 
-        // Everything divides 0  
-        if (a == 0) 
-          return b; 
-        if (b == 0) 
-          return a; 
-       
-        // base case 
-        if (a == b) 
-            return a; 
-       
-        // a is greater 
-        if (a > b) 
-            return gcd(a-b, b); 
-        return gcd(a, b-a); 
-    }
-	
-	public void cloudSimEventFired(CloudSimEvent e) {
-		if (e.getId() == CloudSimEvents.EVENT_CLOUDLET_ALLOCATED_TO_VM){
-			int vmId = (Integer) e.getParameter(Constants.PARAM_VM_ID);
-			vmWeights[vmId]--;
-			System.out.println(vmId+" allocated");
-		} else if (e.getId() == CloudSimEvents.EVENT_VM_FINISHED_CLOUDLET){
-
-			int vmId = (Integer) e.getParameter(Constants.PARAM_VM_ID);
-			vmWeights[vmId]++;
-			System.out.println(vmId+" deallocated");
-				
+
+	/**
+	 * Lays out the turns of a cycle, by their ideal times.
+	 */
+	private void buildCycle(int turns) {
+		cycle = new int[turns];
+		nextTurn = 0;
+
+		//Each entry is a VM with its next turn: {vmId, turn}, the turn counting from 1
+		PriorityQueue<long[]> due = new PriorityQueue<long[]>(Math.max(1, vmWeights.length),
+				new Comparator<long[]>(){
+					public int compare(long[] a, long[] b) {
+						//a[1] / w(a) against b[1] / w(b), then the lower VM first
+						long diff = a[1] * vmWeights[(int) b[0]] - b[1] * vmWeights[(int) a[0]];
+						if (diff != 0){
+							return (diff < 0) ? -1 : 1;
+						}
+						return (a[0] < b[0]) ? -1 : ((a[0] == b[0]) ? 0 : 1);
+					}
+				});
+		for (int i = 0; i < vmWeights.length; i++){
+			due.add(new long[]{i, 1});
+		}
+
+		for (int t = 0; t < turns; t++){
+			long[] next = due.poll();
+			int vmId = (int) next[0];
+			cycle[t] = vmId;
+			if (next[1] < vmWeights[vmId]){
+				next[1]++;
+				due.add(next);
 			}
-			
 		}
 	}
+
+	/**
+	 * @return the weight of each VM, as used for the current cycle
+	 */
+	public long[] getVmWeights() {
+		return Arrays.copyOf(vmWeights, vmWeights.length);
+	}
+
+	static long gcd(long a, long b) {
+		while (b != 0){
+			long r = a % b;
+			a = b;
+			b = r;
+		}
+		return a;
+	}
+}
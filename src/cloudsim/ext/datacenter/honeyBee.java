@@ -1,22 +1,17 @@
 package cloudsim.ext.datacenter;
-import java.util.*;
 
-import cloudsim.ext.Constants;
-import cloudsim.ext.event.CloudSimEvent;
-import cloudsim.ext.event.CloudSimEventListener;
-import cloudsim.ext.event.CloudSimEvents;
-
-public class honeyBee extends VmLoadBalancer implements CloudSimEventListener {
+public class honeyBee extends VmLoadBalancer implements VmLoadListener {
 	private int cutoff = 1;
 	private int scoutBee = -1;
-	private Map<Integer, VirtualMachineState> vmStatesList;
-	Map<Integer, Integer> vmAllocationCounts = new HashMap<Integer, Integer> ();
-	Map<Integer, Integer> fitness = new HashMap<Integer, Integer> ();
+	private VmStateTable vmStatesList;
+	/** The number of cloudlets each VM is running, which is its fitness. */
+	private VmLoadIndex fitness;
 	
 	
 	public honeyBee(DatacenterController dcb){
-		this.vmStatesList = dcb.getVmStatesList();
-		dcb.addCloudSimEventListener(this);
+		this.vmStatesList = dcb.getVmStates();
+		this.fitness = dcb.getVmLoadIndex();
+		dcb.addVmLoadListener(this);
 	}
 
 	
@@ -26,42 +21,36 @@ public class honeyBee extends VmLoadBalancer implements CloudSimEventListener {
 		vmId = getScoutBee();
 		scoutBee = vmId;
 		allocatedVm(vmId);
-		System.out.println("allocated "+vmId);
 		return vmId;
 	}
 	
-	public void cloudSimEventFired(CloudSimEvent e) {
-		if (e.getId() == CloudSimEvents.EVENT_CLOUDLET_ALLOCATED_TO_VM){
-			int vmId = (Integer) e.getParameter(Constants.PARAM_VM_ID);
-			int countCloudlets;
-			if(vmAllocationCounts.get(vmId)==null)
-				countCloudlets = 0;
-			else
-				countCloudlets = vmAllocationCounts.get(vmId);
-			vmAllocationCounts.put(vmId,countCloudlets+1);
-			if(vmAllocationCounts.get(vmId)>cutoff)
-				vmStatesList.put(vmId, VirtualMachineState.BUSY);
-		} else if (e.getId() == CloudSimEvents.EVENT_VM_FINISHED_CLOUDLET){
-			int vmId = (Integer) e.getParameter(Constants.PARAM_VM_ID);
-			int countCloudlets = vmAllocationCounts.get(vmId);
-			vmAllocationCounts.put(vmId,countCloudlets-1);
-			if(vmAllocationCounts.get(vmId)<cutoff)
-				vmStatesList.put(vmId, VirtualMachineState.AVAILABLE);
+	//The fitness index is registered before this, so it already holds the new counts
+	public void onAllocated(int vmId) {
+		if(fitness.getLoad(vmId)>cutoff)
+			vmStatesList.updateAvailable(vmId, false);
+	}
+	
+	public void onAllocated(int[] vmIds, int count) {
+		for (int i = 0; i < count; i++){
+			onAllocated(vmIds[i]);
 		}
 	}
+	
+	public void onFinished(int vmId, double serviceTime) {
+		if(fitness.getLoad(vmId)<cutoff)
+			vmStatesList.updateAvailable(vmId, true);
+	}
 		
 	private boolean isSendScoutBees(int scoutBee)
 	{
-		if((vmAllocationCounts.get(scoutBee)==null)||(vmAllocationCounts.get(scoutBee) < cutoff))
-			return false;
-		else
-			return true;
+		return fitness.getLoad(scoutBee) >= cutoff;
 	}
 	
 	/* This will return food source */
 	int getScoutBee()
 	{
-		if(scoutBee==-1)
+		//Start over if there is no scout yet, or its VM has been taken out of service
+		if((scoutBee==-1) || !vmStatesList.contains(scoutBee))
 		{
 			if(vmStatesList.size()>0)
 				return 0;
@@ -91,48 +80,19 @@ public class honeyBee extends VmLoadBalancer implements CloudSimEventListener {
 		return MemorizeBestSource();
 	}
 	
-	// Calculation to get the fitness value of VM
-	void calculation()
-	{
-		  int i;
-		  /*Employed Bee Phase*/
-		  for (i=0;i<vmStatesList.size();i++)
-		  {
-			   if(vmAllocationCounts.get(i)==null)
-				   fitness.put(i, 0);
-			   else
-				   fitness.put(i, calculateFitness(vmAllocationCounts.get(i)));
-		  }
-	}
-	
-	int calculateFitness(int solValue)
-	{
-//		solValue = 1/(1000-solValue);
-		return solValue;	//// tasklength/VM capacity
-	}
-	
-	// Bees went in search & finding all the fitness
+	// Bees went in search & finding all the fitness. The fitness of a VM is the number of
+	// cloudlets it is running, kept up to date by the index, which only has to cover the
+	// VMs created so far.
 	void SendEmployedBees()
 	{
-	  fitness.clear();
-	  calculation();
+	  fitness.ensureVmCount(vmStatesList.size());
 	}
 
 	
-	// By waggle Dance, we are getting best VM available
+	// By waggle Dance, we are getting best VM available: the one with the lowest fitness,
+	// the first one if several have it
 	private int waggleDance() 
 	{
-		int Min, i=0;
-		Min = 0;
-		int global = fitness.get(0);
-		for(i=1;i<vmStatesList.size();i++)
-		{
-				if(fitness.get(i)< global)
-				{
-					global = fitness.get(i);
-					Min = i;
-				}
-		}
-		return Min;
+		return fitness.getLeastLoadedVm();
 	}
 }
\ No newline at end of file
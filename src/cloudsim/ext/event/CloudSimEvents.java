@@ -11,6 +11,7 @@ public interface CloudSimEvents {
 	public static final int EVENT_NEW_COMM_PATH = 3001;
 	public static final int EVENT_CLOUDLET_ALLOCATED_TO_VM = 3002;
 	public static final int EVENT_VM_FINISHED_CLOUDLET = 3003;
+	public static final int EVENT_CLOUDLETS_ALLOCATED_TO_VMS = 3004;
 	
 	final int EVENT_PROGRESS_UPDATE = 4000;
 }
\ No newline at end of file
@@ -117,7 +117,7 @@ private static final String CMD_ABOUT = "About";
 			JPanel simulationScreen = new JPanel();
 			simulationScreen.setLayout(new BorderLayout());
 			JPanel pnl = new JPanel();
-			simulationPanel = new SimulationPanel();
+			simulationPanel = new SimulationPanel(simulation.getEntityRegistry());
 			pnl.add(simulationPanel);
 			simulationScreen.add(pnl, BorderLayout.CENTER);
 			
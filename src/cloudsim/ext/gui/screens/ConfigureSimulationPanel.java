@@ -91,10 +91,6 @@ public class ConfigureSimulationPanel extends JPanel
 	private static final int TABLE_HEIGHT = 80;
 	private static final Dimension TABLE_DIMENSION = new Dimension(650, TABLE_HEIGHT);
 	private static final Dimension BTN_DIMENSION = new Dimension(100, 25);
-	private static final String SIM_FILE_EXTENSION = ".sim";
-	private static final String TIME_UNIT_DAYS = "days";
-	private static final String TIME_UNIT_HOURS = "hours";
-	private static final String TIME_UNIT_MIN = "min";
 	
 	private UserBaseTableModel ubTableModel;
 	private JTable userBasesTable;
@@ -437,9 +433,12 @@ public class ConfigureSimulationPanel extends JPanel
 				Constants.LOAD_BALANCE_WRR,
 				Constants.LOAD_BALANCE_ANT_COLONY,
 				Constants.LOAD_BALANCE_HONEY_COLONY,
-//				Constants.LOAD_BALANCE_PSO,
-				Constants.LOAD_BALANCE_THRESHOLD
-//				Constants.LOAD_BALANCE_SHORTEST_JOB_FIRST
+				Constants.LOAD_BALANCE_PSO,
+				Constants.LOAD_BALANCE_THRESHOLD,
+				Constants.LOAD_BALANCE_LEAST_CONNECTIONS,
+				Constants.LOAD_BALANCE_POWER_OF_CHOICES,
+				Constants.LOAD_BALANCE_SHORTEST_JOB_FIRST,
+				Constants.LOAD_BALANCE_RESPONSE_TIME
 		});
 		cmbLoadBalancingPolicy.setSelectedItem(simulation.getLoadBalancePolicy());
 		cmbLoadBalancingPolicy.setBounds(x, y, compW, compH);
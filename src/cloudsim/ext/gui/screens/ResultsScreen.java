@@ -225,7 +225,7 @@ public class ResultsScreen extends JPanel implements ActionListener {
 					count += m.getCount();
 					rowCount++;
 				} 
-			} else {
+			} else if (!measureName.equals(Constants.UB_SHED_REQUESTS)){
 				String ub = m.getEntityName();
 				long[] avgTimes = hourlyResponseTimes.get(ub);
 				if (avgTimes == null){
@@ -51,7 +51,7 @@ public class SimulationPanel extends JPanel implements CloudSimEventListener {
 	private boolean showBoundaries = false;
 
 	/** Constructor. */
-	public SimulationPanel(){
+	public SimulationPanel(InternetEntitityRegistry interenetEntityRegistry){
 		//File mapFile1 = new File("resources/map1.png");
 		//File mapFile2 = new File("resources/map2.png");
 		InputStream mapFile1 = getClass().getClassLoader().getResourceAsStream("map1.png");
@@ -69,7 +69,6 @@ public class SimulationPanel extends JPanel implements CloudSimEventListener {
 		this.setMaximumSize(dim);
 		this.setMinimumSize(dim);
 
-		InternetEntitityRegistry interenetEntityRegistry = InternetEntitityRegistry.getInstance();
 		internetEntities = interenetEntityRegistry.getInternetEntities();
 		communicationPaths = interenetEntityRegistry.getCommunicationPaths();
 		interenetEntityRegistry.addCloudSimEventListener(this);
@@ -13,6 +13,8 @@ public class SimMeasure implements Comparable<SimMeasure> {
 	private double min;
 	private double max;
 	private double avg;
+	private double p95;
+	private double p99;
 	private int count;
 	
 	
@@ -88,6 +90,30 @@ public class SimMeasure implements Comparable<SimMeasure> {
 	public void setAvg(double avg) {
 		this.avg = avg;
 	}
+	/**
+	 * @return the 95th percentile
+	 */
+	public double getP95() {
+		return p95;
+	}
+	/**
+	 * @param p95 the 95th percentile to set
+	 */
+	public void setP95(double p95) {
+		this.p95 = p95;
+	}
+	/**
+	 * @return the 99th percentile
+	 */
+	public double getP99() {
+		return p99;
+	}
+	/**
+	 * @param p99 the 99th percentile to set
+	 */
+	public void setP99(double p99) {
+		this.p99 = p99;
+	}
 	/**
 	 * @return the type
 	 */
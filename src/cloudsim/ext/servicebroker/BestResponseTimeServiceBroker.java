@@ -1,13 +1,11 @@
 package cloudsim.ext.servicebroker;
 
-import gridsim.GridSim;
-
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import cloudsim.ext.GeoLocatable;
-import cloudsim.ext.InternetCharacteristics;
+import cloudsim.ext.SimulationContext;
 import cloudsim.ext.UserBase;
 import cloudsim.ext.datacenter.DatacenterController;
 
@@ -30,9 +28,9 @@ public class BestResponseTimeServiceBroker extends ServiceProximityServiceBroker
 	private static final int COOL_OFF_TIME = 10 * 60 * 1000;//10 min
 	private Map<String, Integer> allDataCenters;
 	
-	/** No args constructor */
-	public BestResponseTimeServiceBroker() throws Exception {
-		super();
+	/** Constructor */
+	public BestResponseTimeServiceBroker(SimulationContext context) throws Exception {
+		super(context);
 	}
 	
 	@Override
@@ -40,7 +38,7 @@ public class BestResponseTimeServiceBroker extends ServiceProximityServiceBroker
 		super.init();
 		
 		this.allDataCenters = new HashMap<String, Integer>();
-		List<GeoLocatable> allInternetEntities = InternetCharacteristics.getInstance().getAllEntities();
+		List<GeoLocatable> allInternetEntities = internetCharacteristics.getAllEntities();
 		int region;
 		String name;
 		
@@ -59,8 +57,7 @@ public class BestResponseTimeServiceBroker extends ServiceProximityServiceBroker
 		String dest;
 		String closestDc;
 		double coolOffTime = COOL_OFF_TIME;
-		double currTime = GridSim.clock();
-		InternetCharacteristics internetCharacteristics = InternetCharacteristics.getInstance();
+		double currTime = context.clock();
 		
 		//Get the closest DC
 		closestDc = super.getDestination(inquirer);
@@ -90,7 +87,7 @@ public class BestResponseTimeServiceBroker extends ServiceProximityServiceBroker
 					//Adjust the last processing time for this DC to the best recorded for it so far
 					// since it has been idle for a while assume starting processing time of 0
 					lastRecordedProcTime = 0;//bestResponseTimes.get(dc);
-					internetCharacteristics.updateSerivceLatency(dc, lastRecordedProcTime);
+					internetCharacteristics.updateSerivceLatency(dc, lastRecordedProcTime, currTime);
 				}
 								
 				currEstimatedResponseTime = lastRecordedProcTime + nwDelay;								
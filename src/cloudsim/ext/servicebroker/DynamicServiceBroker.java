@@ -5,9 +5,14 @@ import java.util.List;
 import java.util.Map;
 
 import cloudsim.CloudSim;
-import cloudsim.ext.InternetCharacteristics;
+import cloudsim.engine.EventDrivenEntity;
+import cloudsim.ext.Constants;
+import cloudsim.ext.SimulationContext;
 import cloudsim.ext.datacenter.DatacenterController;
+import eduni.simjava.Sim_event;
 import eduni.simjava.Sim_system;
+import cloudsim.ext.util.SimLog;
+import cloudsim.ext.util.SimLog.Category;
 
 /**
  * This class is WIP.
@@ -18,12 +23,14 @@ import eduni.simjava.Sim_system;
 public class DynamicServiceBroker extends ServiceProximityServiceBroker
 											implements CloudAppServiceBroker {
 	
+	private static final double LATENCY_CHECK_INTERVAL = 60000;
+	
 	private Map<String, Double> bestResponseTimes;
 	private Map<String, DatacenterController> dataCenters;
 	private int maxVms = 100;
 	
-	public DynamicServiceBroker(List<DatacenterController> dcbs){
-		super();
+	public DynamicServiceBroker(SimulationContext context, List<DatacenterController> dcbs){
+		super(context);
 		
 		bestResponseTimes = new HashMap<String, Double>();
 		
@@ -46,7 +53,7 @@ public class DynamicServiceBroker extends ServiceProximityServiceBroker
 	}
 	
 	private void checkLatencyStatus(){
-		Map<String, Double[]> serviceLatencies = InternetCharacteristics.getInstance().getServiceLatencies();
+		Map<String, Double[]> serviceLatencies = internetCharacteristics.getServiceLatencies();
 		
 		
 		Double bestSoFar;
@@ -76,7 +83,7 @@ public class DynamicServiceBroker extends ServiceProximityServiceBroker
 	
 	
 	
-	private class StatusChecker extends CloudSim {
+	private class StatusChecker extends CloudSim implements EventDrivenEntity {
 
 		private int count = 0;
 		
@@ -85,14 +92,31 @@ public class DynamicServiceBroker extends ServiceProximityServiceBroker
 		}
 		
 		public void body(){
-			System.out.println("Starting service latency status checker " + count++);
+			SimLog.info(Category.ENTITY, "Starting service latency status checker " + count++);
 			
 			while (Sim_system.running()){
-				sim_pause(60000);
+				sim_pause(LATENCY_CHECK_INTERVAL);
+				reconfigureApp();
+			}
+		}
+		
+		public void startEntity(){
+			SimLog.info(Category.ENTITY, "Starting service latency status checker " + count++);
+			
+			send(get_id(), LATENCY_CHECK_INTERVAL, Constants.LATENCY_CHECK_TIMER_TAG);
+		}
+		
+		public void processEvent(Sim_event ev){
+			if (ev.get_tag() == Constants.LATENCY_CHECK_TIMER_TAG){
 				reconfigureApp();
+				
+				send(get_id(), LATENCY_CHECK_INTERVAL, Constants.LATENCY_CHECK_TIMER_TAG);
 			}
 		}
 		
+		public void shutdownEntity(){
+		}
+		
 	}
 
 }
@@ -7,20 +7,25 @@ import java.util.Map;
 
 import cloudsim.ext.GeoLocatable;
 import cloudsim.ext.InternetCharacteristics;
+import cloudsim.ext.SimulationContext;
 import cloudsim.ext.datacenter.DatacenterController;
 
 public class ServiceProximityServiceBroker implements CloudAppServiceBroker {
 
 	protected Map<Integer, List<String>> regionalDataCenterIndex = null;
+	protected final SimulationContext context;
+	protected final InternetCharacteristics internetCharacteristics;
 	
-	public ServiceProximityServiceBroker(){
+	public ServiceProximityServiceBroker(SimulationContext context){
+		this.context = context;
+		this.internetCharacteristics = context.getInternetCharacteristics();
 		regionalDataCenterIndex = new HashMap<Integer, List<String>>();
 		
 		init();
 	}
 	
 	protected void init(){
-		List<GeoLocatable> allInternetEntities = InternetCharacteristics.getInstance().getAllEntities();
+		List<GeoLocatable> allInternetEntities = internetCharacteristics.getAllEntities();
 		int region;
 		
 		for (GeoLocatable entity : allInternetEntities){
@@ -37,7 +42,7 @@ public class ServiceProximityServiceBroker implements CloudAppServiceBroker {
 	}
 	
 	public String getDestination(GeoLocatable inquirer) {
-		List<Integer> proximityList = InternetCharacteristics.getInstance().getProximityList(inquirer.getRegion());
+		List<Integer> proximityList = internetCharacteristics.getProximityList(inquirer.getRegion());
 		
 		int region;
 		String dcName;
@@ -1,19 +1,18 @@
 package cloudsim.ext.stat;
 
 import cloudsim.ext.Constants;
-import eduni.simjava.Sim_stat;
 
 public class HourlyStat {
 	
-	private Sim_stat stat;
+	private IntervalStat stat;
 	private String measureName;
 	
-	public HourlyStat(Sim_stat stat, String measureName, int measureType){
+	public HourlyStat(IntervalStat stat, String measureName){
 		this.stat = stat;
 		this.measureName = measureName;
 		
 		for (int i = 0; i < 24; i++){
-			stat.add_measure(measureName + Constants.STANDARD_SEPARATOR + i, measureType);
+			stat.addMeasure(measureName + Constants.STANDARD_SEPARATOR + i);
 		}
 	}	
 	
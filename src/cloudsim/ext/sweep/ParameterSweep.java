@@ -0,0 +1,167 @@
+package cloudsim.ext.sweep;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import cloudsim.ext.Constants;
+import cloudsim.ext.Simulation;
+import cloudsim.ext.benchmark.BenchmarkScenario;
+
+/**
+ * Runs a scenario once for each of a list of {@link SweepCell}s, on a fixed number of
+ * worker threads, and writes the results of each run to a {@link SweepTable} as soon as
+ * it completes.
+ *
+ * Runs use the {@link Constants#SIMULATION_ENGINE_EVENT_KERNEL} engine, the only one that
+ * lets several simulations run at the same time. Cells already in the table, from an
+ * earlier sweep writing to the same file, are skipped. A run that fails is reported and
+ * left out of the table, so it is run again when the sweep is resumed.
+ *
+ * Usage: ParameterSweep &lt;output.csv&gt; [workers] [userBases] [dataCenters] [hours]
+ */
+public class ParameterSweep {
+
+	private final ScenarioFactory scenario;
+	private final List<SweepCell> cells;
+	private final int workers;
+	private String simulationEngine = Constants.SIMULATION_ENGINE_EVENT_KERNEL;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param scenario creates the simulation each cell is applied to
+	 * @param cells the settings to run the scenario with
+	 * @param workers number of simulations run at the same time
+	 */
+	public ParameterSweep(ScenarioFactory scenario, List<SweepCell> cells, int workers){
+		this.scenario = scenario;
+		this.cells = cells;
+		this.workers = workers;
+	}
+
+	/**
+	 * Runs every cell that is not already in the table.
+	 *
+	 * @param table the table to write results to
+	 * @return the number of cells that failed
+	 */
+	public int run(final SweepTable table) throws InterruptedException {
+		final AtomicInteger failures = new AtomicInteger();
+		final int total = cells.size();
+
+		List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+		for (final SweepCell cell : cells){
+			if (table.isCompleted(cell)){
+				continue;
+			}
+
+			tasks.add(new Callable<Object>(){
+				public Object call() {
+					try {
+						Simulation simulation = scenario.createSimulation();
+						cell.applyTo(simulation);
+						simulation.setSimulationEngine(simulationEngine);
+						simulation.runSimulation();
+
+						synchronized (table) {
+							table.write(cell, simulation.getResults());
+							System.err.println("Completed " + table.getCompletedCount() + "/" + total + ": " + cell);
+						}
+					} catch (Exception e) {
+						failures.incrementAndGet();
+						System.err.println("Failed " + cell + ": " + e);
+						e.printStackTrace();
+					}
+
+					return null;
+				}
+			});
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(workers);
+		try {
+			List<Future<Object>> futures = executor.invokeAll(tasks);
+			for (Future<Object> f : futures){
+				if (f.isCancelled()){
+					failures.incrementAndGet();
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		return failures.get();
+	}
+
+	/**
+	 * @param simulationEngine the engine to run the simulations on. Runs on engines other
+	 * 		than the Event Kernel are carried out one at a time, whatever the number of workers.
+	 */
+	public void setSimulationEngine(String simulationEngine) {
+		this.simulationEngine = simulationEngine;
+	}
+
+	/**
+	 * Sweeps the load balancing policies offered by the GUI against all service broker
+	 * policies on a {@link BenchmarkScenario}.
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length < 1){
+			System.err.println("Usage: ParameterSweep <output.csv> [workers] [userBases] [dataCenters] [hours]");
+			System.exit(1);
+		}
+
+		File output = new File(args[0]);
+		int workers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		final int userBases = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+		final int dataCenters = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+		final double hours = args.length > 4 ? Double.parseDouble(args[4]) : 3;
+
+		List<SweepCell> cells = SweepCell.crossProduct(
+				Arrays.asList(Constants.LOAD_BALANCE_POLICY_RR,
+							  Constants.LOAD_BALANCE_WRR,
+							  Constants.LOAD_BALANCE_ANT_COLONY,
+							  Constants.LOAD_BALANCE_HONEY_COLONY,
+							  Constants.LOAD_BALANCE_THRESHOLD),
+				Arrays.asList(Constants.BROKER_POLICY_PROXIMITY,
+							  Constants.BROKER_POLICY_OPTIMAL_RESPONSE,
+							  Constants.BROKER_POLICY_DYNAMIC),
+				Arrays.asList(10),
+				Arrays.asList(10),
+				Arrays.asList(100));
+
+		ScenarioFactory scenario = new ScenarioFactory(){
+			public Simulation createSimulation() throws Exception {
+				return BenchmarkScenario.create(userBases, dataCenters, Constants.DEFAULT_VM_COUNT, hours);
+			}
+		};
+
+		SweepTable table;
+		try {
+			table = new SweepTable(output);
+		} catch (IOException e) {
+			System.err.println("Could not open " + output + ": " + e.getMessage());
+			System.exit(1);
+			return;
+		}
+
+		long start = System.nanoTime();
+		int failures = new ParameterSweep(scenario, cells, workers).run(table);
+		table.close();
+
+		System.err.println("cells=" + cells.size()
+						   + " workers=" + workers
+						   + " failures=" + failures
+						   + " wallMs=" + ((System.nanoTime() - start) / 1000000));
+
+		System.exit(failures == 0 ? 0 : 2);
+	}
+}
@@ -0,0 +1,15 @@
+package cloudsim.ext.sweep;
+
+import cloudsim.ext.Simulation;
+
+/**
+ * Creates the simulation a {@link ParameterSweep} applies each {@link SweepCell} to.
+ * A new simulation is needed for every run, so runs on different threads share nothing.
+ */
+public interface ScenarioFactory {
+
+	/**
+	 * @return a new simulation with the user bases, data centers and duration of the scenario
+	 */
+	Simulation createSimulation() throws Exception;
+}
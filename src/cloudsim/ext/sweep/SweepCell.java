@@ -0,0 +1,139 @@
+package cloudsim.ext.sweep;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import cloudsim.ext.Simulation;
+
+/**
+ * One combination of settings in a {@link ParameterSweep}: the load balancing policy,
+ * the service broker policy and the grouping factors and request length the simulation
+ * is run with.
+ */
+public class SweepCell {
+
+	/** Names of the settings, used as column headers. */
+	public static final String[] COLUMNS = { "loadBalancePolicy",
+											 "serviceBrokerPolicy",
+											 "userGroupingFactor",
+											 "dcRequestGroupingFactor",
+											 "instructionLengthPerRequest" };
+
+	private final String loadBalancePolicy;
+	private final String serviceBrokerPolicy;
+	private final int userGroupingFactor;
+	private final int dcRequestGroupingFactor;
+	private final int instructionLengthPerRequest;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param loadBalancePolicy one of the Constants.LOAD_BALANCE_* policies
+	 * @param serviceBrokerPolicy one of the Constants.BROKER_POLICY_* policies
+	 * @param userGroupingFactor users grouped in to a single request
+	 * @param dcRequestGroupingFactor requests grouped in to a single cloudlet by the data centers
+	 * @param instructionLengthPerRequest instructions per request
+	 */
+	public SweepCell(String loadBalancePolicy,
+					 String serviceBrokerPolicy,
+					 int userGroupingFactor,
+					 int dcRequestGroupingFactor,
+					 int instructionLengthPerRequest){
+		this.loadBalancePolicy = loadBalancePolicy;
+		this.serviceBrokerPolicy = serviceBrokerPolicy;
+		this.userGroupingFactor = userGroupingFactor;
+		this.dcRequestGroupingFactor = dcRequestGroupingFactor;
+		this.instructionLengthPerRequest = instructionLengthPerRequest;
+	}
+
+	/**
+	 * Builds the cross product of the given settings. The load balancing policy varies
+	 * slowest and the request length fastest.
+	 */
+	public static List<SweepCell> crossProduct(List<String> loadBalancePolicies,
+											   List<String> serviceBrokerPolicies,
+											   List<Integer> userGroupingFactors,
+											   List<Integer> dcRequestGroupingFactors,
+											   List<Integer> instructionLengths){
+		List<SweepCell> cells = new ArrayList<SweepCell>();
+		for (String lb : loadBalancePolicies){
+			for (String broker : serviceBrokerPolicies){
+				for (Integer ug : userGroupingFactors){
+					for (Integer dg : dcRequestGroupingFactors){
+						for (Integer il : instructionLengths){
+							cells.add(new SweepCell(lb, broker, ug, dg, il));
+						}
+					}
+				}
+			}
+		}
+
+		return cells;
+	}
+
+	/**
+	 * Sets the settings of this cell on a simulation.
+	 */
+	public void applyTo(Simulation simulation){
+		simulation.setLoadBalancePolicy(loadBalancePolicy);
+		simulation.setServiceBrokerPolicy(serviceBrokerPolicy);
+		simulation.setUserGroupingFactor(userGroupingFactor);
+		simulation.setDcRequestGroupingFactor(dcRequestGroupingFactor);
+		simulation.setInstructionLengthPerRequest(instructionLengthPerRequest);
+	}
+
+	/**
+	 * @return the values of the settings, in the order of {@link #COLUMNS}
+	 */
+	public String[] getValues(){
+		return new String[]{ loadBalancePolicy,
+							 serviceBrokerPolicy,
+							 String.valueOf(userGroupingFactor),
+							 String.valueOf(dcRequestGroupingFactor),
+							 String.valueOf(instructionLengthPerRequest) };
+	}
+
+	/**
+	 * @return a key identifying this combination of settings
+	 */
+	public String getKey(){
+		return toKey(getValues());
+	}
+
+	static String toKey(String[] values){
+		StringBuilder key = new StringBuilder();
+		for (int i = 0; i < values.length; i++){
+			if (i > 0){
+				key.append('|');
+			}
+			key.append(values[i]);
+		}
+
+		return key.toString();
+	}
+
+	public String getLoadBalancePolicy() {
+		return loadBalancePolicy;
+	}
+
+	public String getServiceBrokerPolicy() {
+		return serviceBrokerPolicy;
+	}
+
+	public int getUserGroupingFactor() {
+		return userGroupingFactor;
+	}
+
+	public int getDcRequestGroupingFactor() {
+		return dcRequestGroupingFactor;
+	}
+
+	public int getInstructionLengthPerRequest() {
+		return instructionLengthPerRequest;
+	}
+
+	@Override
+	public String toString(){
+		return getKey();
+	}
+}
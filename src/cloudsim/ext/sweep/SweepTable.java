@@ -0,0 +1,190 @@
+package cloudsim.ext.sweep;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import cloudsim.ext.util.ResultsExporter;
+
+/**
+ * The CSV table a {@link ParameterSweep} writes its results to, with one row per value:
+ * the settings of the cell, followed by the columns of {@link ResultsExporter}.
+ *
+ * The rows of a cell are written in one block once its run has completed, after which the
+ * cell's key is appended to a checkpoint file next to the table (<tt>&lt;table&gt;.done</tt>).
+ * When an existing table is opened, rows of cells missing from the checkpoint (left by a
+ * sweep that was stopped while writing them) are dropped, and the checkpointed cells are
+ * reported as completed so they are not run again. The old table is moved aside
+ * (<tt>&lt;table&gt;.old</tt>) while the new one takes its place, and put back if the sweep
+ * was stopped in between.
+ */
+public class SweepTable {
+
+	private static final String LINE_SEPARATOR = "\n";
+
+	private final File tableFile;
+	private final File checkpointFile;
+	/** Where the table is moved while a resumed table takes its place. */
+	private final File previousFile;
+	private final Set<String> completedCells;
+	private Writer table;
+	private Writer checkpoint;
+
+	/**
+	 * Opens a table, resuming from the checkpoint if the table already exists.
+	 *
+	 * @param tableFile the CSV file
+	 */
+	public SweepTable(File tableFile) throws IOException {
+		this.tableFile = tableFile;
+		this.checkpointFile = new File(tableFile.getPath() + ".done");
+		this.previousFile = new File(tableFile.getPath() + ".old");
+		this.completedCells = new HashSet<String>();
+
+		if (!tableFile.exists() && previousFile.exists()){
+			//Stopped while replacing the table on resuming
+			if (!previousFile.renameTo(tableFile)){
+				throw new IOException("Could not restore " + tableFile + " from " + previousFile);
+			}
+		}
+
+		if (tableFile.exists() && checkpointFile.exists()){
+			resume();
+		} else {
+			checkpointFile.delete();
+			table = new BufferedWriter(new FileWriter(tableFile));
+			table.write(ResultsExporter.toCsvLine(header()));
+			table.flush();
+			checkpoint = new BufferedWriter(new FileWriter(checkpointFile));
+		}
+	}
+
+	/**
+	 * @return whether the results of a cell are already in the table
+	 */
+	public synchronized boolean isCompleted(SweepCell cell){
+		return completedCells.contains(cell.getKey());
+	}
+
+	/**
+	 * @return the number of cells in the table
+	 */
+	public synchronized int getCompletedCount(){
+		return completedCells.size();
+	}
+
+	/**
+	 * Writes the results of a cell and checkpoints it.
+	 *
+	 * @param cell the cell
+	 * @param results the results map of the simulation run with the settings of the cell
+	 */
+	public synchronized void write(SweepCell cell, Map<String, Object> results) throws IOException {
+		String[] settings = cell.getValues();
+		StringBuilder block = new StringBuilder();
+
+		for (String[] result : ResultsExporter.toRows(results)){
+			String[] row = new String[settings.length + result.length];
+			System.arraycopy(settings, 0, row, 0, settings.length);
+			System.arraycopy(result, 0, row, settings.length, result.length);
+			block.append(ResultsExporter.toCsvLine(row));
+		}
+
+		table.write(block.toString());
+		table.flush();
+
+		checkpoint.write(cell.getKey() + LINE_SEPARATOR);
+		checkpoint.flush();
+		completedCells.add(cell.getKey());
+	}
+
+	public synchronized void close() throws IOException {
+		table.close();
+		checkpoint.close();
+	}
+
+	/**
+	 * Reads the checkpoint, then rewrites the table without the rows of any cell that is
+	 * not in it, and the checkpoint without any key that was not completely written.
+	 */
+	private void resume() throws IOException {
+		//A key is only complete once its line separator has been written
+		BufferedReader reader = new BufferedReader(new FileReader(checkpointFile));
+		StringBuilder checkpointed = new StringBuilder();
+		char[] buffer = new char[8192];
+		int read;
+		while ((read = reader.read(buffer)) > 0){
+			checkpointed.append(buffer, 0, read);
+		}
+		reader.close();
+
+		int end = checkpointed.lastIndexOf(LINE_SEPARATOR);
+		if (end > 0){
+			for (String key : checkpointed.substring(0, end).split(LINE_SEPARATOR)){
+				if (key.length() > 0){
+					completedCells.add(key);
+				}
+			}
+		}
+
+		List<String> kept = new ArrayList<String>();
+		int settingsCount = SweepCell.COLUMNS.length;
+		int columnCount = settingsCount + ResultsExporter.COLUMNS.length;
+		String line;
+		reader = new BufferedReader(new FileReader(tableFile));
+		reader.readLine();
+		while ((line = reader.readLine()) != null){
+			String[] row = ResultsExporter.parseCsvLine(line);
+			if (row.length == columnCount){
+				String[] settings = new String[settingsCount];
+				System.arraycopy(row, 0, settings, 0, settingsCount);
+				if (completedCells.contains(SweepCell.toKey(settings))){
+					kept.add(line);
+				}
+			}
+		}
+		reader.close();
+
+		//Rewrite to a copy first, so the table survives being stopped again here
+		File copy = new File(tableFile.getPath() + ".tmp");
+		Writer writer = new BufferedWriter(new FileWriter(copy));
+		writer.write(ResultsExporter.toCsvLine(header()));
+		for (String row : kept){
+			writer.write(row + LINE_SEPARATOR);
+		}
+		writer.close();
+		//Moves the old table aside rather than deleting it, so that one of them is always kept
+		previousFile.delete();
+		if (!tableFile.renameTo(previousFile)){
+			throw new IOException("Could not move " + tableFile + " to " + previousFile);
+		}
+		if (!copy.renameTo(tableFile)){
+			throw new IOException("Could not replace " + tableFile + " with " + copy);
+		}
+		previousFile.delete();
+
+		table = new BufferedWriter(new FileWriter(tableFile, true));
+		checkpoint = new BufferedWriter(new FileWriter(checkpointFile));
+		for (String key : completedCells){
+			checkpoint.write(key + LINE_SEPARATOR);
+		}
+		checkpoint.flush();
+	}
+
+	private static String[] header(){
+		String[] header = new String[SweepCell.COLUMNS.length + ResultsExporter.COLUMNS.length];
+		System.arraycopy(SweepCell.COLUMNS, 0, header, 0, SweepCell.COLUMNS.length);
+		System.arraycopy(ResultsExporter.COLUMNS, 0, header, SweepCell.COLUMNS.length, ResultsExporter.COLUMNS.length);
+
+		return header;
+	}
+}
@@ -22,7 +22,7 @@ import cloudsim.ext.gui.utils.CommunicationPath;
 
 /**
  * InternetEntitityRegistry maintains a listing of all Simulation elements in several indexed
- * forms for fast look up.
+ * forms for fast look up. Each {@link cloudsim.ext.Simulation} has its own registry.
  * 
  * @author Bhathiya Wickremasinghe
  *
@@ -35,11 +35,16 @@ public class InternetEntitityRegistry extends BaseCloudSimObservable
 	private Set<CommunicationPath> communicationPaths;
 	private ObservableList<UserBaseUIElement> userBases;
 	private ObservableList<DataCenterUIElement> dataCenters;
-	
-	private static InternetEntitityRegistry instance = null;
 		
+	/**
+	 * Constructor.
+	 * 
+	 * @param userBases the user bases of the simulation, tracked as they change
+	 * @param dataCenters the data centers of the simulation, tracked as they change
+	 */
 	@SuppressWarnings("unchecked")
-	private InternetEntitityRegistry(){
+	public InternetEntitityRegistry(ObservableList<UserBaseUIElement> userBases, 
+									ObservableList<DataCenterUIElement> dataCenters){
 		internetEntities = new HashMap<String, SimulationUIElement>();
 		
 		regionWiseList = new HashMap[Constants.WORLD_REGIONS];
@@ -48,26 +53,12 @@ public class InternetEntitityRegistry extends BaseCloudSimObservable
 		}
 		
 		communicationPaths = new HashSet<CommunicationPath>();
-	}
-	
-	public static InternetEntitityRegistry getInstance(){
-		if (instance == null){
-			throw new RuntimeException("InternetEntityRegistry has not been initialized.");
-		}
 		
-		return instance;
-	}
-	
-	public static void initialize(ObservableList<UserBaseUIElement> userBases, 
-								  ObservableList<DataCenterUIElement> dataCenters){
-		if (instance == null){
-			instance = new InternetEntitityRegistry();
-		}
-		instance.userBases = userBases;
-		instance.dataCenters = dataCenters;
+		this.userBases = userBases;
+		this.dataCenters = dataCenters;
 		
-		userBases.addCloudSimEventListener(instance);
-		dataCenters.addCloudSimEventListener(instance);
+		userBases.addCloudSimEventListener(this);
+		dataCenters.addCloudSimEventListener(this);
 	}
 	
 	private void reset(){
@@ -196,7 +187,10 @@ public class InternetEntitityRegistry extends BaseCloudSimObservable
 		SimulationUIElement dest = internetEntities.get(destName);
 		
 		if ((src != null) && (dest != null)){
-			communicationPaths.add(new CommunicationPath(src, dest));
+			//Data centers in different regions may add paths at the same time, see Simulation.setParallelThreads()
+			synchronized (communicationPaths) {
+				communicationPaths.add(new CommunicationPath(src, dest));
+			}
 		}
 		
 		fireCloudSimEvent(new CloudSimEvent(CloudSimEvents.EVENT_NEW_COMM_PATH));
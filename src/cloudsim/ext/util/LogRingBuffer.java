@@ -0,0 +1,94 @@
+package cloudsim.ext.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded queue of log messages, written by any number of threads and read by one, without
+ * locks. The messages sit in a ring of slots, each with a sequence number telling whose turn
+ * it is: a writer claims the next position with a compare and set on the tail, fills its
+ * slot and then moves the slot's sequence on, which hands it to the reader; the reader
+ * empties the slot and moves the sequence on by the capacity, which hands it back to the
+ * writers for the next round.
+ *
+ * @see SimLog
+ */
+class LogRingBuffer {
+
+	private final int capacity;
+	private final int mask;
+	/** The position each slot is ready to be written for, or that plus one once written. */
+	private final AtomicLongArray sequences;
+	private final AtomicReferenceArray<String> messages;
+	/** The next position to write. */
+	private final AtomicLong tail = new AtomicLong();
+	/** The next position to read, only used by the reader. */
+	private long head = 0;
+
+	/**
+	 * @param capacity the number of slots, rounded up to a power of two
+	 */
+	LogRingBuffer(int capacity){
+		int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+		this.capacity = size;
+		this.mask = size - 1;
+		this.sequences = new AtomicLongArray(size);
+		this.messages = new AtomicReferenceArray<String>(size);
+		for (int i = 0; i < size; i++){
+			sequences.set(i, i);
+		}
+	}
+
+	/**
+	 * Adds a message, from any thread.
+	 *
+	 * @param message the message
+	 * @return false if the buffer is full
+	 */
+	boolean offer(String message){
+		long pos = tail.get();
+		while (true){
+			int slot = (int) (pos & mask);
+			long diff = sequences.get(slot) - pos;
+			if (diff == 0){
+				if (tail.compareAndSet(pos, pos + 1)){
+					messages.lazySet(slot, message);
+					sequences.lazySet(slot, pos + 1);
+					return true;
+				}
+				pos = tail.get();
+			} else if (diff < 0){
+				return false;
+			} else {
+				pos = tail.get();
+			}
+		}
+	}
+
+	/**
+	 * Takes the oldest message, from the reader thread only.
+	 *
+	 * @return the message, or null if there is none, or the oldest one is not written yet
+	 */
+	String poll(){
+		int slot = (int) (head & mask);
+		if (sequences.get(slot) != head + 1){
+			return null;
+		}
+
+		String message = messages.get(slot);
+		messages.lazySet(slot, null);
+		sequences.lazySet(slot, head + capacity);
+		head++;
+
+		return message;
+	}
+
+	/**
+	 * @return the number of messages added so far
+	 */
+	long getWritten(){
+		return tail.get();
+	}
+}
@@ -0,0 +1,308 @@
+package cloudsim.ext.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import cloudsim.ext.Constants;
+import cloudsim.ext.gui.utils.SimMeasure;
+import cloudsim.ext.stat.HourlyEventCounter;
+
+/**
+ * Writes the results map of a {@link cloudsim.ext.Simulation} in machine readable form,
+ * as a long format CSV table or as a JSON document.
+ *
+ * The CSV table has one row per value, with the columns in {@link #COLUMNS}: the results
+ * table the value comes from (UB_STATS, DC_PROCESSING_TIME_STATS, COSTS or DC_METRICS), the
+ * user base or data center, the measure and the statistic (avg, min, max, p95, p99 or count;
+ * value for costs and data center metrics).
+ */
+public class ResultsExporter {
+
+	/** Column headers of the rows returned by {@link #toRows(Map)}. */
+	public static final String[] COLUMNS = { "table", "entity", "measure", "statistic", "value" };
+
+	private static final String LINE_SEPARATOR = "\n";
+	private static final String[] COST_TYPES = { Constants.VM_COST, Constants.DATA_COST, Constants.TOTAL_COST };
+
+	/**
+	 * Converts the results of a simulation to table rows.
+	 *
+	 * @param results the results map of the simulation
+	 * @return the rows, with the columns in {@link #COLUMNS}
+	 */
+	@SuppressWarnings("unchecked")
+	public static List<String[]> toRows(Map<String, Object> results){
+		List<String[]> rows = new ArrayList<String[]>();
+
+		addMeasureRows(rows, Constants.UB_STATS, (Map<String, SimMeasure>) results.get(Constants.UB_STATS));
+		addMeasureRows(rows, Constants.DC_PROCESSING_TIME_STATS,
+					   (Map<String, SimMeasure>) results.get(Constants.DC_PROCESSING_TIME_STATS));
+
+		Map<String, Map<String, Double>> costs = sorted((Map<String, Map<String, Double>>) results.get(Constants.COSTS));
+		for (String dcName : costs.keySet()){
+			Map<String, Double> dcCosts = costs.get(dcName);
+			for (String costType : COST_TYPES){
+				rows.add(new String[]{ Constants.COSTS, dcName, costType, "value", String.valueOf(dcCosts.get(costType)) });
+			}
+		}
+
+		Map<String, Map<String, Double>> metrics = sorted((Map<String, Map<String, Double>>) results.get(Constants.DC_METRICS));
+		for (String dcName : metrics.keySet()){
+			Map<String, Double> dcMetrics = sorted(metrics.get(dcName));
+			for (String metric : dcMetrics.keySet()){
+				rows.add(new String[]{ Constants.DC_METRICS, dcName, metric, "value", String.valueOf(dcMetrics.get(metric)) });
+			}
+		}
+
+		return rows;
+	}
+
+	/**
+	 * Writes the results of a simulation as a CSV table, with a header line.
+	 */
+	public static void writeCsv(Map<String, Object> results, Writer out) throws IOException {
+		out.write(toCsvLine(COLUMNS));
+		for (String[] row : toRows(results)){
+			out.write(toCsvLine(row));
+		}
+		out.flush();
+	}
+
+	/**
+	 * Writes the results of a simulation as a JSON object, with the measures of the user bases
+	 * and data centers as arrays, costs, other data center metrics and hourly arrivals keyed by
+	 * data center, and the given extra values (e.g. run times) in a "run" object.
+	 *
+	 * @param results the results map of the simulation
+	 * @param run extra values describing the run, can be null
+	 * @param out the writer to write to
+	 */
+	@SuppressWarnings("unchecked")
+	public static void writeJson(Map<String, Object> results, Map<String, Object> run, Writer out) throws IOException {
+		StringBuilder json = new StringBuilder();
+		json.append("{\n");
+
+		Date completed = (Date) results.get(Constants.SIMULATION_COMPLETED_TIME);
+		json.append("  \"completedAt\": ").append(completed == null ? "null" : String.valueOf(completed.getTime()));
+
+		json.append(",\n  \"userBases\": ");
+		appendMeasures(json, (Map<String, SimMeasure>) results.get(Constants.UB_STATS));
+		json.append(",\n  \"dataCenterProcessingTimes\": ");
+		appendMeasures(json, (Map<String, SimMeasure>) results.get(Constants.DC_PROCESSING_TIME_STATS));
+
+		json.append(",\n  \"costs\": {");
+		Map<String, Map<String, Double>> costs = sorted((Map<String, Map<String, Double>>) results.get(Constants.COSTS));
+		boolean first = true;
+		for (String dcName : costs.keySet()){
+			json.append(first ? "\n    " : ",\n    ");
+			first = false;
+			appendString(json, dcName).append(": {");
+			for (int i = 0; i < COST_TYPES.length; i++){
+				if (i > 0){
+					json.append(", ");
+				}
+				appendString(json, COST_TYPES[i]).append(": ");
+				appendValue(json, costs.get(dcName).get(COST_TYPES[i]));
+			}
+			json.append("}");
+		}
+		json.append(first ? "}" : "\n  }");
+
+		json.append(",\n  \"dataCenterMetrics\": {");
+		Map<String, Map<String, Double>> metrics = sorted((Map<String, Map<String, Double>>) results.get(Constants.DC_METRICS));
+		first = true;
+		for (String dcName : metrics.keySet()){
+			json.append(first ? "\n    " : ",\n    ");
+			first = false;
+			appendString(json, dcName).append(": {");
+			Map<String, Double> dcMetrics = sorted(metrics.get(dcName));
+			boolean firstMetric = true;
+			for (String metric : dcMetrics.keySet()){
+				if (!firstMetric){
+					json.append(", ");
+				}
+				firstMetric = false;
+				appendString(json, metric).append(": ");
+				appendValue(json, dcMetrics.get(metric));
+			}
+			json.append("}");
+		}
+		json.append(first ? "}" : "\n  }");
+
+		json.append(",\n  \"dataCenterHourlyArrivals\": {");
+		Map<String, HourlyEventCounter> arrivals = sorted((Map<String, HourlyEventCounter>) results.get(Constants.DC_ARRIVAL_STATS));
+		first = true;
+		for (String dcName : arrivals.keySet()){
+			json.append(first ? "\n    " : ",\n    ");
+			first = false;
+			appendString(json, dcName).append(": [");
+			long[] counts = arrivals.get(dcName).getHourlyCount();
+			for (int i = 0; i < counts.length; i++){
+				if (i > 0){
+					json.append(", ");
+				}
+				json.append(counts[i]);
+			}
+			json.append("]");
+		}
+		json.append(first ? "}" : "\n  }");
+
+		if (run != null){
+			json.append(",\n  \"run\": {");
+			first = true;
+			for (String key : run.keySet()){
+				json.append(first ? "\n    " : ",\n    ");
+				first = false;
+				appendString(json, key).append(": ");
+				appendValue(json, run.get(key));
+			}
+			json.append(first ? "}" : "\n  }");
+		}
+
+		json.append("\n}\n");
+		out.write(json.toString());
+		out.flush();
+	}
+
+	/**
+	 * Formats values as a CSV line, quoting values that contain commas or quotes.
+	 */
+	public static String toCsvLine(String[] values){
+		StringBuilder line = new StringBuilder();
+		for (int i = 0; i < values.length; i++){
+			if (i > 0){
+				line.append(',');
+			}
+
+			String v = values[i];
+			if ((v.indexOf(',') >= 0) || (v.indexOf('"') >= 0)){
+				line.append('"').append(v.replace("\"", "\"\"")).append('"');
+			} else {
+				line.append(v);
+			}
+		}
+		line.append(LINE_SEPARATOR);
+
+		return line.toString();
+	}
+
+	/**
+	 * Splits a line written by {@link #toCsvLine(String[])} back in to its values.
+	 */
+	public static String[] parseCsvLine(String line){
+		List<String> values = new ArrayList<String>();
+		StringBuilder value = new StringBuilder();
+		boolean quoted = false;
+		char c;
+		for (int i = 0; i < line.length(); i++){
+			c = line.charAt(i);
+			if (quoted){
+				if (c != '"'){
+					value.append(c);
+				} else if ((i + 1 < line.length()) && (line.charAt(i + 1) == '"')){
+					value.append('"');
+					i++;
+				} else {
+					quoted = false;
+				}
+			} else if (c == '"'){
+				quoted = true;
+			} else if (c == ','){
+				values.add(value.toString());
+				value.setLength(0);
+			} else {
+				value.append(c);
+			}
+		}
+		values.add(value.toString());
+
+		return values.toArray(new String[values.size()]);
+	}
+
+	private static void addMeasureRows(List<String[]> rows, String table, Map<String, SimMeasure> measures){
+		if (measures == null){
+			return;
+		}
+
+		for (SimMeasure m : measures.values()){
+			rows.add(new String[]{ table, m.getEntityName(), m.getName(), "avg", String.valueOf(m.getAvg()) });
+			rows.add(new String[]{ table, m.getEntityName(), m.getName(), "min", String.valueOf(m.getMin()) });
+			rows.add(new String[]{ table, m.getEntityName(), m.getName(), "max", String.valueOf(m.getMax()) });
+			rows.add(new String[]{ table, m.getEntityName(), m.getName(), "p95", String.valueOf(m.getP95()) });
+			rows.add(new String[]{ table, m.getEntityName(), m.getName(), "p99", String.valueOf(m.getP99()) });
+			rows.add(new String[]{ table, m.getEntityName(), m.getName(), "count", String.valueOf(m.getCount()) });
+		}
+	}
+
+	private static void appendMeasures(StringBuilder json, Map<String, SimMeasure> measures){
+		if ((measures == null) || measures.isEmpty()){
+			json.append("[]");
+			return;
+		}
+
+		json.append("[");
+		boolean first = true;
+		for (SimMeasure m : measures.values()){
+			json.append(first ? "\n    {" : ",\n    {");
+			first = false;
+			json.append("\"entity\": ");
+			appendString(json, m.getEntityName());
+			json.append(", \"measure\": ");
+			appendString(json, m.getName());
+			json.append(", \"avg\": ");
+			appendValue(json, m.getAvg());
+			json.append(", \"min\": ");
+			appendValue(json, m.getMin());
+			json.append(", \"max\": ");
+			appendValue(json, m.getMax());
+			json.append(", \"p95\": ");
+			appendValue(json, m.getP95());
+			json.append(", \"p99\": ");
+			appendValue(json, m.getP99());
+			json.append(", \"count\": ").append(m.getCount()).append("}");
+		}
+		json.append("\n  ]");
+	}
+
+	private static void appendValue(StringBuilder json, Object value){
+		if (value == null){
+			json.append("null");
+		} else if (value instanceof Double){
+			double d = (Double) value;
+			json.append((Double.isNaN(d) || Double.isInfinite(d)) ? "null" : String.valueOf(d));
+		} else if ((value instanceof Number) || (value instanceof Boolean)){
+			json.append(value);
+		} else {
+			appendString(json, value.toString());
+		}
+	}
+
+	private static StringBuilder appendString(StringBuilder json, String s){
+		json.append('"');
+		char c;
+		for (int i = 0; i < s.length(); i++){
+			c = s.charAt(i);
+			if ((c == '"') || (c == '\\')){
+				json.append('\\').append(c);
+			} else if (c == '\n'){
+				json.append("\\n");
+			} else if (c < 0x20){
+				json.append(String.format("\\u%04x", (int) c));
+			} else {
+				json.append(c);
+			}
+		}
+
+		return json.append('"');
+	}
+
+	/** Sorts a map by key, so output does not depend on hash order. An absent map is empty. */
+	private static <T> Map<String, T> sorted(Map<String, T> map){
+		return (map == null) ? new TreeMap<String, T>() : new TreeMap<String, T>(map);
+	}
+}
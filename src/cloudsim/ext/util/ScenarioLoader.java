@@ -0,0 +1,74 @@
+package cloudsim.ext.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import cloudsim.ext.Constants;
+import cloudsim.ext.Simulation;
+import cloudsim.ext.gui.DataCenterUIElement;
+import cloudsim.ext.gui.UserBaseUIElement;
+
+/**
+ * Loads a simulation configuration saved by the Configure Simulation screen (a
+ * <tt>.sim</tt> file) in to a {@link Simulation}, without the GUI.
+ *
+ * The file is the XML encoded list written by <tt>ConfigureSimulationPanel</tt>: the user
+ * bases, the data centers, the VM allocations, the duration and its time unit, the user
+ * and DC request grouping factors, the instruction length per request, the service broker
+ * policy and the load balancing policy. The VM allocations are reachable from the data
+ * centers they belong to, so the list entry is not used.
+ */
+public class ScenarioLoader implements Constants {
+
+	private ScenarioLoader(){
+	}
+
+	/**
+	 * Loads a configuration file in to a simulation, replacing its user bases and data
+	 * centers and setting its duration and policies.
+	 *
+	 * @param simFile the configuration file
+	 * @param simulation the simulation to configure
+	 * @throws IOException if the file can not be read or is not a simulation configuration
+	 */
+	@SuppressWarnings("unchecked")
+	public static void load(File simFile, Simulation simulation) throws IOException {
+		List<Object> entities;
+		try {
+			entities = (List<Object>) IOUtil.loadFromXml(simFile);
+		} catch (ClassCastException e) {
+			throw new IOException(simFile + " is not a simulation configuration.");
+		}
+		if ((entities == null) || (entities.size() < 10)){
+			throw new IOException(simFile + " is not a simulation configuration.");
+		}
+
+		try {
+			simulation.getUserBases().replaceContent((List<UserBaseUIElement>) entities.get(0));
+			simulation.getDataCenters().replaceContent((List<DataCenterUIElement>) entities.get(1));
+
+			double simDuration = Double.parseDouble(((String) entities.get(3)).trim());
+			String timeUnit = (String) entities.get(4);
+			if (timeUnit.equals(TIME_UNIT_MIN)){
+				simulation.setSimulationTime(simDuration * MILLI_SECONDS_TO_MINS);
+			} else if (timeUnit.equals(TIME_UNIT_HOURS)) {
+				simulation.setSimulationTime(simDuration * MILLI_SECONDS_TO_HOURS);
+			} else if (timeUnit.equals(TIME_UNIT_DAYS)){
+				simulation.setSimulationTime(simDuration * MILLI_SECONDS_TO_DAYS);
+			} else {
+				throw new IOException("Unknown time unit " + timeUnit + " in " + simFile);
+			}
+
+			simulation.setUserGroupingFactor(Integer.parseInt(((String) entities.get(5)).trim()));
+			simulation.setDcRequestGroupingFactor(Integer.parseInt(((String) entities.get(6)).trim()));
+			simulation.setInstructionLengthPerRequest(Integer.parseInt(((String) entities.get(7)).trim()));
+			simulation.setServiceBrokerPolicy((String) entities.get(8));
+			simulation.setLoadBalancePolicy((String) entities.get(9));
+		} catch (ClassCastException e) {
+			throw new IOException(simFile + " is not a simulation configuration.");
+		} catch (NumberFormatException e) {
+			throw new IOException("Invalid number in " + simFile + ": " + e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,200 @@
+package cloudsim.ext.util;
+
+import java.io.PrintStream;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The log of the simulator. Each message has a {@link Level} and a {@link Category}, and is
+ * only logged if its level is at least the one set for its category, INFO unless set
+ * otherwise, either with {@link #setLevel(Category, Level)} or with the system properties
+ * <tt>cloudsim.log.level</tt> (for all categories) and <tt>cloudsim.log.&lt;category&gt;</tt>,
+ * e.g. <tt>-Dcloudsim.log.loadbalancer=DEBUG</tt> to see the decisions of the load balancers.
+ *
+ * Logging does not wait for the output: the messages go into a {@link LogRingBuffer} and a
+ * background thread writes them to the standard output, in the order they were logged. When
+ * the buffer is full the threads logging wait for the writer, so nothing is lost. Messages
+ * that are frequent, such as the decisions of the load balancers, are logged at DEBUG level,
+ * which is off by default; code logging them checks {@link #isEnabled(Category, Level)}
+ * first, so that no message is built when it is off.
+ *
+ * The levels should be set before a simulation starts. {@link #flush()} waits until all the
+ * messages logged so far are written.
+ */
+public final class SimLog {
+
+	/** The levels of the messages, from the most detailed. */
+	public enum Level {
+		DEBUG, INFO, WARN, ERROR,
+		/** Only used as the level of a category, to log nothing. */
+		OFF
+	}
+
+	/** The parts of the simulator messages come from. */
+	public enum Category {
+		/** The simulation as a whole: starting, finishing. */
+		SIMULATION("simulation"),
+		/** The simulation entities being created, started and finalized. */
+		ENTITY("entity"),
+		/** The data center controllers: VMs, requests. */
+		DATACENTER("datacenter"),
+		/** The decisions of the load balancers. */
+		LOAD_BALANCER("loadbalancer"),
+		/** The Internet and the service brokers. */
+		NETWORK("network");
+
+		private final String name;
+
+		private Category(String name){
+			this.name = name;
+		}
+
+		/**
+		 * @return the name of the category in the system properties
+		 */
+		public String getName(){
+			return name;
+		}
+	}
+
+	private static final int BUFFER_SIZE = 8192;
+	/** How long the writer sleeps for when there is nothing to write, in ns. */
+	private static final long WRITER_SLEEP = 1000000;
+
+	/** The lowest level logged for each category, by ordinal. */
+	private static final int[] thresholds = new int[Category.values().length];
+	private static final LogRingBuffer buffer = new LogRingBuffer(BUFFER_SIZE);
+	/** The number of messages written to the output so far. */
+	private static volatile long written = 0;
+	private static volatile Thread writer;
+
+	static {
+		Level level = parseLevel(System.getProperty("cloudsim.log.level"), Level.INFO);
+		for (Category category : Category.values()){
+			setLevel(category, parseLevel(System.getProperty("cloudsim.log." + category.getName()), level));
+		}
+	}
+
+	private SimLog(){
+	}
+
+	/**
+	 * Sets the lowest level logged for a category.
+	 */
+	public static void setLevel(Category category, Level level){
+		thresholds[category.ordinal()] = level.ordinal();
+	}
+
+	/**
+	 * Sets the lowest level logged for all the categories.
+	 */
+	public static void setLevel(Level level){
+		for (Category category : Category.values()){
+			setLevel(category, level);
+		}
+	}
+
+	/**
+	 * @return true if messages of the given category and level are logged
+	 */
+	public static boolean isEnabled(Category category, Level level){
+		return level.ordinal() >= thresholds[category.ordinal()];
+	}
+
+	/**
+	 * Logs a message, if its category and level are enabled.
+	 */
+	public static void log(Category category, Level level, String message){
+		if (!isEnabled(category, level)){
+			return;
+		}
+
+		if (writer == null){
+			startWriter();
+		}
+		while (!buffer.offer(message)){
+			LockSupport.unpark(writer);
+			Thread.yield();
+		}
+	}
+
+	public static void debug(Category category, String message){
+		log(category, Level.DEBUG, message);
+	}
+
+	public static void info(Category category, String message){
+		log(category, Level.INFO, message);
+	}
+
+	public static void warn(Category category, String message){
+		log(category, Level.WARN, message);
+	}
+
+	public static void error(Category category, String message){
+		log(category, Level.ERROR, message);
+	}
+
+	/**
+	 * Waits until the messages logged so far are written.
+	 */
+	public static void flush(){
+		long target = buffer.getWritten();
+		if (written >= target){
+			return;
+		}
+
+		LockSupport.unpark(writer);
+		while (written < target){
+			Thread.yield();
+		}
+	}
+
+	private static synchronized void startWriter(){
+		if (writer != null){
+			return;
+		}
+
+		writer = new Thread(new Runnable(){
+			public void run() {
+				StringBuilder batch = new StringBuilder();
+				while (true){
+					long count = 0;
+					String message;
+					while ((count < BUFFER_SIZE) && ((message = buffer.poll()) != null)){
+						batch.append(message).append(System.lineSeparator());
+						count++;
+					}
+
+					if (count > 0){
+						PrintStream out = System.out;
+						out.print(batch);
+						out.flush();
+						batch.setLength(0);
+						written += count;
+					} else {
+						LockSupport.parkNanos(WRITER_SLEEP);
+					}
+				}
+			}
+		}, "SimLog writer");
+		writer.setDaemon(true);
+		writer.start();
+
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable(){
+			public void run() {
+				flush();
+			}
+		}, "SimLog flush"));
+	}
+
+	private static Level parseLevel(String name, Level defaultLevel){
+		if (name == null){
+			return defaultLevel;
+		}
+
+		try {
+			return Level.valueOf(name.trim().toUpperCase());
+		} catch (IllegalArgumentException e) {
+			return defaultLevel;
+		}
+	}
+}